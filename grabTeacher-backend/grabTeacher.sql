@@ -83,6 +83,28 @@ INSERT INTO `balance_transactions` VALUES (49,10,'小明',-862132.01,872132.01,1
 /*!40000 ALTER TABLE `balance_transactions` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `booking_request_sessions`
+--
+
+DROP TABLE IF EXISTS `booking_request_sessions`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `booking_request_sessions` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '课次ID，主键自增',
+  `booking_request_id` bigint(20) NOT NULL COMMENT '预约申请ID，关联booking_requests表',
+  `teacher_id` bigint(20) NOT NULL COMMENT '教师ID',
+  `student_id` bigint(20) NOT NULL COMMENT '学生ID',
+  `session_date` date NOT NULL COMMENT '上课日期',
+  `start_time` time NOT NULL COMMENT '开始时间',
+  `end_time` time NOT NULL COMMENT '结束时间',
+  `is_trial` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否为试听课',
+  PRIMARY KEY (`id`),
+  KEY `idx_booking_request_id` (`booking_request_id`),
+  KEY `idx_teacher_date_time` (`teacher_id`,`session_date`,`start_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='待处理预约按日期展开的课次（提交时写入，审批/拒绝/取消后删除）';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `booking_requests`
 --
@@ -120,7 +142,9 @@ CREATE TABLE `booking_requests` (
   `trial_duration_minutes` int(11) DEFAULT NULL COMMENT '试听课时长（分钟）',
   `teaching_location_id` bigint(20) DEFAULT NULL COMMENT '授课地点ID（线下）',
   `teaching_location` varchar(255) DEFAULT '线上' COMMENT '授课地点名称',
-  PRIMARY KEY (`id`)
+  PRIMARY KEY (`id`),
+  KEY `idx_teacher_status_date` (`teacher_id`,`status`,`requested_date`),
+  KEY `idx_student_created` (`student_id`,`created_at`)
 ) ENGINE=InnoDB AUTO_INCREMENT=66 DEFAULT CHARSET=utf8mb4 COMMENT='预约申请表，记录学生的课程预约申请';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -210,6 +234,8 @@ CREATE TABLE `course_evaluation` (
   KEY `idx_teacher_id` (`teacher_id`),
   KEY `idx_student_id` (`student_id`),
   KEY `idx_course_id` (`course_id`),
+  KEY `idx_featured_rating_created` (`is_featured`,`is_deleted`,`rating`,`created_at`),
+  KEY `idx_teacher_featured_rating_created` (`teacher_id`,`is_featured`,`is_deleted`,`rating`,`created_at`),
   CONSTRAINT `fk_course_evaluation_course` FOREIGN KEY (`course_id`) REFERENCES `courses` (`id`) ON DELETE CASCADE,
   CONSTRAINT `fk_course_evaluation_teacher` FOREIGN KEY (`teacher_id`) REFERENCES `teachers` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB AUTO_INCREMENT=32 DEFAULT CHARSET=utf8mb4 COMMENT='课程评价表';
@@ -263,6 +289,9 @@ DROP TABLE IF EXISTS `course_schedules`;
 CREATE TABLE `course_schedules` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '课程安排ID，主键自增',
   `enrollment_id` bigint(20) NOT NULL COMMENT '课程报名ID，关联course_enrollments表',
+  `teacher_id` bigint(20) NOT NULL COMMENT '授课教师ID（冗余自course_enrollments，用于按教师查询）',
+  `student_id` bigint(20) NOT NULL COMMENT '学生ID（冗余自course_enrollments，用于按学生查询）',
+  `is_trial` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否为试听课（冗余自course_enrollments）',
   `scheduled_date` date NOT NULL COMMENT '上课日期',
   `start_time` time NOT NULL COMMENT '开始时间',
   `end_time` time NOT NULL COMMENT '结束时间',
@@ -278,7 +307,9 @@ CREATE TABLE `course_schedules` (
   PRIMARY KEY (`id`),
   KEY `idx_enrollment_id` (`enrollment_id`),
   KEY `idx_scheduled_date` (`scheduled_date`),
-  KEY `idx_teacher_time` (`scheduled_date`,`start_time`,`end_time`)
+  KEY `idx_teacher_time` (`scheduled_date`,`start_time`,`end_time`),
+  KEY `idx_teacher_date_time` (`teacher_id`,`scheduled_date`,`start_time`),
+  KEY `idx_student_date_time` (`student_id`,`scheduled_date`,`start_time`)
 ) ENGINE=InnoDB AUTO_INCREMENT=236 DEFAULT CHARSET=utf8mb4 COMMENT='课程安排表，记录具体的上课时间安排';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -288,7 +319,7 @@ CREATE TABLE `course_schedules` (
 
 LOCK TABLES `course_schedules` WRITE;
 /*!40000 ALTER TABLE `course_schedules` DISABLE KEYS */;
-INSERT INTO `course_schedules` VALUES (234,50,'2025-09-25','17:00:00','17:30:00',1,'cancelled',NULL,NULL,NULL,NULL,'2025-09-19 05:35:05',1,'2025-09-19 05:43:40'),(235,51,'2025-09-29','19:30:00','20:00:00',1,'scheduled',NULL,NULL,NULL,NULL,'2025-09-19 05:44:18',0,NULL);
+INSERT INTO `course_schedules` VALUES (234,50,1,9,1,'2025-09-25','17:00:00','17:30:00',1,'cancelled',NULL,NULL,NULL,NULL,'2025-09-19 05:35:05',1,'2025-09-19 05:43:40'),(235,51,1,9,1,'2025-09-29','19:30:00','20:00:00',1,'scheduled',NULL,NULL,NULL,NULL,'2025-09-19 05:44:18',0,NULL);
 /*!40000 ALTER TABLE `course_schedules` ENABLE KEYS */;
 UNLOCK TABLES;
 
@@ -330,7 +361,8 @@ CREATE TABLE `courses` (
   KEY `idx_courses_status_deleted_created` (`status`,`is_deleted`,`created_at`),
   KEY `idx_courses_teacher_deleted_status` (`teacher_id`,`is_deleted`,`status`),
   KEY `idx_courses_subject_deleted_status` (`subject_id`,`is_deleted`,`status`),
-  KEY `idx_courses_featured_status_deleted_created` (`is_featured`,`status`,`is_deleted`,`created_at`)
+  KEY `idx_courses_featured_status_deleted_created` (`is_featured`,`status`,`is_deleted`,`created_at`),
+  FULLTEXT KEY `ft_course_title` (`title`) /*!50100 WITH PARSER `ngram` */ 
 ) ENGINE=InnoDB AUTO_INCREMENT=59 DEFAULT CHARSET=utf8mb4 COMMENT='课程信息表，存储教师发布的课程详情';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -594,7 +626,8 @@ CREATE TABLE `message` (
   KEY `idx_target_type` (`target_type`),
   KEY `idx_admin_id` (`admin_id`),
   KEY `idx_is_active` (`is_active`),
-  KEY `idx_created_at` (`created_at`)
+  KEY `idx_created_at` (`created_at`),
+  KEY `idx_active_created` (`is_active`,`created_at`)
 ) ENGINE=InnoDB AUTO_INCREMENT=34 DEFAULT CHARSET=utf8mb4 COMMENT='消息表';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -1097,7 +1130,8 @@ CREATE TABLE `teachers` (
   `hourly_rate_text` varchar(255) DEFAULT NULL COMMENT '教师时薪展示文本',
   PRIMARY KEY (`id`),
   UNIQUE KEY `user_id` (`user_id`),
-  KEY `idx_is_featured` (`is_featured`)
+  KEY `idx_is_featured` (`is_featured`),
+  FULLTEXT KEY `ft_teacher_search` (`real_name`,`specialties`,`introduction`) /*!50100 WITH PARSER `ngram` */ 
 ) ENGINE=InnoDB AUTO_INCREMENT=38 DEFAULT CHARSET=utf8mb4 COMMENT='教师详细信息表，存储教师的专业资料和教学信息';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -0,0 +1,24 @@
+-- booking_requests 二级索引 + 待处理预约课次表 booking_request_sessions
+-- 待处理占用查询（按 教师+状态+日期）走索引范围扫描；日历预约按课次展开后按日期定位，
+-- 不再因 MySQL 5.7 无 JSON_TABLE 而每次返回该教师全部日历预约
+-- 存量待处理预约的课次由应用启动时、对外提供服务前同步补齐（BookingRequestSessionService.reconcile）
+
+-- 1) booking_requests 索引：教师待处理冲突检查、学生预约分页
+ALTER TABLE `booking_requests`
+  ADD KEY `idx_teacher_status_date` (`teacher_id`,`status`,`requested_date`),
+  ADD KEY `idx_student_created` (`student_id`,`created_at`);
+
+-- 2) 待处理预约课次表
+CREATE TABLE IF NOT EXISTS `booking_request_sessions` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '课次ID，主键自增',
+  `booking_request_id` bigint(20) NOT NULL COMMENT '预约申请ID，关联booking_requests表',
+  `teacher_id` bigint(20) NOT NULL COMMENT '教师ID',
+  `student_id` bigint(20) NOT NULL COMMENT '学生ID',
+  `session_date` date NOT NULL COMMENT '上课日期',
+  `start_time` time NOT NULL COMMENT '开始时间',
+  `end_time` time NOT NULL COMMENT '结束时间',
+  `is_trial` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否为试听课',
+  PRIMARY KEY (`id`),
+  KEY `idx_booking_request_id` (`booking_request_id`),
+  KEY `idx_teacher_date_time` (`teacher_id`,`session_date`,`start_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='待处理预约按日期展开的课次（提交时写入，审批/拒绝/取消后删除）';
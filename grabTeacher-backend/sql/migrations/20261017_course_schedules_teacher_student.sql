@@ -0,0 +1,24 @@
+-- course_schedules 冗余 teacher_id / student_id / is_trial（来自 course_enrollments）
+-- 教师/学生维度的冲突检查与日程查询改为 course_schedules 单表索引范围扫描，不再为过滤条件关联报名表
+-- 执行前请确认不存在报名记录已被物理删除的孤儿课节，否则第三步 NOT NULL 会失败：
+--   SELECT cs.id FROM course_schedules cs LEFT JOIN course_enrollments ce ON cs.enrollment_id = ce.id WHERE ce.id IS NULL;
+
+-- 1) 新增列（先允许为空以便回填）
+ALTER TABLE `course_schedules`
+  ADD COLUMN `teacher_id` bigint(20) DEFAULT NULL COMMENT '授课教师ID（冗余自course_enrollments，用于按教师查询）' AFTER `enrollment_id`,
+  ADD COLUMN `student_id` bigint(20) DEFAULT NULL COMMENT '学生ID（冗余自course_enrollments，用于按学生查询）' AFTER `teacher_id`,
+  ADD COLUMN `is_trial` tinyint(1) NOT NULL DEFAULT '0' COMMENT '是否为试听课（冗余自course_enrollments）' AFTER `student_id`;
+
+-- 2) 按报名回填
+UPDATE `course_schedules` cs
+  JOIN `course_enrollments` ce ON cs.enrollment_id = ce.id
+SET cs.teacher_id = ce.teacher_id,
+    cs.student_id = ce.student_id,
+    cs.is_trial = COALESCE(ce.is_trial, 0);
+
+-- 3) 收紧约束并建立 教师/学生 + 日期 + 开始时间 索引
+ALTER TABLE `course_schedules`
+  MODIFY COLUMN `teacher_id` bigint(20) NOT NULL COMMENT '授课教师ID（冗余自course_enrollments，用于按教师查询）',
+  MODIFY COLUMN `student_id` bigint(20) NOT NULL COMMENT '学生ID（冗余自course_enrollments，用于按学生查询）',
+  ADD KEY `idx_teacher_date_time` (`teacher_id`,`scheduled_date`,`start_time`),
+  ADD KEY `idx_student_date_time` (`student_id`,`scheduled_date`,`start_time`);
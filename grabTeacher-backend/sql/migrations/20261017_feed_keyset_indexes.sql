@@ -0,0 +1,12 @@
+-- 消息 / 公开评价列表游标分页索引
+-- 游标条件与排序同序，按索引顺序定位到游标后只读取一页，深翻页不再扫描并丢弃 OFFSET 行
+-- 列表总数改由 Redis 计数器提供（FeedCounterService），翻页不再执行 COUNT
+
+-- 1) 消息：激活消息按 (created_at, id) 倒序；InnoDB 二级索引隐含主键 id
+ALTER TABLE `message`
+  ADD KEY `idx_active_created` (`is_active`,`created_at`);
+
+-- 2) 公开评价：精选且未删除，按 (rating, created_at, id) 倒序；全部与按教师两种入口
+ALTER TABLE `course_evaluation`
+  ADD KEY `idx_featured_rating_created` (`is_featured`,`is_deleted`,`rating`,`created_at`),
+  ADD KEY `idx_teacher_featured_rating_created` (`teacher_id`,`is_featured`,`is_deleted`,`rating`,`created_at`);
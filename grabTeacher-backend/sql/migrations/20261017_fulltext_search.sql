@@ -0,0 +1,15 @@
+-- 教师 / 课程关键字检索改走 FULLTEXT 索引（ngram 解析器，支持中文）
+-- 原 LIKE '%kw%' 无法使用索引，每次检索全表扫描 teachers / courses
+-- 依赖 MySQL 5.7.6+；ngram_token_size 保持默认 2（与 FullTextQueryUtil.NGRAM_TOKEN_SIZE 一致），
+-- 单字关键字无法命中 ngram 词元，由应用回退 LIKE
+
+-- 关闭停用词，避免 "a"/"the" 等英文词在教师简介中被忽略（仅影响本会话建索引）
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- 1) 教师：姓名 + 教学特长 + 简介
+ALTER TABLE `teachers`
+  ADD FULLTEXT KEY `ft_teacher_search` (`real_name`,`specialties`,`introduction`) WITH PARSER ngram;
+
+-- 2) 课程：标题
+ALTER TABLE `courses`
+  ADD FULLTEXT KEY `ft_course_title` (`title`) WITH PARSER ngram;
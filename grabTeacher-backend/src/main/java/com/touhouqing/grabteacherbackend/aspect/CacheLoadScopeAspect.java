@@ -0,0 +1,30 @@
+package com.touhouqing.grabteacherbackend.aspect;
+
+import com.touhouqing.grabteacherbackend.cache.CacheLoadScope;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 为 @Cacheable 方法划定缓存加载范围
+ * 优先级最高，位于缓存拦截器外侧：未命中、执行方法、写入都发生在范围内，
+ * 结束时在 finally 中退出范围，方法抛异常时也不会遗留线程变量
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CacheLoadScopeAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object aroundCacheable(ProceedingJoinPoint joinPoint) throws Throwable {
+        CacheLoadScope.enter();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CacheLoadScope.exit();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.touhouqing.grabteacherbackend.aspect;
 
+import com.touhouqing.grabteacherbackend.service.CourseCacheInvalidator;
 import com.touhouqing.grabteacherbackend.service.TeacherCacheWarmupService;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -21,6 +22,11 @@ public class TeacherCacheEvictionAspect {
     @org.springframework.context.annotation.Lazy
     private TeacherCacheWarmupService teacherCacheWarmupService;
 
+    // 课程写操作自行按依赖失效课程缓存与教师列表，这里只处理教师资料变更对课程缓存的影响
+    @Autowired
+    @org.springframework.context.annotation.Lazy
+    private CourseCacheInvalidator courseCacheInvalidator;
+
     /**
      * 教师信息更新后清理缓存
      */
@@ -73,55 +79,11 @@ public class TeacherCacheEvictionAspect {
 
                 // 科目变更会影响科目相关的查询
                 teacherCacheWarmupService.clearAllTeacherCaches();
+                // 课程缓存中展示了教师姓名/级别，只删除引用该教师的条目
+                courseCacheInvalidator.evictTeacher(teacherId);
             }
         } catch (Exception e) {
             log.error("清理教师科目缓存失败", e);
         }
     }
-
-
-
-    /**
-     * 课程创建后清理教师缓存（因为可能影响教师的课程统计）
-     */
-    @AfterReturning(pointcut = "execution(* com.touhouqing.grabteacherbackend.service.impl.CourseServiceImpl.createCourse(..))", 
-                    returning = "result")
-    public void clearCacheAfterCourseCreation(JoinPoint joinPoint, Object result) {
-        try {
-            // 课程创建可能影响教师的课程数量统计，清理相关缓存
-            log.info("课程创建后清理教师相关缓存");
-            teacherCacheWarmupService.clearAllTeacherCaches();
-        } catch (Exception e) {
-            log.error("清理课程创建相关的教师缓存失败", e);
-        }
-    }
-
-    /**
-     * 课程更新后清理教师缓存
-     */
-    @AfterReturning(pointcut = "execution(* com.touhouqing.grabteacherbackend.service.impl.CourseServiceImpl.updateCourse(..))", 
-                    returning = "result")
-    public void clearCacheAfterCourseUpdate(JoinPoint joinPoint, Object result) {
-        try {
-            // 课程更新可能影响教师信息，清理相关缓存
-            log.info("课程更新后清理教师相关缓存");
-            teacherCacheWarmupService.clearAllTeacherCaches();
-        } catch (Exception e) {
-            log.error("清理课程更新相关的教师缓存失败", e);
-        }
-    }
-
-    /**
-     * 课程删除后清理教师缓存
-     */
-    @AfterReturning(pointcut = "execution(* com.touhouqing.grabteacherbackend.service.impl.CourseServiceImpl.deleteCourse(..))")
-    public void clearCacheAfterCourseDeletion(JoinPoint joinPoint) {
-        try {
-            // 课程删除可能影响教师的课程数量统计，清理相关缓存
-            log.info("课程删除后清理教师相关缓存");
-            teacherCacheWarmupService.clearAllTeacherCaches();
-        } catch (Exception e) {
-            log.error("清理课程删除相关的教师缓存失败", e);
-        }
-    }
 }
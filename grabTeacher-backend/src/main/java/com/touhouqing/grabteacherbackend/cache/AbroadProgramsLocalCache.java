@@ -2,15 +2,12 @@ package com.touhouqing.grabteacherbackend.cache;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-/** 本地一级缓存：公开端留学项目 listActive 的预序列化 JSON */
+/** 本地一级缓存：公开端留学项目 listActive 的预压缩 JSON */
 @Component
 public class AbroadProgramsLocalCache {
-    private final Map<String, String> jsonCache = new ConcurrentHashMap<>();
-    public String get(String key) { return jsonCache.get(key); }
-    public void put(String key, String json) { if (key!=null && json!=null) jsonCache.put(key, json); }
-    public void clear() { jsonCache.clear(); }
+    private final LocalJsonCacheRegistry.Region region;
+    public AbroadProgramsLocalCache(LocalJsonCacheRegistry registry) { this.region = registry.region("abroadPrograms"); }
+    public CachedJson get(String key) { return region.get(key); }
+    public CachedJson put(String key, String json) { return region.put(key, json); }
+    public void clear() { region.clear(); }
 }
-
@@ -0,0 +1,66 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 非 sync 的 @Cacheable 加载范围：“读取未命中 → 执行方法 → 写入”在同一线程内完成，
+ * 以未命中时刻到写入时刻的间隔作为加载耗时
+ * - 只在 @Cacheable 调用范围内（见 CacheLoadScopeAspect）记录未命中时刻
+ * - 最外层调用结束时（含方法抛异常、结果不写入缓存）清理线程变量
+ */
+public final class CacheLoadScope {
+
+    // 同一范围内未写入的未命中超过上限时整体丢弃
+    private static final int MAX_PENDING_LOADS = 64;
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private record PendingLoad(String cacheName, Object key) {}
+
+    private static final class Scope {
+        private int depth;
+        private final Map<PendingLoad, Long> pending = new HashMap<>();
+    }
+
+    private CacheLoadScope() {
+    }
+
+    public static void enter() {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            scope = new Scope();
+            CURRENT.set(scope);
+        }
+        scope.depth++;
+    }
+
+    public static void exit() {
+        Scope scope = CURRENT.get();
+        if (scope != null && --scope.depth <= 0) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * 记录未命中时刻；不在加载范围内时忽略
+     */
+    public static void missed(String cacheName, Object key) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return;
+        if (scope.pending.size() >= MAX_PENDING_LOADS) {
+            scope.pending.clear();
+        }
+        scope.pending.put(new PendingLoad(cacheName, key), System.nanoTime());
+    }
+
+    /**
+     * 写入时取出对应未命中的时刻，返回加载耗时（纳秒）；没有对应未命中时返回 -1
+     */
+    public static long completed(String cacheName, Object key) {
+        Scope scope = CURRENT.get();
+        if (scope == null || scope.pending.isEmpty()) return -1;
+        Long start = scope.pending.remove(new PendingLoad(cacheName, key));
+        return start == null ? -1 : System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,180 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按缓存名聚合的缓存指标，注册为 Micrometer 计量器（标签 cache=缓存名）
+ * - 命中/未命中/写入/清除计数由 CacheManager 装饰器在 Cache 层记录，与业务实际看到的行为一致
+ * - 加载耗时（未命中到写入）、Redis 往返耗时、写入值大小发布直方图，经 /actuator/prometheus 抓取
+ * 管理端报告读取同一组计量器，TTL 调整以此为依据
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CacheMeters> meters = new ConcurrentHashMap<>();
+
+    public CacheMeters of(String cacheName) {
+        return meters.computeIfAbsent(cacheName, n -> new CacheMeters(meterRegistry, n));
+    }
+
+    public Map<String, CacheMeters> snapshot() {
+        return new TreeMap<>(meters);
+    }
+
+    /**
+     * 重置：从注册表移除各缓存的计量器，下次记录时重新注册（Prometheus 侧表现为计数器重置）
+     */
+    public void reset() {
+        meters.values().forEach(m -> m.all().forEach(meterRegistry::remove));
+        meters.clear();
+    }
+
+    /**
+     * 单个缓存的计量器
+     */
+    public static class CacheMeters {
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter puts;
+        private final Counter evictions;
+        private final Timer loadLatency;
+        private final Timer redisLatency;
+        private final DistributionSummary valueSize;
+        private final LocalDateTime createdTime = LocalDateTime.now();
+        private volatile LocalDateTime lastAccessTime = createdTime;
+
+        CacheMeters(MeterRegistry registry, String cacheName) {
+            hits = Counter.builder("cache.gets").description("缓存读取次数")
+                    .tags("cache", cacheName, "result", "hit").register(registry);
+            misses = Counter.builder("cache.gets").description("缓存读取次数")
+                    .tags("cache", cacheName, "result", "miss").register(registry);
+            puts = Counter.builder("cache.puts").description("缓存写入次数")
+                    .tag("cache", cacheName).register(registry);
+            evictions = Counter.builder("cache.evictions").description("缓存清除次数")
+                    .tag("cache", cacheName).register(registry);
+            loadLatency = Timer.builder("cache.load.duration").description("未命中后加载耗时")
+                    .tag("cache", cacheName)
+                    .publishPercentiles(PERCENTILES).publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1)).maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+            redisLatency = Timer.builder("cache.redis.duration").description("Redis 往返耗时")
+                    .tag("cache", cacheName)
+                    .publishPercentiles(PERCENTILES).publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1)).maximumExpectedValue(Duration.ofSeconds(5))
+                    .register(registry);
+            valueSize = DistributionSummary.builder("cache.value.size").description("写入值序列化后大小")
+                    .baseUnit(BaseUnits.BYTES).tag("cache", cacheName)
+                    .publishPercentiles(PERCENTILES).publishPercentileHistogram()
+                    .minimumExpectedValue(256.0).maximumExpectedValue(4.0 * 1024 * 1024)
+                    .register(registry);
+        }
+
+        List<Meter> all() {
+            return List.of(hits, misses, puts, evictions, loadLatency, redisLatency, valueSize);
+        }
+
+        public void recordHit() {
+            hits.increment();
+            lastAccessTime = LocalDateTime.now();
+        }
+
+        public void recordMiss() {
+            misses.increment();
+            lastAccessTime = LocalDateTime.now();
+        }
+
+        public void recordPut() {
+            puts.increment();
+        }
+
+        public void recordEviction() {
+            evictions.increment();
+        }
+
+        public void recordLoad(long nanos) {
+            loadLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordRedisRoundTrip(long nanos) {
+            redisLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordValueSize(int bytes) {
+            valueSize.record(bytes);
+        }
+
+        public long getHitCount() { return (long) hits.count(); }
+        public long getMissCount() { return (long) misses.count(); }
+        public long getPutCount() { return (long) puts.count(); }
+        public long getEvictionCount() { return (long) evictions.count(); }
+        public LocalDateTime getCreatedTime() { return createdTime; }
+        public LocalDateTime getLastAccessTime() { return lastAccessTime; }
+
+        public long getTotalRequests() {
+            return getHitCount() + getMissCount();
+        }
+
+        public double getHitRate() {
+            long total = getTotalRequests();
+            return total == 0 ? 0.0 : (double) getHitCount() / total;
+        }
+
+        /**
+         * 加载耗时摘要（毫秒）：count/mean/p50/p95/p99/max
+         */
+        public Map<String, Object> loadLatencySummary() {
+            return summary(loadLatency.takeSnapshot(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Redis 往返耗时摘要（毫秒）
+         */
+        public Map<String, Object> redisLatencySummary() {
+            return summary(redisLatency.takeSnapshot(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 写入值大小摘要（字节）
+         */
+        public Map<String, Object> valueSizeSummary() {
+            return summary(valueSize.takeSnapshot(), null);
+        }
+
+        private static Map<String, Object> summary(HistogramSnapshot snapshot, TimeUnit unit) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", snapshot.count());
+            summary.put("mean", round(unit == null ? snapshot.mean() : snapshot.mean(unit)));
+            for (ValueAtPercentile p : snapshot.percentileValues()) {
+                summary.put("p" + Math.round(p.percentile() * 100), round(unit == null ? p.value() : p.value(unit)));
+            }
+            summary.put("max", round(unit == null ? snapshot.max() : snapshot.max(unit)));
+            return summary;
+        }
+
+        private static double round(double v) {
+            return Math.round(v * 1000) / 1000.0;
+        }
+    }
+}
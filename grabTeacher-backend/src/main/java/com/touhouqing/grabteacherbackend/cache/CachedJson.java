@@ -0,0 +1,151 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 本地缓存中的预压缩 JSON：只在写入时 gzip 一次并计算内容摘要作为 ETag
+ * 客户端接受 gzip 时直接输出压缩字节并带上 Content-Encoding，Tomcat 见到该头不再二次压缩；
+ * 否则解压后输出原文。If-None-Match 与 ETag 一致时返回 304，不带响应体
+ */
+public final class CachedJson {
+
+    // 供响应缓存过滤器在回源时关闭 gzip 输出，以便截获原文
+    public static final String IDENTITY_ONLY_ATTRIBUTE = CachedJson.class.getName() + ".IDENTITY_ONLY";
+
+    private final byte[] gzip;
+    private final int rawLength;
+    private final String etag;
+
+    private CachedJson(byte[] gzip, int rawLength, String etag) {
+        this.gzip = gzip;
+        this.rawLength = rawLength;
+        this.etag = etag;
+    }
+
+    public static CachedJson of(String json) {
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // 压缩与否是同一表示的不同编码，使用弱 ETag
+        return new CachedJson(out.toByteArray(), raw.length, "W/\"" + DigestUtils.md5DigestAsHex(raw) + "\"");
+    }
+
+    public byte[] gzipBytes() {
+        return gzip;
+    }
+
+    public int rawLength() {
+        return rawLength;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public String json() {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 按当前请求的 If-None-Match / Accept-Encoding 输出 304、压缩字节或原文
+     */
+    public ResponseEntity<byte[]> toResponse() {
+        HttpServletRequest request = currentRequest();
+        if (request != null && notModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request != null && acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return builder.body(json().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 直接写出到 Servlet 响应（供过滤器使用，不经过 MVC）
+     */
+    public void writeTo(HttpServletRequest request, HttpServletResponse response, String cacheControl) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (cacheControl != null) response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        // 304 也带上与 200 相同的 Vary
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (notModified(request)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] body;
+        if (acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = gzip;
+        } else {
+            body = json().getBytes(StandardCharsets.UTF_8);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    public boolean notModified(HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) return false;
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if ("*".equals(c) || opaque.equals(opaque(c))) return true;
+        }
+        return false;
+    }
+
+    // If-None-Match 使用弱比较：忽略 W/ 前缀
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs
+                ? attrs.getRequest() : null;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        if (request.getAttribute(IDENTITY_ONLY_ATTRIBUTE) != null) return false;
+        String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (accept == null) return false;
+        for (String part : accept.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) continue;
+            // 显式 q=0 表示拒绝
+            return !(tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?"));
+        }
+        return false;
+    }
+}
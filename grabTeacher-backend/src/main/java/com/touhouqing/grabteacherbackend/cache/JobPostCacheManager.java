@@ -18,6 +18,7 @@ public class JobPostCacheManager {
 
     private static final String LIST_PREFIX = "grabTeacher:jobPosts:list:";
     private static final String INDEX_SUBJECT_PREFIX = "grabTeacher:jobPosts:index:subject:";
+    private static final String INDEX_ADMIN = "grabTeacher:jobPosts:index:admin";
     private static final String LOCK_PREFIX = "grabTeacher:jobPosts:lock:";
 
     public String buildListKey(int page, int size, Long subjectId) {
@@ -47,16 +48,20 @@ public class JobPostCacheManager {
         stringRedisTemplate.opsForSet().add(INDEX_SUBJECT_PREFIX + s, key);
     }
 
-    // 管理端保存（不登记维度索引，统一通过全清策略或按ALL驱逐）
+    // 管理端保存：登记到管理端索引集合，全量驱逐时按索引删除
     public void saveAdminList(String key, Object pageObj, Duration ttl) {
-        redisTemplate.opsForValue().set(key, pageObj, jitter(ttl));
+        Duration t = jitter(ttl);
+        redisTemplate.opsForValue().set(key, pageObj, t);
+        stringRedisTemplate.opsForSet().add(INDEX_ADMIN, key);
+        stringRedisTemplate.expire(INDEX_ADMIN, t.multipliedBy(2));
     }
 
-    // 管理端列表全量驱逐：删除所有 admin 列表缓存键
+    // 管理端列表全量驱逐：按索引 UNLINK 已登记的 admin 列表缓存键（不再使用阻塞的 KEYS）
     public void evictAllAdminLists() {
-        Set<String> keys = stringRedisTemplate.keys(LIST_PREFIX + "admin:*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
+        Set<String> keys = members(INDEX_ADMIN);
+        if (!keys.isEmpty()) {
+            stringRedisTemplate.unlink(keys);
+            stringRedisTemplate.opsForSet().remove(INDEX_ADMIN, keys.toArray());
         }
     }
 
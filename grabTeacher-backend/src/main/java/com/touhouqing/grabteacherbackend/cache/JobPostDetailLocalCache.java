@@ -2,33 +2,31 @@ package com.touhouqing.grabteacherbackend.cache;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
- * 教师招聘详情本地一级缓存（极热Key的JSON预序列化）
- * 不设置TTL，依赖写操作后的精准失效来保证数据新鲜度
+ * 教师招聘详情本地一级缓存（极热Key的预压缩JSON）
+ * 写操作后精准失效并广播到所有节点，限容与最长存活时间由 LocalJsonCacheRegistry 负责
  */
 @Component
 public class JobPostDetailLocalCache {
-    private final Map<Long, String> jsonCache = new ConcurrentHashMap<>();
+    private final LocalJsonCacheRegistry.Region region;
+
+    public JobPostDetailLocalCache(LocalJsonCacheRegistry registry) {
+        this.region = registry.region("jobPostDetail");
+    }
 
-    public String get(Long id) {
-        return jsonCache.get(id);
+    public CachedJson get(Long id) {
+        return id == null ? null : region.get(String.valueOf(id));
     }
 
-    public void put(Long id, String json) {
-        if (id != null && json != null) {
-            jsonCache.put(id, json);
-        }
+    public CachedJson put(Long id, String json) {
+        return region.put(id == null ? null : String.valueOf(id), json);
     }
 
     public void evict(Long id) {
-        if (id != null) jsonCache.remove(id);
+        if (id != null) region.evict(String.valueOf(id));
     }
 
     public void clear() {
-        jsonCache.clear();
+        region.clear();
     }
 }
-
@@ -0,0 +1,179 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 公开端预序列化 JSON 的本地一级缓存框架
+ * - 每个分区按字节预算限容（压缩后大小），超出按访问顺序淘汰（LRU）；条目带最长存活时间兜底
+ * - 值以 gzip 字节保存（见 CachedJson），命中时直接输出
+ * - 失效经 Redis 频道广播 {节点}\n{分区}\n{key 或 *}，所有节点删除本地副本；本节点发出的消息忽略
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalJsonCacheRegistry {
+
+    private static final String INVALIDATE_CHANNEL = "grabTeacher:l1:invalidate";
+    private static final String ALL = "*";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final PublicJsonCacheConfig publicJsonCacheConfig;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribeInvalidation() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+            if (parts.length < 3 || nodeId.equals(parts[0])) return;
+            Region region = regions.get(parts[1]);
+            if (region == null) return;
+            if (ALL.equals(parts[2])) {
+                region.clearLocal();
+            } else {
+                region.evictLocal(parts[2]);
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public Region region(String name) {
+        return region(name, null);
+    }
+
+    /**
+     * maxAge 为空时使用全局配置的最长存活时间
+     */
+    public Region region(String name, Duration maxAge) {
+        return regions.computeIfAbsent(name, n -> new Region(n, maxAge));
+    }
+
+    private void broadcast(String region, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + "\n" + region + "\n" + key);
+        } catch (Exception e) {
+            // 广播失败时其他节点的副本最多陈旧一个最长存活时间
+            log.warn("广播本地缓存失效失败 region={}, key={}", region, key, e);
+        }
+    }
+
+    /**
+     * 单个缓存分区
+     */
+    public class Region {
+
+        private final String name;
+        private final Duration maxAge;
+        private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long totalBytes;
+
+        private record Entry(CachedJson value, long expireAt) {}
+
+        Region(String name, Duration maxAge) {
+            this.name = name;
+            this.maxAge = maxAge;
+        }
+
+        /**
+         * 命中返回预压缩 JSON，未命中或已过期返回 null
+         */
+        public CachedJson get(String key) {
+            if (key == null) return null;
+            synchronized (entries) {
+                Entry e = entries.get(key);
+                if (e == null) return null;
+                if (e.expireAt() < System.currentTimeMillis()) {
+                    remove(key);
+                    return null;
+                }
+                return e.value();
+            }
+        }
+
+        /**
+         * 压缩并写入，返回写入的条目供本次响应直接使用；超过单条上限（预算的 1/4）时只返回不缓存
+         */
+        public CachedJson put(String key, String json) {
+            if (json == null) return null;
+            CachedJson value = CachedJson.of(json);
+            if (key == null) return value;
+            long budget = publicJsonCacheConfig.getLocalMaxBytes();
+            int size = value.gzipBytes().length;
+            if (size > budget / 4) {
+                log.debug("本地缓存条目过大，不缓存 region={}, key={}, bytes={}", name, key, size);
+                return value;
+            }
+            Duration age = maxAge != null ? maxAge : publicJsonCacheConfig.getLocalMaxAge();
+            long expireAt = System.currentTimeMillis() + age.toMillis();
+            synchronized (entries) {
+                remove(key);
+                entries.put(key, new Entry(value, expireAt));
+                totalBytes += size;
+                Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+                while (totalBytes > budget && it.hasNext()) {
+                    Map.Entry<String, Entry> eldest = it.next();
+                    totalBytes -= eldest.getValue().value().gzipBytes().length;
+                    it.remove();
+                }
+            }
+            return value;
+        }
+
+        /**
+         * 删除本地副本并广播给其他节点
+         */
+        public void evict(String key) {
+            if (key == null) return;
+            evictLocal(key);
+            broadcast(name, key);
+        }
+
+        /**
+         * 清空本地分区并广播给其他节点
+         */
+        public void clear() {
+            clearLocal();
+            broadcast(name, ALL);
+        }
+
+        void evictLocal(String key) {
+            synchronized (entries) {
+                remove(key);
+            }
+        }
+
+        void clearLocal() {
+            synchronized (entries) {
+                entries.clear();
+                totalBytes = 0;
+            }
+        }
+
+        public long sizeInBytes() {
+            synchronized (entries) {
+                return totalBytes;
+            }
+        }
+
+        private void remove(String key) {
+            Entry old = entries.remove(key);
+            if (old != null) totalBytes -= old.value().gzipBytes().length;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
+import org.springframework.stereotype.Component;
+
+/**
+ * /api/public/** 匿名 GET 响应的本地缓存（预压缩 JSON + ETag）
+ * 存活时间较短（public.cache.response.ttl），无失效事件的数据（教师级别、授课地点等）以此为陈旧上限；
+ * 课程/科目/留学项目变更后整体清空并广播到所有节点
+ */
+@Component
+public class PublicResponseCache {
+    private final LocalJsonCacheRegistry.Region region;
+
+    public PublicResponseCache(LocalJsonCacheRegistry registry, PublicJsonCacheConfig config) {
+        this.region = registry.region("publicResponses", config.getResponseTtl());
+    }
+
+    public CachedJson get(String key) {
+        return region.get(key);
+    }
+
+    public CachedJson put(String key, String json) {
+        return region.put(key, json);
+    }
+
+    public void clear() {
+        region.clear();
+    }
+}
@@ -0,0 +1,129 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * /api/public/** 匿名 GET 的响应缓存
+ * - 命中时不进入 MVC：按 If-None-Match 返回 304，否则输出预压缩字节（或原文），并带 ETag 与 Cache-Control
+ * - 未命中时截获控制器输出的 JSON 原文，压缩、计算 ETag 后写入本地缓存再输出
+ * - 带 Authorization 的请求（结果可能因用户而异）与健康探针不经过缓存；
+ *   响应带 Vary: Authorization，下游缓存不会把匿名结果用于登录用户
+ * - 只缓存 success=true 的 CommonResult，其他结构与失败结果原样透传
+ * 位于 Spring Security 过滤器链之后，CORS 等响应头照常由安全链写入
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String PUBLIC_PREFIX = "/api/public/";
+    private static final String HEALTH_PREFIX = "/api/public/health";
+
+    private final PublicResponseCache publicResponseCache;
+    private final PublicJsonCacheConfig publicJsonCacheConfig;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !"GET".equals(request.getMethod())
+                || !uri.startsWith(PUBLIC_PREFIX)
+                || uri.startsWith(HEALTH_PREFIX)
+                || StringUtils.hasText(request.getHeader(HttpHeaders.AUTHORIZATION));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        String cacheControl = "public, max-age=" + publicJsonCacheConfig.getResponseMaxAge().toSeconds();
+
+        // 登录学生在同一路径上会拿到个性化结果，匿名响应按 Authorization 区分
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+
+        CachedJson cached = publicResponseCache.get(key);
+        if (cached != null) {
+            cached.writeTo(request, response, cacheControl);
+            return;
+        }
+
+        // 回源：关闭控制器侧的 gzip 输出，截获 JSON 原文
+        request.setAttribute(CachedJson.IDENTITY_ONLY_ATTRIBUTE, Boolean.TRUE);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (isCacheable(wrapper)) {
+            CachedJson entry = publicResponseCache.put(key, new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+            wrapper.resetBuffer();
+            entry.writeTo(request, wrapper, cacheControl);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private boolean isCacheable(ContentCachingResponseWrapper wrapper) {
+        if (wrapper.getStatus() != HttpStatus.OK.value() || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        String contentType = wrapper.getContentType();
+        if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return false;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        return body.length > 0 && isSuccessResult(body);
+    }
+
+    /**
+     * 响应体是否为 success=true 的 CommonResult（部分接口失败时仍返回 200 + success=false）
+     * 只流式扫描顶层字段，不构建整棵树
+     */
+    private boolean isSuccessResult(byte[] body) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("success".equals(field)) {
+                    return value == JsonToken.VALUE_TRUE;
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 路径 + 按参数名排序的查询参数，参数顺序不同的同一查询共用一份缓存
+     */
+    private static String cacheKey(HttpServletRequest request) {
+        Map<String, String[]> params = request.getParameterMap();
+        if (params.isEmpty()) return request.getRequestURI();
+        StringBuilder sb = new StringBuilder(request.getRequestURI()).append('?');
+        new TreeMap<>(params).forEach((name, values) -> {
+            for (String v : values) {
+                sb.append(name).append('=').append(v).append('&');
+            }
+        });
+        return sb.toString();
+    }
+}
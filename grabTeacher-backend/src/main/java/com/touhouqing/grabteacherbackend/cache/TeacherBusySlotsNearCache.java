@@ -0,0 +1,108 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 教师每日忙时的进程内近端缓存（二级缓存的 L1，L2 为 Redis 忙时集合）
+ * - 容量上限按访问顺序淘汰（LRU），条目短 TTL，到期后回源 Redis
+ * - 值为不可变的时段列表，空列表表示该日已加载且无占用
+ * - 任一节点写忙时集合后经 Redis 频道广播 {teacherId}:{date}，各节点删除本地副本
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeacherBusySlotsNearCache {
+
+    private static final String INVALIDATE_CHANNEL = "grabTeacher:busy:invalidate";
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    // 广播丢失（如 Redis 短暂断连）时的陈旧上限
+    private static final long TTL_MILLIS = 5_000L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private record Entry(List<String> slots, long expireAt) {}
+
+    @PostConstruct
+    public void subscribeInvalidation() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            synchronized (entries) {
+                for (String key : body.split(",")) {
+                    entries.remove(key);
+                }
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 命中返回时段列表（可能为空列表），未命中或已过期返回 null
+     */
+    public List<String> get(Long teacherId, LocalDate date) {
+        String key = key(teacherId, date);
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) return null;
+            if (e.expireAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return e.slots();
+        }
+    }
+
+    public void put(Long teacherId, LocalDate date, List<String> slots) {
+        Entry e = new Entry(List.copyOf(slots), System.currentTimeMillis() + TTL_MILLIS);
+        synchronized (entries) {
+            entries.put(key(teacherId, date), e);
+        }
+    }
+
+    /**
+     * 删除本地副本并广播给其他节点
+     */
+    public void invalidate(Long teacherId, Collection<LocalDate> dates) {
+        if (teacherId == null || dates == null || dates.isEmpty()) return;
+        StringJoiner body = new StringJoiner(",");
+        synchronized (entries) {
+            for (LocalDate d : dates) {
+                String key = key(teacherId, d);
+                entries.remove(key);
+                body.add(key);
+            }
+        }
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, body.toString());
+        } catch (Exception e) {
+            // 广播失败时其他节点的副本最多陈旧一个 TTL
+            log.warn("广播忙时近端缓存失效失败 teacherId={}, dates={}", teacherId, dates, e);
+        }
+    }
+
+    private static String key(Long teacherId, LocalDate date) {
+        return teacherId + ":" + date;
+    }
+}
@@ -1,5 +1,6 @@
 package com.touhouqing.grabteacherbackend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,6 +44,22 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * 启动预热专用线程池：并发度即同时执行的预热任务数，与业务异步任务隔离
+     */
+    @Bean(name = "cacheWarmupExecutor")
+    public ThreadPoolTaskExecutor cacheWarmupExecutor(@Value("${cache.warmup.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(64);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("cache-warmup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         // 让 @Async 默认使用上面的 applicationTaskExecutor
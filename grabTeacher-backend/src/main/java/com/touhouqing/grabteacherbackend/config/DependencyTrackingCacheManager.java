@@ -0,0 +1,194 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.touhouqing.grabteacherbackend.model.vo.CourseVO;
+import com.touhouqing.grabteacherbackend.service.CourseCacheInvalidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 带依赖登记的 CacheManager 装饰器
+ * - 课程类缓存写入时，从值中提取课程/教师/科目ID，从 key 推导结果所属的查询范围，登记到依赖集合
+ * - 失效由 CourseCacheInvalidator 按依赖集合精确删除，其余缓存原样透传
+ */
+@Slf4j
+class DependencyTrackingCacheManager implements CacheManager {
+
+    // 只匹配以 ':' 分隔的完整 key 段，避免命中 keyword 等文本中的同名片段
+    private static final Pattern TEACHER_ID = Pattern.compile("(?:^|:)teacher_(\\d+)(?=:|$)");
+    private static final Pattern SUBJECT_ID = Pattern.compile("(?:^|:)subject_(\\d+)(?=:|$)");
+    private static final String KEYWORD_SEGMENT = ":keyword_";
+
+    /**
+     * 缓存名 → 范围类型：list 按 key 中的教师/科目筛选推导，teacher 为教师课程，all 为全量列表，featured 为精选列表
+     */
+    private static final Map<String, String> TRACKED_CACHES = Map.of(
+            "course", "none",
+            "courseList", "list",
+            "teacherCourses", "teacher",
+            "activeCoursesAll", "all",
+            "activeCoursesLimited", "all",
+            "featuredCourses", "featured",
+            "allFeaturedCourses", "featured");
+
+    private final CacheManager delegate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConcurrentMap<String, Cache> trackingCaches = new ConcurrentHashMap<>();
+
+    DependencyTrackingCacheManager(CacheManager delegate, StringRedisTemplate stringRedisTemplate) {
+        this.delegate = delegate;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null || !TRACKED_CACHES.containsKey(name)) {
+            return cache;
+        }
+        return trackingCaches.computeIfAbsent(name, n -> new TrackingCache(cache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private void track(String cacheName, Object key, Object value) {
+        if (value == null) return;
+        try {
+            Set<String> deps = new LinkedHashSet<>();
+            collectContentDeps(value, deps);
+            collectScopeDeps(cacheName, String.valueOf(key), deps);
+            CourseCacheInvalidator.register(stringRedisTemplate, cacheName, key, deps);
+        } catch (Exception e) {
+            // 登记失败仅影响精确失效，缓存自身 TTL 兜底
+            log.warn("登记缓存依赖失败 cache={}, key={}", cacheName, key, e);
+        }
+    }
+
+    private static void collectContentDeps(Object value, Set<String> deps) {
+        if (value instanceof IPage<?> page) {
+            page.getRecords().forEach(v -> collectContentDeps(v, deps));
+        } else if (value instanceof Collection<?> list) {
+            list.forEach(v -> collectContentDeps(v, deps));
+        } else if (value instanceof CourseVO vo) {
+            if (vo.getId() != null) deps.add(CourseCacheInvalidator.courseDep(vo.getId()));
+            if (vo.getTeacherId() != null) deps.add(CourseCacheInvalidator.teacherDep(vo.getTeacherId()));
+            if (vo.getSubjectId() != null) deps.add(CourseCacheInvalidator.subjectDep(vo.getSubjectId()));
+        }
+    }
+
+    private static void collectScopeDeps(String cacheName, String key, Set<String> deps) {
+        switch (TRACKED_CACHES.get(cacheName)) {
+            case "list" -> {
+                // 按教师筛选的列表只受该教师课程增删影响；其次按科目；都没有则为全量范围
+                // 关键字为任意文本，可能伪造出 teacher_/subject_ 段，带关键字的 key 一律按全量范围登记
+                Matcher t = TEACHER_ID.matcher(key);
+                Matcher s = SUBJECT_ID.matcher(key);
+                if (key.contains(KEYWORD_SEGMENT)) {
+                    deps.add(CourseCacheInvalidator.allScope());
+                } else if (t.find()) {
+                    deps.add(CourseCacheInvalidator.teacherScope(Long.valueOf(t.group(1))));
+                } else if (s.find()) {
+                    deps.add(CourseCacheInvalidator.subjectScope(Long.valueOf(s.group(1))));
+                } else {
+                    deps.add(CourseCacheInvalidator.allScope());
+                }
+            }
+            case "teacher" -> {
+                Matcher t = TEACHER_ID.matcher(key);
+                deps.add(t.find() ? CourseCacheInvalidator.teacherScope(Long.valueOf(t.group(1))) : CourseCacheInvalidator.allScope());
+            }
+            case "all" -> deps.add(CourseCacheInvalidator.allScope());
+            case "featured" -> deps.add(CourseCacheInvalidator.featuredScope());
+            default -> { }
+        }
+    }
+
+    private class TrackingCache implements Cache {
+
+        private final Cache target;
+
+        TrackingCache(Cache target) {
+            this.target = target;
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return target.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return target.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            // sync=true 的 @Cacheable 走此路径，在加载值时登记依赖
+            return target.get(key, () -> {
+                T value = valueLoader.call();
+                track(getName(), key, value);
+                return value;
+            });
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(key, value);
+            track(getName(), key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = target.putIfAbsent(key, value);
+            if (existing == null) {
+                track(getName(), key, value);
+            }
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            return target.evictIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+        }
+
+        @Override
+        public boolean invalidate() {
+            return target.invalidate();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 带键登记的 RedisCacheWriter 装饰器
+ * - 对按教师维度失效的缓存（teacherSchedule/teacherAvailability），每次写入时把完整 key 登记到教师索引集合
+ * - 失效时由 CacheKeyEvictor 读取索引集合精确删除，不再全库 SCAN
+ */
+@Slf4j
+class IndexedRedisCacheWriter implements RedisCacheWriter {
+
+    private static final Pattern TEACHER_ID = Pattern.compile(":teacher_(\\d+):");
+
+    // 索引集合 TTL 覆盖被登记缓存的最长 TTL（含抖动），每次登记续期
+    private static final Duration INDEX_TTL = Duration.ofMinutes(10);
+
+    private final RedisCacheWriter delegate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Set<String> indexedCacheNames;
+
+    IndexedRedisCacheWriter(RedisCacheWriter delegate, StringRedisTemplate stringRedisTemplate, Set<String> indexedCacheNames) {
+        this.delegate = delegate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.indexedCacheNames = indexedCacheNames;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return delegate.get(name, key);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return delegate.get(name, key, ttl);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Supplier<byte[]> valueLoader, Duration ttl, boolean timeToIdleEnabled) {
+        // sync=true 的 @Cacheable 走此路径，由底层 writer 直接写入；在加载值时登记 key
+        return delegate.get(name, key, () -> {
+            byte[] value = valueLoader.get();
+            register(name, key);
+            return value;
+        }, ttl, timeToIdleEnabled);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return delegate.retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        delegate.put(name, key, value, ttl);
+        register(name, key);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        return delegate.store(name, key, value, ttl).thenRun(() -> register(name, key));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        byte[] existing = delegate.putIfAbsent(name, key, value, ttl);
+        if (existing == null) {
+            register(name, key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new IndexedRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector),
+                stringRedisTemplate, indexedCacheNames);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    private void register(String name, byte[] key) {
+        if (!indexedCacheNames.contains(name)) return;
+        String fullKey = new String(key, StandardCharsets.UTF_8);
+        Matcher m = TEACHER_ID.matcher(fullKey);
+        if (!m.find()) return;
+        try {
+            Long teacherId = Long.valueOf(m.group(1));
+            CacheKeyEvictor.registerKey(stringRedisTemplate, CacheKeyEvictor.teacherKeyIndex(teacherId), fullKey, INDEX_TTL);
+        } catch (Exception e) {
+            // 登记失败仅影响精确失效，缓存自身 TTL 兜底
+            log.warn("登记缓存键索引失败 cache={}, key={}", name, fullKey, e);
+        }
+    }
+}
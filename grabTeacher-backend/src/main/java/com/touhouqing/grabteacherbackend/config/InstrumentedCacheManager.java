@@ -0,0 +1,163 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.touhouqing.grabteacherbackend.cache.CacheLoadScope;
+import com.touhouqing.grabteacherbackend.cache.CacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 带指标记录的 CacheManager 装饰器（最外层）
+ * - 在 Cache 层记录命中/未命中/写入/清除，反映 @Cacheable 等注解实际看到的结果
+ * - sync=true 的加载直接计时；非 sync 路径由 CacheLoadScope 以未命中到写入的间隔计时
+ */
+class InstrumentedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheMetrics cacheMetrics;
+    private final ConcurrentMap<String, Cache> instrumentedCaches = new ConcurrentHashMap<>();
+
+    InstrumentedCacheManager(CacheManager delegate, CacheMetrics cacheMetrics) {
+        this.delegate = delegate;
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        return instrumentedCaches.computeIfAbsent(name, n -> new InstrumentedCache(cache, cacheMetrics));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private static class InstrumentedCache implements Cache {
+
+        private final Cache target;
+        private final CacheMetrics cacheMetrics;
+
+        InstrumentedCache(Cache target, CacheMetrics cacheMetrics) {
+            this.target = target;
+            this.cacheMetrics = cacheMetrics;
+        }
+
+        // 每次按名称取计量器：重置统计后使用重新注册的计量器
+        private CacheMetrics.CacheMeters meters() {
+            return cacheMetrics.of(target.getName());
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            ValueWrapper wrapper = target.get(key);
+            recordLookup(key, wrapper != null);
+            return wrapper;
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            T value = target.get(key, type);
+            recordLookup(key, value != null);
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            boolean[] loaded = new boolean[1];
+            T value = target.get(key, () -> {
+                loaded[0] = true;
+                long start = System.nanoTime();
+                try {
+                    return valueLoader.call();
+                } finally {
+                    meters().recordLoad(System.nanoTime() - start);
+                }
+            });
+            if (loaded[0]) {
+                meters().recordMiss();
+                meters().recordPut();
+            } else {
+                meters().recordHit();
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(key, value);
+            meters().recordPut();
+            completePendingLoad(key);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = target.putIfAbsent(key, value);
+            if (existing == null) {
+                meters().recordPut();
+            }
+            completePendingLoad(key);
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+            meters().recordEviction();
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            // RedisCache 不区分键是否存在（恒返回 false），与 evict 一样按一次清除记录
+            boolean evicted = target.evictIfPresent(key);
+            meters().recordEviction();
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+            meters().recordEviction();
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = target.invalidate();
+            meters().recordEviction();
+            return invalidated;
+        }
+
+        private void recordLookup(Object key, boolean hit) {
+            if (hit) {
+                meters().recordHit();
+                return;
+            }
+            meters().recordMiss();
+            CacheLoadScope.missed(getName(), key);
+        }
+
+        private void completePendingLoad(Object key) {
+            long nanos = CacheLoadScope.completed(getName(), key);
+            if (nanos >= 0) {
+                meters().recordLoad(nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.touhouqing.grabteacherbackend.cache.CacheMetrics;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 记录 Redis 往返耗时与写入值大小的 RedisCacheWriter 装饰器
+ * 位于序列化之后、网络调用外侧：耗时只含 Redis 命令本身，值大小即实际写入的字节数
+ */
+class MeteredRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+    private final CacheMetrics cacheMetrics;
+
+    MeteredRedisCacheWriter(RedisCacheWriter delegate, CacheMetrics cacheMetrics) {
+        this.delegate = delegate;
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        long start = System.nanoTime();
+        try {
+            return delegate.get(name, key);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        long start = System.nanoTime();
+        try {
+            return delegate.get(name, key, ttl);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Supplier<byte[]> valueLoader, Duration ttl, boolean timeToIdleEnabled) {
+        // 加载耗时由 Cache 层记录，这里扣除加载部分只记 Redis 往返
+        long[] loadNanos = new long[1];
+        long start = System.nanoTime();
+        try {
+            return delegate.get(name, key, () -> {
+                long loadStart = System.nanoTime();
+                try {
+                    byte[] value = valueLoader.get();
+                    if (value != null) cacheMetrics.of(name).recordValueSize(value.length);
+                    return value;
+                } finally {
+                    loadNanos[0] = System.nanoTime() - loadStart;
+                }
+            }, ttl, timeToIdleEnabled);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start - loadNanos[0]);
+        }
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        long start = System.nanoTime();
+        return delegate.retrieve(name, key, ttl)
+                .whenComplete((v, e) -> cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start));
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        cacheMetrics.of(name).recordValueSize(value.length);
+        long start = System.nanoTime();
+        try {
+            delegate.put(name, key, value, ttl);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        cacheMetrics.of(name).recordValueSize(value.length);
+        long start = System.nanoTime();
+        return delegate.store(name, key, value, ttl)
+                .whenComplete((v, e) -> cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start));
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        cacheMetrics.of(name).recordValueSize(value.length);
+        long start = System.nanoTime();
+        try {
+            return delegate.putIfAbsent(name, key, value, ttl);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        long start = System.nanoTime();
+        try {
+            delegate.remove(name, key);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        long start = System.nanoTime();
+        try {
+            delegate.clean(name, pattern);
+        } finally {
+            cacheMetrics.of(name).recordRedisRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new MeteredRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), cacheMetrics);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+}
@@ -21,5 +21,19 @@ public class PublicJsonCacheConfig {
 
     @Value("${public.cache.ttl.featured-teachers:PT20M}")
     private Duration featuredTeachersTtl;
+
+    // 本地一级缓存：每个分区的字节预算（gzip 后）与条目最长存活时间（广播丢失时的陈旧上限）
+    @Value("${public.cache.local.max-bytes:8388608}")
+    private long localMaxBytes;
+
+    @Value("${public.cache.local.max-age:PT10M}")
+    private Duration localMaxAge;
+
+    // /api/public/** 响应缓存：本地存活时间与下发给客户端/反向代理的 Cache-Control max-age
+    @Value("${public.cache.response.ttl:PT60S}")
+    private Duration responseTtl;
+
+    @Value("${public.cache.response.max-age:PT30S}")
+    private Duration responseMaxAge;
 }
 
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.touhouqing.grabteacherbackend.cache.CacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
@@ -16,9 +17,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -26,6 +29,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -83,7 +87,7 @@ public class RedisConfiguration {
      */
     @Bean
     @Primary
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, CacheMetrics cacheMetrics) {
         // 创建优化的JSON序列化器
         GenericJackson2JsonRedisSerializer jsonSerializer = createOptimizedJsonSerializer();
 
@@ -98,14 +102,36 @@ public class RedisConfiguration {
         // 针对不同业务场景的缓存配置
         Map<String, RedisCacheConfiguration> cacheConfigurations = createCacheConfigurations(jsonSerializer);
 
-        RedisCacheManager cacheManager = RedisCacheManager.builder(redisConnectionFactory)
+        // 按教师维度失效的缓存在写入时登记 key，失效时按索引精确删除
+        // 最内层记录 Redis 往返耗时与值大小，不含索引登记等附加命令
+        RedisCacheWriter cacheWriter = new IndexedRedisCacheWriter(
+                new MeteredRedisCacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory), cacheMetrics),
+                stringRedisTemplate(redisConnectionFactory),
+                Set.of("teacherSchedule", "teacherAvailability"));
+
+        RedisCacheManager cacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .transactionAware() // 支持事务
                 .build();
+        // 外层装饰器才是容器中的 Bean，需手动初始化以加载上面的分缓存配置
+        cacheManager.afterPropertiesSet();
 
         log.info("RedisCacheManager配置完成，支持{}种缓存策略", cacheConfigurations.size());
-        return cacheManager;
+        // 课程类缓存写入时登记依赖，写操作按依赖精确失效；最外层按缓存名记录命中/未命中/写入/清除与加载耗时
+        return new InstrumentedCacheManager(
+                new DependencyTrackingCacheManager(cacheManager, stringRedisTemplate(redisConnectionFactory)), cacheMetrics);
+    }
+
+    /**
+     * Redis 发布订阅监听容器
+     * 供锁释放通知等跨实例事件使用，各订阅方自行注册频道
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
     }
 
     @Bean
@@ -254,12 +280,7 @@ public class RedisConfiguration {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
                 .computePrefixWith(cacheName -> "grabTeacher:teacherSchedule:"));
 
-        // 教师月度基础段状态缓存 - 基础 5 分钟 TTL + 0~10% 抖动
-        configs.put("teacherMonthlyCalendar", RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(jitter(Duration.ofMinutes(5)))
-                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(stringSerializer))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
-                .computePrefixWith(cacheName -> "grabTeacher:teacherMonthlyCalendar:"));
+        // 教师月度基础段状态由 CalendarServiceImpl 物化维护（grabTeacher:teacherMonthlyCalendar:），不走 Spring Cache
 
 
         // 教师可用性缓存 - 基础 3 分钟 TTL + 0~10% 抖动
@@ -276,6 +297,13 @@ public class RedisConfiguration {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
                 .computePrefixWith(cacheName -> "grabTeacher:teacherAvailableTime:"));
 
+        // 消息列表首页（按受众 + 页大小）- 10 分钟 TTL，消息写操作后整体清除
+        configs.put("messageFeed", RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(10))
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(stringSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
+                .computePrefixWith(cacheName -> "grabTeacher:messageFeed:"));
+
         // 公共：管理员联系方式 - 30 分钟 TTL（变化极少）
         configs.put("public:adminContacts", RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
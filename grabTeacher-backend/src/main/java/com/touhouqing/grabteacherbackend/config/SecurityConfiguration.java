@@ -3,6 +3,7 @@ package com.touhouqing.grabteacherbackend.config;
 import com.touhouqing.grabteacherbackend.security.CustomUserDetailsService;
 import com.touhouqing.grabteacherbackend.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,6 +33,13 @@ public class SecurityConfiguration {
     @Autowired
     CustomUserDetailsService customUserDetailsService;
 
+    // 监控端点独立端口（仅绑定内网地址），未配置或与业务端口相同时不做端口放行
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     // CORS配置已移至nginx处理，这些环境变量暂时保留但不使用
     // @Value("${cors.allowed-origins}")
     // private String allowedOrigins;
@@ -80,9 +88,13 @@ public class SecurityConfiguration {
                 .requestMatchers("/api/courses/public/**").permitAll()
                 .requestMatchers("/api/job-posts/public/**").permitAll()
                 .requestMatchers("/api/teacher/list").permitAll()
+                .requestMatchers("/api/teacher/search").permitAll()
                 .requestMatchers("/api/teacher/*/public").permitAll()
                 .requestMatchers("/api/teacher/*").permitAll()
                 .requestMatchers("/error").permitAll()
+                // 指标抓取只在内网管理端口放行（Prometheus 不携带 JWT），业务端口不提供监控端点
+                .requestMatchers(request -> managementPort > 0 && managementPort != serverPort
+                        && request.getLocalPort() == managementPort).permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 .anyRequest().authenticated()
             )
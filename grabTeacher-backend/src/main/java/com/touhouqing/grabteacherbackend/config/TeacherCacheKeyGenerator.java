@@ -171,7 +171,10 @@ public class TeacherCacheKeyGenerator implements KeyGenerator {
         }
 
         String finalKey = key.toString();
-        return finalKey.length() > MAX_KEY_LENGTH ? generateHashKey(finalKey) : finalKey;
+        // 过长时仅对参数部分取哈希，保留教师前缀以便按教师索引失效
+        return finalKey.length() > MAX_KEY_LENGTH
+                ? "teacherAvailability:teacher_" + (params[0] != null ? params[0] : "null") + ":" + generateHashKey(finalKey)
+                : finalKey;
     }
 
     /**
@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -39,5 +40,23 @@ public class AvailabilityController {
         DayAvailabilityVO vo = availabilityService.getDayAvailability(teacherId, date, segment);
         return ResponseEntity.ok(CommonResult.success("获取成功", vo));
     }
-}
 
+    @GetMapping("/range")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "获取日期区间的可选性", description = "按天返回基础2小时段与30分钟试听段的可用性，整个区间一次加载，最多31天")
+    @ApiResponses({})
+    public ResponseEntity<CommonResult<List<DayAvailabilityVO>>> getRangeAvailability(
+            @Parameter(description = "教师ID", required = true) @RequestParam @NotNull Long teacherId,
+            @Parameter(description = "开始日期", required = true) @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束日期（含）", required = true) @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "时间分段: morning/afternoon/evening，可选", required = false) @RequestParam(required = false) String segment
+    ) {
+        try {
+            List<DayAvailabilityVO> list = availabilityService.getRangeAvailability(teacherId, startDate, endDate, segment);
+            return ResponseEntity.ok(CommonResult.success("获取成功", list));
+        } catch (RuntimeException e) {
+            log.warn("获取区间可选性失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(CommonResult.error(e.getMessage()));
+        }
+    }
+}
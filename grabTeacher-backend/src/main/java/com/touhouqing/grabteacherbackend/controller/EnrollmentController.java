@@ -1,6 +1,7 @@
 package com.touhouqing.grabteacherbackend.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.touhouqing.grabteacherbackend.event.TeacherScheduleChangedEvent;
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
 import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
 import com.touhouqing.grabteacherbackend.mapper.CourseMapper;
@@ -19,12 +20,13 @@ import com.touhouqing.grabteacherbackend.model.vo.SuspendedEnrollmentVO;
 import com.touhouqing.grabteacherbackend.security.UserPrincipal;
 import com.touhouqing.grabteacherbackend.service.StudentService;
 import com.touhouqing.grabteacherbackend.service.BookingService;
-import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
-import com.touhouqing.grabteacherbackend.service.TeacherScheduleCacheService;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService;
+import com.touhouqing.grabteacherbackend.service.CalendarService;
 import com.touhouqing.grabteacherbackend.util.TimeSlotUtil;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -64,9 +66,11 @@ public class EnrollmentController {
     @Autowired
     private BookingService bookingService;
     @Autowired
-    private CacheKeyEvictor cacheKeyEvictor;
+    private ApplicationEventPublisher eventPublisher;
     @Autowired
-    private TeacherScheduleCacheService teacherScheduleCacheService;
+    private TeacherOccupancyService teacherOccupancyService;
+    @Autowired
+    private CalendarService calendarService;
 
     @GetMapping("/student/suspended")
     @PreAuthorize("hasRole('STUDENT')")
@@ -172,15 +176,10 @@ public class EnrollmentController {
             return CommonResult.success("您已报名该课程", existed);
         }
 
-        // 3) 余额检查
-        if (!studentService.checkBalance(currentUser.getId(), price)) {
-            return CommonResult.error("您的M豆余额不足，请联系客服预约课程");
-        }
-
-        // 4) 扣费
+        // 3) 条件扣费：余额不足时不扣（单条 UPDATE 完成检查与扣减）
         boolean deducted = studentService.updateStudentBalance(currentUser.getId(), price.negate(), "报名课程费用", null, null);
         if (!deducted) {
-            return CommonResult.error("扣费失败，请稍后重试");
+            return CommonResult.error("您的M豆余额不足，请联系客服预约课程");
         }
 
         // 4.1) 原子占位：报名人数+1并判断是否满员（失败则回滚扣费）
@@ -248,6 +247,9 @@ public class EnrollmentController {
 
                                         CourseSchedule cs = CourseSchedule.builder()
                                                 .enrollmentId(enrollment.getId())
+                                                .teacherId(enrollment.getTeacherId())
+                                                .studentId(enrollment.getStudentId())
+                                                .trial(Boolean.TRUE.equals(enrollment.getTrial()))
                                                 .scheduledDate(d)
                                                 .startTime(startTime)
                                                 .endTime(endTime)
@@ -268,17 +270,10 @@ public class EnrollmentController {
                     // 精确清理并回填教师忙时缓存
                     try {
                         if (!affectedDates.isEmpty()) {
-                            cacheKeyEvictor.evictTeacherScheduleAndAvailability(course.getTeacherId(), affectedDates);
-                            for (java.time.LocalDate date : affectedDates) {
-                                java.util.List<CourseSchedule> dayAll =
-                                        courseScheduleMapper.findByTeacherIdAndDateRange(course.getTeacherId(), date, date);
-                                java.util.List<String> busy = new java.util.ArrayList<>();
-                                for (CourseSchedule s : dayAll) {
-                                    busy.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
-                                }
-                                teacherScheduleCacheService.putBusySlots(course.getTeacherId(), date,
-                                        busy.isEmpty() ? java.util.Collections.emptyList() : busy);
-                            }
+                            // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                            eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, course.getTeacherId(), affectedDates));
+                            teacherOccupancyService.invalidate(course.getTeacherId(), affectedDates);
+                            calendarService.refreshTeacherCalendarDays(course.getTeacherId(), affectedDates);
                         }
                     } catch (Exception ignore) {}
                 }
@@ -0,0 +1,42 @@
+package com.touhouqing.grabteacherbackend.controller;
+
+import com.touhouqing.grabteacherbackend.service.CacheWarmupOrchestrator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 存活/就绪探针
+ * - 存活：进程能处理请求即返回 200
+ * - 就绪：关键缓存预热结束前返回 503，负载均衡据此延后放行流量
+ */
+@RestController
+@RequestMapping("/api/public/health")
+@RequiredArgsConstructor
+@Tag(name = "健康探针", description = "供负载均衡与容器编排使用的存活、就绪探针")
+public class HealthProbeController {
+
+    private final CacheWarmupOrchestrator warmupOrchestrator;
+
+    @GetMapping("/liveness")
+    @Operation(summary = "存活探针")
+    public ResponseEntity<Map<String, Object>> liveness() {
+        return ResponseEntity.ok(Map.of("status", "UP"));
+    }
+
+    @GetMapping("/readiness")
+    @Operation(summary = "就绪探针", description = "关键缓存预热结束后返回 200，否则返回 503 及预热进度")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        Map<String, Object> progress = warmupOrchestrator.getProgress();
+        progress.put("status", warmupOrchestrator.isReady() ? "UP" : "OUT_OF_SERVICE");
+        return ResponseEntity.status(warmupOrchestrator.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(progress);
+    }
+}
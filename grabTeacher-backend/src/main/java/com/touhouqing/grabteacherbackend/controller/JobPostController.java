@@ -1,6 +1,7 @@
 package com.touhouqing.grabteacherbackend.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
 import com.touhouqing.grabteacherbackend.model.dto.JobPostDTO;
 import com.touhouqing.grabteacherbackend.model.entity.JobPost;
@@ -47,9 +48,9 @@ public class JobPostController {
     // 公共详情 - 预序列化JSON（极热Key优化）
     @Operation(summary = "招聘详情-公共-预序列化JSON")
     @GetMapping("/public/{id}/fast")
-    public ResponseEntity<String> detailFast(@PathVariable Long id) {
-        String json = jobPostService.getDetailJson(id);
-        return ResponseEntity.ok(json == null ? "null" : json);
+    public ResponseEntity<?> detailFast(@PathVariable Long id) {
+        CachedJson cached = jobPostService.getDetailJson(id);
+        return cached == null ? ResponseEntity.ok("null") : cached.toResponse();
     }
 
     // 管理端：分页列表
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.touhouqing.grabteacherbackend.cache.ActiveCoursesLocalCache;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
 import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
 import com.touhouqing.grabteacherbackend.mapper.StudentMapper;
@@ -73,15 +74,23 @@ public class PublicCourseController {
             @Parameter(description = "课程类型") @RequestParam(required = false) String courseType,
             @Parameter(description = "授课方式") @RequestParam(required = false) String courseLocation,
             @Parameter(description = "教师级别") @RequestParam(required = false) String teacherLevel,
+            @Parameter(description = "游标（深翻页）：传入后按游标分页，首次传空字符串，后续传上次返回的 nextCursor") @RequestParam(required = false) String cursor,
             Authentication authentication) {
         try {
             // 只返回活跃状态的课程
-            Page<CourseVO> coursePage = courseService.getCourseList(page, size, keyword,
-                    subjectId, teacherId, "active", courseType, courseLocation, teacherLevel);
+            Page<CourseVO> coursePage = null;
+            List<CourseVO> records;
+            if (cursor != null) {
+                records = courseService.getCourseListAfter(cursor, size, keyword,
+                        subjectId, teacherId, "active", courseType, courseLocation, teacherLevel);
+            } else {
+                coursePage = courseService.getCourseList(page, size, keyword,
+                        subjectId, teacherId, "active", courseType, courseLocation, teacherLevel);
+                records = coursePage.getRecords();
+            }
 
             // 基于当前登录学生，批量标记是否已报名（不修改缓存对象）
             Long studentId = getCurrentStudentId(authentication);
-            List<CourseVO> records = coursePage.getRecords();
             List<CourseVO> copied = new ArrayList<>(records.size());
             Set<Long> enrolledIds = Collections.emptySet();
             if (studentId != null && !records.isEmpty()) {
@@ -107,10 +116,15 @@ public class PublicCourseController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("courses", copied);
-            response.put("total", coursePage.getTotal());
-            response.put("current", coursePage.getCurrent());
-            response.put("size", coursePage.getSize());
-            response.put("pages", coursePage.getPages());
+            if (coursePage != null) {
+                response.put("total", coursePage.getTotal());
+                response.put("current", coursePage.getCurrent());
+                response.put("size", coursePage.getSize());
+                response.put("pages", coursePage.getPages());
+            } else {
+                response.put("size", size);
+                response.put("nextCursor", records.size() < size ? null : courseService.nextCourseCursor(records));
+            }
 
             return ResponseEntity.ok(CommonResult.success("获取课程列表成功", response));
         } catch (Exception e) {
@@ -136,17 +150,16 @@ public class PublicCourseController {
                     ? "activeCoursesAll:json:all"
                     : "activeCoursesLimited:json:limit:" + lim;
 
-            // 1) 尝试本地 L1 缓存（JSON 文本）
-            String json = activeCoursesLocalCache.get(cacheKey);
-            if (json != null) {
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            // 1) 尝试本地 L1 缓存（预压缩 JSON）
+            CachedJson cached = activeCoursesLocalCache.get(cacheKey);
+            if (cached != null) {
+                return cached.toResponse();
             }
 
             // 2) 尝试 Redis L2 缓存（JSON 文本）
-            json = stringRedisTemplate.opsForValue().get(cacheKey);
+            String json = stringRedisTemplate.opsForValue().get(cacheKey);
             if (json != null) {
-                activeCoursesLocalCache.put(cacheKey, json);
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                return activeCoursesLocalCache.put(cacheKey, json).toResponse();
             }
 
             // 3) 回源：获取对象列表，序列化为 JSON 文本，并写回两级缓存
@@ -157,11 +170,11 @@ public class PublicCourseController {
             // 使用项目全局 ObjectMapper 确保序列化一致
             json = objectMapper.writeValueAsString(CommonResult.success("获取活跃课程列表成功", courses));
 
-            activeCoursesLocalCache.put(cacheKey, json);
+            cached = activeCoursesLocalCache.put(cacheKey, json);
             // 与 activeCoursesLimited TTL 对齐（5 分钟）；全量也使用 5 分钟，避免过期不一致
             stringRedisTemplate.opsForValue().set(cacheKey, json, Duration.ofMinutes(5));
 
-            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            return cached.toResponse();
         } catch (Exception e) {
             logger.error("获取活跃课程列表异常: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
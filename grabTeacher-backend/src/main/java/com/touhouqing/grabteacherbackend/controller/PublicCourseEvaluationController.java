@@ -3,6 +3,7 @@ package com.touhouqing.grabteacherbackend.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
 import com.touhouqing.grabteacherbackend.model.vo.CourseEvaluationVO;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.service.CourseEvaluationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -48,4 +49,23 @@ public class PublicCourseEvaluationController {
 
         return ResponseEntity.ok(CommonResult.success("获取评价列表成功", data));
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "游标分页查询学员评价", description = "无限滚动：首次不传 cursor，后续传上次返回的 nextCursor；筛选条件同分页查询，不返回总数")
+    @GetMapping("/cursor")
+    public ResponseEntity<CommonResult<CursorPageVO<CourseEvaluationVO>>> listEvaluationsAfter(
+            @Parameter(description = "游标，为空表示第一页") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小，上限100") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "教师ID") @RequestParam(required = false) Long teacherId,
+            @Parameter(description = "课程ID") @RequestParam(required = false) Long courseId,
+            @Parameter(description = "最低评分") @RequestParam(required = false) BigDecimal minRating,
+            @Parameter(description = "教师名称模糊") @RequestParam(required = false) String teacherName,
+            @Parameter(description = "课程名称模糊") @RequestParam(required = false) String courseName
+    ) {
+        try {
+            CursorPageVO<CourseEvaluationVO> data = courseEvaluationService.listPublicEvaluationsAfter(cursor, size, teacherId, courseId, minRating, teacherName, courseName);
+            return ResponseEntity.ok(CommonResult.success("获取评价列表成功", data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(CommonResult.error(e.getMessage()));
+        }
+    }
+}
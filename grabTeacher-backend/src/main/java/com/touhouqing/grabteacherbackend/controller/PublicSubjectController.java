@@ -16,6 +16,7 @@ import org.springframework.http.MediaType;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.touhouqing.grabteacherbackend.cache.ActiveSubjectsLocalCache;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
 
 import java.util.List;
@@ -58,25 +59,24 @@ public class PublicSubjectController {
             final String cacheKey = "public:subjects:active:json";
 
             // L1 本地缓存
-            String json = activeSubjectsLocalCache.get(cacheKey);
-            if (json != null) {
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            CachedJson cached = activeSubjectsLocalCache.get(cacheKey);
+            if (cached != null) {
+                return cached.toResponse();
             }
 
             // 单飞锁，避免并发回源击穿
             Object lock = keyLocks.computeIfAbsent(cacheKey, k -> new Object());
             synchronized (lock) {
                 // 双检 L1
-                json = activeSubjectsLocalCache.get(cacheKey);
-                if (json != null) {
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                cached = activeSubjectsLocalCache.get(cacheKey);
+                if (cached != null) {
+                    return cached.toResponse();
                 }
 
                 // L2 Redis
-                json = stringRedisTemplate.opsForValue().get(cacheKey);
+                String json = stringRedisTemplate.opsForValue().get(cacheKey);
                 if (json != null) {
-                    activeSubjectsLocalCache.put(cacheKey, json);
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                    return activeSubjectsLocalCache.put(cacheKey, json).toResponse();
                 }
 
                 // 回源
@@ -84,10 +84,10 @@ public class PublicSubjectController {
                 json = objectMapper.writeValueAsString(CommonResult.success("获取激活科目成功", subjects));
 
                 // 回填两级
-                activeSubjectsLocalCache.put(cacheKey, json);
+                cached = activeSubjectsLocalCache.put(cacheKey, json);
                 stringRedisTemplate.opsForValue().set(cacheKey, json, publicJsonCacheConfig.getActiveSubjectsTtl());
 
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                return cached.toResponse();
             }
         } catch (Exception e) {
             logger.error("获取激活科目异常: ", e);
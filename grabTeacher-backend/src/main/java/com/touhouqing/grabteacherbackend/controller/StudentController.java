@@ -1,12 +1,14 @@
 package com.touhouqing.grabteacherbackend.controller;
 
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
+import com.touhouqing.grabteacherbackend.exception.BusinessException;
 import com.touhouqing.grabteacherbackend.model.dto.StudentInfoDTO;
 import com.touhouqing.grabteacherbackend.model.vo.StudentProfileVO;
 import com.touhouqing.grabteacherbackend.model.entity.Student;
 import com.touhouqing.grabteacherbackend.security.UserPrincipal;
 import com.touhouqing.grabteacherbackend.service.StudentService;
 import com.touhouqing.grabteacherbackend.service.MessageService;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import java.util.Map;
@@ -146,6 +148,25 @@ public class StudentController {
         }
     }
 
+    /**
+     * 游标分页获取学生可见的消息（无限滚动）：首次不传 cursor，后续传上次返回的 nextCursor
+     */
+    @GetMapping("/messages/cursor")
+    public ResponseEntity<CommonResult<CursorPageVO<MessageVO>>> getStudentMessagesAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            CursorPageVO<MessageVO> messages = messageService.getStudentMessagesAfter(cursor, pageSize);
+            return ResponseEntity.ok(CommonResult.success("获取成功", messages));
+        } catch (BusinessException e) {
+            return ResponseEntity.badRequest().body(CommonResult.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("获取学生消息异常: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CommonResult.error("获取失败"));
+        }
+    }
+
     /**
      * 根据ID获取消息详情
      */
@@ -18,6 +18,7 @@ import org.springframework.http.MediaType;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.touhouqing.grabteacherbackend.cache.AbroadProgramsLocalCache;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
 
 import java.util.HashMap;
@@ -155,32 +156,31 @@ public class StudyAbroadProgramController {
             int lim = (limit == null || limit <= 0) ? 20 : limit; // 默认 20
             String cacheKey = buildProgramsCacheKey(lim, countryId, stageId);
 
-            String json = abroadProgramsLocalCache.get(cacheKey);
-            if (json != null) {
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            CachedJson cached = abroadProgramsLocalCache.get(cacheKey);
+            if (cached != null) {
+                return cached.toResponse();
             }
 
             // 单飞锁，避免并发回源击穿
             Object lock = keyLocks.computeIfAbsent(cacheKey, k -> new Object());
             synchronized (lock) {
                 // 双检 L1
-                json = abroadProgramsLocalCache.get(cacheKey);
-                if (json != null) {
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                cached = abroadProgramsLocalCache.get(cacheKey);
+                if (cached != null) {
+                    return cached.toResponse();
                 }
 
-                json = stringRedisTemplate.opsForValue().get(cacheKey);
+                String json = stringRedisTemplate.opsForValue().get(cacheKey);
                 if (json != null) {
-                    abroadProgramsLocalCache.put(cacheKey, json);
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                    return abroadProgramsLocalCache.put(cacheKey, json).toResponse();
                 }
 
                 List<StudyAbroadProgram> data = programService.listActive(lim, countryId, stageId);
                 json = objectMapper.writeValueAsString(CommonResult.success("获取成功", data));
-                abroadProgramsLocalCache.put(cacheKey, json);
+                cached = abroadProgramsLocalCache.put(cacheKey, json);
                 stringRedisTemplate.opsForValue().set(cacheKey, json, publicJsonCacheConfig.getProgramsActiveTtl());
 
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                return cached.toResponse();
             }
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(CommonResult.error("获取失败"));
@@ -201,22 +201,21 @@ public class StudyAbroadProgramController {
             String kStage = stageId != null ? stageId.toString() : "all";
             String cacheKey = String.format("public:abroad:programs:active:paged:json:page:%d:size:%d:country:%s:stage:%s", page, size, kCountry, kStage);
 
-            String json = abroadProgramsLocalCache.get(cacheKey);
-            if (json != null) {
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            CachedJson cached = abroadProgramsLocalCache.get(cacheKey);
+            if (cached != null) {
+                return cached.toResponse();
             }
 
             Object lock = keyLocks.computeIfAbsent(cacheKey, k -> new Object());
             synchronized (lock) {
-                json = abroadProgramsLocalCache.get(cacheKey);
-                if (json != null) {
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                cached = abroadProgramsLocalCache.get(cacheKey);
+                if (cached != null) {
+                    return cached.toResponse();
                 }
 
-                json = stringRedisTemplate.opsForValue().get(cacheKey);
+                String json = stringRedisTemplate.opsForValue().get(cacheKey);
                 if (json != null) {
-                    abroadProgramsLocalCache.put(cacheKey, json);
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                    return abroadProgramsLocalCache.put(cacheKey, json).toResponse();
                 }
 
                 Page<StudyAbroadProgram> p = programService.listNoCache(page, size, null, true, countryId, stageId, null, null);
@@ -228,10 +227,10 @@ public class StudyAbroadProgramController {
                 data.put("pages", p.getPages());
 
                 json = objectMapper.writeValueAsString(CommonResult.success("获取成功", data));
-                abroadProgramsLocalCache.put(cacheKey, json);
+                cached = abroadProgramsLocalCache.put(cacheKey, json);
                 stringRedisTemplate.opsForValue().set(cacheKey, json, publicJsonCacheConfig.getProgramsActiveTtl());
 
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                return cached.toResponse();
             }
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(CommonResult.error("获取失败"));
@@ -1,9 +1,11 @@
 package com.touhouqing.grabteacherbackend.controller;
 
 import com.touhouqing.grabteacherbackend.common.result.CommonResult;
+import com.touhouqing.grabteacherbackend.exception.BusinessException;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherDetailVO;
 import com.touhouqing.grabteacherbackend.model.dto.TeacherInfoDTO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherListVO;
+import com.touhouqing.grabteacherbackend.model.vo.TeacherSearchVO;
 import com.touhouqing.grabteacherbackend.model.dto.TeacherMatchDTO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherMatchVO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherProfileVO;
@@ -13,10 +15,12 @@ import com.touhouqing.grabteacherbackend.model.entity.Teacher;
 import com.touhouqing.grabteacherbackend.security.UserPrincipal;
 import com.touhouqing.grabteacherbackend.service.TeacherService;
 import com.touhouqing.grabteacherbackend.service.MessageService;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.touhouqing.grabteacherbackend.cache.FeaturedTeachersLocalCache;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
 import org.springframework.http.MediaType;
@@ -223,6 +227,27 @@ public class TeacherController {
         }
     }
 
+    /**
+     * 教师检索（公开接口）：关键字全文检索、按相关度排序，并返回科目/级别/授课地点分面统计
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CommonResult<TeacherSearchVO>> searchTeachers(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String subject,
+            @RequestParam(required = false) String keyword) {
+        try {
+            int p = Math.max(1, page);
+            int s = Math.min(Math.max(1, size), 50);
+            TeacherSearchVO result = teacherService.searchTeachers(p, s, normalizeParam(subject), normalizeKeyword(keyword));
+            return ResponseEntity.ok(CommonResult.success("获取成功", result));
+        } catch (Exception e) {
+            logger.error("检索教师异常: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CommonResult.error("检索失败"));
+        }
+    }
+
     /**
      * 获取精选教师列表（不分页，供首页滚动使用）
      */
@@ -240,20 +265,21 @@ public class TeacherController {
             String cacheKey = String.format("featuredTeachers:json:all:subject:%s:keyword:%s", kSubject, kKeyword);
 
             // 1) 先查本地 L1 缓存
-            String json = featuredTeachersLocalCache.get(cacheKey);
-            if (json != null) {
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            CachedJson cached = featuredTeachersLocalCache.get(cacheKey);
+            if (cached != null) {
+                return cached.toResponse();
             }
 
             // 单飞锁，避免冷启动/失效瞬间击穿
             Object lock = featuredKeyLocks.computeIfAbsent(cacheKey, k -> new Object());
             synchronized (lock) {
-                json = featuredTeachersLocalCache.get(cacheKey);
-                if (json != null) {
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                cached = featuredTeachersLocalCache.get(cacheKey);
+                if (cached != null) {
+                    return cached.toResponse();
                 }
 
                 // 2) 查 Redis L2
+                String json;
                 try {
                     json = stringRedisTemplate.opsForValue().get(cacheKey);
                 } catch (Exception re) {
@@ -261,8 +287,7 @@ public class TeacherController {
                     json = null;
                 }
                 if (json != null) {
-                    featuredTeachersLocalCache.put(cacheKey, json);
-                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                    return featuredTeachersLocalCache.put(cacheKey, json).toResponse();
                 }
 
                 // 3) 回源：获取全量精选教师（先查总数，再一次性拉取避免 LIMIT 溢出）
@@ -276,14 +301,14 @@ public class TeacherController {
                 }
                 json = objectMapper.writeValueAsString(CommonResult.success("获取成功", teachers));
 
-                featuredTeachersLocalCache.put(cacheKey, json);
+                cached = featuredTeachersLocalCache.put(cacheKey, json);
                 try {
                     stringRedisTemplate.opsForValue().set(cacheKey, json, publicJsonCacheConfig.getFeaturedTeachersTtl());
                 } catch (Exception we) {
                     logger.warn("Redis SET 失败(忽略): key={}", cacheKey);
                 }
 
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+                return cached.toResponse();
             }
         } catch (Exception e) {
             logger.error("获取精选教师列表异常: ", e);
@@ -402,6 +427,26 @@ public class TeacherController {
         }
     }
 
+    /**
+     * 游标分页获取教师可见的消息（无限滚动）：首次不传 cursor，后续传上次返回的 nextCursor
+     */
+    @PreAuthorize("hasRole('TEACHER')")
+    @GetMapping("/messages/cursor")
+    public ResponseEntity<CommonResult<CursorPageVO<MessageVO>>> getTeacherMessagesAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            CursorPageVO<MessageVO> messages = messageService.getTeacherMessagesAfter(cursor, pageSize);
+            return ResponseEntity.ok(CommonResult.success("获取成功", messages));
+        } catch (BusinessException e) {
+            return ResponseEntity.badRequest().body(CommonResult.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("获取教师消息异常: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(CommonResult.error("获取失败"));
+        }
+    }
+
     /**
      * 根据ID获取消息详情
      */
@@ -0,0 +1,30 @@
+package com.touhouqing.grabteacherbackend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 教师课表变化事件：提交后异步刷新该教师受影响日期的忙时/课表缓存
+ */
+@Getter
+public class TeacherScheduleChangedEvent extends ApplicationEvent {
+    private final Long teacherId;
+    private final Set<LocalDate> dates;
+
+    public TeacherScheduleChangedEvent(Object source, Long teacherId, Collection<LocalDate> dates) {
+        super(source);
+        this.teacherId = teacherId;
+        this.dates = new TreeSet<>();
+        if (dates != null) {
+            for (LocalDate d : dates) {
+                if (d != null) this.dates.add(d);
+            }
+        }
+    }
+
+}
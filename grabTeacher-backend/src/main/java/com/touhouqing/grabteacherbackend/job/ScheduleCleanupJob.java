@@ -1,27 +1,24 @@
 package com.touhouqing.grabteacherbackend.job;
 
-import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
-import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
-import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
-import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
-import com.touhouqing.grabteacherbackend.mapper.HourDetailMapper;
 import com.touhouqing.grabteacherbackend.mapper.CourseMapper;
-import com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment;
-import com.touhouqing.grabteacherbackend.model.entity.HourDetail;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
 import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.service.ScheduleSettlementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 课程安排清理服务
@@ -32,115 +29,80 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ScheduleCleanupJob {
 
+    // 每块结算的课程安排数，决定单个事务的持锁范围
+    private static final int CHUNK_SIZE = 500;
+
+    // 结算进度检查点：本轮截止时间与已处理到的课程安排ID
+    private static final String CHECKPOINT_KEY = "grabTeacher:job:scheduleSettlement:checkpoint";
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(2);
+
     private final CourseScheduleMapper scheduleMapper;
-    private final TeacherMapper teacherMapper;
-    private final HourDetailMapper hourDetailMapper;
-    private final CourseEnrollmentMapper courseEnrollmentMapper;
     private final CourseMapper courseMapper;
+    private final ScheduleSettlementService settlementService;
+    private final StringRedisTemplate stringRedisTemplate;
 
     /**
      * 每天午夜00:00执行，将所有过期的进行中课程状态更新为已完成
      * cron表达式: 秒 分 时 日 月 周
+     * 按主键分块读取，每块在独立短事务内结算；每块提交后记录检查点
      */
     @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
     public void completeExpiredProgessSchedules() {
         log.info("开始执行定时任务：更新过期的进行中课程状态为已完成");
+        settleFrom(LocalDate.now(), LocalTime.now(), 0L);
+    }
 
+    /**
+     * 启动时若存在检查点，说明上一轮结算被中断（重启/宕机），按原截止时间从检查点继续
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedSettlement() {
         try {
-            // 获取当前日期和时间
-            LocalDate today = LocalDate.now();
-            LocalTime now = LocalTime.now();
-            
-            // 使用优化的查询方法，直接获取过期的进行中课程
-            List<CourseSchedule> expiredSchedules = scheduleMapper.findExpiredScheduled(today, now);
-            
-            if (expiredSchedules.isEmpty()) {
-                log.info("没有找到过期的进行中课程安排");
-                return;
-            }
+            Map<Object, Object> cp = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+            if (cp == null || cp.isEmpty()) return;
+            LocalDate date = LocalDate.parse((String) cp.get("date"));
+            LocalTime time = LocalTime.parse((String) cp.get("time"));
+            long lastId = Long.parseLong((String) cp.get("lastId"));
+            log.info("发现未完成的课程结算检查点，从课程安排ID {} 继续（截止 {} {}）", lastId, date, time);
+            settleFrom(date, time, lastId);
+        } catch (Exception e) {
+            log.error("恢复课程结算失败", e);
+        }
+    }
 
-            log.info("找到{}个过期的进行中课程安排，准备批量更新状态", expiredSchedules.size());
-            
-            // 批量更新课程状态为已完成，并累加教师本月课时
-            int updatedCount = 0;
-            for (CourseSchedule schedule : expiredSchedules) {
-                UpdateWrapper<CourseSchedule> updateWrapper = new UpdateWrapper<>();
-                updateWrapper.eq("id", schedule.getId())
-                             .set("schedule_status", "completed");
-                int result = scheduleMapper.update(null, updateWrapper);
-                if (result > 0) {
-                    updatedCount++;
-                    // 累加报名的已完成课次
-                    if (schedule.getEnrollmentId() != null) {
-                        CourseEnrollment enrollment = courseEnrollmentMapper.selectById(schedule.getEnrollmentId());
-                        if (enrollment != null && (enrollment.getCompletedSessions() == null || enrollment.getCompletedSessions() < (enrollment.getTotalSessions() != null ? enrollment.getTotalSessions() : Integer.MAX_VALUE))) {
-                            int newCompleted = (enrollment.getCompletedSessions() == null ? 0 : enrollment.getCompletedSessions()) + 1;
-                            com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper<com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment> euw = new com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper<>();
-                            euw.eq("id", enrollment.getId())
-                                    .set("completed_sessions", newCompleted);
-                            // 如果达到总次数，自动置为 completed
-                            if (enrollment.getTotalSessions() != null && newCompleted >= enrollment.getTotalSessions()) {
-                                euw.set("enrollment_status", "completed");
-                            }
-                            courseEnrollmentMapper.update(null, euw);
-                        }
-                    }
-                    // 计算课时：基于开始和结束时间差，支持 1.0、1.5、2.0 小时等
-                    Duration duration = Duration.between(schedule.getStartTime(), schedule.getEndTime());
-                    BigDecimal hours = new BigDecimal(duration.toMinutes())
-                            .divide(new BigDecimal(60), 2, RoundingMode.HALF_UP);
-                    if (hours.compareTo(BigDecimal.ZERO) > 0) {
-                        // 查询教师以获取用户ID与姓名
-                        com.touhouqing.grabteacherbackend.model.entity.Teacher teacher = teacherMapper.selectById(schedule.getTeacherId());
-                        if (teacher != null) {
-                            Long teacherUserId = teacher.getUserId();
-                            String teacherName = teacher.getRealName();
-                            // 记录教师课时明细（补全 before/after 防止严格模式下插入失败）
-                            java.math.BigDecimal beforeHours = java.math.BigDecimal.ZERO;
-                            try {
-                                com.touhouqing.grabteacherbackend.model.entity.HourDetail last = hourDetailMapper.findLastByUserId(teacherUserId);
-                                if (last != null && last.getHoursAfter() != null) beforeHours = last.getHoursAfter();
-                            } catch (Exception ignored) {}
-                            java.math.BigDecimal afterHours = beforeHours.add(hours);
-                            HourDetail detail = HourDetail.builder()
-                                    .userId(teacherUserId)
-                                    .name(teacherName)
-                                    .hours(hours)
-                                    .hoursBefore(beforeHours)
-                                    .hoursAfter(afterHours)
-                                    .reasonCode(com.touhouqing.grabteacherbackend.model.entity.HourDetail.REASON_CODE_LESSON_COMPLETED_AUTO)
-                                    .transactionType(1)
-                                    .reason("课程完成自动结算")
-                                    .bookingId(schedule.getId())
-                                    .operatorId(null)
-                                    .createdAt(LocalDateTime.now())
-                                    .build();
-                            hourDetailMapper.insert(detail);
-                            // 同步累加课程本月课时（仅一对一课程生效）
-                            if (schedule.getEnrollmentId() != null) {
-                                CourseEnrollment ce = courseEnrollmentMapper.selectById(schedule.getEnrollmentId());
-                                if (ce != null && ce.getCourseId() != null) {
-                                    courseMapper.incrementCourseCurrentHours(ce.getCourseId(), hours);
-                                }
-                            }
-                        } else {
-                            log.warn("课程安排ID: {} 对应的教师ID: {} 不存在，跳过课时记录", schedule.getId(), schedule.getTeacherId());
-                        }
-                    }
-                    log.debug("课程安排ID: {} 已更新为已完成状态，原定时间: {} {}-{}", 
-                            schedule.getId(), 
-                            schedule.getScheduledDate(),
-                            schedule.getStartTime(),
-                            schedule.getEndTime());
-                }
+    private void settleFrom(LocalDate cutoffDate, LocalTime cutoffTime, long afterId) {
+        int scanned = 0;
+        int settled = 0;
+        long lastId = afterId;
+        try {
+            while (true) {
+                List<CourseSchedule> chunk = scheduleMapper.findExpiredScheduledAfter(lastId, cutoffDate, cutoffTime, CHUNK_SIZE);
+                if (chunk.isEmpty()) break;
+                settled += settlementService.settleChunk(chunk);
+                scanned += chunk.size();
+                lastId = chunk.get(chunk.size() - 1).getId();
+                saveCheckpoint(cutoffDate, cutoffTime, lastId);
+                if (chunk.size() < CHUNK_SIZE) break;
             }
-            
-            log.info("定时任务执行完成：成功更新{}个过期课程状态为已完成", updatedCount);
-                    
+            stringRedisTemplate.delete(CHECKPOINT_KEY);
+            log.info("定时任务执行完成：扫描{}个过期课程安排，成功更新{}个为已完成", scanned, settled);
+        } catch (Exception e) {
+            // 已提交的块不受影响；检查点保留，重启后或下一轮继续
+            log.error("执行定时任务时发生异常：更新过期课程状态失败，已处理到课程安排ID {}", lastId, e);
+        }
+    }
+
+    private void saveCheckpoint(LocalDate cutoffDate, LocalTime cutoffTime, long lastId) {
+        try {
+            stringRedisTemplate.opsForHash().putAll(CHECKPOINT_KEY, Map.of(
+                    "date", cutoffDate.toString(),
+                    "time", cutoffTime.toString(),
+                    "lastId", String.valueOf(lastId)));
+            stringRedisTemplate.expire(CHECKPOINT_KEY, CHECKPOINT_TTL);
         } catch (Exception e) {
-            log.error("执行定时任务时发生异常：更新过期课程状态失败", e);
-            throw e; // 重新抛出异常，确保事务回滚
+            // 检查点仅用于中断后续跑，写入失败不影响结算正确性（已完成的行不会被重复结算）
+            log.warn("记录课程结算检查点失败 lastId={}", lastId, e);
         }
     }
 
@@ -0,0 +1,46 @@
+package com.touhouqing.grabteacherbackend.listener;
+
+import com.touhouqing.grabteacherbackend.cache.PublicResponseCache;
+import com.touhouqing.grabteacherbackend.event.CourseChangedEvent;
+import com.touhouqing.grabteacherbackend.event.ProgramChangedEvent;
+import com.touhouqing.grabteacherbackend.event.SubjectChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 公开数据变更后清空 /api/public/** 响应缓存（经广播同步到所有节点）
+ * 仅在事务提交后执行，避免并发请求在提交前把旧数据重新写入缓存；无事务时立即执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PublicResponseCacheInvalidationListener {
+
+    private final PublicResponseCache publicResponseCache;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        clear("CourseChangedEvent");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubjectChanged(SubjectChangedEvent event) {
+        clear("SubjectChangedEvent");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProgramChanged(ProgramChangedEvent event) {
+        clear("ProgramChangedEvent");
+    }
+
+    private void clear(String source) {
+        try {
+            publicResponseCache.clear();
+        } catch (Exception e) {
+            log.warn("清空公开接口响应缓存失败 source={}", source, e);
+        }
+    }
+}
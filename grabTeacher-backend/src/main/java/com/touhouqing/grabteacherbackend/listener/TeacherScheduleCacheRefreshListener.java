@@ -0,0 +1,21 @@
+package com.touhouqing.grabteacherbackend.listener;
+
+import com.touhouqing.grabteacherbackend.event.TeacherScheduleChangedEvent;
+import com.touhouqing.grabteacherbackend.service.TeacherBusyCacheRefresher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class TeacherScheduleCacheRefreshListener {
+
+    private final TeacherBusyCacheRefresher teacherBusyCacheRefresher;
+
+    // 仅在事务提交后刷新，回滚不触发；无事务时立即投递
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTeacherScheduleChanged(TeacherScheduleChangedEvent event) {
+        teacherBusyCacheRefresher.submit(event.getTeacherId(), event.getDates());
+    }
+}
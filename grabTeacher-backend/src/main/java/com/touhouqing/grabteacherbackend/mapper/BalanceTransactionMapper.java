@@ -2,6 +2,7 @@ package com.touhouqing.grabteacherbackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.BalanceTransaction;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Param;
@@ -21,4 +22,15 @@ public interface BalanceTransactionMapper extends BaseMapper<BalanceTransaction>
      */
     @Select("SELECT * FROM balance_transactions WHERE booking_id = #{bookingId} AND is_deleted = 0")
     List<BalanceTransaction> findByBookingId(@Param("bookingId") Long bookingId);
+
+    /**
+     * 批量追加余额变动记录（多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO balance_transactions (user_id, name, amount, balance_before, balance_after, transaction_type, reason, booking_id, operator_id, created_at) VALUES " +
+            "<foreach collection='list' item='t' separator=','>" +
+            "(#{t.userId}, #{t.name}, #{t.amount}, #{t.balanceBefore}, #{t.balanceAfter}, #{t.transactionType}, #{t.reason}, #{t.bookingId}, #{t.operatorId}, #{t.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<BalanceTransaction> list);
 }
@@ -112,20 +112,35 @@ public interface BookingRequestMapper extends BaseMapper<BookingRequest> {
     List<BookingRequest> findByCourseId(@Param("courseId") Long courseId);
 
     /**
-     * 查询指定教师在日期范围内的待处理预约（包含：
-     *  - 单次预约：requested_date 在范围内
-     *  - 周期预约：与范围有日期重叠）
-     */
-    // 注意：MySQL 5.7 不支持 JSON_TABLE，calendar 类型的范围过滤改由服务层完成
-    @Select("SELECT * FROM booking_requests WHERE teacher_id = #{teacherId} AND status = 'pending' AND is_deleted = 0 AND (" +
-            "(booking_type = 'single' AND requested_date BETWEEN #{startDate} AND #{endDate}) OR " +
-            "(booking_type = 'recurring' AND start_date <= #{endDate} AND end_date >= #{startDate}) OR " +
-            "(booking_type = 'calendar')" +
-            ") ORDER BY created_at DESC")
+     * 查询指定教师在日期范围内有课次的待处理预约（单次 / 周期 / 日历）
+     * 经 booking_request_sessions (teacher_id, session_date) 索引定位，日历预约不再全部返回；
+     * 调用方仍按预约类型自行筛选范围内的具体课次
+     */
+    @Select("SELECT * FROM booking_requests WHERE id IN (" +
+            "SELECT s.booking_request_id FROM booking_request_sessions s " +
+            "WHERE s.teacher_id = #{teacherId} AND s.session_date BETWEEN #{startDate} AND #{endDate}" +
+            ") AND status = 'pending' AND is_deleted = 0 ORDER BY created_at DESC")
     List<BookingRequest> findPendingByTeacherAndDateRange(@Param("teacherId") Long teacherId,
                                                           @Param("startDate") java.time.LocalDate startDate,
                                                           @Param("endDate") java.time.LocalDate endDate);
 
+    /**
+     * 尚未展开课次的待处理预约（booking_request_sessions 上线前的存量数据），启动校正用
+     */
+    @Select("SELECT * FROM booking_requests br WHERE br.status = 'pending' AND br.is_deleted = 0 \n" +
+            "AND NOT EXISTS (SELECT 1 FROM booking_request_sessions s WHERE s.booking_request_id = br.id)")
+    List<BookingRequest> findPendingWithoutSessions();
+
+    /**
+     * 查询指定教师日期范围内待处理的试听申请（仅时间字段），批量冲突检测用
+     */
+    @Select("SELECT requested_date, requested_start_time, requested_end_time FROM booking_requests \n" +
+            "WHERE teacher_id = #{teacherId} AND status = 'pending' AND is_deleted = 0 AND is_trial = 1 \n" +
+            "AND requested_date BETWEEN #{startDate} AND #{endDate}")
+    List<BookingRequest> findPendingTrialsByTeacherAndDateRange(@Param("teacherId") Long teacherId,
+                                                                @Param("startDate") LocalDate startDate,
+                                                                @Param("endDate") LocalDate endDate);
+
     /**
      * 统计指定教师在某日期的基础2小时时段内，是否存在“待处理的试听课”申请
      * 用于在学生提交试听申请后立即对对应基础2小时区间做占用标记（管理员拒绝后自动释放）
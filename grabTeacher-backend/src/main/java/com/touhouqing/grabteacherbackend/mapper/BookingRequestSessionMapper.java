@@ -0,0 +1,35 @@
+package com.touhouqing.grabteacherbackend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequestSession;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface BookingRequestSessionMapper extends BaseMapper<BookingRequestSession> {
+
+    /**
+     * 批量写入课次（多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO booking_request_sessions (booking_request_id, teacher_id, student_id, session_date, start_time, end_time, is_trial) VALUES " +
+            "<foreach collection='list' item='s' separator=','>" +
+            "(#{s.bookingRequestId}, #{s.teacherId}, #{s.studentId}, #{s.sessionDate}, #{s.startTime}, #{s.endTime}, #{s.isTrial})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<BookingRequestSession> list);
+
+    @Delete("DELETE FROM booking_request_sessions WHERE booking_request_id = #{bookingRequestId}")
+    int deleteByBookingRequestId(@Param("bookingRequestId") Long bookingRequestId);
+
+    /**
+     * 清理已不再待处理（含经其他路径改状态或软删除）的预约遗留的课次
+     */
+    @Delete("DELETE s FROM booking_request_sessions s JOIN booking_requests br ON s.booking_request_id = br.id \n" +
+            "WHERE br.status <> 'pending' OR br.is_deleted = 1")
+    int deleteSettled();
+}
@@ -3,9 +3,48 @@ package com.touhouqing.grabteacherbackend.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface CourseEnrollmentMapper extends BaseMapper<CourseEnrollment> {
-}
 
+    /**
+     * 批量查询课程最近一次报名的授课地点（报名未填地点名称时取授课地点表名称）
+     * 仅返回 course_id 与 teaching_location
+     */
+    @Select("<script>" +
+            "SELECT ce.course_id, COALESCE(NULLIF(ce.teaching_location, ''), tl.name) AS teaching_location " +
+            "FROM course_enrollments ce " +
+            "LEFT JOIN teaching_locations tl ON tl.id = ce.teaching_location_id " +
+            "WHERE ce.id IN (" +
+            "  SELECT (SELECT ce2.id FROM course_enrollments ce2 " +
+            "          WHERE ce2.course_id = c.id AND ce2.is_deleted = 0 " +
+            "          ORDER BY ce2.created_at DESC, ce2.id DESC LIMIT 1) " +
+            "  FROM courses c WHERE c.id IN " +
+            "  <foreach collection='courseIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            ")" +
+            "</script>")
+    List<CourseEnrollment> findLatestLocationsByCourseIds(@Param("courseIds") List<Long> courseIds);
 
+    /**
+     * 批量累加已完成课次：deltas 为 报名ID → 本次完成课次数。
+     * 与逐条累加一致，已完成课次不超过总课次；本次累加达到总课次时置为 completed
+     * （状态列先于课次列赋值，引用的是累加前的课次）
+     */
+    @Update("<script>" +
+            "UPDATE course_enrollments SET " +
+            "enrollment_status = CASE WHEN total_sessions IS NOT NULL AND COALESCE(completed_sessions, 0) &lt; total_sessions " +
+            "  AND COALESCE(completed_sessions, 0) + (CASE id <foreach collection='deltas' index='eid' item='n'>WHEN #{eid} THEN #{n} </foreach>END) &gt;= total_sessions " +
+            "  THEN 'completed' ELSE enrollment_status END, " +
+            "completed_sessions = CASE WHEN total_sessions IS NULL " +
+            "  THEN COALESCE(completed_sessions, 0) + (CASE id <foreach collection='deltas' index='eid' item='n'>WHEN #{eid} THEN #{n} </foreach>END) " +
+            "  ELSE GREATEST(COALESCE(completed_sessions, 0), LEAST(COALESCE(completed_sessions, 0) + (CASE id <foreach collection='deltas' index='eid' item='n'>WHEN #{eid} THEN #{n} </foreach>END), total_sessions)) END " +
+            "WHERE id IN <foreach collection='deltas' index='eid' item='n' open='(' separator=',' close=')'>#{eid}</foreach>" +
+            "</script>")
+    int addCompletedSessions(@Param("deltas") Map<Long, Integer> deltas);
+}
@@ -2,6 +2,10 @@ package com.touhouqing.grabteacherbackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.CourseEvaluation;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -13,4 +17,10 @@ import com.touhouqing.grabteacherbackend.model.entity.CourseEvaluation;
  */
 public interface CourseEvaluationMapper extends BaseMapper<CourseEvaluation> {
 
+    /**
+     * 按教师统计公开（精选且未删除）评价数量，用于重建评价计数器
+     */
+    @Select("SELECT teacher_id AS teacherId, COUNT(*) AS cnt FROM course_evaluation " +
+            "WHERE is_deleted = 0 AND is_featured = 1 GROUP BY teacher_id")
+    List<Map<String, Object>> countPublicGroupByTeacher();
 }
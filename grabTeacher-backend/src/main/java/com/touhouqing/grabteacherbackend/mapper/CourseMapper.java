@@ -8,6 +8,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
+import java.util.Map;
 import java.math.BigDecimal;
 
 @Mapper
@@ -89,6 +90,17 @@ public interface CourseMapper extends BaseMapper<Course> {
     @Update("UPDATE courses SET current_hours = COALESCE(current_hours, 0) + #{hours} WHERE id = #{courseId} AND is_deleted = 0 AND course_type = 'one_on_one'")
     int incrementCourseCurrentHours(@Param("courseId") Long courseId, @Param("hours") BigDecimal hours);
 
+    /**
+     * 批量累加课程本月课时（仅一对一课程生效）：hours 为 课程ID → 累加课时
+     */
+    @Update("<script>" +
+            "UPDATE courses SET current_hours = COALESCE(current_hours, 0) + " +
+            "(CASE id <foreach collection='hours' index='cid' item='h'>WHEN #{cid} THEN #{h} </foreach>END) " +
+            "WHERE is_deleted = 0 AND course_type = 'one_on_one' AND id IN " +
+            "<foreach collection='hours' index='cid' item='h' open='(' separator=',' close=')'>#{cid}</foreach>" +
+            "</script>")
+    int addCourseCurrentHours(@Param("hours") Map<Long, BigDecimal> hours);
+
     @Update("UPDATE courses SET last_hours = COALESCE(current_hours, 0), current_hours = 0 WHERE is_deleted = 0 AND course_type = 'one_on_one'")
     int resetMonthlyHoursOneOnOne();
 
@@ -3,20 +3,22 @@ package com.touhouqing.grabteacherbackend.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
 import com.touhouqing.grabteacherbackend.model.vo.ClassRecordVO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
 
     @Select("SELECT COUNT(*) FROM course_schedules cs \n" +
-            "JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
-            "WHERE ce.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND ce.is_deleted = 0 AND cs.is_deleted = 0 AND \n" +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND cs.is_deleted = 0 AND \n" +
             "((cs.start_time <= #{startTime} AND cs.end_time > #{startTime}) OR \n" +
             " (cs.start_time < #{endTime} AND cs.end_time >= #{endTime}) OR \n" +
             " (cs.start_time >= #{startTime} AND cs.end_time <= #{endTime})) AND cs.schedule_status != 'cancelled'")
@@ -26,8 +28,7 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
                               @Param("endTime") LocalTime endTime);
 
     @Select("SELECT COUNT(*) FROM course_schedules cs \n" +
-            "JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
-            "WHERE ce.student_id = #{studentId} AND cs.scheduled_date = #{date} AND ce.is_deleted = 0 AND cs.is_deleted = 0 AND \n" +
+            "WHERE cs.student_id = #{studentId} AND cs.scheduled_date = #{date} AND cs.is_deleted = 0 AND \n" +
             "((cs.start_time <= #{startTime} AND cs.end_time > #{startTime}) OR \n" +
             " (cs.start_time < #{endTime} AND cs.end_time >= #{endTime}) OR \n" +
             " (cs.start_time >= #{startTime} AND cs.end_time <= #{endTime})) AND cs.schedule_status != 'cancelled'")
@@ -47,12 +48,28 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
             "JOIN teachers t ON ce.teacher_id = t.id " +
             "LEFT JOIN courses c ON ce.course_id = c.id " +
             "LEFT JOIN subjects sub ON c.subject_id = sub.id " +
-            "WHERE ce.teacher_id = #{teacherId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} " +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} " +
             "AND ce.is_deleted = 0 AND cs.is_deleted = 0 ORDER BY cs.scheduled_date ASC, cs.start_time ASC")
     List<CourseSchedule> findByTeacherIdAndDateRange(@Param("teacherId") Long teacherId,
                                                      @Param("startDate") LocalDate startDate,
                                                      @Param("endDate") LocalDate endDate);
 
+    /**
+     * 批量查询多个教师在日期范围内的课节时间（教师匹配评分用，仅返回时间相关字段）
+     */
+    @Select({
+        "<script>",
+        "SELECT cs.teacher_id, cs.scheduled_date, cs.start_time, cs.end_time FROM course_schedules cs",
+        "WHERE cs.scheduled_date BETWEEN #{startDate} AND #{endDate}",
+        "AND cs.is_deleted = 0",
+        "AND cs.teacher_id IN",
+        "<foreach collection='teacherIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    List<CourseSchedule> findTimeSlotsByTeacherIdsAndDateRange(@Param("teacherIds") Collection<Long> teacherIds,
+                                                               @Param("startDate") LocalDate startDate,
+                                                               @Param("endDate") LocalDate endDate);
+
     @Select("SELECT cs.*, " +
             "ce.teacher_id AS teacherId, ce.student_id AS studentId, ce.course_id AS courseId, ce.booking_request_id AS bookingRequestId, cs.enrollment_id AS enrollmentId, " +
             "ce.duration_minutes AS durationMinutes, ce.is_trial AS trial, ce.enrollment_type AS courseType, ce.grade AS grade, " +
@@ -64,7 +81,7 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
             "JOIN teachers t ON ce.teacher_id = t.id " +
             "LEFT JOIN courses c ON ce.course_id = c.id " +
             "LEFT JOIN subjects sub ON c.subject_id = sub.id " +
-            "WHERE ce.student_id = #{studentId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} " +
+            "WHERE cs.student_id = #{studentId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} " +
             "AND ce.is_deleted = 0 AND cs.is_deleted = 0 ORDER BY cs.scheduled_date ASC, cs.start_time ASC")
     List<CourseSchedule> findByStudentIdAndDateRange(@Param("studentId") Long studentId,
                                                      @Param("startDate") LocalDate startDate,
@@ -81,23 +98,97 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
             "JOIN teachers t ON ce.teacher_id = t.id " +
             "LEFT JOIN courses c ON ce.course_id = c.id " +
             "LEFT JOIN subjects sub ON c.subject_id = sub.id " +
-            "WHERE ce.student_id = #{studentId} " +
+            "WHERE cs.student_id = #{studentId} " +
             "AND ce.is_deleted = 0 AND cs.is_deleted = 0 ORDER BY cs.scheduled_date ASC, cs.start_time ASC")
     List<CourseSchedule> findByStudentId(@Param("studentId") Long studentId);
 
+    /**
+     * 教师日期范围内的占用时段（未取消），批量冲突检测用
+     */
+    @Select("SELECT cs.scheduled_date, cs.start_time, cs.end_time, cs.is_trial AS trial FROM course_schedules cs \n" +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} \n" +
+            "AND cs.is_deleted = 0 AND cs.schedule_status != 'cancelled'")
+    List<CourseSchedule> findOccupancyByTeacherAndDateRange(@Param("teacherId") Long teacherId,
+                                                            @Param("startDate") LocalDate startDate,
+                                                            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 学生日期范围内的占用时段（未取消），批量冲突检测用
+     */
+    @Select("SELECT cs.scheduled_date, cs.start_time, cs.end_time FROM course_schedules cs \n" +
+            "WHERE cs.student_id = #{studentId} AND cs.scheduled_date BETWEEN #{startDate} AND #{endDate} \n" +
+            "AND cs.is_deleted = 0 AND cs.schedule_status != 'cancelled'")
+    List<CourseSchedule> findOccupancyByStudentAndDateRange(@Param("studentId") Long studentId,
+                                                            @Param("startDate") LocalDate startDate,
+                                                            @Param("endDate") LocalDate endDate);
+
+    /**
+     * 批量插入课程安排（单条多行 INSERT）
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO course_schedules (enrollment_id, teacher_id, student_id, is_trial, scheduled_date, start_time, end_time, session_number, schedule_status, is_deleted) VALUES",
+        "<foreach collection='list' item='s' separator=','>",
+        "(#{s.enrollmentId}, #{s.teacherId}, #{s.studentId}, #{s.trial}, #{s.scheduledDate}, #{s.startTime}, #{s.endTime}, #{s.sessionNumber}, #{s.scheduleStatus}, #{s.deleted})",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("list") List<CourseSchedule> list);
+
+    /**
+     * 教师某日的占用时段（未取消），仅取占用位图所需字段
+     */
+    @Select("SELECT cs.start_time, cs.end_time, cs.schedule_status, cs.is_trial AS trial FROM course_schedules cs \n" +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND cs.is_deleted = 0 \n" +
+            "AND cs.schedule_status != 'cancelled'")
+    List<CourseSchedule> findOccupancyByTeacherAndDate(@Param("teacherId") Long teacherId,
+                                                       @Param("date") LocalDate date);
+
     @Select("SELECT cs.* FROM course_schedules cs \n" +
             "WHERE cs.schedule_status = 'scheduled' AND cs.is_deleted = 0 AND \n" +
             "(cs.scheduled_date < #{currentDate} OR (cs.scheduled_date = #{currentDate} AND cs.end_time < #{currentTime}))")
     List<CourseSchedule> findExpiredScheduled(@Param("currentDate") LocalDate currentDate,
                                               @Param("currentTime") LocalTime currentTime);
 
+    /**
+     * 按主键游标分块读取已过期的 scheduled 课程安排，附带教师与报名上的课程（结算所需字段）
+     */
+    @Select("SELECT cs.id, cs.enrollment_id, cs.start_time, cs.end_time, \n" +
+            "COALESCE(cs.teacher_id, ce.teacher_id) AS teacherId, ce.course_id AS courseId \n" +
+            "FROM course_schedules cs LEFT JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
+            "WHERE cs.id > #{afterId} AND cs.schedule_status = 'scheduled' AND cs.is_deleted = 0 AND \n" +
+            "(cs.scheduled_date < #{currentDate} OR (cs.scheduled_date = #{currentDate} AND cs.end_time < #{currentTime})) \n" +
+            "ORDER BY cs.id LIMIT #{limit}")
+    List<CourseSchedule> findExpiredScheduledAfter(@Param("afterId") Long afterId,
+                                                   @Param("currentDate") LocalDate currentDate,
+                                                   @Param("currentTime") LocalTime currentTime,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 锁定仍为 scheduled 的课程安排并返回其ID（并发取消/调课的行不会被结算）
+     */
+    @Select("<script>" +
+            "SELECT id FROM course_schedules WHERE schedule_status = 'scheduled' AND is_deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockScheduledIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量置为已完成
+     */
+    @Update("<script>" +
+            "UPDATE course_schedules SET schedule_status = 'completed' WHERE schedule_status = 'scheduled' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markCompletedByIds(@Param("ids") Collection<Long> ids);
+
     @Select("SELECT cs.*, ce.teacher_id AS teacherId, ce.student_id AS studentId, ce.course_id AS courseId, ce.booking_request_id AS bookingRequestId, cs.enrollment_id AS enrollmentId FROM course_schedules cs JOIN course_enrollments ce ON cs.enrollment_id = ce.id WHERE cs.id = #{id} AND cs.is_deleted = 0")
     CourseSchedule findById(@Param("id") Long id);
 
     @Select("SELECT COUNT(*) FROM course_schedules cs \n" +
-            "JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
-            "WHERE ce.teacher_id = #{teacherId} AND cs.scheduled_date >= #{date} AND cs.schedule_status = 'scheduled' \n" +
-            "AND cs.is_deleted = 0 AND ce.is_deleted = 0")
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date >= #{date} AND cs.schedule_status = 'scheduled' \n" +
+            "AND cs.is_deleted = 0")
     int countUpcomingByTeacherId(@Param("teacherId") Long teacherId, @Param("date") LocalDate date);
 
     @Select("SELECT cs.*, ce.teacher_id AS teacherId, ce.student_id AS studentId, ce.course_id AS courseId, ce.booking_request_id AS bookingRequestId, cs.enrollment_id AS enrollmentId FROM course_schedules cs JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
@@ -109,10 +200,8 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
      * 如果某个基础2小时区间内有试听课预约，则该区间不能用于正式课预约
      */
     @Select("SELECT COUNT(*) FROM course_schedules cs \n" +
-            "JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
-            "JOIN booking_requests br ON ce.booking_request_id = br.id \n" +
-            "WHERE ce.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND ce.is_deleted = 0 AND cs.is_deleted = 0 AND br.is_deleted = 0 \n" +
-            "AND br.is_trial = 1 AND cs.schedule_status != 'cancelled' \n" +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND cs.is_deleted = 0 \n" +
+            "AND cs.is_trial = 1 AND cs.schedule_status != 'cancelled' \n" +
             "AND ((cs.start_time >= #{baseStartTime} AND cs.start_time < #{baseEndTime}) OR \n" +
             "     (cs.end_time > #{baseStartTime} AND cs.end_time <= #{baseEndTime}) OR \n" +
             "     (cs.start_time <= #{baseStartTime} AND cs.end_time >= #{baseEndTime}))")
@@ -126,8 +215,7 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
      * 试听课之间可以共存，但试听课会影响正式课的预约
      */
     @Select("SELECT COUNT(*) FROM course_schedules cs \n" +
-            "JOIN course_enrollments ce ON cs.enrollment_id = ce.id \n" +
-            "WHERE ce.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND ce.is_deleted = 0 AND cs.is_deleted = 0 AND \n" +
+            "WHERE cs.teacher_id = #{teacherId} AND cs.scheduled_date = #{date} AND cs.is_deleted = 0 AND \n" +
             "((cs.start_time <= #{startTime} AND cs.end_time > #{startTime}) OR \n" +
             " (cs.start_time < #{endTime} AND cs.end_time >= #{endTime}) OR \n" +
             " (cs.start_time >= #{startTime} AND cs.end_time <= #{endTime})) AND cs.schedule_status != 'cancelled'")
@@ -161,7 +249,7 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
             "INNER JOIN teachers t ON ce.teacher_id = t.id " +
             "LEFT JOIN courses c ON ce.course_id = c.id " +
             "WHERE cs.schedule_status = 'completed' " +
-            "AND ce.teacher_id = #{teacherId} " +
+            "AND cs.teacher_id = #{teacherId} " +
             "AND cs.is_deleted = 0 " +
             "AND ce.is_deleted = 0 " +
             "AND (#{year} IS NULL OR YEAR(cs.scheduled_date) = #{year}) " +
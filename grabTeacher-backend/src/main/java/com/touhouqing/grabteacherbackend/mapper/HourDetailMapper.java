@@ -2,14 +2,38 @@ package com.touhouqing.grabteacherbackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.HourDetail;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface HourDetailMapper extends BaseMapper<HourDetail> {
     @Select("SELECT * FROM hour_details WHERE user_id = #{userId} ORDER BY id DESC LIMIT 1")
     HourDetail findLastByUserId(@Param("userId") Long userId);
-}
 
+    /**
+     * 批量查询每个用户最近一条课时明细
+     */
+    @Select("<script>" +
+            "SELECT h.* FROM hour_details h JOIN (" +
+            "SELECT MAX(id) AS id FROM hour_details WHERE user_id IN " +
+            "<foreach collection='userIds' item='uid' open='(' separator=',' close=')'>#{uid}</foreach>" +
+            " GROUP BY user_id) t ON h.id = t.id" +
+            "</script>")
+    List<HourDetail> findLastByUserIds(@Param("userIds") Collection<Long> userIds);
 
+    /**
+     * 批量追加课时明细（多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO hour_details (user_id, name, hours, hours_before, hours_after, transaction_type, reason_code, reason, booking_id, operator_id, created_at) VALUES " +
+            "<foreach collection='list' item='d' separator=','>" +
+            "(#{d.userId}, #{d.name}, #{d.hours}, #{d.hoursBefore}, #{d.hoursAfter}, #{d.transactionType}, #{d.reasonCode}, #{d.reason}, #{d.bookingId}, #{d.operatorId}, #{d.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<HourDetail> list);
+}
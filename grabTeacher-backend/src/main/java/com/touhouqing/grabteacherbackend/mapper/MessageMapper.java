@@ -9,7 +9,9 @@ import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 消息Mapper接口
@@ -38,6 +40,27 @@ public interface MessageMapper extends BaseMapper<Message> {
                                                      @Param("pageNum") Integer pageNum, 
                                                      @Param("pageSize") Integer pageSize);
     
+    /**
+     * 根据目标类型游标分页查询激活的消息（按创建时间、ID倒序）
+     * 
+     * @param targetTypes 目标类型列表
+     * @param cursorCreatedAt 上一页最后一条的创建时间，为空表示第一页
+     * @param cursorId 上一页最后一条的ID
+     * @param pageSize 页大小
+     * @return 消息列表
+     */
+    List<MessageVO> selectActiveMessagesAfter(@Param("targetTypes") List<Message.TargetType> targetTypes,
+                                              @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                              @Param("cursorId") Long cursorId,
+                                              @Param("pageSize") Integer pageSize);
+    
+    /**
+     * 按目标类型统计激活的消息数量
+     * 
+     * @return targetType、cnt 两列
+     */
+    List<Map<String, Object>> countActiveGroupByTargetType();
+    
     /**
      * 根据目标类型统计激活的消息数量
      * 
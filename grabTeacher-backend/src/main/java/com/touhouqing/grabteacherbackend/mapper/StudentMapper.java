@@ -21,4 +21,17 @@ public interface StudentMapper extends BaseMapper<Student> {
      */
     @Update("UPDATE students SET balance = COALESCE(balance, 0) + #{amount} WHERE id = #{studentId} AND is_deleted = 0")
     int incrementBalance(@Param("studentId") Long studentId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 条件变更余额：变更后余额不得为负（扣费余额不足时影响行数为 0），单条语句避免读-改-写丢失更新
+     */
+    @Update("UPDATE students SET balance = COALESCE(balance, 0) + #{amount} " +
+            "WHERE id = #{studentId} AND is_deleted = 0 AND COALESCE(balance, 0) + #{amount} >= 0")
+    int applyBalanceChange(@Param("studentId") Long studentId, @Param("amount") java.math.BigDecimal amount);
+
+    /**
+     * 读取当前余额（同一事务内紧随条件变更调用时，读到的是本事务持锁写入后的值）
+     */
+    @Select("SELECT COALESCE(balance, 0) FROM students WHERE id = #{studentId}")
+    java.math.BigDecimal selectBalance(@Param("studentId") Long studentId);
 }
\ No newline at end of file
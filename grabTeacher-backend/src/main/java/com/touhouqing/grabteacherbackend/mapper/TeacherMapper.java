@@ -2,6 +2,7 @@ package com.touhouqing.grabteacherbackend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.touhouqing.grabteacherbackend.model.entity.Teacher;
+import com.touhouqing.grabteacherbackend.model.vo.TeacherSearchVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
@@ -76,46 +77,102 @@ public interface TeacherMapper extends BaseMapper<Teacher> {
 
 
     /**
-     * 按科目分页查询教师并支持关键字过滤（SQL端分页）
+     * 公开端教师检索的公共条件：已认证未删除 + 可选科目（EXISTS，无需 DISTINCT）+ 关键字
+     * 关键字：ft 非空时走 FULLTEXT（ngram）索引，否则回退 LIKE（如单字关键字）
+     */
+    String SEARCH_SUBJECT_FILTER =
+        "<if test='subject != null and subject != \"\"'>" +
+        " AND EXISTS (SELECT 1 FROM teacher_subjects ts INNER JOIN subjects s ON ts.subject_id = s.id" +
+        " WHERE ts.teacher_id = t.id AND s.name = #{subject} AND s.is_deleted = 0)" +
+        "</if>";
+    String SEARCH_KEYWORD_FILTER =
+        "<choose>" +
+        "<when test='ft != null'>" +
+        " AND MATCH(t.real_name, t.specialties, t.introduction) AGAINST(#{ft} IN BOOLEAN MODE)" +
+        "</when>" +
+        "<when test='keyword != null and keyword != \"\"'>" +
+        " AND (t.real_name LIKE CONCAT('%', #{keyword}, '%')" +
+        " OR t.specialties LIKE CONCAT('%', #{keyword}, '%')" +
+        " OR t.introduction LIKE CONCAT('%', #{keyword}, '%'))" +
+        "</when>" +
+        "</choose>";
+
+    /**
+     * 分页检索教师（SQL端分页）；全文检索时按相关度排序
      */
     @Select({
         "<script>",
-        "SELECT DISTINCT t.* FROM teachers t",
-        "INNER JOIN teacher_subjects ts ON t.id = ts.teacher_id",
-        "INNER JOIN subjects s ON ts.subject_id = s.id",
+        "SELECT t.* FROM teachers t",
         "WHERE t.is_deleted = 0 AND t.is_verified = 1",
-        "AND s.name = #{subject} AND s.is_deleted = 0",
-        "<if test='keyword != null and keyword != \"\"'>",
-        "  AND (t.real_name LIKE CONCAT('%', #{keyword}, '%')",
-        "       OR t.specialties LIKE CONCAT('%', #{keyword}, '%')",
-        "       OR t.introduction LIKE CONCAT('%', #{keyword}, '%'))",
-        "</if>",
-        "ORDER BY t.id DESC",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
+        "ORDER BY",
+        "<if test='ft != null'>MATCH(t.real_name, t.specialties, t.introduction) AGAINST(#{ft} IN BOOLEAN MODE) DESC,</if>",
+        "t.id DESC",
         "LIMIT #{size} OFFSET #{offset}",
         "</script>"
     })
-    List<Teacher> findTeachersBySubjectPaged(@Param("subject") String subject,
-                                             @Param("keyword") String keyword,
-                                             @Param("offset") int offset,
-                                             @Param("size") int size);
+    List<Teacher> searchTeachers(@Param("subject") String subject,
+                                 @Param("keyword") String keyword,
+                                 @Param("ft") String ft,
+                                 @Param("offset") int offset,
+                                 @Param("size") int size);
+
     /**
-     * 按科目统计教师数量（支持关键字）
+     * 统计检索命中的教师数量
      */
     @Select({
         "<script>",
-        "SELECT COUNT(DISTINCT t.id) FROM teachers t",
-        "INNER JOIN teacher_subjects ts ON t.id = ts.teacher_id",
-        "INNER JOIN subjects s ON ts.subject_id = s.id",
+        "SELECT COUNT(*) FROM teachers t",
         "WHERE t.is_deleted = 0 AND t.is_verified = 1",
-        "AND s.name = #{subject} AND s.is_deleted = 0",
-        "<if test='keyword != null and keyword != \"\"'>",
-        "  AND (t.real_name LIKE CONCAT('%', #{keyword}, '%')",
-        "       OR t.specialties LIKE CONCAT('%', #{keyword}, '%')",
-        "       OR t.introduction LIKE CONCAT('%', #{keyword}, '%'))",
-        "</if>",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
+        "</script>"
+    })
+    long countSearchTeachers(@Param("subject") String subject,
+                             @Param("keyword") String keyword,
+                             @Param("ft") String ft);
+
+    /**
+     * 检索分面统计：一条语句返回 总数 / 科目 / 级别 / 授课地点 的命中数
+     * 科目分面不套用科目条件（便于切换科目时预知各科目数量），其余分面套用全部条件
+     */
+    @Select({
+        "<script>",
+        "SELECT 'total' AS facet, '' AS value, COUNT(*) AS count FROM teachers t",
+        "WHERE t.is_deleted = 0 AND t.is_verified = 1",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
+        "UNION ALL",
+        "SELECT 'subject', s.name, COUNT(DISTINCT t.id) FROM teachers t",
+        "INNER JOIN teacher_subjects ts ON ts.teacher_id = t.id",
+        "INNER JOIN subjects s ON ts.subject_id = s.id AND s.is_deleted = 0",
+        "WHERE t.is_deleted = 0 AND t.is_verified = 1",
+        SEARCH_KEYWORD_FILTER,
+        "GROUP BY s.name",
+        "UNION ALL",
+        "SELECT 'level', t.level, COUNT(*) FROM teachers t",
+        "WHERE t.is_deleted = 0 AND t.is_verified = 1 AND t.level IS NOT NULL AND t.level != ''",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
+        "GROUP BY t.level",
+        "UNION ALL",
+        "SELECT 'location', tl.name, COUNT(*) FROM teachers t",
+        "INNER JOIN teaching_locations tl ON FIND_IN_SET(tl.id, t.teaching_locations) AND tl.is_active = 1",
+        "WHERE t.is_deleted = 0 AND t.is_verified = 1",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
+        "GROUP BY tl.name",
+        "UNION ALL",
+        "SELECT 'location', '线上', COUNT(*) FROM teachers t",
+        "WHERE t.is_deleted = 0 AND t.is_verified = 1 AND t.supports_online = 1",
+        SEARCH_SUBJECT_FILTER,
+        SEARCH_KEYWORD_FILTER,
         "</script>"
     })
-    long countTeachersBySubject(@Param("subject") String subject, @Param("keyword") String keyword);
+    List<TeacherSearchVO.FacetCount> searchTeacherFacets(@Param("subject") String subject,
+                                                        @Param("keyword") String keyword,
+                                                        @Param("ft") String ft);
     /**
      * 按科目分页查询教师（精确姓名匹配）
      */
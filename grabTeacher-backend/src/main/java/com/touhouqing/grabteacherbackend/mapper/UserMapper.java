@@ -7,6 +7,8 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Map;
+
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
     
@@ -27,4 +29,17 @@ public interface UserMapper extends BaseMapper<User> {
 
     @Update("UPDATE users SET adjustment_times = #{times} WHERE is_deleted = 0")
     int resetAllAdjustmentTimes(@Param("times") int times);
-} 
\ No newline at end of file
+
+    /**
+     * 管理端仪表盘总量统计（一次往返），列名即统计项名称
+     */
+    @Select("SELECT " +
+            "(SELECT COUNT(*) FROM users WHERE is_deleted = 0) AS totalUsers, " +
+            "(SELECT COUNT(*) FROM users WHERE is_deleted = 0 AND user_type = 'student') AS totalStudents, " +
+            "(SELECT COUNT(*) FROM users WHERE is_deleted = 0 AND user_type = 'teacher') AS totalTeachers, " +
+            "(SELECT COUNT(*) FROM teachers WHERE is_deleted = 0 AND is_verified = 1) AS verifiedTeachers, " +
+            "(SELECT COUNT(*) FROM teachers WHERE is_deleted = 0 AND is_verified = 0) AS unverifiedTeachers, " +
+            "(SELECT COUNT(*) FROM booking_requests WHERE is_deleted = 0 AND status = 'pending') AS pendingBookings, " +
+            "(SELECT COUNT(*) FROM courses WHERE is_deleted = 0 AND status = 'pending') AS pendingCourses")
+    Map<String, Object> countDashboardTotals();
+}
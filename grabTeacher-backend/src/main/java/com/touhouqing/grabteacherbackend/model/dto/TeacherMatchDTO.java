@@ -5,6 +5,8 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 
+import jakarta.validation.constraints.Max;
+
 import java.util.List;
 
 /**
@@ -64,8 +66,9 @@ public class TeacherMatchDTO {
 
 
     /**
-     * 返回结果数量限制（至少5）
+     * 返回结果数量限制（至少5，最多50）
      */
+    @Max(value = 50, message = "返回结果数量不能超过50")
     @Builder.Default
     private Integer limit = 5;
 }
@@ -0,0 +1,46 @@
+package com.touhouqing.grabteacherbackend.model.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * 待处理预约按日期展开的具体课次（由 booking_requests 派生）
+ * 预约提交时写入，审批/拒绝/取消后删除，用于按 教师+日期 有界地查询待处理占用
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("booking_request_sessions")
+@Schema(description = "待处理预约课次实体")
+public class BookingRequestSession {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("booking_request_id")
+    private Long bookingRequestId;
+
+    @TableField("teacher_id")
+    private Long teacherId;
+
+    @TableField("student_id")
+    private Long studentId;
+
+    @TableField("session_date")
+    private LocalDate sessionDate;
+
+    @TableField("start_time")
+    private LocalTime startTime;
+
+    @TableField("end_time")
+    private LocalTime endTime;
+
+    @TableField("is_trial")
+    @Builder.Default
+    private Boolean isTrial = false;
+}
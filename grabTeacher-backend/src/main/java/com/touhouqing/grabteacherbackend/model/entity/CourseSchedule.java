@@ -79,15 +79,20 @@ public class CourseSchedule {
     @Schema(description = "删除时间")
     private LocalDateTime deletedAt;
 
-    // 以下字段来源于 course_enrollments 关联，用于业务便捷读取，不直接持久化
-    @TableField(exist = false)
-    @Schema(description = "教师ID（来自course_enrollments）")
+    // 冗余自 course_enrollments，创建课节时随报名写入，用于按教师/学生的单表索引查询
+    @TableField("teacher_id")
+    @Schema(description = "教师ID（冗余自course_enrollments）")
     private Long teacherId;
 
-    @TableField(exist = false)
-    @Schema(description = "学生ID（来自course_enrollments）")
+    @TableField("student_id")
+    @Schema(description = "学生ID（冗余自course_enrollments）")
     private Long studentId;
 
+    @TableField("is_trial")
+    @Schema(description = "是否试听（冗余自course_enrollments）")
+    private Boolean trial;
+
+    // 以下字段来源于 course_enrollments 关联，用于业务便捷读取，不直接持久化
     @TableField(exist = false)
     @Schema(description = "课程ID（来自course_enrollments）")
     private Long courseId;
@@ -117,10 +122,6 @@ public class CourseSchedule {
     @Schema(description = "年级（报名信息）")
     private String grade;
 
-    @TableField(exist = false)
-    @Schema(description = "是否试听（报名信息）")
-    private Boolean trial;
-
     @TableField(exist = false)
     @Schema(description = "课程类型（报名信息）")
     private String courseType;
@@ -0,0 +1,27 @@
+package com.touhouqing.grabteacherbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果（无限滚动）：不含总数，nextCursor 为空表示没有下一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "游标分页结果")
+public class CursorPageVO<T> {
+
+    @Schema(description = "本页记录")
+    private List<T> records;
+
+    @Schema(description = "实际页大小")
+    private Integer size;
+
+    @Schema(description = "下一页游标，为空表示已到末页")
+    private String nextCursor;
+}
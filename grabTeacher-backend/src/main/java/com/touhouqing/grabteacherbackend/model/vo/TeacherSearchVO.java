@@ -0,0 +1,51 @@
+package com.touhouqing.grabteacherbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 教师检索响应：按相关度排序的分页结果 + 分面统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "教师检索响应")
+public class TeacherSearchVO {
+
+    @Schema(description = "当前页教师")
+    private List<TeacherListVO> records;
+
+    @Schema(description = "命中总数", example = "36")
+    private Long total;
+
+    @Schema(description = "当前页码", example = "1")
+    private Integer current;
+
+    @Schema(description = "每页数量", example = "10")
+    private Integer size;
+
+    @Schema(description = "总页数", example = "4")
+    private Long pages;
+
+    @Schema(description = "分面统计：subject / level / location -> {取值: 命中数}")
+    private Map<String, Map<String, Long>> facets;
+
+    /**
+     * 分面统计行（facet, value, count），由 TeacherMapper.searchTeacherFacets 一次返回
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String facet;
+        private String value;
+        private Long count;
+    }
+}
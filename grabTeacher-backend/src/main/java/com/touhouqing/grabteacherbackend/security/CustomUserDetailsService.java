@@ -19,6 +19,9 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     UserMapper userMapper;
 
+    @Autowired
+    UserPrincipalCache userPrincipalCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
@@ -42,13 +45,16 @@ public class CustomUserDetailsService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
 
-    @Transactional
+    /**
+     * JWT 认证路径：优先取进程内主体缓存，未命中才查库（单条主键查询，无需事务）
+     */
     public UserDetails loadUserById(Long id) {
-        User user = userMapper.selectById(id);
-        if (user == null) {
-            throw new UsernameNotFoundException("用户不存在，ID: " + id);
-        }
-
-        return UserPrincipal.create(user);
+        return userPrincipalCache.get(id, () -> {
+            User user = userMapper.selectById(id);
+            if (user == null) {
+                throw new UsernameNotFoundException("用户不存在，ID: " + id);
+            }
+            return UserPrincipal.create(user);
+        });
     }
 } 
\ No newline at end of file
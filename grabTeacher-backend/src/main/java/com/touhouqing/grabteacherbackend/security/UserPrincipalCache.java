@@ -0,0 +1,117 @@
+package com.touhouqing.grabteacherbackend.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * JWT 认证用的进程内用户主体缓存，认证请求命中时不访问数据库
+ * - 容量上限按访问顺序淘汰（LRU），条目 TTL 兜底
+ * - 用户状态、密码、邮箱等变更后调用 invalidate，经 Redis 频道广播到各节点
+ * - 版本号：加载开始后发生过失效则不回填，避免并发加载把旧数据写回缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalCache {
+
+    private static final String INVALIDATE_CHANNEL = "grabTeacher:auth:principal:invalidate";
+
+    private static final int MAX_ENTRIES = 5_000;
+
+    // 广播丢失时的陈旧上限
+    private static final long TTL_MILLIS = 60_000L;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private record Entry(UserPrincipal principal, long expireAt) {}
+
+    @PostConstruct
+    public void subscribeInvalidation() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                evictLocal(Long.valueOf(body));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的用户主体失效消息: {}", body);
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 命中直接返回，否则调用 loader 加载并回填
+     */
+    public UserPrincipal get(Long userId, Supplier<UserPrincipal> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry e = entries.get(userId);
+            if (e != null && e.expireAt() >= now) {
+                return e.principal();
+            }
+        }
+        long loadVersion = version.get();
+        UserPrincipal principal = loader.get();
+        synchronized (entries) {
+            if (version.get() == loadVersion) {
+                entries.put(userId, new Entry(principal, now + TTL_MILLIS));
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * 删除本节点缓存并广播给其他节点。
+     * 事务内调用时，提交/回滚后会再失效一次，避免其他请求在提交前重载到旧数据。
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        doInvalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    doInvalidate(userId);
+                }
+            });
+        }
+    }
+
+    private void doInvalidate(Long userId) {
+        evictLocal(userId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 广播失败时其他节点最多沿用一个 TTL
+            log.warn("广播用户主体缓存失效失败 userId={}", userId, e);
+        }
+    }
+
+    private void evictLocal(Long userId) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+}
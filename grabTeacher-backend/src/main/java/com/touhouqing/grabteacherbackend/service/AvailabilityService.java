@@ -3,8 +3,13 @@ package com.touhouqing.grabteacherbackend.service;
 import com.touhouqing.grabteacherbackend.model.vo.DayAvailabilityVO;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface AvailabilityService {
     DayAvailabilityVO getDayAvailability(Long teacherId, LocalDate date, String segment);
-}
 
+    /**
+     * 按日期区间批量获取可选性（含首尾，最多 31 天）
+     */
+    List<DayAvailabilityVO> getRangeAvailability(Long teacherId, LocalDate startDate, LocalDate endDate, String segment);
+}
@@ -0,0 +1,58 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.BalanceTransactionMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BalanceTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 余额变动流水的批量写入器
+ * - 事务内追加的流水先缓存在事务资源中，提交前以多行 INSERT 一次写入，回滚时随事务丢弃
+ * - 无事务时退化为逐条写入
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceJournalWriter {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final BalanceTransactionMapper balanceTransactionMapper;
+
+    public void append(BalanceTransaction transaction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceTransactionMapper.insert(transaction);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<BalanceTransaction> buffer = (List<BalanceTransaction>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            List<BalanceTransaction> pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    writeBatches(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BalanceJournalWriter.this);
+                }
+            });
+            buffer = pending;
+        }
+        buffer.add(transaction);
+    }
+
+    private void writeBatches(List<BalanceTransaction> pending) {
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            balanceTransactionMapper.insertBatch(pending.subList(from, Math.min(from + BATCH_SIZE, pending.size())));
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,113 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.StudentMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BalanceTransaction;
+import com.touhouqing.grabteacherbackend.model.entity.Student;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 学生余额账本
+ * - 余额变更为单条条件 UPDATE（变更后不得为负），不再读整行、Java 计算、整行回写
+ * - 变更后余额在同一事务内按主键读取（行锁仍由本事务持有），据此生成流水并交由批量写入器追加
+ * - 用户ID → 学生ID/姓名 的映射做进程内缓存，热路径不再按 user_id 二级索引查询学生
+ * 需在事务内调用，保证条件变更、余额读取与流水写入的一致性
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerService {
+
+    private static final int MAX_STUDENT_REFS = 10_000;
+
+    // 姓名仅用于流水展示，变更时显式失效，TTL 兜底
+    private static final long STUDENT_REF_TTL_MILLIS = 10 * 60_000L;
+
+    private final StudentMapper studentMapper;
+    private final BalanceJournalWriter balanceJournalWriter;
+
+    private final Map<Long, StudentRef> studentRefs = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, StudentRef> eldest) {
+            return size() > MAX_STUDENT_REFS;
+        }
+    };
+
+    private record StudentRef(Long studentId, String realName, long expireAt) {}
+
+    /**
+     * 变更余额并记录流水：amount 为负表示扣费，为正表示退费。
+     * 返回变更后余额；学生不存在或余额不足时返回 null
+     */
+    public BigDecimal applyChange(Long userId, BigDecimal amount, String reason, Long bookingId, Long operatorId) {
+        StudentRef ref = getStudentRef(userId);
+        if (ref == null) {
+            log.error("学生信息不存在，userId: {}", userId);
+            return null;
+        }
+        if (studentMapper.applyBalanceChange(ref.studentId(), amount) == 0) {
+            // 未命中可能是余额不足，也可能是学生已被删除：丢弃映射，下次重新加载
+            evictStudent(userId);
+            log.error("余额不足或学生不存在，用户ID: {}, 变动金额: {}", userId, amount);
+            return null;
+        }
+        BigDecimal newBalance = studentMapper.selectBalance(ref.studentId());
+        BigDecimal oldBalance = newBalance.subtract(amount);
+
+        balanceJournalWriter.append(BalanceTransaction.builder()
+                .userId(userId)
+                .name(ref.realName())
+                .amount(amount)
+                .balanceBefore(oldBalance)
+                .balanceAfter(newBalance)
+                .transactionType(amount.compareTo(BigDecimal.ZERO) > 0 ? "REFUND" : "DEDUCT")
+                .reason(reason)
+                .bookingId(bookingId)
+                .operatorId(operatorId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return newBalance;
+    }
+
+    /**
+     * 读取当前余额（按主键），学生不存在时返回 null
+     */
+    public BigDecimal getBalance(Long userId) {
+        StudentRef ref = getStudentRef(userId);
+        return ref == null ? null : studentMapper.selectBalance(ref.studentId());
+    }
+
+    /**
+     * 学生姓名变更或删除后调用
+     */
+    public void evictStudent(Long userId) {
+        if (userId == null) return;
+        synchronized (studentRefs) {
+            studentRefs.remove(userId);
+        }
+    }
+
+    private StudentRef getStudentRef(Long userId) {
+        if (userId == null) return null;
+        long now = System.currentTimeMillis();
+        synchronized (studentRefs) {
+            StudentRef ref = studentRefs.get(userId);
+            if (ref != null && ref.expireAt() >= now) {
+                return ref;
+            }
+        }
+        Student student = studentMapper.findByUserId(userId);
+        if (student == null) return null;
+        StudentRef ref = new StudentRef(student.getId(), student.getRealName(), now + STUDENT_REF_TTL_MILLIS);
+        synchronized (studentRefs) {
+            studentRefs.put(userId, ref);
+        }
+        return ref;
+    }
+}
@@ -0,0 +1,155 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预约准入：在 Redis 忙时集合（grabTeacher:busy:teacher:{id}:{date}）上以 Lua 原子检查并占位，
+ * 冲突请求立即拒绝，无需持有分布式锁。
+ * - 占位成功后由调用方事务落库，数据库冲突校验兜底
+ * - 事务回滚时自动移除占位（补偿）；提交后占位即为该课程的忙时记录
+ * - 试听（claimTrial）与正式课审批（claimFormal）共用同一集合：试听占用其所在的整个基础段，两者在基础段内互斥
+ * - 占位同时登记到 {busyKey}:claims，异步刷新按库重建忙时集合时保留未到期占位，不会放行第二个请求
+ * - 忙时集合未加载时先从数据库回填；Redis 不可用时返回 UNAVAILABLE，调用方退回加锁路径
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingAdmissionService {
+
+    public enum Admission {
+        /** 已占位 */
+        CLAIMED,
+        /** 与已有占用冲突 */
+        REJECTED,
+        /** Redis 不可用或未能加载，需调用方自行保证互斥 */
+        UNAVAILABLE
+    }
+
+    // 占位 TTL 与忙时缓存一致（3 分钟 + 抖动由回填负责），占位时续期
+    private static final Duration CLAIM_TTL = Duration.ofMinutes(3);
+
+    // KEYS[1]=忙时集合, KEYS[2]=占位 ZSet；ARGV: 开始分钟, 结束分钟, 成员, TTL秒, 基础段开始分钟, 基础段结束分钟（-1 表示不检查基础段）,
+    // 已加载标记成员, 占位到期毫秒
+    // 返回 1 占位成功，0 冲突，-1 未加载（集合中无已加载标记）
+    private static final DefaultRedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[1], ARGV[7]) == 0 then return -1 end " +
+            "local s = tonumber(ARGV[1]) local e = tonumber(ARGV[2]) " +
+            "local bs = tonumber(ARGV[5]) local be = tonumber(ARGV[6]) " +
+            "for _, m in ipairs(redis.call('SMEMBERS', KEYS[1])) do " +
+            "  local h1, m1, h2, m2 = string.match(m, '(%d+):(%d+)[^-]*%-(%d+):(%d+)') " +
+            "  if h1 then " +
+            "    local ms = tonumber(h1) * 60 + tonumber(m1) local me = tonumber(h2) * 60 + tonumber(m2) " +
+            "    if ms < e and me > s then return 0 end " +
+            "    if bs >= 0 and ms < be and me > bs then return 0 end " +
+            "  end " +
+            "end " +
+            "redis.call('SADD', KEYS[1], ARGV[3]) redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[8], ARGV[3]) redis.call('EXPIRE', KEYS[2], ARGV[4]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TeacherScheduleCacheService teacherScheduleCacheService;
+    private final CourseScheduleMapper courseScheduleMapper;
+
+    /**
+     * 试听课准入：时间段不得与当日任何占用重叠；若从基础段起点开始，则该基础段内不得已有占用
+     */
+    public Admission claimTrial(Long teacherId, LocalDate date, LocalTime start, LocalTime end) {
+        LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+        LocalTime[] guard = base != null && start.equals(base[0]) ? base : null;
+        return claim(teacherId, date, start, end, guard);
+    }
+
+    /**
+     * 正式课准入：时间段所涉及的基础段内不得已有任何占用（试听占用其所在的整个基础段），
+     * 与 claimTrial 在同一忙时集合上互斥；不落在基础段内的时段只检查重叠
+     */
+    public Admission claimFormal(Long teacherId, LocalDate date, LocalTime start, LocalTime end) {
+        List<LocalTime[]> bases = TeacherOccupancyService.overlappingBaseSlots(start, end);
+        LocalTime[] guard = bases.isEmpty() ? null : new LocalTime[]{bases.get(0)[0], bases.get(bases.size() - 1)[1]};
+        return claim(teacherId, date, start, end, guard);
+    }
+
+    private Admission claim(Long teacherId, LocalDate date, LocalTime start, LocalTime end, LocalTime[] baseGuard) {
+        if (teacherId == null || date == null || start == null || end == null) return Admission.UNAVAILABLE;
+        String key = teacherScheduleCacheService.busyKey(teacherId, date);
+        String claimKey = teacherScheduleCacheService.claimKey(teacherId, date);
+        String member = start + "-" + end;
+        List<String> keys = Arrays.asList(key, claimKey);
+        String[] args = {
+                String.valueOf(minutes(start)), String.valueOf(minutes(end)), member,
+                String.valueOf(CLAIM_TTL.getSeconds()),
+                String.valueOf(baseGuard == null ? -1 : minutes(baseGuard[0])),
+                String.valueOf(baseGuard == null ? -1 : minutes(baseGuard[1])),
+                TeacherScheduleCacheService.LOADED_MARKER,
+                String.valueOf(System.currentTimeMillis() + CLAIM_TTL.toMillis())
+        };
+        try {
+            Long res = stringRedisTemplate.execute(CLAIM_SCRIPT, keys, (Object[]) args);
+            if (res != null && res == -1L) {
+                // 忙时集合未加载：从数据库回填后重试一次
+                loadBusySlots(teacherId, date);
+                res = stringRedisTemplate.execute(CLAIM_SCRIPT, keys, (Object[]) args);
+            }
+            if (res == null || res == -1L) return Admission.UNAVAILABLE;
+            if (res == 0L) return Admission.REJECTED;
+        } catch (Exception e) {
+            log.warn("Redis 预约准入失败，退回加锁路径 teacherId={}, date={}, slot={}", teacherId, date, member, e);
+            return Admission.UNAVAILABLE;
+        }
+        teacherScheduleCacheService.invalidateNearCache(teacherId, Collections.singletonList(date));
+        registerCompensation(teacherId, date, key, claimKey, member);
+        return Admission.CLAIMED;
+    }
+
+    /**
+     * 回滚时移除占位；提交后占位登记保留到期，覆盖刷新任务读库早于本事务提交的竞态
+     */
+    private void registerCompensation(Long teacherId, LocalDate date, String key, String claimKey, String member) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                try {
+                    stringRedisTemplate.opsForSet().remove(key, member);
+                    stringRedisTemplate.opsForZSet().remove(claimKey, member);
+                    teacherScheduleCacheService.invalidateNearCache(teacherId, Collections.singletonList(date));
+                    log.info("预约事务未提交，已释放忙时占位 key={}, slot={}", key, member);
+                } catch (Exception e) {
+                    // 释放失败时占位随 TTL 过期，期间该时段可能被误判为忙
+                    log.warn("释放忙时占位失败 key={}, slot={}", key, member, e);
+                }
+            }
+        });
+    }
+
+    private void loadBusySlots(Long teacherId, LocalDate date) {
+        List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, date, date);
+        List<String> slots = new ArrayList<>(dayAll.size());
+        for (CourseSchedule s : dayAll) {
+            slots.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
+        }
+        teacherScheduleCacheService.putBusySlots(teacherId, date, slots);
+    }
+
+    private static int minutes(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
@@ -0,0 +1,149 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestSessionMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequestSession;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.touhouqing.grabteacherbackend.util.RecurringSessionUtil;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 维护 booking_request_sessions：待处理预约按日期展开的课次
+ * - 提交时写入（单次 1 条；日历按所选会话；历史周期预约按星期展开），审批/拒绝/取消后删除
+ * - 按 教师+日期 查询待处理占用走该表索引，不再因 MySQL 5.7 无 JSON_TABLE 而扫描全部日历预约
+ * - 查询侧仍以 booking_requests.status = 'pending' 为准，遗留课次只会多出候选、不影响结果；
+ *   表上线前的存量待处理预约由一次性回填补齐（Redis 完成标记，多节点只执行一次，失败下次调度重试），
+ *   遗留课次由每日低峰清理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingRequestSessionService {
+
+    // 单次插入行数上限
+    private static final int INSERT_BATCH_SIZE = 500;
+    // 周期预约跨度超过该天数时记录告警（仍完整展开，不截断）
+    private static final long LONG_RECURRING_DAYS = 366;
+    // 存量回填完成标记（永久）与执行锁
+    private static final String BACKFILL_DONE_KEY = "booking_request_sessions:backfill:done";
+    private static final String BACKFILL_LOCK_KEY = "booking_request_sessions:backfill:lock";
+    private static final Duration BACKFILL_LOCK_TTL = Duration.ofMinutes(10);
+
+    private final BookingRequestSessionMapper sessionMapper;
+    private final BookingRequestMapper bookingRequestMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 写入（或重建）预约的课次；非待处理状态的预约不写入
+     */
+    public void materialize(BookingRequest br) {
+        if (br == null || br.getId() == null) return;
+        sessionMapper.deleteByBookingRequestId(br.getId());
+        if (!"pending".equals(br.getStatus()) || Boolean.TRUE.equals(br.getDeleted())) return;
+        List<BookingRequestSession> sessions = expand(br);
+        for (int from = 0; from < sessions.size(); from += INSERT_BATCH_SIZE) {
+            sessionMapper.insertBatch(sessions.subList(from, Math.min(from + INSERT_BATCH_SIZE, sessions.size())));
+        }
+    }
+
+    /**
+     * 预约离开待处理状态后删除其课次
+     */
+    public void release(Long bookingRequestId) {
+        if (bookingRequestId == null) return;
+        sessionMapper.deleteByBookingRequestId(bookingRequestId);
+    }
+
+    /**
+     * 启动后调度执行存量回填，完成后每次只检查一次标记；不阻塞启动，失败记录日志并在下次调度重试
+     */
+    @Scheduled(fixedDelay = 60_000L, initialDelay = 10_000L)
+    public void backfillIfNeeded() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(BACKFILL_DONE_KEY))) return;
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(BACKFILL_LOCK_KEY, "1", BACKFILL_LOCK_TTL);
+            if (!Boolean.TRUE.equals(locked)) return; // 其他节点正在回填
+            try {
+                backfill();
+                stringRedisTemplate.opsForValue().set(BACKFILL_DONE_KEY, "1");
+            } finally {
+                stringRedisTemplate.delete(BACKFILL_LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("待处理预约课次回填失败，将在下次调度重试", e);
+        }
+    }
+
+    /**
+     * 补齐表上线前已存在的待处理预约，并清理经其他路径改状态的预约遗留的课次
+     */
+    void backfill() {
+        int removed = sessionMapper.deleteSettled();
+        List<BookingRequest> missing = bookingRequestMapper.findPendingWithoutSessions();
+        for (BookingRequest br : missing) {
+            materialize(br);
+        }
+        log.info("待处理预约课次回填完成，补齐预约数: {}，清理遗留课次: {}", missing.size(), removed);
+    }
+
+    /**
+     * 每天凌晨清理已不再待处理的预约遗留的课次（遗留课次不影响查询结果，仅减少候选）
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void cleanupSettled() {
+        try {
+            int removed = sessionMapper.deleteSettled();
+            if (removed > 0) {
+                log.info("清理遗留待处理预约课次: {}", removed);
+            }
+        } catch (Exception e) {
+            log.warn("清理遗留待处理预约课次失败", e);
+        }
+    }
+
+    static List<BookingRequestSession> expand(BookingRequest br) {
+        List<BookingRequestSession> res = new ArrayList<>();
+        if ("single".equals(br.getBookingType())) {
+            add(res, br, br.getRequestedDate(), br.getRequestedStartTime(), br.getRequestedEndTime());
+        } else if ("calendar".equals(br.getBookingType())) {
+            for (CalendarSessionUtil.CalendarSession s : CalendarSessionUtil.parseQuietly(br.getSelectedSessionsJson())) {
+                add(res, br, s.date, s.start, s.end);
+            }
+        } else if ("recurring".equals(br.getBookingType())) {
+            if (br.getStartDate() != null && br.getEndDate() != null
+                    && ChronoUnit.DAYS.between(br.getStartDate(), br.getEndDate()) > LONG_RECURRING_DAYS) {
+                log.warn("周期预约跨度超过{}天，按完整区间展开课次 bookingId={}, {}~{}",
+                        LONG_RECURRING_DAYS, br.getId(), br.getStartDate(), br.getEndDate());
+            }
+            for (CalendarSessionUtil.CalendarSession s : RecurringSessionUtil.expand(br, null, null)) {
+                add(res, br, s.date, s.start, s.end);
+            }
+        }
+        return res;
+    }
+
+    private static void add(List<BookingRequestSession> res, BookingRequest br, LocalDate date, LocalTime start, LocalTime end) {
+        if (date == null || start == null || end == null) return;
+        res.add(BookingRequestSession.builder()
+                .bookingRequestId(br.getId())
+                .teacherId(br.getTeacherId())
+                .studentId(br.getStudentId())
+                .sessionDate(date)
+                .startTime(start)
+                .endTime(end)
+                .isTrial(Boolean.TRUE.equals(br.getIsTrial()))
+                .build());
+    }
+}
@@ -2,13 +2,18 @@ package com.touhouqing.grabteacherbackend.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.Cursor;
-import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -19,31 +24,27 @@ public class CacheKeyEvictor {
 
     private final StringRedisTemplate stringRedisTemplate;
 
-    // 与 RedisConfiguration 中 computePrefixWith 保持一致
-    private static final String PREFIX_TEACHER_SCHEDULE = "grabTeacher:teacherSchedule:";
-    private static final String PREFIX_TEACHER_AVAILABILITY = "grabTeacher:teacherAvailability:";
+    // 与 CalendarServiceImpl 物化月历 key 保持一致
     private static final String PREFIX_TEACHER_MONTHLY = "grabTeacher:teacherMonthlyCalendar:";
 
-    // 本服务新增的忙时缓存前缀
-    private static final String PREFIX_BUSY_DAY = "grabTeacher:busy:teacher:"; // busy:teacher:{id}:{yyyy-MM-dd}
+    // 缓存键索引：写入时登记，失效时按索引精确删除，代价与全库 key 数量无关
+    private static final String PREFIX_KEY_INDEX = "grabTeacher:keyIndex:";
+
+    // 原子取出并删除索引集合：之后写入的 key 登记到新集合，不会被本次删除误摘除
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_INDEX = new DefaultRedisScript<>(
+            "local m = redis.call('SMEMBERS', KEYS[1]) redis.call('DEL', KEYS[1]) return m", List.class);
 
     /**
-     * 精确清理某教师相关课表/可用性缓存；同时清理 busy 缓存（可选按日期）
+     * 精确清理某教师相关课表/可用性缓存。
+     * 忙时集合（grabTeacher:busy:teacher:*）不在此删除：其中可能有未提交的准入占位，
+     * 由 TeacherScheduleCacheService.putBusySlotsBatch 按库合并重建
      */
     public void evictTeacherScheduleAndAvailability(Long teacherId, Collection<LocalDate> dates) {
         try {
-            // 清 teacherSchedule/teacherAvailability 中与该教师相关的所有 key（忽略日期范围）
-            deleteByPattern(PREFIX_TEACHER_SCHEDULE + "*teacher_" + teacherId + ":*");
-            deleteByPattern(PREFIX_TEACHER_AVAILABILITY + "*teacher_" + teacherId + ":*");
-
-            // 清 busy:{date}
-            if (dates != null) {
-                for (LocalDate d : dates) {
-                    String key = busyKey(teacherId, d);
-                    stringRedisTemplate.delete(key);
-                }
-            }
-            log.info("已精确清理教师{}的课表/可用性缓存，清理日期数: {}", teacherId, dates == null ? 0 : dates.size());
+            // teacherSchedule/teacherAvailability 的 key 在写入时登记到教师索引（忽略日期范围）
+            int n = unlinkIndexed(teacherKeyIndex(teacherId), Collections.emptyList(), null);
+            log.info("已精确清理教师{}的课表/可用性缓存，清理日期数: {}，删除键数: {}", teacherId, dates == null ? 0 : dates.size(), n);
         } catch (Exception e) {
             log.warn("精确清理教师缓存失败 teacherId={}", teacherId, e);
         }
@@ -59,37 +60,66 @@ public class CacheKeyEvictor {
     public void evictTeacherMonthlyCalendar(Long teacherId, Collection<LocalDate> dates) {
         try {
             if (dates == null || dates.isEmpty()) {
-                // 无具体日期时，按教师维度全删该教师的月历缓存
-                deleteByPattern(PREFIX_TEACHER_MONTHLY + "*t:" + teacherId + ":*");
-                log.info("已清理教师{}的整月历缓存（无具体日期）", teacherId);
+                // 无具体日期时，按月历索引删除该教师全部已物化月份（含版本号）
+                int n = unlinkIndexed(monthlyCalendarKeyIndex(teacherId), Collections.emptyList(), ":ver");
+                log.info("已清理教师{}的整月历缓存（无具体日期），删除键数: {}", teacherId, n);
                 return;
             }
+            // 月历 key 可由教师与年月直接确定，无需索引
             Set<String> ymSet = dates.stream().map(d -> d.getYear() + ":" + d.getMonthValue()).collect(Collectors.toSet());
-            for (String ym : ymSet) {
-                deleteByPattern(PREFIX_TEACHER_MONTHLY + "*t:" + teacherId + ":" + ym);
-            }
+            List<String> keys = ymSet.stream().map(ym -> PREFIX_TEACHER_MONTHLY + "t:" + teacherId + ":" + ym).collect(Collectors.toList());
+            stringRedisTemplate.unlink(keys);
             log.info("已清理教师{}的月历缓存，影响月份: {}", teacherId, ymSet);
         } catch (Exception e) {
             log.warn("清理教师月历缓存失败 teacherId={}", teacherId, e);
         }
     }
 
-    private void deleteByPattern(String pattern) {
-        stringRedisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Void>) connection -> {
-            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
-                while (cursor.hasNext()) {
-                    byte[] key = cursor.next();
-                    connection.keyCommands().del(key);
-                }
-            } catch (Exception e) {
-                log.warn("SCAN 删除 keys 失败 pattern={}", pattern, e);
-            }
+    /**
+     * 教师维度缓存键索引（teacherSchedule/teacherAvailability）
+     */
+    public static String teacherKeyIndex(Long teacherId) {
+        return PREFIX_KEY_INDEX + "teacher:" + teacherId;
+    }
+
+    /**
+     * 教师物化月历键索引
+     */
+    public static String monthlyCalendarKeyIndex(Long teacherId) {
+        return PREFIX_KEY_INDEX + "teacherMonthlyCalendar:" + teacherId;
+    }
+
+    /**
+     * 登记缓存键到索引集合并续期索引（SADD + EXPIRE 一次往返）
+     */
+    public static void registerKey(StringRedisTemplate template, String indexKey, String key, Duration indexTtl) {
+        byte[] idx = indexKey.getBytes(StandardCharsets.UTF_8);
+        byte[] member = key.getBytes(StandardCharsets.UTF_8);
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            connection.setCommands().sAdd(idx, member);
+            connection.keyCommands().expire(idx, indexTtl.getSeconds());
             return null;
         });
     }
 
-    public String busyKey(Long teacherId, LocalDate date) {
-        return PREFIX_BUSY_DAY + teacherId + ":" + date.toString();
+    /**
+     * 原子认领索引集合中登记的 key（SMEMBERS + DEL），再与额外 key 一起在一次请求中 UNLINK。
+     * 认领后并发写入的 key 重新登记到新的索引集合，下次失效仍能删除；
+     * 若该 key 随后被本次 UNLINK 删除，索引中只会多一个已不存在的成员，不影响正确性。
+     * memberSuffix 非空时同时删除每个成员加该后缀的附属 key。
+     */
+    private int unlinkIndexed(String indexKey, Collection<String> extraKeys, String memberSuffix) {
+        List<?> members = stringRedisTemplate.execute(CLAIM_INDEX, List.of(indexKey));
+        List<String> keys = new ArrayList<>(extraKeys);
+        if (members != null) {
+            for (Object o : members) {
+                String m = String.valueOf(o);
+                keys.add(m);
+                if (memberSuffix != null) keys.add(m + memberSuffix);
+            }
+        }
+        if (keys.isEmpty()) return 0;
+        stringRedisTemplate.unlink(keys);
+        return keys.size();
     }
 }
-
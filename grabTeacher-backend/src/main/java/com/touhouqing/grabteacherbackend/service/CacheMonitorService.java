@@ -1,5 +1,6 @@
 package com.touhouqing.grabteacherbackend.service;
 
+import com.touhouqing.grabteacherbackend.cache.CacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
@@ -8,12 +9,12 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 缓存监控服务
  * 提供缓存命中率统计、性能监控等功能
+ * 指标由 CacheManager/RedisCacheWriter 装饰器写入 CacheMetrics（Micrometer），这里负责汇总报告；
+ * Prometheus 经 /actuator/prometheus 抓取同一组计量器
  */
 @Slf4j
 @Service
@@ -25,93 +26,35 @@ public class CacheMonitorService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
-    // 缓存统计数据
-    private final Map<String, CacheStats> cacheStatsMap = new ConcurrentHashMap<>();
-
-    /**
-     * 缓存统计数据类
-     */
-    public static class CacheStats {
-        private final AtomicLong hitCount = new AtomicLong(0);
-        private final AtomicLong missCount = new AtomicLong(0);
-        private final AtomicLong putCount = new AtomicLong(0);
-        private final AtomicLong evictionCount = new AtomicLong(0);
-        private LocalDateTime lastAccessTime = LocalDateTime.now();
-        private LocalDateTime createdTime = LocalDateTime.now();
-
-        public void recordHit() {
-            hitCount.incrementAndGet();
-            lastAccessTime = LocalDateTime.now();
-        }
-
-        public void recordMiss() {
-            missCount.incrementAndGet();
-            lastAccessTime = LocalDateTime.now();
-        }
-
-        public void recordPut() {
-            putCount.incrementAndGet();
-            lastAccessTime = LocalDateTime.now();
-        }
-
-        public void recordEviction() {
-            evictionCount.incrementAndGet();
-        }
-
-        public long getHitCount() { return hitCount.get(); }
-        public long getMissCount() { return missCount.get(); }
-        public long getPutCount() { return putCount.get(); }
-        public long getEvictionCount() { return evictionCount.get(); }
-        public LocalDateTime getLastAccessTime() { return lastAccessTime; }
-        public LocalDateTime getCreatedTime() { return createdTime; }
-
-        public double getHitRate() {
-            long total = hitCount.get() + missCount.get();
-            return total == 0 ? 0.0 : (double) hitCount.get() / total;
-        }
-
-        public long getTotalRequests() {
-            return hitCount.get() + missCount.get();
-        }
-    }
+    @Autowired
+    private CacheMetrics cacheMetrics;
 
     /**
-     * 记录缓存命中
+     * 记录缓存命中（Cache 层的命中/未命中由 CacheManager 装饰器自动记录，这里供绕过 Cache 抽象的直接读写使用）
      */
     public void recordCacheHit(String cacheName) {
-        getCacheStats(cacheName).recordHit();
-        log.debug("缓存命中: {}", cacheName);
+        cacheMetrics.of(cacheName).recordHit();
     }
 
     /**
      * 记录缓存未命中
      */
     public void recordCacheMiss(String cacheName) {
-        getCacheStats(cacheName).recordMiss();
-        log.debug("缓存未命中: {}", cacheName);
+        cacheMetrics.of(cacheName).recordMiss();
     }
 
     /**
      * 记录缓存写入
      */
     public void recordCachePut(String cacheName) {
-        getCacheStats(cacheName).recordPut();
-        log.debug("缓存写入: {}", cacheName);
+        cacheMetrics.of(cacheName).recordPut();
     }
 
     /**
-     * 记录缓存清除
+     * 记录缓存清除（如按依赖集合直接删除 Redis 键）
      */
     public void recordCacheEviction(String cacheName) {
-        getCacheStats(cacheName).recordEviction();
-        log.debug("缓存清除: {}", cacheName);
-    }
-
-    /**
-     * 获取缓存统计信息
-     */
-    private CacheStats getCacheStats(String cacheName) {
-        return cacheStatsMap.computeIfAbsent(cacheName, k -> new CacheStats());
+        cacheMetrics.of(cacheName).recordEviction();
     }
 
     /**
@@ -122,10 +65,10 @@ public class CacheMonitorService {
         
         // 基本统计信息
         Map<String, Object> basicStats = new HashMap<>();
-        for (Map.Entry<String, CacheStats> entry : cacheStatsMap.entrySet()) {
+        for (Map.Entry<String, CacheMetrics.CacheMeters> entry : cacheMetrics.snapshot().entrySet()) {
             String cacheName = entry.getKey();
-            CacheStats stats = entry.getValue();
-            
+            CacheMetrics.CacheMeters stats = entry.getValue();
+
             Map<String, Object> cacheReport = new HashMap<>();
             cacheReport.put("hitCount", stats.getHitCount());
             cacheReport.put("missCount", stats.getMissCount());
@@ -133,9 +76,12 @@ public class CacheMonitorService {
             cacheReport.put("evictionCount", stats.getEvictionCount());
             cacheReport.put("hitRate", String.format("%.2f%%", stats.getHitRate() * 100));
             cacheReport.put("totalRequests", stats.getTotalRequests());
+            cacheReport.put("loadLatencyMs", stats.loadLatencySummary());
+            cacheReport.put("redisLatencyMs", stats.redisLatencySummary());
+            cacheReport.put("valueSizeBytes", stats.valueSizeSummary());
             cacheReport.put("lastAccessTime", stats.getLastAccessTime());
             cacheReport.put("createdTime", stats.getCreatedTime());
-            
+
             basicStats.put(cacheName, cacheReport);
         }
         report.put("cacheStats", basicStats);
@@ -227,7 +173,7 @@ public class CacheMonitorService {
         long totalPuts = 0;
         long totalEvictions = 0;
         
-        for (CacheStats stats : cacheStatsMap.values()) {
+        for (CacheMetrics.CacheMeters stats : cacheMetrics.snapshot().values()) {
             totalHits += stats.getHitCount();
             totalMisses += stats.getMissCount();
             totalPuts += stats.getPutCount();
@@ -256,9 +202,9 @@ public class CacheMonitorService {
         report.append("生成时间: ").append(LocalDateTime.now()).append("\n\n");
         
         // 各缓存统计
-        for (Map.Entry<String, CacheStats> entry : cacheStatsMap.entrySet()) {
+        for (Map.Entry<String, CacheMetrics.CacheMeters> entry : cacheMetrics.snapshot().entrySet()) {
             String cacheName = entry.getKey();
-            CacheStats stats = entry.getValue();
+            CacheMetrics.CacheMeters stats = entry.getValue();
             
             report.append("缓存: ").append(cacheName).append("\n");
             report.append("  命中次数: ").append(stats.getHitCount()).append("\n");
@@ -266,6 +212,9 @@ public class CacheMonitorService {
             report.append("  命中率: ").append(String.format("%.2f%%", stats.getHitRate() * 100)).append("\n");
             report.append("  写入次数: ").append(stats.getPutCount()).append("\n");
             report.append("  清除次数: ").append(stats.getEvictionCount()).append("\n");
+            report.append("  加载耗时(ms): ").append(stats.loadLatencySummary()).append("\n");
+            report.append("  Redis往返(ms): ").append(stats.redisLatencySummary()).append("\n");
+            report.append("  值大小(B): ").append(stats.valueSizeSummary()).append("\n");
             report.append("  最后访问: ").append(stats.getLastAccessTime()).append("\n");
             report.append("\n");
         }
@@ -286,14 +235,14 @@ public class CacheMonitorService {
      * 重置统计数据
      */
     public void resetStats() {
-        cacheStatsMap.clear();
+        cacheMetrics.reset();
         log.info("缓存统计数据已重置");
     }
 
     /**
      * 获取指定缓存的统计信息
      */
-    public CacheStats getSpecificCacheStats(String cacheName) {
-        return cacheStatsMap.get(cacheName);
+    public CacheMetrics.CacheMeters getSpecificCacheStats(String cacheName) {
+        return cacheMetrics.snapshot().get(cacheName);
     }
 }
@@ -0,0 +1,121 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 缓存预热编排器
+ * - 各预热任务相互独立，提交到专用线程池并发执行（并发度由线程池大小限定），每个任务单独超时
+ * - 启动线程不等待预热，应用立即对外提供服务并响应存活探针
+ * - 首轮预热中所有关键任务结束（成功、失败或超时）后标记就绪，就绪探针据此放行流量
+ * 超时只结束等待，不中断仍在运行的任务，其结果照常写入缓存
+ */
+@Slf4j
+@Service
+public class CacheWarmupOrchestrator {
+
+    public enum TaskState { PENDING, RUNNING, SUCCESS, FAILED, TIMEOUT }
+
+    /**
+     * 预热任务：critical 为 true 时就绪状态需等待其结束
+     */
+    public record WarmupTask(String name, boolean critical, Runnable action) {}
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration taskTimeout;
+
+    private final Map<String, TaskState> taskStates = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile LocalDateTime readyAt;
+    private volatile LocalDateTime startedAt;
+
+    public CacheWarmupOrchestrator(@Qualifier("cacheWarmupExecutor") ThreadPoolTaskExecutor executor,
+                                   @Value("${cache.warmup.task-timeout:PT60S}") Duration taskTimeout) {
+        this.executor = executor;
+        this.taskTimeout = taskTimeout;
+    }
+
+    /**
+     * 并发执行一轮预热，立即返回；全部任务结束后 future 完成
+     */
+    public CompletableFuture<Void> run(List<WarmupTask> tasks) {
+        startedAt = LocalDateTime.now();
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+        List<CompletableFuture<Void>> critical = new ArrayList<>();
+        for (WarmupTask task : tasks) {
+            taskStates.put(task.name(), TaskState.PENDING);
+            CompletableFuture<Void> f = submit(task);
+            all.add(f);
+            if (task.critical()) critical.add(f);
+        }
+        if (!ready) {
+            CompletableFuture.allOf(critical.toArray(new CompletableFuture[0])).whenComplete((v, e) -> markReady());
+        }
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> log.info("缓存预热完成，任务状态: {}", taskStates));
+    }
+
+    private CompletableFuture<Void> submit(WarmupTask task) {
+        long timeoutMillis = taskTimeout.toMillis();
+        return CompletableFuture.runAsync(() -> {
+                    taskStates.put(task.name(), TaskState.RUNNING);
+                    long start = System.currentTimeMillis();
+                    task.action().run();
+                    log.info("预热任务 {} 完成，耗时 {}ms", task.name(), System.currentTimeMillis() - start);
+                }, executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((v, e) -> {
+                    if (e == null) {
+                        taskStates.put(task.name(), TaskState.SUCCESS);
+                    } else if (unwrap(e) instanceof TimeoutException) {
+                        taskStates.put(task.name(), TaskState.TIMEOUT);
+                        log.warn("预热任务 {} 超过 {}ms 未完成，不再等待", task.name(), timeoutMillis);
+                    } else {
+                        taskStates.put(task.name(), TaskState.FAILED);
+                        log.error("预热任务 {} 失败", task.name(), unwrap(e));
+                    }
+                    return null;
+                });
+    }
+
+    private void markReady() {
+        if (ready) return;
+        ready = true;
+        readyAt = LocalDateTime.now();
+        log.info("关键缓存预热结束，开始接收流量");
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof java.util.concurrent.CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 预热进度（供就绪探针展示）
+     */
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("ready", ready);
+        progress.put("startedAt", startedAt);
+        progress.put("readyAt", readyAt);
+        progress.put("tasks", new LinkedHashMap<>(taskStates));
+        return progress;
+    }
+}
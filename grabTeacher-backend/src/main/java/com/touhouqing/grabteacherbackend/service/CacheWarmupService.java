@@ -10,7 +10,6 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -66,42 +65,29 @@ public class CacheWarmupService implements ApplicationRunner {
     @Autowired
     private com.touhouqing.grabteacherbackend.cache.AbroadProgramsLocalCache abroadProgramsLocalCache;
 
+    @Autowired
+    private CacheWarmupOrchestrator warmupOrchestrator;
+
     /**
-     * 应用启动时执行缓存预热
+     * 应用启动时提交缓存预热，不阻塞启动线程
      */
     @Override
     public void run(ApplicationArguments args) throws Exception {
         log.info("开始执行缓存预热...");
         warmupCaches();
-        log.info("缓存预热完成");
     }
 
     /**
-     * 异步执行缓存预热
+     * 并发执行缓存预热：课程首页相关为关键任务，就绪探针等待其结束
      */
-    @Async
     public CompletableFuture<Void> warmupCaches() {
-        try {
-            // 预热活跃课程缓存
-            warmupActiveCourses();
-
-            // 预热热门课程列表
-            warmupPopularCourseLists();
-
-            // 预热热门教师课程
-            warmupPopularTeacherCourses();
-
-            // 预热教师相关缓存
-            teacherCacheWarmupService.warmupTeacherCaches();
-
-            // 预热留学模块缓存
-            warmupAbroadCaches();
-
-            log.info("缓存预热任务完成");
-        } catch (Exception e) {
-            log.error("缓存预热失败", e);
-        }
-        return CompletableFuture.completedFuture(null);
+        return warmupOrchestrator.run(List.of(
+                new CacheWarmupOrchestrator.WarmupTask("activeCourses", true, this::warmupActiveCourses),
+                new CacheWarmupOrchestrator.WarmupTask("courseLists", true, this::warmupPopularCourseLists),
+                new CacheWarmupOrchestrator.WarmupTask("teacherCourses", false, this::warmupPopularTeacherCourses),
+                // 教师预热本身为 @Async，这里等待其完成以便统计耗时与超时
+                new CacheWarmupOrchestrator.WarmupTask("teachers", false, () -> teacherCacheWarmupService.warmupTeacherCaches().join()),
+                new CacheWarmupOrchestrator.WarmupTask("abroad", false, this::warmupAbroadCaches)));
     }
 
     /**
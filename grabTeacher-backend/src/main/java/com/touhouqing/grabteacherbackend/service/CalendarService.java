@@ -2,7 +2,15 @@ package com.touhouqing.grabteacherbackend.service;
 
 import com.touhouqing.grabteacherbackend.model.vo.MonthlyCalendarVO;
 
+import java.time.LocalDate;
+import java.util.Collection;
+
 public interface CalendarService {
     MonthlyCalendarVO getTeacherMonthlyCalendar(Long teacherId, int year, int month);
+
+    /**
+     * 课表/预约/可上课设置变更后，按日期重算并修补已物化的月历格子（dates 为空时丢弃该教师全部月历）
+     */
+    void refreshTeacherCalendarDays(Long teacherId, Collection<LocalDate> dates);
 }
 
@@ -0,0 +1,212 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 课程缓存的依赖追踪失效
+ * - 课程类缓存写入时，把结果中出现的课程/教师/科目ID及结果所属的查询范围登记为依赖：
+ *   依赖集合 grabTeacher:cacheDeps:{dep}，成员为 {cacheName}|{key}
+ * - 课程写操作只删除引用了该课程（或其所属范围）的缓存条目，不再 allEntries 清空整个缓存区
+ * 依赖分两类：
+ * - 内容依赖 course:{id} / teacher:{id} / subject:{id}：结果中展示了该对象的字段
+ * - 范围依赖 scope:*：结果的成员或总数会因同范围内课程的增删、状态变化而变化
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseCacheInvalidator {
+
+    private static final String PREFIX_DEPS = "grabTeacher:cacheDeps:";
+
+    // 依赖集合 TTL 覆盖被登记缓存的最长 TTL（course 30 分钟），每次登记续期
+    public static final Duration DEPS_TTL = Duration.ofMinutes(40);
+
+    private static final String SCOPE_ALL = "scope:all";
+    private static final String SCOPE_FEATURED = "scope:featured";
+
+    // 原子取出并删除依赖集合：返回每个 KEYS[i] 的成员列表，之后的登记写入新集合
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_DEPS = new DefaultRedisScript<>(
+            "local out = {} " +
+            "for i = 1, #KEYS do out[i] = redis.call('SMEMBERS', KEYS[i]) redis.call('DEL', KEYS[i]) end " +
+            "return out", List.class);
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public static String courseDep(Long courseId) {
+        return "course:" + courseId;
+    }
+
+    public static String teacherDep(Long teacherId) {
+        return "teacher:" + teacherId;
+    }
+
+    public static String subjectDep(Long subjectId) {
+        return "subject:" + subjectId;
+    }
+
+    public static String allScope() {
+        return SCOPE_ALL;
+    }
+
+    public static String featuredScope() {
+        return SCOPE_FEATURED;
+    }
+
+    public static String teacherScope(Long teacherId) {
+        return "scope:teacher:" + teacherId;
+    }
+
+    public static String subjectScope(Long subjectId) {
+        return "scope:subject:" + subjectId;
+    }
+
+    /**
+     * 登记缓存条目的依赖（每个依赖 SADD + EXPIRE，一次管道往返）
+     */
+    public static void register(StringRedisTemplate template, String cacheName, Object key, Collection<String> deps) {
+        if (deps.isEmpty()) return;
+        byte[] member = (cacheName + "|" + key).getBytes(StandardCharsets.UTF_8);
+        long ttl = DEPS_TTL.getSeconds();
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            for (String dep : deps) {
+                byte[] idx = (PREFIX_DEPS + dep).getBytes(StandardCharsets.UTF_8);
+                connection.setCommands().sAdd(idx, member);
+                connection.keyCommands().expire(idx, ttl);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 课程内容变更（价格、描述等不影响所属列表成员的字段）：只删除包含该课程的条目
+     */
+    public void evictCourse(Long courseId) {
+        evictDependents(List.of(courseDep(courseId)), false);
+    }
+
+    /**
+     * 课程增删或所属范围变化（教师、科目、状态、类型、标题等）：
+     * 删除包含该课程的条目，以及涉及到的教师/科目范围和全量范围下的列表
+     * courseId 为空表示新建课程
+     */
+    public void evictMembership(Long courseId, Collection<Long> teacherIds, Collection<Long> subjectIds) {
+        Set<String> deps = new LinkedHashSet<>();
+        if (courseId != null) deps.add(courseDep(courseId));
+        deps.add(SCOPE_ALL);
+        deps.add(SCOPE_FEATURED);
+        teacherIds.stream().filter(Objects::nonNull).forEach(id -> deps.add(teacherScope(id)));
+        subjectIds.stream().filter(Objects::nonNull).forEach(id -> deps.add(subjectScope(id)));
+        evictDependents(deps, true);
+    }
+
+    /**
+     * 精选状态变更：删除包含这些课程的条目与精选列表
+     */
+    public void evictFeatured(Collection<Long> courseIds) {
+        Set<String> deps = new LinkedHashSet<>();
+        courseIds.forEach(id -> deps.add(courseDep(id)));
+        deps.add(SCOPE_FEATURED);
+        evictDependents(deps, true);
+    }
+
+    /**
+     * 教师姓名/级别等展示字段变更：删除展示了该教师的课程缓存条目
+     */
+    public void evictTeacher(Long teacherId) {
+        if (teacherId == null) return;
+        evictDependents(List.of(teacherDep(teacherId)), false);
+    }
+
+    /**
+     * 科目名称变更：删除展示了该科目的课程缓存条目
+     */
+    public void evictSubject(Long subjectId) {
+        if (subjectId == null) return;
+        evictDependents(List.of(subjectDep(subjectId)), false);
+    }
+
+    /**
+     * 事务内调用时延迟到提交后执行，避免并发读在提交前把旧数据重新写回
+     */
+    private void evictDependents(Collection<String> deps, boolean membershipChanged) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(deps, membershipChanged);
+                }
+            });
+        } else {
+            doEvict(deps, membershipChanged);
+        }
+    }
+
+    private void doEvict(Collection<String> deps, boolean membershipChanged) {
+        try {
+            // 先认领依赖成员再删除缓存条目：认领之后重新加载的条目登记到新集合，不会被本次误删登记
+            List<String> indexKeys = deps.stream().map(d -> PREFIX_DEPS + d).toList();
+            List<?> claimed = stringRedisTemplate.execute(CLAIM_DEPS, indexKeys);
+
+            int evicted = 0;
+            Set<String> members = new LinkedHashSet<>();
+            if (claimed != null) {
+                for (Object list : claimed) {
+                    if (list instanceof Collection<?> c) {
+                        c.forEach(m -> members.add(String.valueOf(m)));
+                    }
+                }
+            }
+            for (String member : members) {
+                int sep = member.indexOf('|');
+                if (sep <= 0) continue;
+                String cacheName = member.substring(0, sep);
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    // 提交后阶段直接删除，不再经由事务感知装饰器延迟；清除次数由 CacheManager 装饰器记录
+                    cache.evictIfPresent(member.substring(sep + 1));
+                    evicted++;
+                }
+            }
+
+            if (membershipChanged) {
+                // 单键缓存，直接删除
+                evictKey("featuredCourseIds", "all");
+                // 教师列表按是否开设活跃课程筛选，范围变化时需要刷新
+                Cache teacherList = cacheManager.getCache("teacherList");
+                if (teacherList != null) {
+                    teacherList.invalidate();
+                }
+            }
+            log.info("课程缓存按依赖失效: deps={}, 删除条目数={}", deps, evicted);
+        } catch (Exception e) {
+            // 依赖失效失败时缓存自身 TTL 兜底
+            log.warn("课程缓存按依赖失效失败 deps={}", deps, e);
+        }
+    }
+
+    private void evictKey(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evictIfPresent(key);
+        }
+    }
+}
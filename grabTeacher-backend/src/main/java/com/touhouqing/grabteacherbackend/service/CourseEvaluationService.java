@@ -22,6 +22,17 @@ public interface CourseEvaluationService extends IService<CourseEvaluation> {
             String courseName
     );
 
+    /** 公开评价游标分页（无限滚动），cursor 为空表示第一页，不统计总数；页大小上限 100，第一页按筛选条件缓存 */
+    com.touhouqing.grabteacherbackend.model.vo.CursorPageVO<com.touhouqing.grabteacherbackend.model.vo.CourseEvaluationVO> listPublicEvaluationsAfter(
+            String cursor,
+            int size,
+            Long teacherId,
+            Long courseId,
+            java.math.BigDecimal minRating,
+            String teacherName,
+            String courseName
+    );
+
     com.baomidou.mybatisplus.extension.plugins.pagination.Page<com.touhouqing.grabteacherbackend.model.vo.CourseEvaluationVO> pageAdmin(
             int page,
             int size,
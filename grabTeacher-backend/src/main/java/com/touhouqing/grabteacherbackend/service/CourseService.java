@@ -55,6 +55,18 @@ public interface CourseService {
     Page<CourseVO> getCourseListNoCache(int page, int size, String keyword, Long subjectId,
                                         Long teacherId, String status, String courseType);
 
+    /**
+     * 获取课程列表（游标分页） - 深翻页使用，不统计总数、不缓存
+     * @param cursor 上一页最后一条的游标，为空表示第一页
+     */
+    List<CourseVO> getCourseListAfter(String cursor, int size, String keyword, Long subjectId,
+                                      Long teacherId, String status, String courseType, String courseLocation, String teacherLevel);
+
+    /**
+     * 根据本页结果生成下一页游标，无结果时返回 null
+     */
+    String nextCourseCursor(List<CourseVO> courses);
+
     /**
      * 获取教师的课程列表
      * @param teacherId 教师ID
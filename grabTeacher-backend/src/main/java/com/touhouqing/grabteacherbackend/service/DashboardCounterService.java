@@ -0,0 +1,233 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.UserMapper;
+import com.touhouqing.grabteacherbackend.util.RedisCounterUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘统计计数器
+ * - 管理端总量保存在 Redis 哈希 grabTeacher:counters:system，由预约/课程/教师认证/注册等写操作在提交后增量累加，
+ *   定时按 MySQL 重新统计并覆盖（对账），读取为一次 HGETALL
+ * - 教师端统计保存在 grabTeacher:counters:teacher:{teacherId}，缺失时整体计算回填；
+ *   待处理预约数、课程数增量累加，其余涉及课表/课时的项在相关写操作后整体失效，TTL 兜底对账
+ * 增量仅在哈希已存在时生效，避免产生只含部分字段的哈希；哈希缺失时由下一次读取完整重算
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterService {
+
+    private static final String SYSTEM_KEY = "grabTeacher:counters:system";
+    private static final String TEACHER_KEY_PREFIX = "grabTeacher:counters:teacher:";
+
+    // 教师统计的对账周期：到期后下一次读取按 MySQL 重算
+    private static final Duration TEACHER_TTL = Duration.ofMinutes(30);
+
+    public static final String TOTAL_USERS = "totalUsers";
+    public static final String TOTAL_STUDENTS = "totalStudents";
+    public static final String TOTAL_TEACHERS = "totalTeachers";
+    public static final String VERIFIED_TEACHERS = "verifiedTeachers";
+    public static final String UNVERIFIED_TEACHERS = "unverifiedTeachers";
+    public static final String PENDING_BOOKINGS = "pendingBookings";
+    public static final String PENDING_COURSES = "pendingCourses";
+
+    private static final List<String> SYSTEM_FIELDS = List.of(TOTAL_USERS, TOTAL_STUDENTS, TOTAL_TEACHERS,
+            VERIFIED_TEACHERS, UNVERIFIED_TEACHERS, PENDING_BOOKINGS, PENDING_COURSES);
+
+    public static final String TEACHER_BOOKING_REQUESTS = "bookingRequests";
+    public static final String TEACHER_TOTAL_COURSES = "totalCourses";
+    public static final String TEACHER_UPCOMING_CLASSES = "upcomingClasses";
+
+    private static final Set<String> TEACHER_INT_FIELDS = Set.of(TEACHER_BOOKING_REQUESTS, TEACHER_TOTAL_COURSES, TEACHER_UPCOMING_CLASSES);
+
+    // 统计所属月份：跨月后本月/上月类统计需要重算
+    private static final String TEACHER_MONTH = "month";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserMapper userMapper;
+
+    /**
+     * 管理端总量统计；哈希缺失（首次或被清理）时按 MySQL 重算
+     */
+    public Map<String, Object> getSystemStatistics() {
+        Map<Object, Object> cached = stringRedisTemplate.opsForHash().entries(SYSTEM_KEY);
+        if (cached.keySet().containsAll(SYSTEM_FIELDS)) {
+            Map<String, Object> result = new HashMap<>();
+            for (String f : SYSTEM_FIELDS) {
+                result.put(f, Long.valueOf((String) cached.get(f)));
+            }
+            return result;
+        }
+        return reconcileSystemCounters();
+    }
+
+    /**
+     * 定时对账：按 MySQL 重算并覆盖，纠正增量遗漏（如未接入计数的写路径、提交后累加失败）
+     */
+    @Scheduled(fixedDelay = 5 * 60_000L, initialDelay = 60_000L)
+    public void scheduledReconcile() {
+        try {
+            reconcileSystemCounters();
+        } catch (Exception e) {
+            log.error("仪表盘计数对账失败", e);
+        }
+    }
+
+    private Map<String, Object> reconcileSystemCounters() {
+        Map<String, Object> totals = userMapper.countDashboardTotals();
+        Map<String, Object> result = new HashMap<>();
+        Map<String, String> values = new HashMap<>();
+        for (String f : SYSTEM_FIELDS) {
+            Object v = totals.get(f);
+            long n = v instanceof Number num ? num.longValue() : 0L;
+            result.put(f, n);
+            values.put(f, String.valueOf(n));
+        }
+        try {
+            stringRedisTemplate.opsForHash().putAll(SYSTEM_KEY, values);
+        } catch (Exception e) {
+            log.warn("写入仪表盘计数失败", e);
+        }
+        return result;
+    }
+
+    /**
+     * 教师端统计：命中且为当月时直接返回，否则调用 loader 整体计算回填
+     */
+    public Map<String, Object> getTeacherStatistics(Long teacherId, String month, Supplier<Map<String, Object>> loader) {
+        String key = TEACHER_KEY_PREFIX + teacherId;
+        Map<Object, Object> cached = stringRedisTemplate.opsForHash().entries(key);
+        if (!cached.isEmpty() && month.equals(cached.get(TEACHER_MONTH))) {
+            Map<String, Object> result = new HashMap<>();
+            cached.forEach((k, v) -> {
+                String field = (String) k;
+                if (TEACHER_MONTH.equals(field)) return;
+                result.put(field, TEACHER_INT_FIELDS.contains(field) ? Integer.valueOf((String) v) : new BigDecimal((String) v));
+            });
+            return result;
+        }
+        Map<String, Object> loaded = loader.get();
+        Map<String, String> values = new LinkedHashMap<>();
+        loaded.forEach((k, v) -> {
+            if (v != null) values.put(k, v.toString());
+        });
+        values.put(TEACHER_MONTH, month);
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().del(rawKey);
+                Map<byte[], byte[]> raw = new LinkedHashMap<>();
+                values.forEach((k, v) -> raw.put(k.getBytes(StandardCharsets.UTF_8), v.getBytes(StandardCharsets.UTF_8)));
+                connection.hashCommands().hMSet(rawKey, raw);
+                connection.keyCommands().expire(rawKey, TEACHER_TTL.getSeconds());
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入教师统计计数失败 teacherId={}", teacherId, e);
+        }
+        return loaded;
+    }
+
+    /**
+     * 预约状态变更：oldStatus 为空表示新建
+     */
+    public void onBookingStatusChanged(Long teacherId, String oldStatus, String newStatus) {
+        int pendingDelta = ("pending".equals(newStatus) ? 1 : 0) - ("pending".equals(oldStatus) ? 1 : 0);
+        afterCommit(() -> {
+            if (pendingDelta != 0) {
+                increment(SYSTEM_KEY, Map.of(PENDING_BOOKINGS, pendingDelta));
+            }
+            if (teacherId == null) return;
+            if (oldStatus == null) {
+                if (pendingDelta != 0) increment(TEACHER_KEY_PREFIX + teacherId, Map.of(TEACHER_BOOKING_REQUESTS, pendingDelta));
+            } else {
+                // 审批通过会生成课表，影响即将上课等统计，整体重算
+                stringRedisTemplate.delete(TEACHER_KEY_PREFIX + teacherId);
+            }
+        });
+    }
+
+    /**
+     * 课程新建/状态变更/换教师/删除：状态为空表示不存在（新建前或删除后）
+     */
+    public void onCourseChanged(Long oldTeacherId, String oldStatus, Long newTeacherId, String newStatus) {
+        int pendingDelta = ("pending".equals(newStatus) ? 1 : 0) - ("pending".equals(oldStatus) ? 1 : 0);
+        boolean moved = oldStatus != null && newStatus != null && !Objects.equals(oldTeacherId, newTeacherId);
+        afterCommit(() -> {
+            if (pendingDelta != 0) {
+                increment(SYSTEM_KEY, Map.of(PENDING_COURSES, pendingDelta));
+            }
+            if (oldStatus == null && newTeacherId != null) {
+                increment(TEACHER_KEY_PREFIX + newTeacherId, Map.of(TEACHER_TOTAL_COURSES, 1));
+            } else if (newStatus == null && oldTeacherId != null) {
+                increment(TEACHER_KEY_PREFIX + oldTeacherId, Map.of(TEACHER_TOTAL_COURSES, -1));
+            } else if (moved) {
+                if (oldTeacherId != null) increment(TEACHER_KEY_PREFIX + oldTeacherId, Map.of(TEACHER_TOTAL_COURSES, -1));
+                if (newTeacherId != null) increment(TEACHER_KEY_PREFIX + newTeacherId, Map.of(TEACHER_TOTAL_COURSES, 1));
+            }
+        });
+    }
+
+    /**
+     * 教师认证状态变更
+     */
+    public void onTeacherVerifiedChanged(Boolean wasVerified, Boolean verified) {
+        boolean before = Boolean.TRUE.equals(wasVerified);
+        boolean after = Boolean.TRUE.equals(verified);
+        if (before == after) return;
+        int delta = after ? 1 : -1;
+        afterCommit(() -> increment(SYSTEM_KEY, Map.of(VERIFIED_TEACHERS, delta, UNVERIFIED_TEACHERS, -delta)));
+    }
+
+    /**
+     * 新用户注册：教师注册时同时新增一条未认证教师记录
+     */
+    public void onUserCreated(String userType) {
+        afterCommit(() -> {
+            if ("student".equals(userType)) {
+                increment(SYSTEM_KEY, Map.of(TOTAL_USERS, 1, TOTAL_STUDENTS, 1));
+            } else if ("teacher".equals(userType)) {
+                increment(SYSTEM_KEY, Map.of(TOTAL_USERS, 1, TOTAL_TEACHERS, 1, UNVERIFIED_TEACHERS, 1));
+            } else {
+                increment(SYSTEM_KEY, Map.of(TOTAL_USERS, 1));
+            }
+        });
+    }
+
+    /**
+     * 课表/课时变更（如课程结算）后失效教师统计，下一次读取重算
+     */
+    public void evictTeacherStatistics(Collection<Long> teacherIds) {
+        if (teacherIds == null || teacherIds.isEmpty()) return;
+        List<String> keys = teacherIds.stream().map(id -> TEACHER_KEY_PREFIX + id).toList();
+        afterCommit(() -> stringRedisTemplate.delete(keys));
+    }
+
+    private void increment(String key, Map<String, Integer> deltas) {
+        RedisCounterUtil.incrementIfExists(stringRedisTemplate, key, deltas);
+    }
+
+    /**
+     * 计数只反映已提交的数据：事务内登记到提交后执行，失败仅记录日志，由对账纠正
+     */
+    private void afterCommit(Runnable action) {
+        RedisCounterUtil.afterCommit(action, e -> log.warn("更新仪表盘计数失败，等待对账纠正", e));
+    }
+}
@@ -1,6 +1,7 @@
 package com.touhouqing.grabteacherbackend.service;
 
 import java.time.Duration;
+import java.util.Collection;
 
 /**
  * 基于 Redis 的分布式锁服务
@@ -35,5 +36,23 @@ public interface DistributedLockService {
      * @return 是否释放成功
      */
     boolean unlock(String key, String token);
+
+    /**
+     * 原子获取一组锁（全部成功或全部失败，一次 Redis 往返）
+     * 冲突时等待持有者释放通知后重试，不做固定间隔轮询
+     * @param keys 锁键集合（内部去重并排序）
+     * @param token 唯一令牌
+     * @param ttl 锁过期时间
+     * @param waitTimeout 最长等待时间
+     * @return 是否获取成功
+     */
+    boolean tryLockAll(Collection<String> keys, String token, Duration ttl, Duration waitTimeout);
+
+    /**
+     * 一次性释放一组锁（仅释放 token 匹配的键）
+     * @param keys 锁键集合
+     * @param token 唯一令牌
+     */
+    void unlockAll(Collection<String> keys, String token);
 }
 
@@ -0,0 +1,169 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.CourseEvaluationMapper;
+import com.touhouqing.grabteacherbackend.mapper.MessageMapper;
+import com.touhouqing.grabteacherbackend.model.entity.Message;
+import com.touhouqing.grabteacherbackend.util.RedisCounterUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 消息 / 公开评价列表的总数计数器，翻页时不再每页执行 COUNT
+ * - 激活消息数按目标类型保存在 grabTeacher:counters:messages（STUDENT / TEACHER / ALL），某一受众的总数为两项之和
+ * - 公开（精选且未删除）评价数保存在 grabTeacher:counters:evaluations（all 及 teacher:{teacherId}）
+ * 写操作提交后增量累加；哈希缺失时一次 GROUP BY 整体重建，TTL 到期后重建以纠正漏记
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedCounterService {
+
+    private static final String MESSAGE_KEY = "grabTeacher:counters:messages";
+    private static final String EVALUATION_KEY = "grabTeacher:counters:evaluations";
+
+    // 对账周期：到期后下一次读取按 MySQL 重建
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private static final String EVALUATION_ALL = "all";
+    private static final String EVALUATION_TEACHER_PREFIX = "teacher:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MessageMapper messageMapper;
+    private final CourseEvaluationMapper courseEvaluationMapper;
+
+    /**
+     * 指定目标类型的激活消息总数
+     */
+    public long countActiveMessages(Collection<Message.TargetType> targetTypes) {
+        Map<String, Long> counts = load(MESSAGE_KEY, this::loadMessageCounts);
+        long total = 0L;
+        for (Message.TargetType t : targetTypes) {
+            total += counts.getOrDefault(t.name(), 0L);
+        }
+        return total;
+    }
+
+    /**
+     * 公开评价总数；teacherId 为空时为全部教师
+     */
+    public long countPublicEvaluations(Long teacherId) {
+        Map<String, Long> counts = load(EVALUATION_KEY, this::loadEvaluationCounts);
+        return counts.getOrDefault(teacherId == null ? EVALUATION_ALL : EVALUATION_TEACHER_PREFIX + teacherId, 0L);
+    }
+
+    /**
+     * 消息新建/修改/启停/删除：参数为变更前后“激活时的目标类型”，未激活或不存在时传 null
+     */
+    public void onMessageChanged(Message.TargetType oldActiveType, Message.TargetType newActiveType) {
+        if (oldActiveType == newActiveType) return;
+        Map<String, Integer> deltas = new HashMap<>();
+        if (oldActiveType != null) deltas.merge(oldActiveType.name(), -1, Integer::sum);
+        if (newActiveType != null) deltas.merge(newActiveType.name(), 1, Integer::sum);
+        incrementAfterCommit(MESSAGE_KEY, deltas);
+    }
+
+    /**
+     * 评价新建/修改/精选切换/删除：visible 表示精选且未删除
+     */
+    public void onEvaluationChanged(Long oldTeacherId, boolean oldVisible, Long newTeacherId, boolean newVisible) {
+        if (oldVisible == newVisible && (!newVisible || Objects.equals(oldTeacherId, newTeacherId))) return;
+        Map<String, Integer> deltas = new HashMap<>();
+        if (oldVisible) {
+            deltas.merge(EVALUATION_ALL, -1, Integer::sum);
+            if (oldTeacherId != null) deltas.merge(EVALUATION_TEACHER_PREFIX + oldTeacherId, -1, Integer::sum);
+        }
+        if (newVisible) {
+            deltas.merge(EVALUATION_ALL, 1, Integer::sum);
+            if (newTeacherId != null) deltas.merge(EVALUATION_TEACHER_PREFIX + newTeacherId, 1, Integer::sum);
+        }
+        incrementAfterCommit(EVALUATION_KEY, deltas);
+    }
+
+    private Map<String, Long> loadMessageCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Message.TargetType t : Message.TargetType.values()) {
+            counts.put(t.name(), 0L);
+        }
+        for (Map<String, Object> row : messageMapper.countActiveGroupByTargetType()) {
+            Object type = row.get("targetType");
+            if (type != null) counts.put(type.toString(), toLong(row.get("cnt")));
+        }
+        return counts;
+    }
+
+    private Map<String, Long> loadEvaluationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        long all = 0L;
+        for (Map<String, Object> row : courseEvaluationMapper.countPublicGroupByTeacher()) {
+            long n = toLong(row.get("cnt"));
+            all += n;
+            Object teacherId = row.get("teacherId");
+            if (teacherId != null) counts.put(EVALUATION_TEACHER_PREFIX + teacherId, n);
+        }
+        counts.put(EVALUATION_ALL, all);
+        return counts;
+    }
+
+    /**
+     * 读取计数哈希；缺失时调用 loader 重建并回填（带 TTL），Redis 异常时直接按 MySQL 统计
+     */
+    private Map<String, Long> load(String key, Supplier<Map<String, Long>> loader) {
+        try {
+            Map<Object, Object> cached = stringRedisTemplate.opsForHash().entries(key);
+            if (!cached.isEmpty()) {
+                Map<String, Long> result = new HashMap<>();
+                cached.forEach((k, v) -> result.put((String) k, Long.valueOf((String) v)));
+                return result;
+            }
+        } catch (Exception e) {
+            log.warn("读取列表计数失败 key={}", key, e);
+            return loader.get();
+        }
+        Map<String, Long> loaded = loader.get();
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().del(rawKey);
+                Map<byte[], byte[]> raw = new LinkedHashMap<>();
+                loaded.forEach((k, v) -> raw.put(k.getBytes(StandardCharsets.UTF_8), String.valueOf(v).getBytes(StandardCharsets.UTF_8)));
+                connection.hashCommands().hMSet(rawKey, raw);
+                connection.keyCommands().expire(rawKey, TTL.getSeconds());
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入列表计数失败 key={}", key, e);
+        }
+        return loaded;
+    }
+
+    private static long toLong(Object v) {
+        return v instanceof Number num ? num.longValue() : 0L;
+    }
+
+    /**
+     * 计数只反映已提交的数据：提交后增量累加；失败时删除哈希，由下一次读取重建
+     */
+    private void incrementAfterCommit(String key, Map<String, Integer> deltas) {
+        RedisCounterUtil.afterCommit(() -> RedisCounterUtil.incrementIfExists(stringRedisTemplate, key, deltas), e -> {
+            log.warn("更新列表计数失败，清除计数等待重建", e);
+            try {
+                stringRedisTemplate.delete(List.of(MESSAGE_KEY, EVALUATION_KEY));
+            } catch (Exception ignored) {
+                // Redis 不可用时由 TTL 兜底
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.touhouqing.grabteacherbackend.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.model.dto.JobPostDTO;
 import com.touhouqing.grabteacherbackend.model.entity.JobPost;
 import com.touhouqing.grabteacherbackend.model.vo.JobPostVO;
@@ -30,6 +31,6 @@ public interface JobPostService {
     JobPost getAdminById(Long id);
 
     // 详情页极热Key预序列化JSON（本地一级缓存）
-    String getDetailJson(Long id);
+    CachedJson getDetailJson(Long id);
 }
 
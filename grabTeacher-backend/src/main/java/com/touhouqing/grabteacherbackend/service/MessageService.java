@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.touhouqing.grabteacherbackend.model.dto.MessageCreateDTO;
 import com.touhouqing.grabteacherbackend.model.dto.MessageQueryDTO;
 import com.touhouqing.grabteacherbackend.model.dto.MessageUpdateDTO;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
 
 /**
@@ -71,6 +72,24 @@ public interface MessageService {
      */
     IPage<MessageVO> getTeacherMessages(Integer pageNum, Integer pageSize);
     
+    /**
+     * 游标分页查询学生可见的消息（深翻页/无限滚动），不统计总数，第一页按页大小缓存
+     * 
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param pageSize 页大小，上限 100
+     * @return 本页消息及下一页游标
+     */
+    CursorPageVO<MessageVO> getStudentMessagesAfter(String cursor, Integer pageSize);
+    
+    /**
+     * 游标分页查询教师可见的消息（深翻页/无限滚动），不统计总数，第一页按页大小缓存
+     * 
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param pageSize 页大小，上限 100
+     * @return 本页消息及下一页游标
+     */
+    CursorPageVO<MessageVO> getTeacherMessagesAfter(String cursor, Integer pageSize);
+    
     /**
      * 切换消息激活状态
      * 
@@ -0,0 +1,149 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.mapper.HourDetailMapper;
+import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.model.entity.HourDetail;
+import com.touhouqing.grabteacherbackend.model.entity.Teacher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 过期课程安排的分块结算
+ * 每块在独立的短事务内完成：锁定仍为 scheduled 的行、批量置为已完成，
+ * 在内存中按报名/课程/教师聚合课次与课时，再以批量语句写入；语句数与块大小无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScheduleSettlementService {
+
+    private final CourseScheduleMapper scheduleMapper;
+    private final CourseEnrollmentMapper courseEnrollmentMapper;
+    private final CourseMapper courseMapper;
+    private final TeacherMapper teacherMapper;
+    private final HourDetailMapper hourDetailMapper;
+    private final DashboardCounterService dashboardCounterService;
+
+    /**
+     * 结算一块候选课程安排，返回实际置为已完成的数量
+     */
+    @Transactional
+    public int settleChunk(List<CourseSchedule> candidates) {
+        List<Long> lockedIds = scheduleMapper.lockScheduledIds(
+                candidates.stream().map(CourseSchedule::getId).collect(Collectors.toList()));
+        if (lockedIds.isEmpty()) {
+            return 0;
+        }
+        scheduleMapper.markCompletedByIds(lockedIds);
+        Set<Long> locked = new HashSet<>(lockedIds);
+
+        // 报名ID → 完成课次；教师ID → 本块内该教师需计课时的已完成课程安排
+        Map<Long, Integer> sessionDeltas = new HashMap<>();
+        Map<Long, List<CourseSchedule>> byTeacher = new LinkedHashMap<>();
+        Set<Long> teacherIds = new LinkedHashSet<>();
+        for (CourseSchedule s : candidates) {
+            if (!locked.contains(s.getId())) continue;
+            if (s.getEnrollmentId() != null) {
+                sessionDeltas.merge(s.getEnrollmentId(), 1, Integer::sum);
+            }
+            if (s.getTeacherId() == null) continue;
+            teacherIds.add(s.getTeacherId());
+            if (lessonHours(s).compareTo(BigDecimal.ZERO) > 0) {
+                byTeacher.computeIfAbsent(s.getTeacherId(), k -> new ArrayList<>()).add(s);
+            }
+        }
+        if (!sessionDeltas.isEmpty()) {
+            courseEnrollmentMapper.addCompletedSessions(sessionDeltas);
+        }
+        if (!byTeacher.isEmpty()) {
+            settleTeacherHours(byTeacher);
+        }
+        if (!teacherIds.isEmpty()) {
+            // 课时与即将上课数已变化，教师统计下一次读取重算
+            dashboardCounterService.evictTeacherStatistics(teacherIds);
+        }
+        return lockedIds.size();
+    }
+
+    /**
+     * 每节课一条课时明细（before/after 按教师顺序滚动），课程本月课时按课程汇总后一次累加
+     */
+    private void settleTeacherHours(Map<Long, List<CourseSchedule>> byTeacher) {
+        Map<Long, Teacher> teachers = teacherMapper.selectBatchIds(byTeacher.keySet()).stream()
+                .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+        Set<Long> userIds = teachers.values().stream().map(Teacher::getUserId).collect(Collectors.toSet());
+        Map<Long, BigDecimal> runningHours = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (HourDetail last : hourDetailMapper.findLastByUserIds(userIds)) {
+                if (last.getHoursAfter() != null) runningHours.put(last.getUserId(), last.getHoursAfter());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<HourDetail> details = new ArrayList<>();
+        Map<Long, BigDecimal> courseHours = new HashMap<>();
+        byTeacher.forEach((teacherId, schedules) -> {
+            Teacher teacher = teachers.get(teacherId);
+            if (teacher == null) {
+                log.warn("教师ID: {} 不存在，跳过 {} 节课的课时记录", teacherId, schedules.size());
+                return;
+            }
+            for (CourseSchedule s : schedules) {
+                BigDecimal hours = lessonHours(s);
+                BigDecimal before = runningHours.getOrDefault(teacher.getUserId(), BigDecimal.ZERO);
+                BigDecimal after = before.add(hours);
+                runningHours.put(teacher.getUserId(), after);
+                details.add(HourDetail.builder()
+                        .userId(teacher.getUserId())
+                        .name(teacher.getRealName())
+                        .hours(hours)
+                        .hoursBefore(before)
+                        .hoursAfter(after)
+                        .reasonCode(HourDetail.REASON_CODE_LESSON_COMPLETED_AUTO)
+                        .transactionType(1)
+                        .reason("课程完成自动结算")
+                        .bookingId(s.getId())
+                        .operatorId(null)
+                        .createdAt(now)
+                        .build());
+                if (s.getCourseId() != null) {
+                    courseHours.merge(s.getCourseId(), hours, BigDecimal::add);
+                }
+            }
+        });
+        if (!details.isEmpty()) {
+            hourDetailMapper.insertBatch(details);
+        }
+        if (!courseHours.isEmpty()) {
+            courseMapper.addCourseCurrentHours(courseHours);
+        }
+    }
+
+    // 课时：基于开始和结束时间差，支持 1.0、1.5、2.0 小时等
+    private static BigDecimal lessonHours(CourseSchedule s) {
+        if (s.getStartTime() == null || s.getEndTime() == null) return BigDecimal.ZERO;
+        Duration duration = Duration.between(s.getStartTime(), s.getEndTime());
+        return new BigDecimal(duration.toMinutes()).divide(new BigDecimal(60), 2, RoundingMode.HALF_UP);
+    }
+}
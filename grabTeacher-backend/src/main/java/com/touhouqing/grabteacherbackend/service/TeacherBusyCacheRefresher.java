@@ -0,0 +1,78 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 教师忙时缓存异步刷新管道
+ * - 按教师合并待刷新日期：同一教师在刷新任务执行前的多次提交只触发一次刷新
+ * - 一次范围查询覆盖全部日期，按日分组后通过 putBusySlotsBatch 管道合并重建（保留未提交的准入占位）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeacherBusyCacheRefresher {
+
+    private final CacheKeyEvictor cacheKeyEvictor;
+    private final CourseScheduleMapper courseScheduleMapper;
+    private final TeacherScheduleCacheService teacherScheduleCacheService;
+    // 注入 @Primary 的 applicationTaskExecutor
+    private final TaskExecutor taskExecutor;
+
+    // 待刷新日期：key 存在即表示该教师已有刷新任务排队
+    private final ConcurrentHashMap<Long, Set<LocalDate>> pending = new ConcurrentHashMap<>();
+
+    public void submit(Long teacherId, Collection<LocalDate> dates) {
+        if (teacherId == null) return;
+        boolean[] scheduled = {false};
+        pending.compute(teacherId, (k, v) -> {
+            if (v == null) {
+                v = ConcurrentHashMap.newKeySet();
+                scheduled[0] = true;
+            }
+            if (dates != null) v.addAll(dates);
+            return v;
+        });
+        if (scheduled[0]) {
+            taskExecutor.execute(() -> refresh(teacherId));
+        }
+    }
+
+    private void refresh(Long teacherId) {
+        Set<LocalDate> taken = pending.remove(teacherId);
+        if (taken == null) return;
+        TreeSet<LocalDate> dates = new TreeSet<>(taken);
+        try {
+            cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, dates);
+            if (dates.isEmpty()) return;
+
+            Map<LocalDate, List<String>> daySlots = new LinkedHashMap<>();
+            for (LocalDate d : dates) daySlots.put(d, new ArrayList<>());
+            List<CourseSchedule> all = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, dates.first(), dates.last());
+            for (CourseSchedule s : all) {
+                List<String> slots = daySlots.get(s.getScheduledDate());
+                if (slots != null && s.getStartTime() != null && s.getEndTime() != null) {
+                    slots.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
+                }
+            }
+            teacherScheduleCacheService.putBusySlotsBatch(teacherId, daySlots);
+            log.debug("已刷新教师{}的忙时缓存，日期数: {}", teacherId, dates.size());
+        } catch (Exception e) {
+            log.warn("异步刷新教师忙时缓存失败 teacherId={}, dates={}", teacherId, dates, e);
+        }
+    }
+}
@@ -3,11 +3,16 @@ package com.touhouqing.grabteacherbackend.service;
 import com.touhouqing.grabteacherbackend.model.dto.DailyTimeSlotDTO;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public interface TeacherDailyAvailabilityService {
     void setDailyAvailability(Long teacherId, List<DailyTimeSlotDTO> items, boolean overwrite);
     Map<LocalDate, List<String>> getDailyAvailability(Long teacherId, LocalDate start, LocalDate end);
+    /**
+     * 批量查询多个教师在日期范围内的日历可上课基础段（单次查询），返回 teacherId -> (日期 -> 基础段)
+     */
+    Map<Long, Map<LocalDate, List<String>>> getDailyAvailabilityBatch(Collection<Long> teacherIds, LocalDate start, LocalDate end);
 }
 
@@ -0,0 +1,314 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil;
+import com.touhouqing.grabteacherbackend.util.RecurringSessionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 教师每日占用位图（进程内），用于冲突检查的快速判定。
+ * - 每个 教师+日期 维护 4 层位图：正式课、试听课、待处理试听、待处理正式，每层 96 个 15 分钟格（2 个 long）
+ *   （1.5 小时正式课固定为 xx:15-xx:45，因此最小格为 15 分钟，30 分钟试听占 2 格）
+ * - 首次访问时从 course_schedules / booking_requests 懒加载；新增占用按位或增量更新，释放占用则丢弃当天位图等待重载
+ * - 含非 15 分钟对齐时间的日期不做位图判定（exact=false），由调用方回退到数据库查询
+ * - 最终落库前仍由数据库在锁内复核，位图只用于快速拒绝
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeacherOccupancyService {
+
+    public enum Layer { FORMAL, TRIAL, PENDING_TRIAL, PENDING_FORMAL }
+
+    private static final int CELL_MINUTES = 15;
+    private static final int LAYER_COUNT = Layer.values().length;
+
+    // 位图有效期与容量上限（其他节点/未接入增量的写入依赖 TTL 收敛）
+    private static final long TTL_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_DAYS = 20000;
+
+    // 基础2小时时间段：08:00-10:00, 10:00-12:00, 13:00-15:00, 15:00-17:00, 17:00-19:00, 19:00-21:00
+    private static final LocalTime[][] BASE_SLOTS = {
+            {LocalTime.of(8, 0), LocalTime.of(10, 0)},
+            {LocalTime.of(10, 0), LocalTime.of(12, 0)},
+            {LocalTime.of(13, 0), LocalTime.of(15, 0)},
+            {LocalTime.of(15, 0), LocalTime.of(17, 0)},
+            {LocalTime.of(17, 0), LocalTime.of(19, 0)},
+            {LocalTime.of(19, 0), LocalTime.of(21, 0)}
+    };
+
+    private final CourseScheduleMapper courseScheduleMapper;
+    private final BookingRequestMapper bookingRequestMapper;
+
+    private final ConcurrentHashMap<String, DayOccupancy> days = new ConcurrentHashMap<>();
+
+    // 任一增量/失效都会递增，用于丢弃与写入并发的加载结果
+    private final AtomicLong modCount = new AtomicLong();
+
+    /**
+     * 将时间段映射到所在的基础2小时区间，返回 {baseStart, baseEnd}；不在任何基础区间内时返回 null
+     */
+    public static LocalTime[] findBaseSlot(LocalTime start, LocalTime end) {
+        if (start == null || end == null) return null;
+        for (LocalTime[] base : BASE_SLOTS) {
+            if (!start.isBefore(base[0]) && !end.isAfter(base[1])) {
+                return base;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 与时间段有交集的全部基础2小时区间（按时间先后），无交集时返回空列表
+     */
+    public static List<LocalTime[]> overlappingBaseSlots(LocalTime start, LocalTime end) {
+        List<LocalTime[]> res = new ArrayList<>(2);
+        if (start == null || end == null) return res;
+        for (LocalTime[] base : BASE_SLOTS) {
+            if (start.isBefore(base[1]) && end.isAfter(base[0])) {
+                res.add(base);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 时间段是否完全落在基础2小时区间内（可跨相邻区间，不含 12:00-13:00 等区间外部分）
+     */
+    public static boolean coveredByBaseSlots(LocalTime start, LocalTime end) {
+        List<LocalTime[]> bases = overlappingBaseSlots(start, end);
+        if (bases.isEmpty()) return false;
+        if (start.isBefore(bases.get(0)[0]) || end.isAfter(bases.get(bases.size() - 1)[1])) return false;
+        for (int i = 1; i < bases.size(); i++) {
+            if (!bases.get(i - 1)[1].equals(bases.get(i)[0])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取教师某日的占用快照（必要时从数据库加载）
+     */
+    public DayOccupancy getDay(Long teacherId, LocalDate date) {
+        String key = key(teacherId, date);
+        long now = System.currentTimeMillis();
+        DayOccupancy cached = days.get(key);
+        if (cached != null && now - cached.loadedAt < TTL_MILLIS) {
+            return cached;
+        }
+        long before = modCount.get();
+        DayOccupancy loaded = load(teacherId, date, now);
+        if (days.size() >= MAX_DAYS) {
+            trim(now);
+        }
+        // 加载期间若发生过增量/失效，结果可能已过期：本次使用但不缓存。
+        // 增量/失效总是先递增 modCount 再修改映射，比较与写入在同一 key 的 compute 内完成，
+        // 不会在检查通过后被并发的增量/失效插队而写回旧位图
+        days.compute(key, (k, current) -> modCount.get() == before ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * 新增已排程课节（正式或试听）
+     */
+    public void markScheduled(Long teacherId, LocalDate date, LocalTime start, LocalTime end, boolean trial) {
+        patch(teacherId, date, start, end, trial ? Layer.TRIAL : Layer.FORMAL);
+    }
+
+    /**
+     * 新增待处理预约占用（正式或试听）
+     */
+    public void markPending(Long teacherId, LocalDate date, LocalTime start, LocalTime end, boolean trial) {
+        patch(teacherId, date, start, end, trial ? Layer.PENDING_TRIAL : Layer.PENDING_FORMAL);
+    }
+
+    /**
+     * 释放占用（审批、拒绝、取消、调课、请假等）：丢弃相关日期的位图，下次访问时重新加载。
+     * 事务内调用时，提交/回滚后会再失效一次，避免其他线程在提交前重载到旧数据。
+     */
+    public void invalidate(Long teacherId, Collection<LocalDate> dates) {
+        if (teacherId == null) return;
+        doInvalidate(teacherId, dates);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            final Collection<LocalDate> snapshot = dates == null ? null : new ArrayList<>(dates);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    doInvalidate(teacherId, snapshot);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空全部位图（批量软删除等无法精确定位教师/日期的写入）
+     */
+    public void invalidateAll() {
+        modCount.incrementAndGet();
+        days.clear();
+    }
+
+    private void patch(Long teacherId, LocalDate date, LocalTime start, LocalTime end, Layer layer) {
+        if (teacherId == null || date == null || start == null || end == null || !start.isBefore(end)) return;
+        modCount.incrementAndGet();
+        days.computeIfPresent(key(teacherId, date), (k, day) -> day.with(layer, start, end));
+        // 事务回滚时增量已不成立，丢弃当天位图
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        doInvalidate(teacherId, Collections.singletonList(date));
+                    }
+                }
+            });
+        }
+    }
+
+    private void doInvalidate(Long teacherId, Collection<LocalDate> dates) {
+        modCount.incrementAndGet();
+        if (dates == null || dates.isEmpty()) {
+            String prefix = teacherId + ":";
+            days.keySet().removeIf(k -> k.startsWith(prefix));
+            return;
+        }
+        for (LocalDate d : dates) {
+            if (d != null) days.remove(key(teacherId, d));
+        }
+    }
+
+    private void trim(long now) {
+        days.entrySet().removeIf(e -> now - e.getValue().loadedAt >= TTL_MILLIS);
+        if (days.size() >= MAX_DAYS) {
+            log.info("教师占用位图数量超过上限{}，清空重建", MAX_DAYS);
+            days.clear();
+        }
+    }
+
+    private DayOccupancy load(Long teacherId, LocalDate date, long now) {
+        DayOccupancy day = new DayOccupancy(new long[LAYER_COUNT * 2], true, now);
+
+        // 1) 已排程课节（未取消）
+        List<CourseSchedule> schedules = courseScheduleMapper.findOccupancyByTeacherAndDate(teacherId, date);
+        for (CourseSchedule cs : schedules) {
+            day = day.with(Boolean.TRUE.equals(cs.getTrial()) ? Layer.TRIAL : Layer.FORMAL, cs.getStartTime(), cs.getEndTime());
+        }
+
+        // 2) 待处理预约（单次 / 周期 / 日历）
+        List<BookingRequest> pendings = bookingRequestMapper.findPendingByTeacherAndDateRange(teacherId, date, date);
+        for (BookingRequest br : pendings) {
+            Layer layer = Boolean.TRUE.equals(br.getIsTrial()) ? Layer.PENDING_TRIAL : Layer.PENDING_FORMAL;
+            if ("single".equals(br.getBookingType())) {
+                if (date.equals(br.getRequestedDate())) {
+                    day = day.with(layer, br.getRequestedStartTime(), br.getRequestedEndTime());
+                }
+            } else if ("recurring".equals(br.getBookingType())) {
+                for (CalendarSessionUtil.CalendarSession s : RecurringSessionUtil.expand(br, date, date)) {
+                    day = day.with(layer, s.start, s.end);
+                }
+            } else if ("calendar".equals(br.getBookingType())) {
+                try {
+                    for (CalendarSessionUtil.CalendarSession s : CalendarSessionUtil.parse(br.getSelectedSessionsJson())) {
+                        if (date.equals(s.date)) {
+                            day = day.with(layer, s.start, s.end);
+                        }
+                    }
+                } catch (Exception e) {
+                    // 无法解析时放弃位图判定，交由数据库路径处理
+                    log.warn("解析日历预约会话失败，bookingId={}, err={}", br.getId(), e.getMessage());
+                    day = day.inexact();
+                }
+            }
+        }
+        return day;
+    }
+
+    private static String key(Long teacherId, LocalDate date) {
+        return teacherId + ":" + date;
+    }
+
+    private static boolean aligned(LocalTime t) {
+        return t.getSecond() == 0 && t.getNano() == 0 && t.getMinute() % CELL_MINUTES == 0;
+    }
+
+    /**
+     * 教师某日的不可变占用快照
+     */
+    public static final class DayOccupancy {
+
+        // 第 i 层占用 bits[2i]（00:00-16:00）与 bits[2i+1]（16:00-24:00）
+        private final long[] bits;
+        private final boolean exact;
+        private final long loadedAt;
+
+        private DayOccupancy(long[] bits, boolean exact, long loadedAt) {
+            this.bits = bits;
+            this.exact = exact;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * 位图能否精确回答该时间段的冲突判定
+         */
+        public boolean covers(LocalTime start, LocalTime end) {
+            return exact && start != null && end != null && start.isBefore(end) && aligned(start) && aligned(end);
+        }
+
+        /**
+         * 时间段与任一指定层是否存在重叠（aStart < bEnd 且 bStart < aEnd）
+         */
+        public boolean overlaps(LocalTime start, LocalTime end, Layer... layers) {
+            long[] mask = mask(start, end);
+            for (Layer layer : layers) {
+                int i = layer.ordinal() * 2;
+                if ((bits[i] & mask[0]) != 0 || (bits[i + 1] & mask[1]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private DayOccupancy with(Layer layer, LocalTime start, LocalTime end) {
+            if (start == null || end == null || !start.isBefore(end)) return this;
+            if (!aligned(start) || !aligned(end)) return inexact();
+            long[] mask = mask(start, end);
+            long[] next = bits.clone();
+            int i = layer.ordinal() * 2;
+            next[i] |= mask[0];
+            next[i + 1] |= mask[1];
+            return new DayOccupancy(next, exact, loadedAt);
+        }
+
+        private DayOccupancy inexact() {
+            return exact ? new DayOccupancy(bits, false, loadedAt) : this;
+        }
+
+        private static long[] mask(LocalTime start, LocalTime end) {
+            int from = (start.getHour() * 60 + start.getMinute()) / CELL_MINUTES;
+            int to = (end.getHour() * 60 + end.getMinute()) / CELL_MINUTES;
+            return new long[]{range(from, to, 0), range(from, to, 64)};
+        }
+
+        // 单个 long 内 [from, to) 与 [offset, offset+64) 交集的掩码
+        private static long range(int from, int to, int offset) {
+            int lo = Math.max(from, offset) - offset;
+            int hi = Math.min(to, offset + 64) - offset;
+            if (lo >= hi) return 0L;
+            long upper = hi == 64 ? -1L : (1L << hi) - 1;
+            long lower = (1L << lo) - 1;
+            return upper & ~lower;
+        }
+    }
+}
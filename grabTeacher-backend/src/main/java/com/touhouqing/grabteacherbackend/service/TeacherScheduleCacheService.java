@@ -1,10 +1,13 @@
 package com.touhouqing.grabteacherbackend.service;
 
+import com.touhouqing.grabteacherbackend.cache.TeacherBusySlotsNearCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
@@ -12,13 +15,39 @@ import java.util.*;
 /**
  * 维护教师每日忙时（占用时段）缓存，粒度 30 分钟 slot。
  * key: grabTeacher:busy:teacher:{teacherId}:{yyyy-MM-dd}
- * value: Redis Set<String>，成员是 "HH:mm-HH:mm"（半小时为基本粒度，可复用项目 TimeSlotUtil）
+ * value: Redis Set<String>，成员是 "HH:mm-HH:mm"（半小时为基本粒度，可复用项目 TimeSlotUtil），
+ *        另含已加载标记成员 LOADED_MARKER，空日期也只有这一个 key（不再使用 :empty 标记键）
+ * 读路径先查进程内近端缓存（TeacherBusySlotsNearCache），未命中再读 Redis；写路径广播失效
+ * 预约准入的占位另记入 {busyKey}:claims（ZSet，score 为到期毫秒），回填/刷新按库重建时保留未到期占位
  */
 @Service
 @RequiredArgsConstructor
 public class TeacherScheduleCacheService {
 
+    /**
+     * 已加载标记成员：不符合时段格式，占位脚本的时段匹配会忽略它
+     */
+    public static final String LOADED_MARKER = "~loaded";
+
+    // KEYS[1]=忙时集合, KEYS[2]=占位 ZSet；ARGV: 已加载标记, TTL秒, 当前毫秒, 数据库时段...
+    // 先清理到期占位，再移除既不在数据库结果中也不是未到期占位的成员，最后写入数据库时段与标记。
+    // 不删除集合本身，事务尚未提交的占位在刷新后依然生效
+    private static final byte[] REBUILD_SCRIPT = (
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[3]) " +
+            "local keep = {} " +
+            "for i = 4, #ARGV do keep[ARGV[i]] = true end " +
+            "for _, m in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do keep[m] = true end " +
+            "keep[ARGV[1]] = true " +
+            "for _, m in ipairs(redis.call('SMEMBERS', KEYS[1])) do " +
+            "  if not keep[m] then redis.call('SREM', KEYS[1], m) end " +
+            "end " +
+            "redis.call('SADD', KEYS[1], ARGV[1]) " +
+            "for i = 4, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1").getBytes(StandardCharsets.UTF_8);
+
     private final StringRedisTemplate stringRedisTemplate;
+    private final TeacherBusySlotsNearCache nearCache;
 
     // 默认 TTL 3 分钟，加 0~30 秒随机抖动，防雪崩
     private static final Duration BASE_TTL = Duration.ofMinutes(3);
@@ -27,64 +56,110 @@ public class TeacherScheduleCacheService {
         return "grabTeacher:busy:teacher:" + teacherId + ":" + date;
     }
 
+    /**
+     * 未提交占位登记：成员与忙时集合一致，score 为占位到期时间（毫秒）
+     */
+    public String claimKey(Long teacherId, LocalDate date) {
+        return busyKey(teacherId, date) + ":claims";
+    }
+
     public void putBusySlots(Long teacherId, LocalDate date, List<String> slots) {
-        String key = busyKey(teacherId, date);
-        if (slots == null || slots.isEmpty()) {
-            // 空集合也设 TTL，表示加载过，防止穿透
-            stringRedisTemplate.opsForValue().set(key + ":empty", "1", withJitter(BASE_TTL));
-            return;
-        }
-        stringRedisTemplate.opsForSet().add(key, slots.toArray(new String[0]));
-        stringRedisTemplate.expire(key, withJitter(BASE_TTL));
+        putBusySlotsBatch(teacherId, Collections.singletonMap(date, slots));
     }
 
     public List<String> getBusySlots(Long teacherId, LocalDate date) {
-        String key = busyKey(teacherId, date);
-        Set<String> members = stringRedisTemplate.opsForSet().members(key);
-        if (members == null) return new ArrayList<>();
-        return new ArrayList<>(members);
+        List<String> slots = getBusySlotsBatch(teacherId, Collections.singletonList(date)).get(date);
+        return slots == null ? new ArrayList<>() : new ArrayList<>(slots);
     }
 
     public boolean isCached(Long teacherId, LocalDate date) {
-        String key = busyKey(teacherId, date);
-        String emptyKey = key + ":empty";
-        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key)) ||
-               Boolean.TRUE.equals(stringRedisTemplate.hasKey(emptyKey));
+        return getBusySlotsBatch(teacherId, Collections.singletonList(date)).containsKey(date);
+    }
+
+    /**
+     * 批量读取多日忙时：近端缓存命中的日期不访问 Redis，其余日期一次管道 SMEMBERS。
+     * 返回值只包含已加载的日期（空列表表示当日无占用），未加载的日期不在结果中
+     */
+    public Map<LocalDate, List<String>> getBusySlotsBatch(Long teacherId, Collection<LocalDate> dates) {
+        Map<LocalDate, List<String>> result = new LinkedHashMap<>();
+        if (teacherId == null || dates == null || dates.isEmpty()) return result;
+        List<LocalDate> misses = new ArrayList<>();
+        for (LocalDate d : dates) {
+            List<String> hit = nearCache.get(teacherId, d);
+            if (hit != null) {
+                result.put(d, hit);
+            } else if (!misses.contains(d)) {
+                misses.add(d);
+            }
+        }
+        if (misses.isEmpty()) return result;
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (LocalDate d : misses) {
+                connection.setCommands().sMembers(busyKey(teacherId, d).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (int i = 0; i < misses.size(); i++) {
+            Object reply = i < replies.size() ? replies.get(i) : null;
+            if (!(reply instanceof Set<?> members) || !members.contains(LOADED_MARKER)) continue;
+            List<String> slots = new ArrayList<>(members.size() - 1);
+            for (Object m : members) {
+                if (!LOADED_MARKER.equals(m)) slots.add(String.valueOf(m));
+            }
+            Collections.sort(slots);
+            LocalDate d = misses.get(i);
+            nearCache.put(teacherId, d, slots);
+            result.put(d, slots);
+        }
+        return result;
     }
 
     public void addBusySlot(Long teacherId, LocalDate date, String slot) {
         String key = busyKey(teacherId, date);
         stringRedisTemplate.opsForSet().add(key, slot);
         stringRedisTemplate.expire(key, withJitter(BASE_TTL));
-        // 删除可能存在的 empty 标记
-        stringRedisTemplate.delete(key + ":empty");
+        nearCache.invalidate(teacherId, Collections.singletonList(date));
     }
 
     public void removeBusySlot(Long teacherId, LocalDate date, String slot) {
         String key = busyKey(teacherId, date);
         stringRedisTemplate.opsForSet().remove(key, slot);
         stringRedisTemplate.expire(key, withJitter(BASE_TTL));
+        nearCache.invalidate(teacherId, Collections.singletonList(date));
     }
 
+    /**
+     * 按数据库结果重建多日忙时集合（一次管道，每日一次脚本）：
+     * 写入数据库时段并移除已不存在的时段，未到期的准入占位保留，空日期同样留下已加载标记防止穿透
+     */
     public void putBusySlotsBatch(Long teacherId, Map<LocalDate, List<String>> daySlots) {
         if (daySlots == null || daySlots.isEmpty()) return;
-        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
-            @Override
-            public <K, V> Object execute(org.springframework.data.redis.core.RedisOperations<K, V> operations) {
-                for (Map.Entry<LocalDate, List<String>> e : daySlots.entrySet()) {
-                    String key = busyKey(teacherId, e.getKey());
-                    List<String> slots = e.getValue();
-                    if (slots != null && !slots.isEmpty()) {
-                        Duration ttl = withJitter(BASE_TTL);
-                        operations.opsForSet().add((K) ((Object) key), (V[]) slots.toArray(new String[0]));
-                        operations.expire((K) ((Object) key), ttl);
-                        // 清理可能存在的 empty 标记
-                        operations.delete((K) ((Object) (key + ":empty")));
-                    }
+        byte[] marker = LOADED_MARKER.getBytes(StandardCharsets.UTF_8);
+        byte[] now = String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<LocalDate, List<String>> e : daySlots.entrySet()) {
+                List<String> slots = e.getValue() == null ? Collections.emptyList() : e.getValue();
+                byte[][] keysAndArgs = new byte[5 + slots.size()][];
+                keysAndArgs[0] = busyKey(teacherId, e.getKey()).getBytes(StandardCharsets.UTF_8);
+                keysAndArgs[1] = claimKey(teacherId, e.getKey()).getBytes(StandardCharsets.UTF_8);
+                keysAndArgs[2] = marker;
+                keysAndArgs[3] = String.valueOf(withJitter(BASE_TTL).getSeconds()).getBytes(StandardCharsets.UTF_8);
+                keysAndArgs[4] = now;
+                for (int i = 0; i < slots.size(); i++) {
+                    keysAndArgs[5 + i] = slots.get(i).getBytes(StandardCharsets.UTF_8);
                 }
-                return null;
+                connection.scriptingCommands().eval(REBUILD_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs);
             }
+            return null;
         });
+        nearCache.invalidate(teacherId, daySlots.keySet());
+    }
+
+    /**
+     * 外部直接修改忙时集合（如 Lua 占位、补偿释放、精确清理）后调用，失效各节点近端副本
+     */
+    public void invalidateNearCache(Long teacherId, Collection<LocalDate> dates) {
+        nearCache.invalidate(teacherId, dates);
     }
 
     private Duration withJitter(Duration base) {
@@ -7,6 +7,7 @@ import com.touhouqing.grabteacherbackend.model.dto.TeacherMatchDTO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherMatchVO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherProfileVO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherScheduleVO;
+import com.touhouqing.grabteacherbackend.model.vo.TeacherSearchVO;
 import com.touhouqing.grabteacherbackend.model.vo.ClassRecordVO;
 
 import com.touhouqing.grabteacherbackend.model.entity.Teacher;
@@ -53,6 +54,11 @@ public interface TeacherService {
      */
     long countTeachers(String subject, String keyword);
 
+    /**
+     * 教师检索（全文检索 + 相关度排序 + 分面统计）
+     */
+    TeacherSearchVO searchTeachers(int page, int size, String subject, String keyword);
+
     /**
      * 获取精选教师列表（天下名师页面使用）
      */
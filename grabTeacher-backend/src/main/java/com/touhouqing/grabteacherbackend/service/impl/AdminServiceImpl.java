@@ -14,6 +14,8 @@ import com.touhouqing.grabteacherbackend.util.AliyunOssUtil;
 import com.touhouqing.grabteacherbackend.model.entity.Admin;
 
 import com.touhouqing.grabteacherbackend.service.AdminService;
+import com.touhouqing.grabteacherbackend.service.BalanceLedgerService;
+import com.touhouqing.grabteacherbackend.service.DashboardCounterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import java.math.BigDecimal;
@@ -25,6 +27,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.touhouqing.grabteacherbackend.cache.FeaturedTeachersLocalCache;
+import com.touhouqing.grabteacherbackend.security.UserPrincipalCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -53,6 +56,9 @@ public class AdminServiceImpl implements AdminService {
     private final StringRedisTemplate stringRedisTemplate;
     private final FeaturedTeachersLocalCache featuredTeachersLocalCache;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
+    private final BalanceLedgerService balanceLedgerService;
+    private final DashboardCounterService dashboardCounterService;
     @Autowired
     private org.springframework.cache.CacheManager cacheManager;
 
@@ -65,56 +71,8 @@ public class AdminServiceImpl implements AdminService {
      */
     @Override
     public Map<String, Object> getSystemStatistics() {
-        Map<String, Object> statistics = new HashMap<>();
-
-        // 用户统计
-        QueryWrapper<User> userWrapper = new QueryWrapper<>();
-        userWrapper.eq("is_deleted", false);
-        Long totalUsers = userMapper.selectCount(userWrapper);
-
-        QueryWrapper<User> studentUserWrapper = new QueryWrapper<>();
-        studentUserWrapper.eq("is_deleted", false);
-        studentUserWrapper.eq("user_type", "student");
-        Long totalStudents = userMapper.selectCount(studentUserWrapper);
-
-        QueryWrapper<User> teacherUserWrapper = new QueryWrapper<>();
-        teacherUserWrapper.eq("is_deleted", false);
-        teacherUserWrapper.eq("user_type", "teacher");
-        Long totalTeachers = userMapper.selectCount(teacherUserWrapper);
-
-        // 认证教师统计
-        QueryWrapper<Teacher> verifiedTeacherWrapper = new QueryWrapper<>();
-        verifiedTeacherWrapper.eq("is_deleted", false);
-        verifiedTeacherWrapper.eq("is_verified", true);
-        Long verifiedTeachers = teacherMapper.selectCount(verifiedTeacherWrapper);
-
-        // 预约待审批统计
-        QueryWrapper<BookingRequest> pendingBookingWrapper = new QueryWrapper<>();
-        pendingBookingWrapper.eq("status", "pending");
-        pendingBookingWrapper.eq("is_deleted", false);
-        Long pendingBookings = bookingRequestMapper.selectCount(pendingBookingWrapper);
-
-        // 课程待审批统计
-        QueryWrapper<Course> pendingCourseWrapper = new QueryWrapper<>();
-        pendingCourseWrapper.eq("status", "pending");
-        pendingCourseWrapper.eq("is_deleted", false);
-        Long pendingCourses = courseMapper.selectCount(pendingCourseWrapper);
-
-        // 教师待认证统计
-        QueryWrapper<Teacher> unverifiedTeacherWrapper = new QueryWrapper<>();
-        unverifiedTeacherWrapper.eq("is_deleted", false);
-        unverifiedTeacherWrapper.eq("is_verified", false);
-        Long unverifiedTeachers = teacherMapper.selectCount(unverifiedTeacherWrapper);
-
-        statistics.put("totalUsers", totalUsers);
-        statistics.put("totalStudents", totalStudents);
-        statistics.put("totalTeachers", totalTeachers);
-        statistics.put("verifiedTeachers", verifiedTeachers);
-        statistics.put("pendingBookings", pendingBookings);
-        statistics.put("pendingCourses", pendingCourses);
-        statistics.put("unverifiedTeachers", unverifiedTeachers);
-
-        return statistics;
+        // 总量由写操作增量维护在 Redis 哈希中并定时对账，读取为一次 HGETALL
+        return dashboardCounterService.getSystemStatistics();
     }
 
     @Override
@@ -249,6 +207,7 @@ public class AdminServiceImpl implements AdminService {
 
         user.setStatus(status);
         userMapper.updateById(user);
+        userPrincipalCache.invalidate(userId);
 
         log.info("更新用户状态成功: userId={}, status={}", userId, status);
     }
@@ -450,6 +409,7 @@ public class AdminServiceImpl implements AdminService {
                 }
                 currentUser.setUpdatedAt(LocalDateTime.now());
                 userMapper.updateById(currentUser);
+                userPrincipalCache.invalidate(currentUser.getId());
                 if (request.getAvatarUrl() != null && oldAvatar != null && !oldAvatar.isEmpty() && !oldAvatar.equals(request.getAvatarUrl())) {
                     ossUtil.deleteByUrl(oldAvatar);
                 }
@@ -467,9 +427,11 @@ public class AdminServiceImpl implements AdminService {
         student.setGender(request.getGender() != null ? request.getGender() : "不愿透露");
 
         // 管理员可以更新余额（仅在余额实际变化时记录明细；忽略 0 与 0.00 的刻度差异）
+        boolean balanceChanged = false;
         if (request.getBalance() != null) {
             BigDecimal oldBal = (oldBalance != null) ? oldBalance : BigDecimal.ZERO;
             if (request.getBalance().compareTo(oldBal) != 0) {
+                balanceChanged = true;
                 student.setBalance(request.getBalance());
 
                 // 记录余额变动（仅在有变动时）
@@ -492,7 +454,15 @@ public class AdminServiceImpl implements AdminService {
             }
         }
 
+        // 余额未调整时跳过余额列，避免整行回写覆盖并发扣费/退费
+        if (!balanceChanged) {
+            student.setBalance(null);
+        }
         studentMapper.updateById(student);
+        if (!balanceChanged) {
+            student.setBalance(oldBalance);
+        }
+        balanceLedgerService.evictStudent(student.getUserId());
 
         // 更新学生感兴趣的科目关联
         if (request.getSubjectIds() != null) {
@@ -522,7 +492,9 @@ public class AdminServiceImpl implements AdminService {
         // 逻辑删除学生
         student.setDeleted(true);
         student.setDeletedAt(LocalDateTime.now());
+        student.setBalance(null);
         studentMapper.updateById(student);
+        balanceLedgerService.evictStudent(student.getUserId());
 
         // 如果有关联用户，同时逻辑删除对应的用户
         if (student.getUserId() != null) {
@@ -531,6 +503,7 @@ public class AdminServiceImpl implements AdminService {
                 user.setDeleted(true);
                 user.setDeletedAt(LocalDateTime.now());
                 userMapper.updateById(user);
+                userPrincipalCache.invalidate(user.getId());
             }
         }
     }
@@ -938,6 +911,7 @@ public class AdminServiceImpl implements AdminService {
                 }
                 currentUser.setUpdatedAt(LocalDateTime.now());
                 userMapper.updateById(currentUser);
+                userPrincipalCache.invalidate(currentUser.getId());
                 if (request.getAvatarUrl() != null && oldAvatar != null && !oldAvatar.isEmpty() && !oldAvatar.equals(request.getAvatarUrl())) {
                     ossUtil.deleteByUrl(oldAvatar);
                 }
@@ -1071,6 +1045,7 @@ public class AdminServiceImpl implements AdminService {
                 user.setDeleted(true);
                 user.setDeletedAt(LocalDateTime.now());
                 userMapper.updateById(user);
+                userPrincipalCache.invalidate(user.getId());
             }
         }
     }
@@ -1089,8 +1064,10 @@ public class AdminServiceImpl implements AdminService {
             throw new RuntimeException("教师不存在");
         }
 
+        Boolean wasVerified = teacher.getVerified();
         teacher.setVerified(isVerified);
         teacherMapper.updateById(teacher);
+        dashboardCounterService.onTeacherVerifiedChanged(wasVerified, isVerified);
     }
 
     @Override
@@ -17,7 +17,9 @@ import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
 import com.touhouqing.grabteacherbackend.mapper.UserMapper;
 import com.touhouqing.grabteacherbackend.mapper.AdminMapper;
 import com.touhouqing.grabteacherbackend.mapper.TeacherSubjectMapper;
+import com.touhouqing.grabteacherbackend.security.UserPrincipalCache;
 import com.touhouqing.grabteacherbackend.service.AuthService;
+import com.touhouqing.grabteacherbackend.service.DashboardCounterService;
 import com.touhouqing.grabteacherbackend.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,6 +50,8 @@ public class AuthServiceImpl implements AuthService {
     private final TeacherSubjectMapper teacherSubjectMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final UserPrincipalCache userPrincipalCache;
+    private final DashboardCounterService dashboardCounterService;
 
     /**
      * 用户注册
@@ -86,6 +90,7 @@ public class AuthServiceImpl implements AuthService {
 
             userMapper.insert(user);
             log.info("用户注册成功: {}, ID: {}", user.getEmail(), user.getId());
+            dashboardCounterService.onUserCreated(user.getUserType());
 
             // 根据用户类型创建对应的详细信息记录
             if ("student".equals(registerDTO.getUserType().name())) {
@@ -358,6 +363,7 @@ public class AuthServiceImpl implements AuthService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setUpdatedAt(LocalDateTime.now()); // 显式设置更新时间
         userMapper.updateById(user);
+        userPrincipalCache.invalidate(userId);
         
         log.info("用户密码更新成功: userId={}", userId);
     }
@@ -382,6 +388,7 @@ public class AuthServiceImpl implements AuthService {
             user.setPassword(passwordEncoder.encode(newPassword));
             user.setUpdatedAt(LocalDateTime.now()); // 显式设置更新时间
             userMapper.updateById(user);
+            userPrincipalCache.invalidate(userId);
 
             return true;
         } catch (Exception e) {
@@ -420,6 +427,7 @@ public class AuthServiceImpl implements AuthService {
             user.setEmail(newEmail);
             user.setUpdatedAt(LocalDateTime.now());
             userMapper.updateById(user);
+            userPrincipalCache.invalidate(userId);
 
             log.info("用户邮箱更新成功: userId={}, oldEmail={}, newEmail={}", userId, oldEmail, newEmail);
             return true;
@@ -2,6 +2,7 @@ package com.touhouqing.grabteacherbackend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.event.TeacherScheduleChangedEvent;
 import com.touhouqing.grabteacherbackend.model.entity.*;
 import com.touhouqing.grabteacherbackend.model.vo.BookingVO;
 import com.touhouqing.grabteacherbackend.mapper.*;
@@ -10,12 +11,16 @@ import com.touhouqing.grabteacherbackend.model.dto.BookingApprovalDTO;
 import com.touhouqing.grabteacherbackend.model.dto.TimeSlotDTO;
 import com.touhouqing.grabteacherbackend.service.BookingService;
 import com.touhouqing.grabteacherbackend.service.DistributedLockService;
-import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
-import com.touhouqing.grabteacherbackend.service.TeacherScheduleCacheService;
+import com.touhouqing.grabteacherbackend.service.BookingAdmissionService;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil.CalendarSession;
+import com.touhouqing.grabteacherbackend.util.RecurringSessionUtil;
 import com.touhouqing.grabteacherbackend.service.StudentService;
 import com.touhouqing.grabteacherbackend.util.TimeSlotUtil;
 import com.touhouqing.grabteacherbackend.model.vo.ScheduleVO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,8 +33,6 @@ import java.math.BigDecimal;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
 
 @Slf4j
 @Service
@@ -68,13 +71,24 @@ public class BookingServiceImpl implements BookingService {
     @Autowired
     private DistributedLockService distributedLockService;
 
+    // 排课锁：持有上限 10 秒，最长等待 5 秒（等待期间依赖释放通知唤醒）
+    private static final java.time.Duration LOCK_TTL = java.time.Duration.ofSeconds(10);
+    private static final java.time.Duration LOCK_WAIT = java.time.Duration.ofSeconds(5);
+
     // 未直接使用，避免未使用警告
 
     @Autowired
-    private CacheKeyEvictor cacheKeyEvictor;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.CalendarService calendarService;
+
 
     @Autowired
-    private TeacherScheduleCacheService teacherScheduleCacheService;
+    private TeacherOccupancyService teacherOccupancyService;
+
+    @Autowired
+    private BookingAdmissionService bookingAdmissionService;
 
     @Autowired
     private StudentService studentService;
@@ -85,6 +99,12 @@ public class BookingServiceImpl implements BookingService {
     @Autowired
     private com.touhouqing.grabteacherbackend.mapper.TeacherDailyAvailabilityMapper teacherDailyAvailabilityMapper;
 
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.DashboardCounterService dashboardCounterService;
+
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.BookingRequestSessionService bookingRequestSessionService;
+
 
     @Override
     @Transactional
@@ -198,6 +218,27 @@ public class BookingServiceImpl implements BookingService {
 
         bookingRequestMapper.insert(bookingRequest);
         log.info("预约申请创建成功，预约ID: {}", bookingRequest.getId());
+        // 待处理预约按日期展开课次，供按 教师+日期 查询待处理占用
+        bookingRequestSessionService.materialize(bookingRequest);
+        dashboardCounterService.onBookingStatusChanged(bookingRequest.getTeacherId(), null, bookingRequest.getStatus());
+
+        // 待处理预约提交即占位：增量写入教师占用位图（事务回滚时自动失效）
+        if (!isTrial) {
+            if ("single".equals(bookingRequest.getBookingType())) {
+                teacherOccupancyService.markPending(bookingRequest.getTeacherId(), bookingRequest.getRequestedDate(),
+                        bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime(), false);
+            } else if ("calendar".equals(bookingRequest.getBookingType()) && request.getSelectedSessions() != null) {
+                for (var ses : request.getSelectedSessions()) {
+                    teacherOccupancyService.markPending(bookingRequest.getTeacherId(), ses.getDate(),
+                            ses.getStartTime(), ses.getEndTime(), false);
+                }
+            } else if ("recurring".equals(bookingRequest.getBookingType())) {
+                // 周期预约按星期/时段展开后逐日占位（仅更新已加载的日期）
+                for (CalendarSession ses : RecurringSessionUtil.expand(bookingRequest, null, null)) {
+                    teacherOccupancyService.markPending(bookingRequest.getTeacherId(), ses.date, ses.start, ses.end, false);
+                }
+            }
+        }
 
         // 若为试听课：直接审批并生成课表（无需管理员确认）
         if (isTrial) {
@@ -205,21 +246,33 @@ public class BookingServiceImpl implements BookingService {
             bookingRequest.setApprovedAt(LocalDateTime.now());
             bookingRequestMapper.updateById(bookingRequest);
 
-            // 使用与管理员审批相同的分布式锁粒度，避免并发冲突
-            String dateStr = bookingRequest.getRequestedDate() != null ? bookingRequest.getRequestedDate().toString() : "any";
-            String startStr = bookingRequest.getRequestedStartTime() != null ? bookingRequest.getRequestedStartTime().toString() : "any";
-            String endStr = bookingRequest.getRequestedEndTime() != null ? bookingRequest.getRequestedEndTime().toString() : "any";
-            String lockKey = String.format("grabTeacher:lock:booking:teacher:%d:%s:%s-%s", bookingRequest.getTeacherId(), dateStr, startStr, endStr);
-            String token = java.util.UUID.randomUUID().toString();
-            boolean locked = distributedLockService.tryLock(lockKey, token, java.time.Duration.ofSeconds(10), 50, java.time.Duration.ofMillis(100));
-            if (!locked) {
-                throw new RuntimeException("系统繁忙，请稍后再试");
+            // 先在 Redis 忙时集合上原子占位：冲突立即拒绝，占位成功则无锁落库（回滚自动释放占位）
+            BookingAdmissionService.Admission admission = bookingAdmissionService.claimTrial(bookingRequest.getTeacherId(),
+                    bookingRequest.getRequestedDate(), bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime());
+            if (admission == BookingAdmissionService.Admission.REJECTED) {
+                throw new RuntimeException("该试听课时间段已被预约，请选择其他时间");
             }
-            try {
-                // 审批即时生成单次课程安排
+            boolean claimed = admission == BookingAdmissionService.Admission.CLAIMED;
+            if (claimed) {
+                // 审批即时生成单次课程安排（数据库冲突校验兜底）
                 generateSingleSchedule(bookingRequest);
-            } finally {
-                distributedLockService.unlock(lockKey, token);
+                teacherOccupancyService.markScheduled(bookingRequest.getTeacherId(), bookingRequest.getRequestedDate(),
+                        bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime(), true);
+            } else {
+                // Redis 不可用：使用与管理员审批相同的分布式锁粒度，避免并发冲突
+                java.util.List<String> lockKeys = bookingLockKeys(bookingRequest);
+                String token = java.util.UUID.randomUUID().toString();
+                boolean locked = distributedLockService.tryLockAll(lockKeys, token, LOCK_TTL, LOCK_WAIT);
+                if (!locked) {
+                    throw new RuntimeException("系统繁忙，请稍后再试");
+                }
+                try {
+                    generateSingleSchedule(bookingRequest);
+                    teacherOccupancyService.markScheduled(bookingRequest.getTeacherId(), bookingRequest.getRequestedDate(),
+                            bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime(), true);
+                } finally {
+                    distributedLockService.unlockAll(lockKeys, token);
+                }
             }
 
             // 精准清理并回填缓存，确保前端可用性即时更新
@@ -228,20 +281,8 @@ public class BookingServiceImpl implements BookingService {
                 if (bookingRequest.getRequestedDate() != null) {
                     affectedDates.add(bookingRequest.getRequestedDate());
                 }
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(bookingRequest.getTeacherId(), affectedDates);
-                if (!affectedDates.isEmpty()) {
-                    for (LocalDate d : affectedDates) {
-                        java.util.List<CourseSchedule> dayAll =
-                                courseScheduleMapper.findByTeacherIdAndDateRange(bookingRequest.getTeacherId(), d, d);
-                        java.util.List<String> slots = new java.util.ArrayList<>();
-                        for (CourseSchedule s : dayAll) {
-                            String slot = s.getStartTime().toString() + "-" + s.getEndTime().toString();
-                            slots.add(slot);
-                        }
-                        teacherScheduleCacheService.putBusySlots(bookingRequest.getTeacherId(), d,
-                                slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                    }
-                }
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存（提交前不删除忙时集合，保留本次占位）
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, bookingRequest.getTeacherId(), affectedDates));
             } catch (Exception e) {
                 log.warn("试听课审批后的缓存同步失败，但不影响主流程", e);
             }
@@ -253,12 +294,7 @@ public class BookingServiceImpl implements BookingService {
         if (!isTrial && !isResume) {
             totalCost = calculateBookingCost(request);
 
-            // 检查余额是否足够
-            if (!studentService.checkBalance(studentUserId, totalCost)) {
-                throw new RuntimeException("余额不足，需要 " + totalCost + "M豆，请联系管理员充值");
-            }
-
-            // 扣除余额，关联预约ID
+            // 条件扣除余额（余额不足时不扣），关联预约ID；不再预先读取余额
             boolean deductSuccess = studentService.updateStudentBalance(
                     studentUserId,
                     totalCost.negate(), // 负数表示扣费
@@ -268,7 +304,7 @@ public class BookingServiceImpl implements BookingService {
             );
 
             if (!deductSuccess) {
-                throw new RuntimeException("余额扣除失败，请稍后重试");
+                throw new RuntimeException("余额不足，需要 " + totalCost + "M豆，请联系管理员充值");
             }
 
             log.info("已扣除学生余额，用户ID: {}, 扣除金额: {}M豆, 预约ID: {}", studentUserId, totalCost, bookingRequest.getId());
@@ -276,7 +312,7 @@ public class BookingServiceImpl implements BookingService {
             log.info("恢复课程预约，跳过费用计算与扣费，用户ID: {}, 预约ID: {}", studentUserId, bookingRequest.getId());
         }
 
-        // 清理月历缓存，确保待审批预约状态立即生效
+        // 修补物化月历，确保待审批预约状态立即生效
         try {
             Set<LocalDate> affectedDates = new HashSet<>();
             if ("single".equals(bookingRequest.getBookingType())) {
@@ -285,31 +321,15 @@ public class BookingServiceImpl implements BookingService {
                 }
             } else if ("calendar".equals(bookingRequest.getBookingType())) {
                 // 解析 selectedSessionsJson 获取所有相关日期
-                if (bookingRequest.getSelectedSessionsJson() != null && !bookingRequest.getSelectedSessionsJson().trim().isEmpty()) {
-                    try {
-                        ObjectMapper objectMapper = new ObjectMapper();
-                        List<Map<String, Object>> sessions = objectMapper.readValue(
-                            bookingRequest.getSelectedSessionsJson(),
-                            new TypeReference<List<Map<String, Object>>>() {}
-                        );
-                        for (Map<String, Object> session : sessions) {
-                            String dateStr = (String) session.get("date");
-                            if (dateStr != null) {
-                                affectedDates.add(LocalDate.parse(dateStr));
-                            }
-                        }
-                    } catch (Exception e) {
-                        // JSON解析失败时静默处理
-                    }
-                }
+                affectedDates.addAll(CalendarSessionUtil.dates(bookingRequest.getSelectedSessionsJson()));
             }
 
             if (!affectedDates.isEmpty()) {
-                cacheKeyEvictor.evictTeacherMonthlyCalendar(bookingRequest.getTeacherId(), affectedDates);
-                log.info("已清理教师{}的月历缓存，影响日期: {}", bookingRequest.getTeacherId(), affectedDates);
+                calendarService.refreshTeacherCalendarDays(bookingRequest.getTeacherId(), affectedDates);
+                log.info("已刷新教师{}的月历，影响日期: {}", bookingRequest.getTeacherId(), affectedDates);
             }
         } catch (Exception e) {
-            log.warn("清理月历缓存失败，但不影响主流程", e);
+            log.warn("刷新月历失败，但不影响主流程", e);
         }
 
         log.info("预约申请创建完成，ID: {}", bookingRequest.getId());
@@ -327,6 +347,7 @@ public class BookingServiceImpl implements BookingService {
         }
 
         // 更新预约申请状态
+        String oldStatus = bookingRequest.getStatus();
         bookingRequest.setStatus(approval.getStatus());
         bookingRequest.setAdminNotes(approval.getAdminNotes());
         bookingRequest.setUpdatedAt(LocalDateTime.now());
@@ -339,19 +360,10 @@ public class BookingServiceImpl implements BookingService {
                 log.info("试听课审核通过，保持已使用状态，预约ID: {}", bookingId);
             }
 
-            // 使用分布式锁串行化相同教师同一时间段的排课生成，避免高并发踩踏
-            String dateStr = bookingRequest.getRequestedDate() != null ? bookingRequest.getRequestedDate().toString() : "any";
-            String startStr = bookingRequest.getRequestedStartTime() != null ? bookingRequest.getRequestedStartTime().toString() : "any";
-            String endStr = bookingRequest.getRequestedEndTime() != null ? bookingRequest.getRequestedEndTime().toString() : "any";
-            String lockKey;
-            if ("single".equals(bookingRequest.getBookingType())) {
-                lockKey = String.format("grabTeacher:lock:booking:teacher:%d:%s:%s-%s", bookingRequest.getTeacherId(), dateStr, startStr, endStr);
-            } else {
-                // 周期性预约涉及多日期，使用教师级别锁
-                lockKey = String.format("grabTeacher:lock:booking:teacher:%d", bookingRequest.getTeacherId());
-            }
+            // 按 (教师, 日期, 基础时间段) 一次性获取全部锁，互不重叠的日历预约可并行审批
+            java.util.List<String> lockKeys = bookingLockKeys(bookingRequest);
             String token = java.util.UUID.randomUUID().toString();
-            boolean locked = distributedLockService.tryLock(lockKey, token, java.time.Duration.ofSeconds(10), 50, java.time.Duration.ofMillis(100));
+            boolean locked = distributedLockService.tryLockAll(lockKeys, token, LOCK_TTL, LOCK_WAIT);
             if (!locked) {
                 // 双检：可能已有其他请求正在处理审批，尝试读取最新状态
                 BookingRequest latest = bookingRequestMapper.selectById(bookingId);
@@ -362,6 +374,8 @@ public class BookingServiceImpl implements BookingService {
                 throw new RuntimeException("系统繁忙，请稍后再试");
             }
             try {
+                // 与试听准入共用忙时集合：逐课次原子占位，与并发的试听互斥（回滚时释放）；生成课表前仍以数据库复核
+                admitFormalSessions(bookingRequest);
                 // 生成课程安排
                 if ("single".equals(bookingRequest.getBookingType())) {
                     generateSingleSchedule(bookingRequest);
@@ -385,7 +399,7 @@ public class BookingServiceImpl implements BookingService {
                     }
                 }
             } finally {
-                distributedLockService.unlock(lockKey, token);
+                distributedLockService.unlockAll(lockKeys, token);
             }
 
             // 课表变化后，精准清理并"更新"教师 busy 缓存 + 清理 teacherSchedule/teacherAvailability
@@ -399,22 +413,10 @@ public class BookingServiceImpl implements BookingService {
                         if (s.getScheduledDate() != null) affectedDates.add(s.getScheduledDate());
                     }
                 }
-                // 清 teacherSchedule/availability + busy:date Key
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(bookingRequest.getTeacherId(), affectedDates);
-                // 立即回填 busy slots（避免下一次读 miss）
-                if (!affectedDates.isEmpty()) {
-                    for (LocalDate d : affectedDates) {
-                        java.util.List<CourseSchedule> dayAll =
-                                courseScheduleMapper.findByTeacherIdAndDateRange(bookingRequest.getTeacherId(), d, d);
-                        List<String> slots = new ArrayList<>();
-                        for (CourseSchedule s : dayAll) {
-                            String slot = s.getStartTime().toString() + "-" + s.getEndTime().toString();
-                            slots.add(slot);
-                        }
-                        teacherScheduleCacheService.putBusySlots(bookingRequest.getTeacherId(), d,
-                                slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                    }
-                }
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, bookingRequest.getTeacherId(), affectedDates));
+                // 待处理占位转为正式课节，重载占用位图
+                teacherOccupancyService.invalidate(bookingRequest.getTeacherId(), affectedDates);
             } catch (Exception e) {
                 log.warn("精准清理/回填教师缓存失败，但不影响主流程", e);
             }
@@ -467,36 +469,13 @@ public class BookingServiceImpl implements BookingService {
                         affectedDates.add(bookingRequest.getRequestedDate());
                     }
                 } else if ("calendar".equals(bookingRequest.getBookingType())) {
-                    if (bookingRequest.getSelectedSessionsJson() != null && !bookingRequest.getSelectedSessionsJson().trim().isEmpty()) {
-                        try {
-                            com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                            java.util.List<java.util.Map<String, Object>> sessions = objectMapper.readValue(
-                                bookingRequest.getSelectedSessionsJson(),
-                                new com.fasterxml.jackson.core.type.TypeReference<java.util.List<java.util.Map<String, Object>>>() {}
-                            );
-                            for (java.util.Map<String, Object> session : sessions) {
-                                Object dateObj = session.get("date");
-                                if (dateObj instanceof String) {
-                                    affectedDates.add(java.time.LocalDate.parse((String) dateObj));
-                                }
-                            }
-                        } catch (Exception ignore) { }
-                    }
+                    affectedDates.addAll(CalendarSessionUtil.dates(bookingRequest.getSelectedSessionsJson()));
                 }
                 if (bookingRequest.getTeacherId() != null) {
-                    cacheKeyEvictor.evictTeacherScheduleAndAvailability(bookingRequest.getTeacherId(), affectedDates);
-                    cacheKeyEvictor.evictTeacherMonthlyCalendar(bookingRequest.getTeacherId(), affectedDates);
-                    for (java.time.LocalDate d : affectedDates) {
-                        java.util.List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(bookingRequest.getTeacherId(), d, d);
-                        java.util.List<String> slots = new java.util.ArrayList<>();
-                        for (CourseSchedule s0 : dayAll) {
-                            if (s0.getStartTime() != null && s0.getEndTime() != null) {
-                                slots.add(s0.getStartTime().toString() + "-" + s0.getEndTime().toString());
-                            }
-                        }
-                        teacherScheduleCacheService.putBusySlots(bookingRequest.getTeacherId(), d,
-                                slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                    }
+                    // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                    eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, bookingRequest.getTeacherId(), affectedDates));
+                    calendarService.refreshTeacherCalendarDays(bookingRequest.getTeacherId(), affectedDates);
+                    teacherOccupancyService.invalidate(bookingRequest.getTeacherId(), affectedDates);
                 }
             } catch (Exception e) {
                 log.warn("预约审批拒绝后清理/回填缓存失败，但不影响主流程", e);
@@ -506,6 +485,10 @@ public class BookingServiceImpl implements BookingService {
         }
 
         bookingRequestMapper.updateById(bookingRequest);
+        dashboardCounterService.onBookingStatusChanged(bookingRequest.getTeacherId(), oldStatus, bookingRequest.getStatus());
+        if (!"pending".equals(bookingRequest.getStatus())) {
+            bookingRequestSessionService.release(bookingRequest.getId());
+        }
 
         log.info("管理员预约申请审批完成，ID: {}, 状态: {}", bookingId, approval.getStatus());
         return convertToBookingResponseDTO(bookingRequest);
@@ -526,48 +509,6 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("无权限操作此预约申请");
         }
 
-        // 学生取消后：清理 teacherSchedule/teacherAvailability/月历 缓存，并回填 busy 日缓存，确保时间段立刻释放
-        try {
-            java.util.Set<java.time.LocalDate> affectedDates = new java.util.HashSet<>();
-            if ("single".equals(bookingRequest.getBookingType())) {
-                if (bookingRequest.getRequestedDate() != null) affectedDates.add(bookingRequest.getRequestedDate());
-            } else if ("calendar".equals(bookingRequest.getBookingType())) {
-                if (bookingRequest.getSelectedSessionsJson() != null && !bookingRequest.getSelectedSessionsJson().trim().isEmpty()) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        java.util.List<java.util.Map<String, Object>> sessions = objectMapper.readValue(
-                                bookingRequest.getSelectedSessionsJson(),
-                                new com.fasterxml.jackson.core.type.TypeReference<java.util.List<java.util.Map<String, Object>>>() {}
-                        );
-                        for (java.util.Map<String, Object> session : sessions) {
-                            Object dateObj = session.get("date");
-                            if (dateObj instanceof String) {
-                                affectedDates.add(java.time.LocalDate.parse((String) dateObj));
-                            }
-                        }
-                    } catch (Exception ignore) { }
-                }
-            }
-            if (bookingRequest.getTeacherId() != null) {
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(bookingRequest.getTeacherId(), affectedDates);
-                cacheKeyEvictor.evictTeacherMonthlyCalendar(bookingRequest.getTeacherId(), affectedDates);
-                for (java.time.LocalDate d : affectedDates) {
-                    java.util.List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(bookingRequest.getTeacherId(), d, d);
-                    java.util.List<String> slots = new java.util.ArrayList<>();
-                    for (CourseSchedule s0 : dayAll) {
-                        if (s0.getStartTime() != null && s0.getEndTime() != null) {
-                            slots.add(s0.getStartTime().toString() + "-" + s0.getEndTime().toString());
-                        }
-                    }
-                    teacherScheduleCacheService.putBusySlots(bookingRequest.getTeacherId(), d,
-                            slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("学生取消预约后清理/回填缓存失败，但不影响主流程", e);
-        }
-
-
         // 只有待处理状态的申请可以取消
         if (!"pending".equals(bookingRequest.getStatus())) {
             throw new RuntimeException("只有待处理状态的申请可以取消");
@@ -608,9 +549,32 @@ public class BookingServiceImpl implements BookingService {
             }
         }
 
+        String oldStatus = bookingRequest.getStatus();
         bookingRequest.setStatus("cancelled");
         bookingRequest.setUpdatedAt(LocalDateTime.now());
         bookingRequestMapper.updateById(bookingRequest);
+        dashboardCounterService.onBookingStatusChanged(bookingRequest.getTeacherId(), oldStatus, "cancelled");
+        bookingRequestSessionService.release(bookingRequest.getId());
+
+        // 状态落库后再释放占用位图，避免并发请求在取消前重载到旧的待处理占位
+        teacherOccupancyService.invalidate(bookingRequest.getTeacherId(), collectBookingDates(bookingRequest));
+
+        // 取消落库后：清理 teacherSchedule/teacherAvailability/月历 缓存，并回填 busy 日缓存，确保时间段立刻释放
+        try {
+            java.util.Set<java.time.LocalDate> affectedDates = new java.util.HashSet<>();
+            if ("single".equals(bookingRequest.getBookingType())) {
+                if (bookingRequest.getRequestedDate() != null) affectedDates.add(bookingRequest.getRequestedDate());
+            } else if ("calendar".equals(bookingRequest.getBookingType())) {
+                affectedDates.addAll(CalendarSessionUtil.dates(bookingRequest.getSelectedSessionsJson()));
+            }
+            if (bookingRequest.getTeacherId() != null) {
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, bookingRequest.getTeacherId(), affectedDates));
+                calendarService.refreshTeacherCalendarDays(bookingRequest.getTeacherId(), affectedDates);
+            }
+        } catch (Exception e) {
+            log.warn("学生取消预约后清理/回填缓存失败，但不影响主流程", e);
+        }
 
         log.info("预约申请取消成功，ID: {}", bookingId);
         return convertToBookingResponseDTO(bookingRequest);
@@ -1293,18 +1257,10 @@ public class BookingServiceImpl implements BookingService {
             if (cs.getScheduledDate() != null) affectedDates.add(cs.getScheduledDate());
             Long teacherId = (enrollment != null && enrollment.getTeacherId() != null) ? enrollment.getTeacherId() : cs.getTeacherId();
             if (teacherId != null) {
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, affectedDates);
-                cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, affectedDates);
-                for (java.time.LocalDate d : affectedDates) {
-                    java.util.List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, d, d);
-                    java.util.List<String> slots = new java.util.ArrayList<>();
-                    for (CourseSchedule s0 : dayAll) {
-                        if (s0.getStartTime() != null && s0.getEndTime() != null) {
-                            slots.add(s0.getStartTime().toString() + "-" + s0.getEndTime().toString());
-                        }
-                    }
-                    teacherScheduleCacheService.putBusySlots(teacherId, d, slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                }
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, teacherId, affectedDates));
+                calendarService.refreshTeacherCalendarDays(teacherId, affectedDates);
+                teacherOccupancyService.invalidate(teacherId, affectedDates);
             }
         } catch (Exception e) {
             log.warn("取消试听课后清理/回填缓存失败，但不影响主流程", e);
@@ -1317,6 +1273,32 @@ public class BookingServiceImpl implements BookingService {
         LocalTime start = LocalTime.parse(startTime);
         LocalTime end = LocalTime.parse(endTime);
 
+        // 优先使用内存占用位图判定，位图无法精确回答时回退数据库
+        TeacherOccupancyService.DayOccupancy day = teacherOccupancyService.getDay(teacherId, date);
+        if (!day.covers(start, end)) {
+            return hasTeacherTimeConflictInDb(teacherId, date, start, end);
+        }
+
+        // 检查常规课程冲突
+        if (day.overlaps(start, end, TeacherOccupancyService.Layer.FORMAL, TeacherOccupancyService.Layer.TRIAL)) {
+            return true;
+        }
+
+        // 2小时或1.5小时课程：已排程试听与待处理试听都将占用基础2小时段
+        if (isTwoHourCourse(start, end) || isNinetyMinuteCourse(start, end)) {
+            LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+            if (base != null) {
+                return day.overlaps(base[0], base[1], TeacherOccupancyService.Layer.TRIAL, TeacherOccupancyService.Layer.PENDING_TRIAL);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 教师时间冲突的数据库判定（位图无法覆盖时的回退路径，以及落库前的最终复核）
+     */
+    private boolean hasTeacherTimeConflictInDb(Long teacherId, LocalDate date, LocalTime start, LocalTime end) {
         // 检查常规课程冲突
         int conflictCount = courseScheduleMapper.countTeacherConflicts(teacherId, date, start, end);
         if (conflictCount > 0) {
@@ -1327,15 +1309,12 @@ public class BookingServiceImpl implements BookingService {
         // 如果预约的是2小时或1.5小时课程，需要检查是否与试听课冲突（任意位置的30分钟试听均阻断正式课）
         if (isTwoHourCourse(start, end) || isNinetyMinuteCourse(start, end)) {
             // 将时间段映射到基础2小时区间
-            String baseSlot = mapToBaseTimeSlot(startTime, endTime);
-            if (baseSlot != null) {
-                String[] baseTimes = baseSlot.split("-");
-                if (baseTimes.length == 2) {
-                    // 已排程试听与待处理试听都将占用基础2小时段
-                    boolean scheduledTrialConflict = hasTrialConflictInBaseSlot(teacherId, date, baseTimes[0], baseTimes[1]);
-                    boolean pendingTrialConflict = hasPendingTrialConflictInBaseSlot(teacherId, date, baseTimes[0], baseTimes[1]);
-                    return scheduledTrialConflict || pendingTrialConflict;
-                }
+            LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+            if (base != null) {
+                // 已排程试听与待处理试听都将占用基础2小时段
+                boolean scheduledTrialConflict = courseScheduleMapper.countTrialConflictsInBaseSlot(teacherId, date, base[0], base[1]) > 0;
+                boolean pendingTrialConflict = bookingRequestMapper.countPendingTrialConflictsInBaseSlot(teacherId, date, base[0], base[1]) > 0;
+                return scheduledTrialConflict || pendingTrialConflict;
             }
         }
 
@@ -1356,34 +1335,6 @@ public class BookingServiceImpl implements BookingService {
         return java.time.Duration.between(start, end).toMinutes() == 90;
     }
 
-    /**
-     * 将时间段映射到基础2小时区间
-     */
-    private String mapToBaseTimeSlot(String startTime, String endTime) {
-        // 基础2小时时间段：08:00-10:00, 10:00-12:00, 13:00-15:00, 15:00-17:00, 17:00-19:00, 19:00-21:00
-        String[] baseSlots = {
-            "08:00-10:00", "10:00-12:00", "13:00-15:00",
-            "15:00-17:00", "17:00-19:00", "19:00-21:00"
-        };
-
-        LocalTime start = LocalTime.parse(startTime);
-        LocalTime end = LocalTime.parse(endTime);
-
-        for (String baseSlot : baseSlots) {
-            String[] times = baseSlot.split("-");
-            LocalTime baseStart = LocalTime.parse(times[0]);
-            LocalTime baseEnd = LocalTime.parse(times[1]);
-
-            // 检查时间段是否在基础区间内
-            if ((start.isAfter(baseStart) || start.equals(baseStart)) &&
-                (end.isBefore(baseEnd) || end.equals(baseEnd))) {
-                return baseSlot;
-            }
-        }
-
-        return null;
-    }
-
     @Override
     public boolean hasStudentTimeConflict(Long studentId, LocalDate date, String startTime, String endTime) {
         LocalTime start = LocalTime.parse(startTime);
@@ -1397,6 +1348,10 @@ public class BookingServiceImpl implements BookingService {
     public boolean hasTrialConflictInBaseSlot(Long teacherId, LocalDate date, String baseStartTime, String baseEndTime) {
         LocalTime baseStart = LocalTime.parse(baseStartTime);
         LocalTime baseEnd = LocalTime.parse(baseEndTime);
+        TeacherOccupancyService.DayOccupancy day = teacherOccupancyService.getDay(teacherId, date);
+        if (day.covers(baseStart, baseEnd)) {
+            return day.overlaps(baseStart, baseEnd, TeacherOccupancyService.Layer.TRIAL);
+        }
         int conflictCount = courseScheduleMapper.countTrialConflictsInBaseSlot(teacherId, date, baseStart, baseEnd);
         return conflictCount > 0;
     }
@@ -1412,43 +1367,20 @@ public class BookingServiceImpl implements BookingService {
         // 但是8:30-10:00之间还可以预约试听课
 
         // 检查是否有完全相同的30分钟试听课时间段
-        int exactConflictCount = courseScheduleMapper.countTrialTimeConflicts(teacherId, date, start, end);
-        if (exactConflictCount > 0) {
+        TeacherOccupancyService.DayOccupancy day = teacherOccupancyService.getDay(teacherId, date);
+        boolean exactConflict = day.covers(start, end)
+                ? day.overlaps(start, end, TeacherOccupancyService.Layer.FORMAL, TeacherOccupancyService.Layer.TRIAL)
+                : courseScheduleMapper.countTrialTimeConflicts(teacherId, date, start, end) > 0;
+        if (exactConflict) {
             return true; // 完全相同的时间段不能重复预约
         }
 
-        // 检查是否会影响基础2小时区间的可用性
-        String baseSlot = mapToBaseTimeSlot(startTime, endTime);
-        if (baseSlot != null) {
-            String[] baseTimes = baseSlot.split("-");
-            if (baseTimes.length == 2) {
-                // 检查该基础区间是否已经被试听课占用
-                boolean hasTrialInBase = hasTrialConflictInBaseSlot(teacherId, date, baseTimes[0], baseTimes[1]);
-                if (hasTrialInBase) {
-                    // 如果基础区间已被试听课占用，检查当前30分钟段是否在占用范围内
-                    if (isTrialSlotInOccupiedBase(startTime, endTime, baseSlot)) {
-                        return true; // 该时间段会影响基础区间的可用性
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * 检查30分钟试听课时间段是否在已被占用的基础区间内
-     */
-    private boolean isTrialSlotInOccupiedBase(String startTime, String endTime, String baseSlot) {
-        String[] baseTimes = baseSlot.split("-");
-
-        LocalTime trialStart = LocalTime.parse(startTime);
-        LocalTime baseStart = LocalTime.parse(baseTimes[0]);
-
-        // 如果试听课的开始时间等于基础区间的开始时间，则认为该基础区间被占用
+        // 检查是否会影响基础2小时区间的可用性：
+        // 如果试听课的开始时间等于基础区间的开始时间，且该基础区间已被试听课占用，则不可预约
         // 例如：8:00-8:30的试听课会占用8:00-10:00的基础区间
-        if (trialStart.equals(baseStart)) {
-            return true;
+        LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+        if (base != null && start.equals(base[0])) {
+            return hasTrialConflictInBaseSlot(teacherId, date, base[0].toString(), base[1].toString());
         }
 
         return false;
@@ -1458,9 +1390,11 @@ public class BookingServiceImpl implements BookingService {
     /**
      * 检查"待处理的试听申请"是否占用基础2小时区间（提交即占位，管理员拒绝/学生取消才释放）
      */
-    private boolean hasPendingTrialConflictInBaseSlot(Long teacherId, LocalDate date, String baseStartTime, String baseEndTime) {
-        LocalTime baseStart = LocalTime.parse(baseStartTime);
-        LocalTime baseEnd = LocalTime.parse(baseEndTime);
+    private boolean hasPendingTrialConflictInBaseSlot(Long teacherId, LocalDate date, LocalTime baseStart, LocalTime baseEnd) {
+        TeacherOccupancyService.DayOccupancy day = teacherOccupancyService.getDay(teacherId, date);
+        if (day.covers(baseStart, baseEnd)) {
+            return day.overlaps(baseStart, baseEnd, TeacherOccupancyService.Layer.PENDING_TRIAL);
+        }
         int cnt = bookingRequestMapper.countPendingTrialConflictsInBaseSlot(teacherId, date, baseStart, baseEnd);
         return cnt > 0;
     }
@@ -1544,11 +1478,17 @@ public class BookingServiceImpl implements BookingService {
         int maxCycles = 10; // 最多循环10轮，防止无限循环
         int currentCycle = 0;
 
+        // 冲突检测按日期范围一次性加载，生成结果最后批量插入
+        ScheduleConflictIndex conflictIndex = new ScheduleConflictIndex(courseScheduleMapper, bookingRequestMapper,
+                bookingRequest.getTeacherId(), bookingRequest.getStudentId());
+        List<CourseSchedule> toInsert = new ArrayList<>();
+
         // 持续循环直到生成足够的课程数量
         while (generatedCount < targetTotalTimes && currentCycle < maxCycles) {
             currentCycle++;
 
             log.debug("开始第 {} 轮课程生成，当前已生成: {} 节，目标: {} 节", currentCycle, generatedCount, targetTotalTimes);
+            conflictIndex.ensureLoaded(currentDate, endDate);
 
             while ((currentDate.isBefore(endDate) || currentDate.isEqual(endDate)) && generatedCount < targetTotalTimes) {
                 int dayOfWeek = currentDate.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
@@ -1565,13 +1505,15 @@ public class BookingServiceImpl implements BookingService {
                             LocalTime startTime = LocalTime.parse(times[0]);
                             LocalTime endTime = LocalTime.parse(times[1]);
 
-                            // 检查时间冲突（使用新表）
-                            if (!hasTeacherTimeConflict(bookingRequest.getTeacherId(), currentDate, times[0], times[1]) &&
-                                !hasStudentTimeConflict(bookingRequest.getStudentId(), currentDate, times[0], times[1])) {
+                            // 检查时间冲突（内存索引，含本次已生成的课节）
+                            if (!conflictIndex.conflicts(currentDate, startTime, endTime)) {
 
                                     CourseSchedule cs =
                                         CourseSchedule.builder()
                                                 .enrollmentId(enrollment.getId())
+                                                .teacherId(enrollment.getTeacherId())
+                                                .studentId(enrollment.getStudentId())
+                                                .trial(Boolean.TRUE.equals(enrollment.getTrial()))
                                                 .scheduledDate(currentDate)
                                                 .startTime(startTime)
                                                 .endTime(endTime)
@@ -1580,7 +1522,8 @@ public class BookingServiceImpl implements BookingService {
                                                 .deleted(false)
                                                 .build();
 
-                                courseScheduleMapper.insert(cs);
+                                toInsert.add(cs);
+                                conflictIndex.accept(currentDate, startTime, endTime);
                                 generatedCount++;
                                 sessionNumber++;
 
@@ -1602,6 +1545,7 @@ public class BookingServiceImpl implements BookingService {
                         endDate, targetTotalTimes - generatedCount);
             }
         }
+        insertSchedulesInBatches(toInsert);
 
         log.info("周期性课程安排生成完成，预约申请ID: {}, 预期总次数: {}, 实际生成: {} 个安排",
                 bookingRequest.getId(), targetTotalTimes, generatedCount);
@@ -1672,6 +1616,12 @@ public class BookingServiceImpl implements BookingService {
         int generatedCount = 0;
         int sessionNumber = 1;
 
+        // 冲突检测按日期范围一次性加载，生成结果最后批量插入
+        ScheduleConflictIndex conflictIndex = new ScheduleConflictIndex(courseScheduleMapper, bookingRequestMapper,
+                bookingRequest.getTeacherId(), bookingRequest.getStudentId());
+        conflictIndex.ensureLoaded(currentDate, endDate);
+        List<CourseSchedule> toInsert = new ArrayList<>();
+
         while (currentDate.isBefore(endDate) || currentDate.isEqual(endDate)) {
             int dayOfWeek = currentDate.getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
             int weekdayValue = dayOfWeek == 7 ? 0 : dayOfWeek; // 转换为0=Sunday, 1=Monday格式
@@ -1683,13 +1633,15 @@ public class BookingServiceImpl implements BookingService {
                         LocalTime startTime = LocalTime.parse(times[0]);
                         LocalTime endTime = LocalTime.parse(times[1]);
 
-                        // 检查时间冲突（使用新表）
-                        if (!hasTeacherTimeConflict(bookingRequest.getTeacherId(), currentDate, times[0], times[1]) &&
-                            !hasStudentTimeConflict(bookingRequest.getStudentId(), currentDate, times[0], times[1])) {
+                        // 检查时间冲突（内存索引，含本次已生成的课节）
+                        if (!conflictIndex.conflicts(currentDate, startTime, endTime)) {
 
                             CourseSchedule cs =
                                     CourseSchedule.builder()
                                             .enrollmentId(enrollment.getId())
+                                            .teacherId(enrollment.getTeacherId())
+                                            .studentId(enrollment.getStudentId())
+                                            .trial(Boolean.TRUE.equals(enrollment.getTrial()))
                                             .scheduledDate(currentDate)
                                             .startTime(startTime)
                                             .endTime(endTime)
@@ -1698,7 +1650,8 @@ public class BookingServiceImpl implements BookingService {
                                             .deleted(false)
                                             .build();
 
-                            courseScheduleMapper.insert(cs);
+                            toInsert.add(cs);
+                            conflictIndex.accept(currentDate, startTime, endTime);
                             generatedCount++;
                             sessionNumber++;
 
@@ -1712,6 +1665,7 @@ public class BookingServiceImpl implements BookingService {
             }
             currentDate = currentDate.plusDays(1);
         }
+        insertSchedulesInBatches(toInsert);
 
         return generatedCount;
     }
@@ -1863,6 +1817,28 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    /**
+     * 正式课审批准入：在忙时集合上为每个课次占位，任一课次冲突即拒绝；
+     * Redis 不可用（UNAVAILABLE）时跳过，由分布式锁与落库前的数据库复核保证互斥
+     */
+    private void admitFormalSessions(BookingRequest bookingRequest) {
+        java.util.List<CalendarSession> sessions = new java.util.ArrayList<>();
+        if ("calendar".equals(bookingRequest.getBookingType())) {
+            sessions.addAll(CalendarSessionUtil.parseQuietly(bookingRequest.getSelectedSessionsJson()));
+        } else if ("single".equals(bookingRequest.getBookingType()) && bookingRequest.getRequestedDate() != null
+                && bookingRequest.getRequestedStartTime() != null && bookingRequest.getRequestedEndTime() != null) {
+            sessions.add(new CalendarSession(bookingRequest.getRequestedDate(),
+                    bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime()));
+        }
+        for (CalendarSession s : sessions) {
+            BookingAdmissionService.Admission admission =
+                    bookingAdmissionService.claimFormal(bookingRequest.getTeacherId(), s.date, s.start, s.end);
+            if (admission == BookingAdmissionService.Admission.REJECTED) {
+                throw new RuntimeException("教师在 " + s.date + " " + s.start + "-" + s.end + " 已有其他安排，无法审批通过");
+            }
+        }
+    }
+
     /**
      * 生成单次课程安排
      */
@@ -1874,11 +1850,12 @@ public class BookingServiceImpl implements BookingService {
             log.info("生成试听课安排，固定30分钟时长");
         }
 
-        // 审批时再次校验该时间段是否仍然可用（防止创建和审批之间产生新冲突）
+        // 审批时再次校验该时间段是否仍然可用（防止创建和审批之间产生新冲突），落库前以数据库为准
         String startStr = bookingRequest.getRequestedStartTime() != null ? bookingRequest.getRequestedStartTime().toString() : null;
         String endStr = bookingRequest.getRequestedEndTime() != null ? bookingRequest.getRequestedEndTime().toString() : null;
         if (bookingRequest.getRequestedDate() != null && startStr != null && endStr != null) {
-            if (hasTeacherTimeConflict(bookingRequest.getTeacherId(), bookingRequest.getRequestedDate(), startStr, endStr)) {
+            if (hasTeacherTimeConflictInDb(bookingRequest.getTeacherId(), bookingRequest.getRequestedDate(),
+                    bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime())) {
                 throw new RuntimeException("教师该时间段已被占用，请选择其他时间");
             }
             if (hasStudentTimeConflict(bookingRequest.getStudentId(), bookingRequest.getRequestedDate(), startStr, endStr)) {
@@ -1934,6 +1911,9 @@ public class BookingServiceImpl implements BookingService {
         CourseSchedule cs =
                 CourseSchedule.builder()
                         .enrollmentId(enrollment.getId())
+                        .teacherId(enrollment.getTeacherId())
+                        .studentId(enrollment.getStudentId())
+                        .trial(Boolean.TRUE.equals(enrollment.getTrial()))
                         .scheduledDate(bookingRequest.getRequestedDate())
                         .startTime(bookingRequest.getRequestedStartTime())
                         .endTime(bookingRequest.getRequestedEndTime())
@@ -2013,9 +1993,13 @@ public class BookingServiceImpl implements BookingService {
         courseEnrollmentMapper.insert(enrollment);
 
         int sessionNumber = 1;
+        List<CourseSchedule> toInsert = new ArrayList<>(sessions.size());
         for (CalendarSession s : sessions) {
             CourseSchedule cs = CourseSchedule.builder()
                     .enrollmentId(enrollment.getId())
+                    .teacherId(enrollment.getTeacherId())
+                    .studentId(enrollment.getStudentId())
+                    .trial(Boolean.TRUE.equals(enrollment.getTrial()))
                     .scheduledDate(s.date)
                     .startTime(s.start)
                     .endTime(s.end)
@@ -2023,14 +2007,28 @@ public class BookingServiceImpl implements BookingService {
                     .scheduleStatus("scheduled")
                     .deleted(false)
                     .build();
-            courseScheduleMapper.insert(cs);
+            toInsert.add(cs);
         }
+        insertSchedulesInBatches(toInsert);
 
         log.info("calendar课程安排生成完成，预约ID:{}，共{}节，日期范围:{}~{}", bookingRequest.getId(), sessions.size(), startDate, endDate);
         return sessions.size();
     }
 
 
+    // 单条多行 INSERT 的行数上限，避免超出 max_allowed_packet
+    private static final int SCHEDULE_INSERT_BATCH_SIZE = 500;
+
+    /**
+     * 分批批量插入课程安排
+     */
+    private void insertSchedulesInBatches(List<CourseSchedule> schedules) {
+        for (int from = 0; from < schedules.size(); from += SCHEDULE_INSERT_BATCH_SIZE) {
+            int to = Math.min(from + SCHEDULE_INSERT_BATCH_SIZE, schedules.size());
+            courseScheduleMapper.insertBatch(schedules.subList(from, to));
+        }
+    }
+
     /**
      * 将List转换为逗号分隔的字符串
      */
@@ -2292,15 +2290,12 @@ public class BookingServiceImpl implements BookingService {
         if (request.getRequestedStartTime() != null && request.getRequestedEndTime() != null) {
             int mins = (int) java.time.Duration.between(request.getRequestedStartTime(), request.getRequestedEndTime()).toMinutes();
             if (mins == 90) {
-                String baseSlot = mapToBaseTimeSlot(request.getRequestedStartTime().toString(), request.getRequestedEndTime().toString());
-                if (baseSlot == null) {
+                LocalTime[] base = TeacherOccupancyService.findBaseSlot(request.getRequestedStartTime(), request.getRequestedEndTime());
+                if (base == null) {
                     throw new RuntimeException("1.5小时仅支持在基础2小时段内预约");
                 }
-                String[] bt = baseSlot.split("-");
-                java.time.LocalTime baseStart = java.time.LocalTime.parse(bt[0]);
-                java.time.LocalTime baseEnd = java.time.LocalTime.parse(bt[1]);
-                java.time.LocalTime expectStart = baseStart.plusMinutes(15);
-                java.time.LocalTime expectEnd = baseEnd.minusMinutes(15);
+                java.time.LocalTime expectStart = base[0].plusMinutes(15);
+                java.time.LocalTime expectEnd = base[1].minusMinutes(15);
                 if (!expectStart.equals(request.getRequestedStartTime()) || !expectEnd.equals(request.getRequestedEndTime())) {
                     throw new RuntimeException("1.5小时正式课必须固定为中间1.5小时，例如 08:15-09:45");
                 }
@@ -2649,32 +2644,41 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private static class CalendarSession {
-        java.time.LocalDate date;
-        java.time.LocalTime start;
-        java.time.LocalTime end;
+    /**
+     * 预约涉及的锁键：每个 (教师, 日期, 基础时间段) 一把锁；
+     * 有部分不落在基础时间段内的会话另加当日教师锁，无法确定时段时退化为教师级锁
+     */
+    private java.util.List<String> bookingLockKeys(BookingRequest bookingRequest) {
+        Long teacherId = bookingRequest.getTeacherId();
+        java.util.List<String> keys = new java.util.ArrayList<>();
+        if ("calendar".equals(bookingRequest.getBookingType())) {
+            for (CalendarSession s : CalendarSessionUtil.parseQuietly(bookingRequest.getSelectedSessionsJson())) {
+                addSlotLockKeys(keys, teacherId, s.date, s.start, s.end);
+            }
+        } else if (bookingRequest.getRequestedDate() != null && bookingRequest.getRequestedStartTime() != null
+                && bookingRequest.getRequestedEndTime() != null) {
+            addSlotLockKeys(keys, teacherId, bookingRequest.getRequestedDate(),
+                    bookingRequest.getRequestedStartTime(), bookingRequest.getRequestedEndTime());
+        }
+        if (keys.isEmpty()) {
+            keys.add(String.format("grabTeacher:lock:booking:teacher:%d", teacherId));
+        }
+        return keys;
+    }
+
+    static void addSlotLockKeys(java.util.List<String> keys, Long teacherId, LocalDate date, LocalTime start, LocalTime end) {
+        for (LocalTime[] base : TeacherOccupancyService.overlappingBaseSlots(start, end)) {
+            keys.add(String.format("grabTeacher:lock:booking:teacher:%d:%s:%s-%s", teacherId, date, base[0], base[1]));
+        }
+        // 如 11:30-13:30 的区间外部分可能与 12:00-13:00 的非基础段会话冲突，需同时持有当日锁
+        if (!TeacherOccupancyService.coveredByBaseSlots(start, end)) {
+            keys.add(String.format("grabTeacher:lock:booking:teacher:%d:%s:offslot", teacherId, date));
+        }
     }
 
+    // 解码结果按JSON内容缓存共享，这里返回可排序的副本
     private java.util.List<CalendarSession> parseSelectedSessions(String json) {
-        java.util.List<CalendarSession> list = new java.util.ArrayList<>();
-        if (json == null || json.isEmpty()) return list;
-        try {
-            var om = new com.fasterxml.jackson.databind.ObjectMapper();
-            java.util.List<java.util.Map<String, String>> arr = om.readValue(json,
-                    new com.fasterxml.jackson.core.type.TypeReference<java.util.List<java.util.Map<String, String>>>(){});
-            if (arr != null) {
-                for (var m : arr) {
-                    CalendarSession cs = new CalendarSession();
-                    cs.date = java.time.LocalDate.parse(m.get("date"));
-                    cs.start = java.time.LocalTime.parse(m.get("start"));
-                    cs.end = java.time.LocalTime.parse(m.get("end"));
-                    list.add(cs);
-                }
-            }
-            return list;
-        } catch (Exception e) {
-            throw new RuntimeException("预约记录解析失败，请稍后重试");
-        }
+        return new java.util.ArrayList<>(CalendarSessionUtil.parse(json));
     }
 
     @Override
@@ -2693,56 +2697,14 @@ public class BookingServiceImpl implements BookingService {
                 return true;
             }
 
-            // 3. 检查待处理的预约申请冲突
-            java.util.List<BookingRequest> pendingBookings = bookingRequestMapper.findPendingByTeacherAndDateRange(teacherId, date, date);
-            if (pendingBookings != null && !pendingBookings.isEmpty()) {
-                for (BookingRequest booking : pendingBookings) {
-                    if ("single".equals(booking.getBookingType())) {
-                        // 单次预约冲突检查
-                        if (booking.getRequestedDate() != null && booking.getRequestedDate().isEqual(date)) {
-                            if (isOverlap(start, end, booking.getRequestedStartTime(), booking.getRequestedEndTime())) {
-                                return true;
-                            }
-                        }
-                    } else if ("recurring".equals(booking.getBookingType())) {
-                        // 周期性预约冲突检查
-                        java.util.List<Integer> weekdays = convertStringToIntegerList(booking.getRecurringWeekdays());
-                        java.util.List<String> timeSlots = convertStringToList(booking.getRecurringTimeSlots());
-                        int dayOfWeek = date.getDayOfWeek().getValue();
-                        int weekdayValue = dayOfWeek == 7 ? 0 : dayOfWeek;
-
-                        if (weekdays != null && weekdays.contains(weekdayValue) && timeSlots != null) {
-                            for (String slot : timeSlots) {
-                                String[] times = slot.split("-");
-                                if (times.length == 2) {
-                                    LocalTime slotStart = LocalTime.parse(times[0]);
-                                    LocalTime slotEnd = LocalTime.parse(times[1]);
-                                    if (isOverlap(start, end, slotStart, slotEnd)) {
-                                        return true;
-                                    }
-                                }
-                            }
-                        }
-                    } else if ("calendar".equals(booking.getBookingType())) {
-                        // 日历预约冲突检查
-                        String sessionsJson = booking.getSelectedSessionsJson();
-                        if (sessionsJson != null && !sessionsJson.trim().isEmpty()) {
-                            try {
-                                java.util.List<CalendarSession> sessions = parseSelectedSessions(sessionsJson);
-
-                                for (CalendarSession session : sessions) {
-                                    if (session.date != null && session.date.isEqual(date)) {
-                                        if (isOverlap(start, end, session.start, session.end)) {
-                                            return true;
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                log.warn("解析日历预约会话JSON失败: {}", e.getMessage());
-                            }
-                        }
-                    }
+            // 3. 检查待处理的预约申请冲突（位图可精确回答时不再逐条解析待处理预约）
+            TeacherOccupancyService.DayOccupancy day = teacherOccupancyService.getDay(teacherId, date);
+            if (day.covers(start, end)) {
+                if (day.overlaps(start, end, TeacherOccupancyService.Layer.PENDING_TRIAL, TeacherOccupancyService.Layer.PENDING_FORMAL)) {
+                    return true;
                 }
+            } else if (hasPendingBookingConflictInDb(teacherId, date, start, end)) {
+                return true;
             }
 
             // 4. 检查待处理的调课申请冲突
@@ -2759,16 +2721,13 @@ public class BookingServiceImpl implements BookingService {
             // 5. 对于2小时或1.5小时课程，检查是否与试听课冲突
             if (isTwoHourCourse(start, end) || isNinetyMinuteCourse(start, end)) {
                 // 将时间段映射到基础2小时区间
-                String baseSlot = mapToBaseTimeSlot(startTime, endTime);
-                if (baseSlot != null) {
-                    String[] baseTimes = baseSlot.split("-");
-                    if (baseTimes.length == 2) {
-                        // 检查基础区间是否被试听课占用（已排程的和待处理的）
-                        boolean scheduledTrialConflict = hasTrialConflictInBaseSlot(teacherId, date, baseTimes[0], baseTimes[1]);
-                        boolean pendingTrialConflict = hasPendingTrialConflictInBaseSlot(teacherId, date, baseTimes[0], baseTimes[1]);
-                        if (scheduledTrialConflict || pendingTrialConflict) {
-                            return true;
-                        }
+                LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+                if (base != null) {
+                    // 检查基础区间是否被试听课占用（已排程的和待处理的）
+                    boolean scheduledTrialConflict = hasTrialConflictInBaseSlot(teacherId, date, base[0].toString(), base[1].toString());
+                    boolean pendingTrialConflict = hasPendingTrialConflictInBaseSlot(teacherId, date, base[0], base[1]);
+                    if (scheduledTrialConflict || pendingTrialConflict) {
+                        return true;
                     }
                 }
             }
@@ -2780,4 +2739,66 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    /**
+     * 待处理预约申请冲突的逐条判定（位图无法精确覆盖时的回退路径）
+     */
+    private boolean hasPendingBookingConflictInDb(Long teacherId, LocalDate date, LocalTime start, LocalTime end) {
+        java.util.List<BookingRequest> pendingBookings = bookingRequestMapper.findPendingByTeacherAndDateRange(teacherId, date, date);
+        if (pendingBookings != null && !pendingBookings.isEmpty()) {
+            for (BookingRequest booking : pendingBookings) {
+                if ("single".equals(booking.getBookingType())) {
+                    // 单次预约冲突检查
+                    if (booking.getRequestedDate() != null && booking.getRequestedDate().isEqual(date)) {
+                        if (isOverlap(start, end, booking.getRequestedStartTime(), booking.getRequestedEndTime())) {
+                            return true;
+                        }
+                    }
+                } else if ("recurring".equals(booking.getBookingType())) {
+                    // 周期性预约冲突检查
+                    java.util.List<Integer> weekdays = convertStringToIntegerList(booking.getRecurringWeekdays());
+                    java.util.List<String> timeSlots = convertStringToList(booking.getRecurringTimeSlots());
+                    int dayOfWeek = date.getDayOfWeek().getValue();
+                    int weekdayValue = dayOfWeek == 7 ? 0 : dayOfWeek;
+
+                    if (weekdays != null && weekdays.contains(weekdayValue) && timeSlots != null) {
+                        for (String slot : timeSlots) {
+                            String[] times = slot.split("-");
+                            if (times.length == 2) {
+                                LocalTime slotStart = LocalTime.parse(times[0]);
+                                LocalTime slotEnd = LocalTime.parse(times[1]);
+                                if (isOverlap(start, end, slotStart, slotEnd)) {
+                                    return true;
+                                }
+                            }
+                        }
+                    }
+                } else if ("calendar".equals(booking.getBookingType())) {
+                    // 日历预约冲突检查
+                    for (CalendarSession session : CalendarSessionUtil.parseQuietly(booking.getSelectedSessionsJson())) {
+                        if (session.date != null && session.date.isEqual(date)) {
+                            if (isOverlap(start, end, session.start, session.end)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 收集预约申请涉及的日期（用于释放占用位图）；返回null表示无法确定，按教师整体失效
+     */
+    private java.util.List<LocalDate> collectBookingDates(BookingRequest bookingRequest) {
+        if ("single".equals(bookingRequest.getBookingType()) && bookingRequest.getRequestedDate() != null) {
+            return java.util.Collections.singletonList(bookingRequest.getRequestedDate());
+        }
+        if ("calendar".equals(bookingRequest.getBookingType())) {
+            java.util.List<LocalDate> dates = CalendarSessionUtil.dates(bookingRequest.getSelectedSessionsJson());
+            return dates.isEmpty() ? null : dates;
+        }
+        return null;
+    }
+
 }
@@ -8,19 +8,32 @@ import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
 import com.touhouqing.grabteacherbackend.model.entity.TeacherDailyAvailability;
 import com.touhouqing.grabteacherbackend.model.vo.CalendarSlotStatusVO;
 import com.touhouqing.grabteacherbackend.model.vo.MonthlyCalendarVO;
+import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
 import com.touhouqing.grabteacherbackend.service.CalendarService;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import java.util.*;
 
+/**
+ * 教师月历：按 教师+月份 物化为紧凑状态串（每天 6 个基础段，每段 1 个字符）。
+ * key: grabTeacher:teacherMonthlyCalendar:t:{teacherId}:{year}:{month}
+ * - 读取时一次 GET 解码；缺失时整月构建
+ * - 预约/审批/取消/调课/请假/可上课设置变更后按日期重算并 SETRANGE 覆盖对应格子，而非整月删除
+ * - 每个月份维护版本号：构建/修补期间若有其他修补，放弃写入并删除该月，下次读取重建
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -29,6 +42,8 @@ public class CalendarServiceImpl implements CalendarService {
     private final CourseScheduleMapper courseScheduleMapper;
     private final BookingRequestMapper bookingRequestMapper;
     private final TeacherDailyAvailabilityMapper teacherDailyAvailabilityMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheKeyEvictor cacheKeyEvictor;
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
@@ -36,6 +51,35 @@ public class CalendarServiceImpl implements CalendarService {
             "08:00-10:00", "10:00-12:00", "13:00-15:00",
             "15:00-17:00", "17:00-19:00", "19:00-21:00"
     };
+    private static final LocalTime[][] BASE_TIMES = new LocalTime[BASE_SLOTS.length][];
+    static {
+        for (int i = 0; i < BASE_SLOTS.length; i++) {
+            BASE_TIMES[i] = parseSlot(BASE_SLOTS[i]);
+        }
+    }
+
+    // 状态编码：每个基础段 1 个字符
+    private static final char CELL_AVAILABLE = 'A';
+    private static final char CELL_UNAVAILABLE = 'U';
+    private static final char CELL_BUSY = 'B';
+
+    private static final String KEY_PREFIX = "grabTeacher:teacherMonthlyCalendar:t:";
+    // 物化月历由写路径维护，TTL 仅用于兜底回收
+    private static final long GRID_TTL_SECONDS = 30 * 60;
+
+    // 版本一致时才写入整月（版本不存在视为 0），同时登记到教师月历索引供整体失效
+    private static final DefaultRedisScript<Long> BUILD_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[2]) or '0' " +
+            "if v == ARGV[1] then redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) " +
+            "redis.call('SADD', KEYS[3], KEYS[1]) redis.call('EXPIRE', KEYS[3], ARGV[3]) return 1 end " +
+            "return 0", Long.class);
+
+    // 版本仍是本次修补递增后的值才覆盖格子；否则删除整月等待重建
+    private static final DefaultRedisScript<Long> PATCH_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[2]) or '0' " +
+            "if v ~= ARGV[1] then redis.call('DEL', KEYS[1]) return 0 end " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('SETRANGE', KEYS[1], ARGV[2], ARGV[3]) return 1 end " +
+            "return 0", Long.class);
 
     private static LocalTime[] parseSlot(String slot) {
         String[] ss = slot.split("-");
@@ -43,22 +87,115 @@ public class CalendarServiceImpl implements CalendarService {
     }
 
     @Override
-    @Cacheable(cacheNames = "teacherMonthlyCalendar", key = "'t:' + #teacherId + ':' + #year + ':' + #month")
     public MonthlyCalendarVO getTeacherMonthlyCalendar(Long teacherId, int year, int month) {
-        LocalDate first = LocalDate.of(year, month, 1);
-        LocalDate last = first.withDayOfMonth(first.lengthOfMonth());
+        YearMonth ym = YearMonth.of(year, month);
+        String key = gridKey(teacherId, ym);
+        String grid = null;
+        try {
+            grid = stringRedisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("读取物化月历失败 teacherId={}, ym={}, err={}", teacherId, ym, e.getMessage());
+        }
+        if (grid == null || grid.length() != ym.lengthOfMonth() * BASE_SLOTS.length) {
+            grid = buildMonth(teacherId, ym);
+        }
+        return decode(teacherId, ym, grid);
+    }
+
+    @Override
+    public void refreshTeacherCalendarDays(Long teacherId, Collection<LocalDate> dates) {
+        if (teacherId == null) return;
+        final List<LocalDate> snapshot = dates == null ? Collections.emptyList() : new ArrayList<>(dates);
+        // 事务内调用时等提交后再重算，保证读到已提交数据且回滚不污染月历
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRefresh(teacherId, snapshot);
+                }
+            });
+        } else {
+            doRefresh(teacherId, snapshot);
+        }
+    }
+
+    private void doRefresh(Long teacherId, List<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            // 无具体日期时，按教师维度丢弃全部月历，等待读取时重建
+            cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, null);
+            return;
+        }
+        Map<YearMonth, TreeSet<LocalDate>> byMonth = new TreeMap<>();
+        for (LocalDate d : dates) {
+            if (d != null) byMonth.computeIfAbsent(YearMonth.from(d), k -> new TreeSet<>()).add(d);
+        }
+        for (Map.Entry<YearMonth, TreeSet<LocalDate>> e : byMonth.entrySet()) {
+            YearMonth ym = e.getKey();
+            String key = gridKey(teacherId, ym);
+            try {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+                    // 未物化的月份无需修补，仍递增版本以作废并发中的构建
+                    bumpVersion(teacherId, ym);
+                    continue;
+                }
+                String version = bumpVersion(teacherId, ym);
+                // 同月受影响日期按最小~最大范围一次重算（固定 3 次查询），连续写入对应格子
+                LocalDate from = e.getValue().first();
+                LocalDate to = e.getValue().last();
+                String cells = computeCells(teacherId, from, to);
+                int offset = (from.getDayOfMonth() - 1) * BASE_SLOTS.length;
+                stringRedisTemplate.execute(PATCH_SCRIPT, Arrays.asList(key, versionKey(teacherId, ym)),
+                        version, String.valueOf(offset), cells);
+            } catch (Exception ex) {
+                log.warn("修补物化月历失败，删除该月等待重建 teacherId={}, ym={}", teacherId, ym, ex);
+                try { stringRedisTemplate.delete(key); } catch (Exception ignore) {}
+            }
+        }
+    }
 
+    private String buildMonth(Long teacherId, YearMonth ym) {
+        LocalDate first = ym.atDay(1);
+        LocalDate last = ym.atEndOfMonth();
+        String version = "0";
+        try {
+            String v = stringRedisTemplate.opsForValue().get(versionKey(teacherId, ym));
+            if (v != null) version = v;
+        } catch (Exception e) {
+            log.warn("读取月历版本失败 teacherId={}, ym={}", teacherId, ym, e);
+        }
+        String grid = computeCells(teacherId, first, last);
+        try {
+            stringRedisTemplate.execute(BUILD_SCRIPT, Arrays.asList(gridKey(teacherId, ym), versionKey(teacherId, ym),
+                            CacheKeyEvictor.monthlyCalendarKeyIndex(teacherId)),
+                    version, grid, String.valueOf(GRID_TTL_SECONDS));
+        } catch (Exception e) {
+            log.warn("写入物化月历失败 teacherId={}, ym={}, err={}", teacherId, ym, e.getMessage());
+        }
+        return grid;
+    }
+
+    private String bumpVersion(Long teacherId, YearMonth ym) {
+        String vKey = versionKey(teacherId, ym);
+        Long v = stringRedisTemplate.opsForValue().increment(vKey);
+        stringRedisTemplate.expire(vKey, java.time.Duration.ofSeconds(GRID_TTL_SECONDS * 2));
+        return String.valueOf(v);
+    }
+
+    /**
+     * 计算 [from, to] 内每天 6 个基础段的状态编码
+     */
+    private String computeCells(Long teacherId, LocalDate from, LocalDate to) {
         // 0) 读取日历可用性（仅当日历有配置时，未包含的基础段视为 unavailable）
         java.util.List<TeacherDailyAvailability> dailyList = teacherDailyAvailabilityMapper.selectList(
                 new QueryWrapper<TeacherDailyAvailability>()
                         .eq("teacher_id", teacherId)
-                        .between("available_date", first, last)
+                        .between("available_date", from, to)
         );
         Map<LocalDate, java.util.Set<String>> dailyAvail = new HashMap<>();
         for (TeacherDailyAvailability tda : dailyList) {
             if (tda.getTimeSlotsJson() != null && !tda.getTimeSlotsJson().isBlank()) {
                 try {
-                    java.util.List<String> slots = MAPPER.readValue(tda.getTimeSlotsJson(), new com.fasterxml.jackson.core.type.TypeReference<java.util.List<String>>(){});
+                    java.util.List<String> slots = MAPPER.readValue(tda.getTimeSlotsJson(), new TypeReference<java.util.List<String>>(){});
                     dailyAvail.put(tda.getAvailableDate(), new java.util.HashSet<>(slots));
                 } catch (Exception e) {
                     log.warn("解析日历可用性JSON失败 date={}, err={}", tda.getAvailableDate(), e.getMessage());
@@ -68,160 +205,105 @@ public class CalendarServiceImpl implements CalendarService {
             }
         }
 
-        // 1) 批量取当月排课（包含是否试听）
-        List<CourseSchedule> schedules = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, first, last);
+        // 1) 批量取范围内排课（包含是否试听）
+        List<CourseSchedule> schedules = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, from, to);
         Map<LocalDate, List<CourseSchedule>> schedulesByDate = new HashMap<>();
         for (CourseSchedule cs : schedules) {
             schedulesByDate.computeIfAbsent(cs.getScheduledDate(), k -> new ArrayList<>()).add(cs);
         }
 
-        // 2) 批量取当月待处理预约（含试听/正式）
-        List<BookingRequest> pendings = bookingRequestMapper.findPendingByTeacherAndDateRange(teacherId, first, last);
-        Map<LocalDate, List<BookingRequest>> pendingByDate = new HashMap<>();
+        // 2) 批量取范围内待审批预约，单次/日历预约展开为 日期 -> 时间段（每条预约只解析一次）
+        List<BookingRequest> pendings = bookingRequestMapper.findPendingByTeacherAndDateRange(teacherId, from, to);
+        Map<LocalDate, List<LocalTime[]>> pendingByDate = new HashMap<>();
         for (BookingRequest br : pendings) {
-            LocalDate d;
+            if (!"pending".equalsIgnoreCase(br.getStatus())) continue; // 只处理待审批
             if ("single".equalsIgnoreCase(br.getBookingType())) {
-                d = br.getRequestedDate();
-                if (d != null && !d.isBefore(first) && !d.isAfter(last)) {
-                    pendingByDate.computeIfAbsent(d, k -> new ArrayList<>()).add(br);
+                LocalDate d = br.getRequestedDate();
+                if (d != null && !d.isBefore(from) && !d.isAfter(to)
+                        && br.getRequestedStartTime() != null && br.getRequestedEndTime() != null) {
+                    pendingByDate.computeIfAbsent(d, k -> new ArrayList<>())
+                            .add(new LocalTime[]{br.getRequestedStartTime(), br.getRequestedEndTime()});
                 }
             } else if ("calendar".equalsIgnoreCase(br.getBookingType())) {
-                // calendar类型：解析selectedSessionsJson获取具体日期和时间
-                if (br.getSelectedSessionsJson() != null && !br.getSelectedSessionsJson().trim().isEmpty()) {
-                    try {
-                        ObjectMapper objectMapper = new ObjectMapper();
-                        List<Map<String, Object>> sessions = objectMapper.readValue(
-                            br.getSelectedSessionsJson(), 
-                            new TypeReference<List<Map<String, Object>>>() {}
-                        );
-                        
-                        for (Map<String, Object> session : sessions) {
-                            String dateStr = (String) session.get("date");
-                            if (dateStr != null) {
-                                LocalDate sessionDate = LocalDate.parse(dateStr);
-                                if (!sessionDate.isBefore(first) && !sessionDate.isAfter(last)) {
-                                    pendingByDate.computeIfAbsent(sessionDate, k -> new ArrayList<>()).add(br);
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        // JSON解析失败时静默处理，不影响其他逻辑
-                    }
-                }
-            } else {
-                // 其他类型：使用startDate和endDate
-                if (br.getStartDate() != null && br.getEndDate() != null) {
-                    LocalDate sd = br.getStartDate().isBefore(first) ? first : br.getStartDate();
-                    LocalDate ed = br.getEndDate().isAfter(last) ? last : br.getEndDate();
-                    for (LocalDate cur = sd; !cur.isAfter(ed); cur = cur.plusDays(1)) {
-                        pendingByDate.computeIfAbsent(cur, k -> new ArrayList<>()).add(br);
+                for (CalendarSessionUtil.CalendarSession s : CalendarSessionUtil.parseQuietly(br.getSelectedSessionsJson())) {
+                    if (!s.date.isBefore(from) && !s.date.isAfter(to)) {
+                        pendingByDate.computeIfAbsent(s.date, k -> new ArrayList<>()).add(new LocalTime[]{s.start, s.end});
                     }
                 }
             }
         }
 
-        List<CalendarSlotStatusVO> res = new ArrayList<>();
-        for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
-            final LocalDate day = d;
-
+        StringBuilder sb = new StringBuilder();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
             List<CourseSchedule> daySch = schedulesByDate.getOrDefault(day, Collections.emptyList());
-            List<BookingRequest> dayPend = pendingByDate.getOrDefault(day, Collections.emptyList());
+            List<LocalTime[]> dayPend = pendingByDate.getOrDefault(day, Collections.emptyList());
+            boolean hasDaily = dailyAvail.containsKey(day);
 
-            for (String slot : BASE_SLOTS) {
-                LocalTime[] tt = parseSlot(slot);
-                LocalTime baseStart = tt[0];
-                LocalTime baseEnd = tt[1];
+            for (int i = 0; i < BASE_SLOTS.length; i++) {
+                LocalTime baseStart = BASE_TIMES[i][0];
+                LocalTime baseEnd = BASE_TIMES[i][1];
 
                 // 基于教师日历可用性（仅用于在无任何占用/待审批时决定 available/unavailable）
-                boolean hasDaily = dailyAvail.containsKey(day);
-                boolean allowedByDaily = hasDaily && dailyAvail.getOrDefault(day, java.util.Collections.emptySet()).contains(slot);
-
-                String tips = null;
+                boolean allowedByDaily = hasDaily && dailyAvail.get(day).contains(BASE_SLOTS[i]);
 
-                // 是否有正式课占用（已排程）
-                boolean hasFormal = daySch.stream().anyMatch(cs -> {
-                    Boolean trial = cs.getTrial();
-                    if (Boolean.TRUE.equals(trial)) return false;
-                    // overlap
-                    return cs.getStartTime().isBefore(baseEnd) && baseStart.isBefore(cs.getEndTime());
-                });
-
-                // 是否有试听课占用（未取消，任意30分钟与基础段重叠）
-                boolean anyTrial = daySch.stream().anyMatch(cs -> Boolean.TRUE.equals(cs.getTrial())
-                        && !"cancelled".equalsIgnoreCase(cs.getScheduleStatus())
-                        && cs.getScheduledDate().equals(day)
-                        && cs.getStartTime().isBefore(baseEnd) && baseStart.isBefore(cs.getEndTime()));
+                // 是否有正式课占用（已排程），或试听课占用（未取消，任意30分钟与基础段重叠）
+                boolean busy = false;
+                for (CourseSchedule cs : daySch) {
+                    if (!(cs.getStartTime().isBefore(baseEnd) && baseStart.isBefore(cs.getEndTime()))) continue;
+                    if (!Boolean.TRUE.equals(cs.getTrial()) || !"cancelled".equalsIgnoreCase(cs.getScheduleStatus())) {
+                        busy = true;
+                        break;
+                    }
+                }
 
                 // 是否存在待审批的预约（单次或日历）
                 boolean hasPendingBooking = false;
-                if (!dayPend.isEmpty()) {
-                    for (BookingRequest br : dayPend) {
-                        if (!"pending".equalsIgnoreCase(br.getStatus())) continue; // 只处理待审批
-
-                        if ("single".equalsIgnoreCase(br.getBookingType())) {
-                            if (day.equals(br.getRequestedDate())
-                                    && br.getRequestedStartTime() != null && br.getRequestedEndTime() != null
-                                    && br.getRequestedStartTime().isBefore(baseEnd) && baseStart.isBefore(br.getRequestedEndTime())) {
-                                hasPendingBooking = true; break;
-                            }
-                        } else if ("calendar".equalsIgnoreCase(br.getBookingType())) {
-                            String json = br.getSelectedSessionsJson();
-                            if (json != null && !json.isEmpty()) {
-                                try {
-                                    java.util.List<java.util.Map<String, String>> arr = MAPPER.readValue(json,
-                                            new com.fasterxml.jackson.core.type.TypeReference<java.util.List<java.util.Map<String, String>>>(){});
-                                    if (arr != null) {
-                                        for (var m : arr) {
-                                            String dateStr = m.get("date");
-                                            String startStr = m.get("startTime");
-                                            String endStr = m.get("endTime");
-                                            if (startStr == null) startStr = m.get("start");
-                                            if (endStr == null) endStr = m.get("end");
-                                            if (dateStr != null && startStr != null && endStr != null) {
-                                                LocalDate d0 = LocalDate.parse(dateStr);
-                                                if (day.equals(d0)) {
-                                                    LocalTime s0 = LocalTime.parse(startStr);
-                                                    LocalTime e0 = LocalTime.parse(endStr);
-                                                    if (s0.isBefore(baseEnd) && baseStart.isBefore(e0)) { hasPendingBooking = true; break; }
-                                                }
-                                            }
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    log.warn("解析日历预约JSON失败: {}", e.getMessage());
-                                }
-                            }
-                        }
-                        if (hasPendingBooking) break;
-                    }
+                for (LocalTime[] p : dayPend) {
+                    if (p[0].isBefore(baseEnd) && baseStart.isBefore(p[1])) { hasPendingBooking = true; break; }
                 }
 
-                String status;
-                if (hasFormal || anyTrial) {
-                    status = "busy_formal"; // 统一标红：已有课程（正式或试听）
+                if (busy) {
+                    sb.append(CELL_BUSY); // 统一标红：已有课程（正式或试听）
                 } else if (hasPendingBooking) {
-                    status = "unavailable"; // 待审批占位：保持灰色禁用
+                    sb.append(CELL_UNAVAILABLE); // 待审批占位：保持灰色禁用
                 } else if (allowedByDaily) {
-                    status = "available";
+                    sb.append(CELL_AVAILABLE);
                 } else {
-                    status = "unavailable";
+                    sb.append(CELL_UNAVAILABLE);
                 }
+            }
+        }
+        return sb.toString();
+    }
 
+    private MonthlyCalendarVO decode(Long teacherId, YearMonth ym, String grid) {
+        List<CalendarSlotStatusVO> res = new ArrayList<>(grid.length());
+        int idx = 0;
+        for (LocalDate day = ym.atDay(1); !day.isAfter(ym.atEndOfMonth()); day = day.plusDays(1)) {
+            for (String slot : BASE_SLOTS) {
+                char c = grid.charAt(idx++);
+                String status = c == CELL_BUSY ? "busy_formal" : (c == CELL_AVAILABLE ? "available" : "unavailable");
                 res.add(CalendarSlotStatusVO.builder()
                         .date(day)
                         .slot(slot)
                         .status(status)
-                        .tips(tips)
+                        .tips(null)
                         .build());
             }
         }
-
         return MonthlyCalendarVO.builder()
                 .teacherId(teacherId)
-                .year(year)
-                .month(month)
+                .year(ym.getYear())
+                .month(ym.getMonthValue())
                 .slots(res)
                 .build();
     }
-}
 
+    private static String gridKey(Long teacherId, YearMonth ym) {
+        return KEY_PREFIX + teacherId + ":" + ym.getYear() + ":" + ym.getMonthValue();
+    }
+
+    private static String versionKey(Long teacherId, YearMonth ym) {
+        return gridKey(teacherId, ym) + ":ver";
+    }
+}
@@ -6,6 +6,7 @@ import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
 import com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment;
 import com.touhouqing.grabteacherbackend.model.entity.CourseEvaluation;
 import com.touhouqing.grabteacherbackend.service.CourseEvaluationService;
+import com.touhouqing.grabteacherbackend.service.FeedCounterService;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.touhouqing.grabteacherbackend.model.vo.CourseEvaluationVO;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.model.dto.CourseEvaluationCreateDTO;
 import com.touhouqing.grabteacherbackend.model.dto.CourseEvaluationUpdateDTO;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,8 +31,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMapper, CourseEvaluation> implements CourseEvaluationService {
 
+    // 游标分页单页上限，防止一次拉取过多
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final CourseEnrollmentMapper courseEnrollmentMapper;
     private final TeacherMapper teacherMapper;
+    private final FeedCounterService feedCounterService;
 
     /**
      * 校验学生是否已完成该课程的全部课次：
@@ -70,6 +76,68 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
     @Cacheable(value = "courseEvaluations", key = "#page + '_' + #size + '_' + (#teacherId ?: 'null') + '_' + (#courseId ?: 'null') + '_' + (#minRating ?: 'null') + '_' + (#teacherName ?: 'null') + '_' + (#courseName ?: 'null')")
     public Page<CourseEvaluationVO> pagePublicEvaluations(int page, int size, Long teacherId, Long courseId, java.math.BigDecimal minRating, String teacherName, String courseName) {
         Page<CourseEvaluation> entityPage = new Page<>(page, size);
+        LambdaQueryWrapper<CourseEvaluation> wrapper = buildPublicQuery(teacherId, courseId, minRating, teacherName, courseName);
+        // 全部或按教师查看时总数取自计数器，不再每页执行 COUNT；其余筛选组合仍按条件统计
+        boolean counted = courseId == null && minRating == null
+                && (teacherName == null || teacherName.isEmpty()) && (courseName == null || courseName.isEmpty());
+        if (counted) {
+            entityPage.setSearchCount(false);
+        }
+
+        Page<CourseEvaluation> result = this.page(entityPage, wrapper);
+
+        Page<CourseEvaluationVO> voPage = new Page<>();
+        voPage.setCurrent(result.getCurrent());
+        voPage.setSize(result.getSize());
+        voPage.setTotal(counted ? feedCounterService.countPublicEvaluations(teacherId) : result.getTotal());
+        voPage.setRecords(result.getRecords().stream().map(CourseEvaluationServiceImpl::toVO).toList());
+
+        return voPage;
+    }
+
+    @Override
+    @Cacheable(value = "courseEvaluations", key = "'cursor_' + #size + '_' + (#teacherId ?: 'null') + '_' + (#courseId ?: 'null') + '_' + (#minRating ?: 'null') + '_' + (#teacherName ?: 'null') + '_' + (#courseName ?: 'null')",
+               condition = "#cursor == null || #cursor.isEmpty()")
+    public CursorPageVO<CourseEvaluationVO> listPublicEvaluationsAfter(String cursor, int size, Long teacherId, Long courseId, java.math.BigDecimal minRating, String teacherName, String courseName) {
+        LambdaQueryWrapper<CourseEvaluation> wrapper = buildPublicQuery(teacherId, courseId, minRating, teacherName, courseName);
+        if (cursor != null && !cursor.isEmpty()) {
+            // 游标格式：rating_createdAt_id，与排序 (rating, created_at, id) 倒序一致
+            String[] parts = cursor.split("_");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            BigDecimal cursorRating;
+            java.time.LocalDateTime cursorCreatedAt;
+            Long cursorId;
+            try {
+                cursorRating = new BigDecimal(parts[0]);
+                cursorCreatedAt = java.time.LocalDateTime.parse(parts[1]);
+                cursorId = Long.valueOf(parts[2]);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            wrapper.and(w -> w.lt(CourseEvaluation::getRating, cursorRating)
+                    .or(x -> x.eq(CourseEvaluation::getRating, cursorRating)
+                            .and(y -> y.lt(CourseEvaluation::getCreatedAt, cursorCreatedAt)
+                                    .or(z -> z.eq(CourseEvaluation::getCreatedAt, cursorCreatedAt)
+                                            .lt(CourseEvaluation::getId, cursorId)))));
+        }
+        int pageSize = Math.min(MAX_CURSOR_PAGE_SIZE, Math.max(1, size));
+        wrapper.last("LIMIT " + pageSize);
+        java.util.List<CourseEvaluationVO> records = this.list(wrapper).stream()
+                .map(CourseEvaluationServiceImpl::toVO)
+                .collect(java.util.stream.Collectors.toCollection(java.util.ArrayList::new));
+        String nextCursor = null;
+        if (records.size() >= pageSize) {
+            CourseEvaluationVO last = records.get(records.size() - 1);
+            if (last.getRating() != null && last.getCreatedAt() != null && last.getId() != null) {
+                nextCursor = last.getRating().toPlainString() + "_" + last.getCreatedAt() + "_" + last.getId();
+            }
+        }
+        return new CursorPageVO<>(records, pageSize, nextCursor);
+    }
+
+    private LambdaQueryWrapper<CourseEvaluation> buildPublicQuery(Long teacherId, Long courseId, java.math.BigDecimal minRating, String teacherName, String courseName) {
         LambdaQueryWrapper<CourseEvaluation> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(teacherId != null, CourseEvaluation::getTeacherId, teacherId)
                .eq(courseId != null, CourseEvaluation::getCourseId, courseId)
@@ -78,35 +146,28 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
                .like(courseName != null && !courseName.isEmpty(), CourseEvaluation::getCourseName, courseName)
                .eq(CourseEvaluation::getIsDeleted, false)
                .eq(CourseEvaluation::getIsFeatured, true)  // 只显示已精选的评价
-               // 按评分从高到低，其次按创建时间从新到旧
+               // 按评分从高到低，其次按创建时间从新到旧，ID 保证同分同时刻时顺序稳定
                .orderByDesc(CourseEvaluation::getRating)
-               .orderByDesc(CourseEvaluation::getCreatedAt);
-
-        Page<CourseEvaluation> result = this.page(entityPage, wrapper);
-
-        Page<CourseEvaluationVO> voPage = new Page<>();
-        voPage.setCurrent(result.getCurrent());
-        voPage.setSize(result.getSize());
-        voPage.setTotal(result.getTotal());
-        voPage.setPages(result.getPages());
-        voPage.setRecords(result.getRecords().stream().map(e -> {
-            CourseEvaluationVO vo = new CourseEvaluationVO();
-            vo.setId(e.getId());
-            vo.setTeacherId(e.getTeacherId());
-            vo.setStudentId(e.getStudentId());
-            vo.setCourseId(e.getCourseId());
-            vo.setTeacherName(e.getTeacherName());
-            vo.setStudentName(e.getStudentName());
-            vo.setCourseName(e.getCourseName());
-            vo.setStudentComment(e.getStudentComment());
-            vo.setRating(e.getRating());
-            vo.setCreatedAt(e.getCreatedAt());
-            vo.setUpdatedAt(e.getUpdatedAt());
-            vo.setIsFeatured(e.getIsFeatured());
-            return vo;
-        }).toList());
+               .orderByDesc(CourseEvaluation::getCreatedAt)
+               .orderByDesc(CourseEvaluation::getId);
+        return wrapper;
+    }
 
-        return voPage;
+    private static CourseEvaluationVO toVO(CourseEvaluation e) {
+        CourseEvaluationVO vo = new CourseEvaluationVO();
+        vo.setId(e.getId());
+        vo.setTeacherId(e.getTeacherId());
+        vo.setStudentId(e.getStudentId());
+        vo.setCourseId(e.getCourseId());
+        vo.setTeacherName(e.getTeacherName());
+        vo.setStudentName(e.getStudentName());
+        vo.setCourseName(e.getCourseName());
+        vo.setStudentComment(e.getStudentComment());
+        vo.setRating(e.getRating());
+        vo.setCreatedAt(e.getCreatedAt());
+        vo.setUpdatedAt(e.getUpdatedAt());
+        vo.setIsFeatured(e.getIsFeatured());
+        return vo;
     }
 
     @Override
@@ -130,22 +191,7 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
         voPage.setSize(result.getSize());
         voPage.setTotal(result.getTotal());
         voPage.setPages(result.getPages());
-        voPage.setRecords(result.getRecords().stream().map(e -> {
-            CourseEvaluationVO vo = new CourseEvaluationVO();
-            vo.setId(e.getId());
-            vo.setTeacherId(e.getTeacherId());
-            vo.setStudentId(e.getStudentId());
-            vo.setCourseId(e.getCourseId());
-            vo.setTeacherName(e.getTeacherName());
-            vo.setStudentName(e.getStudentName());
-            vo.setCourseName(e.getCourseName());
-            vo.setStudentComment(e.getStudentComment());
-            vo.setRating(e.getRating());
-            vo.setCreatedAt(e.getCreatedAt());
-            vo.setUpdatedAt(e.getUpdatedAt());
-            vo.setIsFeatured(e.getIsFeatured());
-            return vo;
-        }).toList());
+        voPage.setRecords(result.getRecords().stream().map(CourseEvaluationServiceImpl::toVO).toList());
 
         return voPage;
     }
@@ -166,6 +212,7 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
         entity.setIsFeatured(Boolean.TRUE.equals(dto.getIsFeatured()));
         entity.setIsDeleted(false);
         this.save(entity);
+        feedCounterService.onEvaluationChanged(null, false, entity.getTeacherId(), entity.getIsFeatured());
         return entity;
     }
 
@@ -177,6 +224,8 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
         if (entity == null || Boolean.TRUE.equals(entity.getIsDeleted())) {
             throw new IllegalArgumentException("评价不存在或已删除");
         }
+        Long oldTeacherId = entity.getTeacherId();
+        boolean wasFeatured = Boolean.TRUE.equals(entity.getIsFeatured());
         entity.setTeacherId(dto.getTeacherId());
         entity.setStudentId(dto.getStudentId());
         entity.setCourseId(dto.getCourseId());
@@ -189,6 +238,7 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
             entity.setIsFeatured(dto.getIsFeatured());
         }
         this.updateById(entity);
+        feedCounterService.onEvaluationChanged(oldTeacherId, wasFeatured, entity.getTeacherId(), Boolean.TRUE.equals(entity.getIsFeatured()));
         return entity;
     }
 
@@ -203,6 +253,7 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
         entity.setIsDeleted(true);
         entity.setDeletedAt(java.time.LocalDateTime.now());
         this.updateById(entity);
+        feedCounterService.onEvaluationChanged(entity.getTeacherId(), Boolean.TRUE.equals(entity.getIsFeatured()), entity.getTeacherId(), false);
     }
 
     @Override
@@ -213,8 +264,10 @@ public class CourseEvaluationServiceImpl extends ServiceImpl<CourseEvaluationMap
         if (entity == null || Boolean.TRUE.equals(entity.getIsDeleted())) {
             throw new IllegalArgumentException("评价不存在或已删除");
         }
+        boolean wasFeatured = Boolean.TRUE.equals(entity.getIsFeatured());
         entity.setIsFeatured(isFeatured);
         this.updateById(entity);
+        feedCounterService.onEvaluationChanged(entity.getTeacherId(), wasFeatured, entity.getTeacherId(), isFeatured);
         return entity;
     }
 
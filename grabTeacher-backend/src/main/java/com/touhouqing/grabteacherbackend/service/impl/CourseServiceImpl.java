@@ -11,6 +11,7 @@ import com.touhouqing.grabteacherbackend.mapper.CourseMapper;
 import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
 import com.touhouqing.grabteacherbackend.mapper.SubjectMapper;
 import com.touhouqing.grabteacherbackend.service.CourseService;
+import com.touhouqing.grabteacherbackend.util.FullTextQueryUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.*;
@@ -55,24 +56,19 @@ public class CourseServiceImpl implements CourseService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.CourseCacheInvalidator courseCacheInvalidator;
+
 
 
     @Autowired
     private com.touhouqing.grabteacherbackend.service.TeacherDailyAvailabilityService teacherDailyAvailabilityService;
 
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.DashboardCounterService dashboardCounterService;
+
     @Override
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(cacheNames = "course", allEntries = true),
-        @CacheEvict(cacheNames = "courseList", allEntries = true),
-        @CacheEvict(cacheNames = "teacherCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesAll", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesLimited", allEntries = true),
-        @CacheEvict(cacheNames = "teacherList", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourses", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourseIds", allEntries = true)
-    })
     public Course createCourse(CourseDTO request, Long currentUserId, String userType) {
         log.info("创建课程，用户ID: {}, 用户类型: {}", currentUserId, userType);
 
@@ -237,8 +233,10 @@ public class CourseServiceImpl implements CourseService {
         }
 
         courseMapper.insert(course);
+        dashboardCounterService.onCourseChanged(null, null, course.getTeacherId(), course.getStatus());
 
 
+        courseCacheInvalidator.evictMembership(null, List.of(course.getTeacherId()), List.of(course.getSubjectId()));
         log.info("课程创建成功: {}", course.getTitle());
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.CREATE)); } catch (Exception ignore) {}
         return course;
@@ -246,17 +244,7 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(cacheNames = "course", key = "#id"),
-        @CacheEvict(cacheNames = "courseList", allEntries = true),
-        @CacheEvict(cacheNames = "teacherCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesAll", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesLimited", allEntries = true),
-        @CacheEvict(cacheNames = "teacherList", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourses", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourseIds", allEntries = true)
-    })
+    @CacheEvict(cacheNames = "course", key = "#id")
     public Course updateCourse(Long id, CourseDTO request, Long currentUserId, String userType) {
         log.info("更新课程，课程ID: {}, 用户ID: {}, 用户类型: {}", id, currentUserId, userType);
 
@@ -270,6 +258,12 @@ public class CourseServiceImpl implements CourseService {
             throw new RuntimeException("没有权限操作此课程");
         }
 
+        // 记录影响列表归属的旧字段，更新后据此决定失效范围
+        Long oldTeacherId = course.getTeacherId();
+        Long oldSubjectId = course.getSubjectId();
+        String oldStatus = course.getStatus();
+        List<Object> oldMembership = courseMembershipFields(course);
+
             // 已移除教师课程数量上限限制的更新校验：允许同一教师拥有多个课程
 
         // 验证科目是否存在
@@ -429,6 +423,7 @@ public class CourseServiceImpl implements CourseService {
 
         // 执行更新
         courseMapper.updateById(course);
+        dashboardCounterService.onCourseChanged(oldTeacherId, oldStatus, course.getTeacherId(), course.getStatus());
 
         // 如果封面发生变更，删除旧图
         if (oldImageUrl != null && !oldImageUrl.equals(course.getImageUrl())) {
@@ -441,6 +436,12 @@ public class CourseServiceImpl implements CourseService {
         }
 
 
+        if (oldMembership.equals(courseMembershipFields(course))) {
+            courseCacheInvalidator.evictCourse(id);
+        } else {
+            courseCacheInvalidator.evictMembership(id, List.of(oldTeacherId, course.getTeacherId()),
+                    List.of(oldSubjectId, course.getSubjectId()));
+        }
         log.info("课程更新成功: {}", course.getTitle());
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.UPDATE)); } catch (Exception ignore) {}
         return course;
@@ -448,15 +449,7 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(cacheNames = "course", key = "#id"),
-        @CacheEvict(cacheNames = "courseList", allEntries = true),
-        @CacheEvict(cacheNames = "teacherCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesAll", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesLimited", allEntries = true),
-        @CacheEvict(cacheNames = "teacherList", allEntries = true)
-    })
+    @CacheEvict(cacheNames = "course", key = "#id")
     public void deleteCourse(Long id, Long currentUserId, String userType) {
         log.info("删除课程，课程ID: {}, 用户ID: {}, 用户类型: {}", id, currentUserId, userType);
 
@@ -473,8 +466,10 @@ public class CourseServiceImpl implements CourseService {
         course.setDeleted(true);
         course.setDeletedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        dashboardCounterService.onCourseChanged(course.getTeacherId(), course.getStatus(), null, null);
 
 
+        courseCacheInvalidator.evictMembership(id, List.of(course.getTeacherId()), List.of(course.getSubjectId()));
         log.info("课程删除成功: {}", course.getTitle());
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.DELETE)); } catch (Exception ignore) {}
     }
@@ -487,6 +482,12 @@ public class CourseServiceImpl implements CourseService {
         return "线上".equals(location) || "线下".equals(location);
     }
 
+    // 列表查询的筛选条件涉及的字段：任一变化都会改变课程所属的列表范围
+    private List<Object> courseMembershipFields(Course course) {
+        return java.util.Arrays.asList(course.getTeacherId(), course.getSubjectId(), course.getStatus(),
+                course.getCourseType(), course.getCourseLocation(), course.getTitle());
+    }
+
     @Override
     @Cacheable(cacheNames = "course", key = "#id", unless = "#result == null")
     public CourseVO getCourseById(Long id) {
@@ -494,7 +495,8 @@ public class CourseServiceImpl implements CourseService {
         if (course == null || course.getDeleted()) {
             return null;
         }
-        return convertToCourseResponse(course);
+        // 与列表共用批量组装（固定查询次数），详情保留完整描述
+        return assembleCourseResponses(java.util.Collections.singletonList(course), -1).get(0);
     }
 
     // 辅助方法：验证课程类型
@@ -561,12 +563,68 @@ public class CourseServiceImpl implements CourseService {
     private Page<CourseVO> doGetCourseList(int page, int size, String keyword, Long subjectId,
                                            Long teacherId, String status, String courseType, String courseLocation, String teacherLevel) {
         Page<Course> pageParam = new Page<>(page, size);
+        QueryWrapper<Course> queryWrapper = buildCourseListQuery(keyword, subjectId, teacherId, status, courseType, courseLocation, teacherLevel);
+        queryWrapper.orderByDesc("created_at").orderByDesc("id");
+
+        Page<Course> coursePage = courseMapper.selectPage(pageParam, queryWrapper);
+
+        Page<CourseVO> responsePage = new Page<>(coursePage.getCurrent(), coursePage.getSize(), coursePage.getTotal());
+        List<CourseVO> responseList = assembleCourseResponses(coursePage.getRecords());
+        responsePage.setRecords(responseList);
+
+        return responsePage;
+    }
+
+    /**
+     * 游标分页（深翻页）：按 (created_at, id) 倒序，从游标之后取 size 条，不做 COUNT，不缓存
+     */
+    @Override
+    public List<CourseVO> getCourseListAfter(String cursor, int size, String keyword, Long subjectId,
+                                             Long teacherId, String status, String courseType, String courseLocation, String teacherLevel) {
+        QueryWrapper<Course> queryWrapper = buildCourseListQuery(keyword, subjectId, teacherId, status, courseType, courseLocation, teacherLevel);
+        if (StringUtils.hasText(cursor)) {
+            int sep = cursor.lastIndexOf('_');
+            if (sep <= 0) {
+                throw new RuntimeException("无效的分页游标");
+            }
+            LocalDateTime cursorCreatedAt;
+            Long cursorId;
+            try {
+                cursorCreatedAt = LocalDateTime.parse(cursor.substring(0, sep));
+                cursorId = Long.valueOf(cursor.substring(sep + 1));
+            } catch (Exception e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+            queryWrapper.and(w -> w.lt("created_at", cursorCreatedAt)
+                    .or(x -> x.eq("created_at", cursorCreatedAt).lt("id", cursorId)));
+        }
+        queryWrapper.orderByDesc("created_at").orderByDesc("id");
+        queryWrapper.last("LIMIT " + Math.max(1, size));
+        return assembleCourseResponses(courseMapper.selectList(queryWrapper));
+    }
+
+    @Override
+    public String nextCourseCursor(List<CourseVO> courses) {
+        if (courses == null || courses.isEmpty()) return null;
+        CourseVO last = courses.get(courses.size() - 1);
+        if (last.getCreatedAt() == null || last.getId() == null) return null;
+        return last.getCreatedAt() + "_" + last.getId();
+    }
+
+    private QueryWrapper<Course> buildCourseListQuery(String keyword, Long subjectId, Long teacherId, String status,
+                                                      String courseType, String courseLocation, String teacherLevel) {
         QueryWrapper<Course> queryWrapper = new QueryWrapper<>();
 
         queryWrapper.eq("is_deleted", false);
 
         if (StringUtils.hasText(keyword)) {
-            queryWrapper.like("title", keyword);
+            // 标题走 FULLTEXT（ngram）索引；单字等无法全文检索的关键字回退 LIKE
+            String ft = FullTextQueryUtil.toBooleanQuery(keyword);
+            if (ft != null) {
+                queryWrapper.apply("MATCH(title) AGAINST({0} IN BOOLEAN MODE)", ft);
+            } else {
+                queryWrapper.like("title", keyword);
+            }
         }
 
         if (subjectId != null) {
@@ -592,39 +650,15 @@ public class CourseServiceImpl implements CourseService {
             }
         }
 
-        // 教师级别筛选：需关联教师表过滤
+        // 教师级别筛选：关联子查询由数据库完成，不再先加载该级别全部教师拼 IN 列表
         if (StringUtils.hasText(teacherLevel)) {
             String lvl = teacherLevel.trim();
             if (StringUtils.hasText(lvl)) {
-                QueryWrapper<Teacher> tq = new QueryWrapper<>();
-                tq.eq("is_deleted", false);
-                tq.eq("level", lvl);
-                List<Teacher> ts = teacherMapper.selectList(tq);
-                if (ts == null || ts.isEmpty()) {
-                    // 无匹配教师，直接返回空的分页结果（类型为 CourseVO）
-                    Page<CourseVO> empty = new Page<>(page, size, 0);
-                    empty.setRecords(new ArrayList<>());
-                    return empty;
-                }
-                List<Long> teacherIdsForLevel = ts.stream().map(Teacher::getId).collect(Collectors.toList());
-                if (teacherIdsForLevel.isEmpty()) {
-                    Page<CourseVO> empty = new Page<>(page, size, 0);
-                    empty.setRecords(new ArrayList<>());
-                    return empty;
-                }
-                queryWrapper.in("teacher_id", teacherIdsForLevel);
+                queryWrapper.exists("SELECT 1 FROM teachers t WHERE t.id = courses.teacher_id AND t.is_deleted = 0 AND t.level = {0}", lvl);
             }
         }
 
-        queryWrapper.orderByDesc("created_at");
-
-        Page<Course> coursePage = courseMapper.selectPage(pageParam, queryWrapper);
-
-        Page<CourseVO> responsePage = new Page<>(coursePage.getCurrent(), coursePage.getSize(), coursePage.getTotal());
-        List<CourseVO> responseList = assembleCourseResponses(coursePage.getRecords());
-        responsePage.setRecords(responseList);
-
-        return responsePage;
+        return queryWrapper;
     }
     /**
      * 获取教师的课程列表
@@ -716,17 +750,7 @@ public class CourseServiceImpl implements CourseService {
      */
     @Override
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(cacheNames = "course", key = "#id"),
-        @CacheEvict(cacheNames = "courseList", allEntries = true),
-        @CacheEvict(cacheNames = "teacherCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCourses", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesAll", allEntries = true),
-        @CacheEvict(cacheNames = "activeCoursesLimited", allEntries = true),
-        @CacheEvict(cacheNames = "teacherList", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourses", allEntries = true),
-        @CacheEvict(cacheNames = "featuredCourseIds", allEntries = true)
-    })
+    @CacheEvict(cacheNames = "course", key = "#id")
     public void updateCourseStatus(Long id, String status, Long currentUserId, String userType) {
         log.info("更新课程状态，课程ID: {}, 新状态: {}, 用户ID: {}", id, status, currentUserId);
 
@@ -744,8 +768,11 @@ public class CourseServiceImpl implements CourseService {
             throw new RuntimeException("无效的课程状态");
         }
 
+        String oldStatus = course.getStatus();
         course.setStatus(status);
         courseMapper.updateById(course);
+        dashboardCounterService.onCourseChanged(course.getTeacherId(), oldStatus, course.getTeacherId(), status);
+        courseCacheInvalidator.evictMembership(id, List.of(course.getTeacherId()), List.of(course.getSubjectId()));
         log.info("课程状态更新成功: {} -> {}", course.getTitle(), status);
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.STATUS)); } catch (Exception ignore) {}
     }
@@ -774,84 +801,6 @@ public class CourseServiceImpl implements CourseService {
         return false; // 学生没有管理课程的权限
     }
 
-    // 辅助方法：转换为CourseResponse
-    private CourseVO convertToCourseResponse(Course course) {
-        // 获取教师信息
-        Teacher teacher = teacherMapper.selectById(course.getTeacherId());
-        String teacherName = teacher != null ? teacher.getRealName() : "未知教师";
-
-        // 获取科目信息
-        Subject subject = subjectMapper.selectById(course.getSubjectId());
-        String subjectName = subject != null ? subject.getName() : "未知科目";
-
-
-        // 位置优先规则：一对一课程优先从报名(course_enrollments)取真实地点
-        String resolvedLocation = course.getCourseLocation();
-        if ("one_on_one".equalsIgnoreCase(course.getCourseType())) {
-            try {
-                com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment> qw = new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<>();
-                qw.eq("course_id", course.getId()).eq("is_deleted", false).orderByDesc("created_at").last("limit 1");
-                com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment ce = courseEnrollmentMapper.selectOne(qw);
-                if (ce != null) {
-                    String loc = ce.getTeachingLocation();
-                    if ((loc == null || loc.isEmpty()) && ce.getTeachingLocationId() != null) {
-                        var tl = teachingLocationMapper.selectById(ce.getTeachingLocationId());
-                        if (tl != null) loc = tl.getName();
-                    }
-                    if (loc != null && !loc.isEmpty()) {
-                        resolvedLocation = loc;
-                    }
-                }
-            } catch (Exception ignore) {}
-        }
-
-        CourseVO.CourseVOBuilder builder = CourseVO.builder()
-                .id(course.getId())
-                .teacherId(course.getTeacherId())
-                .teacherName(teacherName)
-                .subjectId(course.getSubjectId())
-                .subjectName(subjectName)
-                .title(course.getTitle())
-                .description(course.getDescription())
-                .courseType(course.getCourseType())
-                .durationMinutes(course.getDurationMinutes())
-                .status(course.getStatus())
-                .featured(course.getFeatured())
-                .createdAt(course.getCreatedAt())
-                .courseLocation(resolvedLocation)
-                .price(course.getPrice())
-                .teacherHourlyRate(course.getTeacherHourlyRate())
-                .startDate(course.getStartDate())
-                .endDate(course.getEndDate())
-                .personLimit(course.getPersonLimit())
-                .enrollmentCount(course.getEnrollmentCount())
-                .currentHours(course.getCurrentHours())
-                .lastHours(course.getLastHours())
-                .imageUrl(course.getImageUrl());
-
-        CourseVO response = builder.build();
-        // 附加授课方式（方案A：从course_location推导），线下地点ID无法从名称反推，置空
-        response.setSupportsOnline("线上".equals(response.getCourseLocation()));
-        response.setOfflineLocationId(null);
-
-        // 回显小班课每周时间周期
-        if (course.getCourseTimeSlots() != null && !course.getCourseTimeSlots().isEmpty()) {
-            try {
-                java.util.List<com.touhouqing.grabteacherbackend.model.dto.TimeSlotDTO> slots =
-                        com.touhouqing.grabteacherbackend.util.TimeSlotUtil.fromJsonString(course.getCourseTimeSlots());
-                response.setCourseTimeSlots(slots);
-            } catch (Exception ignored) {
-                // 忽略解析异常，保持为空
-            }
-        }
-
-        // 设置显示名称
-        response.setCourseTypeDisplay(response.getCourseTypeDisplay());
-        response.setStatusDisplay(response.getStatusDisplay());
-
-        return response;
-    }
-
     /**
      * 获取精选课程列表（分页）
      */
@@ -910,8 +859,13 @@ public class CourseServiceImpl implements CourseService {
     }
 
 
-    // 批量组装 CourseVO，避免 convertToCourseResponse 的逐条查询开销
+    // 批量组装 CourseVO：无论条数多少，固定为教师、科目、一对一报名地点三次批量查询
     private List<CourseVO> assembleCourseResponses(List<Course> courses) {
+        return assembleCourseResponses(courses, 160);
+    }
+
+    // descriptionLimit < 0 表示保留完整描述（详情页）
+    private List<CourseVO> assembleCourseResponses(List<Course> courses, int descriptionLimit) {
         if (courses == null || courses.isEmpty()) return new ArrayList<>();
         // 1) 收集ID集合
         List<Long> teacherIds = courses.stream().map(Course::getTeacherId).collect(Collectors.toList());
@@ -942,6 +896,27 @@ public class CourseServiceImpl implements CourseService {
             }
         }
 
+        // 4) 一对一课程：批量取最近一次报名的真实授课地点（优先于课程上的授课方式）
+        Map<Long, String> enrollmentLocationMap = new HashMap<>();
+        List<Long> oneOnOneIds = courses.stream()
+                .filter(c -> "one_on_one".equalsIgnoreCase(c.getCourseType()))
+                .map(Course::getId)
+                .collect(Collectors.toList());
+        if (!oneOnOneIds.isEmpty()) {
+            try {
+                for (com.touhouqing.grabteacherbackend.model.entity.CourseEnrollment ce : courseEnrollmentMapper.findLatestLocationsByCourseIds(oneOnOneIds)) {
+                    if (ce.getCourseId() != null && StringUtils.hasText(ce.getTeachingLocation())) {
+                        enrollmentLocationMap.put(ce.getCourseId(), ce.getTeachingLocation());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("批量查询一对一课程报名地点失败，使用课程授课方式", e);
+            }
+        }
+
+        // 同一教师的多门课程只解析一次可上课时间
+        Map<Long, String> weeklyByTeacher = new HashMap<>();
+
 
         // 5) 组装响应
         List<CourseVO> list = new ArrayList<>();
@@ -956,13 +931,13 @@ public class CourseServiceImpl implements CourseService {
                     .subjectId(c.getSubjectId())
                     .subjectName(subjectName)
                     .title(c.getTitle())
-                    .description(truncate(c.getDescription(), 160))
+                    .description(descriptionLimit < 0 ? c.getDescription() : truncate(c.getDescription(), descriptionLimit))
                     .courseType(c.getCourseType())
                     .durationMinutes(c.getDurationMinutes())
                     .status(c.getStatus())
                     .featured(c.getFeatured())
                     .createdAt(c.getCreatedAt())
-                    .courseLocation(c.getCourseLocation())
+                    .courseLocation(enrollmentLocationMap.getOrDefault(c.getId(), c.getCourseLocation()))
                     .price(c.getPrice())
                     .teacherHourlyRate(c.getTeacherHourlyRate())
                     .startDate(c.getStartDate())
@@ -975,7 +950,7 @@ public class CourseServiceImpl implements CourseService {
                     .build();
 
             // 授课方式（方案A：从 course_location 推导），线下地点ID无法从名称反推，置空
-            resp.setSupportsOnline("线上".equals(c.getCourseLocation()));
+            resp.setSupportsOnline("线上".equals(resp.getCourseLocation()));
             resp.setOfflineLocationId(null);
 
             // 回显批量列表的周期时间（管理端可能需要）
@@ -992,10 +967,11 @@ public class CourseServiceImpl implements CourseService {
             Teacher teacher = teacherMap.get(c.getTeacherId());
             if (teacher != null) {
                 resp.setTeacherLevel(teacher.getLevel());
-                resp.setScheduleDisplay(buildScheduleDisplay(c, teacher));
-            } else {
-                resp.setScheduleDisplay(buildScheduleDisplay(c, null));
             }
+            String weekly = "large_class".equalsIgnoreCase(c.getCourseType())
+                    ? weeklyByTeacher.computeIfAbsent(c.getTeacherId(), id -> extractWeeklyFromTeacher(teacher))
+                    : "";
+            resp.setScheduleDisplay(buildScheduleDisplay(c, weekly));
 
             resp.setCourseTypeDisplay(resp.getCourseTypeDisplay());
             resp.setStatusDisplay(resp.getStatusDisplay());
@@ -1008,7 +984,6 @@ public class CourseServiceImpl implements CourseService {
      * 设置课程为精选课程
      */
     @Override
-    @CacheEvict(cacheNames = {"featuredCourses", "featuredCourseIds", "courseList", "activeCourses", "teacherList", "allFeaturedCourses"}, allEntries = true)
     public void setCourseAsFeatured(Long courseId, boolean featured) {
         Course course = courseMapper.selectById(courseId);
         if (course == null || course.getDeleted()) {
@@ -1018,6 +993,7 @@ public class CourseServiceImpl implements CourseService {
         course.setFeatured(featured);
         courseMapper.updateById(course);
 
+        courseCacheInvalidator.evictFeatured(List.of(courseId));
         log.info("课程 {} 精选状态已更新为: {}", courseId, featured);
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.FEATURED)); } catch (Exception ignore) {}
     }
@@ -1026,7 +1002,6 @@ public class CourseServiceImpl implements CourseService {
      * 批量设置精选课程
      */
     @Override
-    @CacheEvict(cacheNames = {"featuredCourses", "featuredCourseIds", "courseList", "activeCourses", "teacherList", "allFeaturedCourses"}, allEntries = true)
     public void batchSetFeaturedCourses(List<Long> courseIds, boolean featured) {
         if (courseIds == null || courseIds.isEmpty()) {
             return;
@@ -1049,6 +1024,7 @@ public class CourseServiceImpl implements CourseService {
             courseMapper.updateById(course);
         }
 
+        courseCacheInvalidator.evictFeatured(courses.stream().map(Course::getId).collect(Collectors.toList()));
         log.info("批量更新 {} 个课程的精选状态为: {}", courses.size(), featured);
         try { eventPublisher.publishEvent(new CourseChangedEvent(this, CourseChangedEvent.ChangeType.FEATURED)); } catch (Exception ignore) {}
     }
@@ -1078,7 +1054,7 @@ public class CourseServiceImpl implements CourseService {
         }
 
         // ===== 辅助方法：方案A 时间展示拼接（不改库表）=====
-    private String buildScheduleDisplay(Course c, Teacher teacher) {
+    private String buildScheduleDisplay(Course c, String weekly) {
         StringBuilder sb = new StringBuilder();
         if (c.getStartDate() != null && c.getEndDate() != null) {
             sb.append(String.format("%04d.%02d.%02d-%04d.%02d.%02d",
@@ -1087,7 +1063,6 @@ public class CourseServiceImpl implements CourseService {
         }
         boolean isLarge = "large_class".equalsIgnoreCase(c.getCourseType());
         if (isLarge) {
-            String weekly = extractWeeklyFromTeacher(teacher);
             if (!weekly.isEmpty()) {
                 if (sb.length() > 0) sb.append("，");
                 sb.append(weekly);
@@ -1099,13 +1074,15 @@ public class CourseServiceImpl implements CourseService {
         return sb.toString();
     }
 
+    private static final java.util.regex.Pattern WEEKLY_SLOT_PATTERN =
+            java.util.regex.Pattern.compile("\\\"weekday\\\":(\\d).*?\\\"timeSlots\\\":\\\\[(\\\"[0-9:]{4,}-[0-9:]{4,}\\\")");
+
     private String extractWeeklyFromTeacher(Teacher teacher) {
         if (teacher == null) return "";
         String json = teacher.getAvailableTimeSlots();
         if (json == null || json.isEmpty()) return "";
         try {
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile("\\\"weekday\\\":(\\d).*?\\\"timeSlots\\\":\\\\[(\\\"[0-9:]{4,}-[0-9:]{4,}\\\")");
-            java.util.regex.Matcher m = p.matcher(json);
+            java.util.regex.Matcher m = WEEKLY_SLOT_PATTERN.matcher(json);
             java.util.Map<Integer, Integer> count = new java.util.HashMap<>();
             java.util.Map<Integer, String> firstSlot = new java.util.HashMap<>();
             while (m.find()) {
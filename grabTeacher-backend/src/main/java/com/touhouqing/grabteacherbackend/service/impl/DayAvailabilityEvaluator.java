@@ -0,0 +1,250 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.model.vo.DayAvailabilityVO;
+import com.touhouqing.grabteacherbackend.util.CalendarSessionUtil;
+import com.touhouqing.grabteacherbackend.util.RecurringSessionUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 教师日可选性的内存判定器（由 AvailabilityService 一次加载区间数据后构造）
+ * - 课节与待处理预约按日期归类为分钟区间，构造时完成全部时间解析，判定过程不再拆分/解析字符串
+ * - 每天每类占用扫描一遍生成分钟覆盖前缀和，任一时段是否重叠 = 前缀和之差是否大于 0，逐段 O(1)
+ * - 占用分四类：已排程课节、已排程试听、待处理试听、待处理正式课；另记录课节/待处理试听的精确时段用于重复试听判定
+ */
+@Slf4j
+final class DayAvailabilityEvaluator {
+
+    private static final int DAY_MINUTES = 24 * 60;
+
+    private static final int SCHEDULED = 0;
+    private static final int SCHEDULED_TRIAL = 1;
+    private static final int PENDING_TRIAL = 2;
+    private static final int PENDING_FORMAL = 3;
+    private static final int KIND_COUNT = 4;
+
+    // 基础2小时段（正式课）：08:00-10:00, 10:00-12:00, 13:00-15:00, 15:00-17:00, 17:00-19:00, 19:00-21:00
+    private static final int[][] BASE_SLOTS = {
+            {480, 600}, {600, 720}, {780, 900}, {900, 1020}, {1020, 1140}, {1140, 1260}
+    };
+
+    // 试听分段：上午 08:00-12:00，下午 13:00-17:00，晚上 17:00-21:00
+    private static final int[] MORNING = {480, 720};
+    private static final int[] AFTERNOON = {780, 1020};
+    private static final int[] EVENING = {1020, 1260};
+    private static final int TRIAL_MINUTES = 30;
+
+    private final Map<LocalDate, List<String>> teacherDaily;
+    private final Map<LocalDate, Day> days = new HashMap<>();
+
+    /**
+     * @param schedules    区间内未取消的课节（需含 scheduledDate、startTime、endTime、trial）
+     * @param pendings     区间内待处理的预约（单次 / 周期 / 日历）
+     * @param teacherDaily 教师按日历设置的可预约时段（HH:mm-HH:mm）
+     */
+    DayAvailabilityEvaluator(LocalDate startDate, LocalDate endDate,
+                                    List<CourseSchedule> schedules,
+                                    List<BookingRequest> pendings,
+                                    Map<LocalDate, List<String>> teacherDaily) {
+        this.teacherDaily = teacherDaily != null ? teacherDaily : Collections.emptyMap();
+        if (schedules != null) {
+            for (CourseSchedule cs : schedules) {
+                Day day = day(cs.getScheduledDate(), startDate, endDate);
+                if (day == null) continue;
+                day.add(SCHEDULED, cs.getStartTime(), cs.getEndTime());
+                if (Boolean.TRUE.equals(cs.getTrial())) day.add(SCHEDULED_TRIAL, cs.getStartTime(), cs.getEndTime());
+                day.addExact(cs.getStartTime(), cs.getEndTime());
+            }
+        }
+        if (pendings != null) {
+            for (BookingRequest br : pendings) {
+                addPending(br, startDate, endDate);
+            }
+        }
+    }
+
+    /**
+     * 判定某日的基础段与试听段可用性；segment 为 morning/afternoon/evening，为空或无法识别时生成全部三段
+     */
+    DayAvailabilityVO evaluate(LocalDate date, String segment) {
+        Day day = days.get(date);
+        int[][] coverage = day != null ? day.coverage() : new int[KIND_COUNT][];
+        int[][] teacherSlots = parseTeacherSlots(teacherDaily.getOrDefault(date, Collections.emptyList()));
+
+        List<DayAvailabilityVO.BaseSlot> base = new ArrayList<>(BASE_SLOTS.length);
+        for (int[] bs : BASE_SLOTS) {
+            int s = bs[0], e = bs[1];
+            List<String> reasons = new ArrayList<>();
+            // 基础段必须被包含在某个教师可预约段内
+            if (!contained(teacherSlots, s, e)) reasons.add("teacherUnavailable");
+            // 已排程 / 待处理试听会占用其所在的整个基础段
+            if (overlaps(coverage[SCHEDULED_TRIAL], s, e)) reasons.add("scheduledTrial");
+            if (overlaps(coverage[PENDING_TRIAL], s, e)) reasons.add("pendingTrial");
+            if (overlaps(coverage[PENDING_FORMAL], s, e)) reasons.add("pendingFormal");
+            if (overlaps(coverage[SCHEDULED], s, e)) reasons.add("busy");
+            base.add(DayAvailabilityVO.BaseSlot.builder().slot(label(s, e)).formalAvailable(reasons.isEmpty()).reasons(reasons).build());
+        }
+
+        List<DayAvailabilityVO.TrialSlot> trial = new ArrayList<>();
+        for (int[] seg : trialSegments(segment)) {
+            for (int s = seg[0]; s + TRIAL_MINUTES <= seg[1]; s += TRIAL_MINUTES) {
+                int e = s + TRIAL_MINUTES;
+                if (!contained(teacherSlots, s, e)) {
+                    trial.add(DayAvailabilityVO.TrialSlot.builder().slot(label(s, e)).trialAvailable(false)
+                            .reasons(Collections.singletonList("teacherUnavailable")).build());
+                    continue;
+                }
+                List<String> reasons = new ArrayList<>();
+                if (overlaps(coverage[SCHEDULED], s, e)) reasons.add("busyScheduled");
+                // 完全相同的30分钟已存在课节或待处理试听
+                if (day != null && day.exact.contains(s * DAY_MINUTES + e)) reasons.add("duplicateTrialSlot");
+                if (overlaps(coverage[PENDING_TRIAL], s, e) || overlaps(coverage[PENDING_FORMAL], s, e)) reasons.add("pendingBooking");
+                trial.add(DayAvailabilityVO.TrialSlot.builder().slot(label(s, e)).trialAvailable(reasons.isEmpty()).reasons(reasons).build());
+            }
+        }
+
+        return DayAvailabilityVO.builder()
+                .date(date.toString())
+                .baseSlots(base)
+                .trialSlots(trial)
+                .build();
+    }
+
+    private void addPending(BookingRequest br, LocalDate startDate, LocalDate endDate) {
+        int kind = Boolean.TRUE.equals(br.getIsTrial()) ? PENDING_TRIAL : PENDING_FORMAL;
+        if ("single".equals(br.getBookingType())) {
+            Day day = day(br.getRequestedDate(), startDate, endDate);
+            if (day == null) return;
+            day.add(kind, br.getRequestedStartTime(), br.getRequestedEndTime());
+            if (kind == PENDING_TRIAL) day.addExact(br.getRequestedStartTime(), br.getRequestedEndTime());
+        } else if ("recurring".equals(br.getBookingType())) {
+            for (CalendarSessionUtil.CalendarSession s : RecurringSessionUtil.expand(br, startDate, endDate)) {
+                Day day = day(s.date, startDate, endDate);
+                if (day != null) day.add(kind, s.start, s.end);
+            }
+        } else if ("calendar".equals(br.getBookingType())) {
+            try {
+                for (CalendarSessionUtil.CalendarSession s : CalendarSessionUtil.parse(br.getSelectedSessionsJson())) {
+                    Day day = day(s.date, startDate, endDate);
+                    if (day != null) day.add(kind, s.start, s.end);
+                }
+            } catch (Exception e) {
+                log.warn("解析日历预约会话失败，bookingId={}, err={}", br.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private Day day(LocalDate date, LocalDate startDate, LocalDate endDate) {
+        if (date == null || date.isBefore(startDate) || date.isAfter(endDate)) return null;
+        return days.computeIfAbsent(date, d -> new Day());
+    }
+
+    private static boolean overlaps(int[] prefix, int start, int end) {
+        return prefix != null && prefix[end] - prefix[start] > 0;
+    }
+
+    private static boolean contained(int[][] parents, int start, int end) {
+        for (int[] p : parents) {
+            if (p[0] <= start && end <= p[1]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 教师可预约时段按分钟区间解析；格式错误或结束不晚于开始的时段跳过（视为不可预约），不影响当日其余时段
+     */
+    private static int[][] parseTeacherSlots(List<String> slots) {
+        List<int[]> res = new ArrayList<>(slots.size());
+        for (String slot : slots) {
+            if (slot == null) continue;
+            String[] t = slot.split("-");
+            if (t.length != 2) {
+                log.warn("忽略无法解析的教师可预约时段: {}", slot);
+                continue;
+            }
+            try {
+                LocalTime start = LocalTime.parse(t[0].trim());
+                LocalTime end = LocalTime.parse(t[1].trim());
+                int s = minutes(start);
+                int e = end.equals(LocalTime.MIDNIGHT) ? DAY_MINUTES : minutes(end);
+                if (e > s) res.add(new int[]{s, e});
+            } catch (Exception e) {
+                log.warn("忽略无法解析的教师可预约时段: {}", slot);
+            }
+        }
+        return res.toArray(new int[0][]);
+    }
+
+    private static int[][] trialSegments(String segment) {
+        if (segment == null) return new int[][]{MORNING, AFTERNOON, EVENING};
+        switch (segment) {
+            case "morning": return new int[][]{MORNING};
+            case "afternoon": return new int[][]{AFTERNOON};
+            case "evening": return new int[][]{EVENING};
+            default: return new int[][]{MORNING, AFTERNOON, EVENING};
+        }
+    }
+
+    private static int minutes(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    private static String label(int start, int end) {
+        return String.format("%02d:%02d-%02d:%02d", start / 60, start % 60, end / 60, end % 60);
+    }
+
+    /**
+     * 单日占用：各类区间 + 精确时段集合（key = 开始分钟 * 1440 + 结束分钟）
+     */
+    private static final class Day {
+        private final List<List<int[]>> intervals = new ArrayList<>(KIND_COUNT);
+        private final Set<Integer> exact = new HashSet<>();
+
+        Day() {
+            for (int i = 0; i < KIND_COUNT; i++) intervals.add(new ArrayList<>());
+        }
+
+        void add(int kind, LocalTime start, LocalTime end) {
+            if (start == null || end == null) return;
+            int s = minutes(start);
+            // 24:00 以 00:00 表示的结束时间按当日结束处理
+            int e = end.equals(LocalTime.MIDNIGHT) ? DAY_MINUTES : minutes(end);
+            if (e <= s) return;
+            intervals.get(kind).add(new int[]{s, e});
+        }
+
+        void addExact(LocalTime start, LocalTime end) {
+            if (start == null || end == null) return;
+            exact.add(minutes(start) * DAY_MINUTES + minutes(end));
+        }
+
+        /**
+         * 每类占用生成分钟覆盖前缀和：prefix[m] = [0, m) 内被占用的分钟数；无占用的类返回 null
+         */
+        int[][] coverage() {
+            int[][] res = new int[KIND_COUNT][];
+            for (int kind = 0; kind < KIND_COUNT; kind++) {
+                List<int[]> list = intervals.get(kind);
+                if (list.isEmpty()) continue;
+                int[] diff = new int[DAY_MINUTES + 1];
+                for (int[] iv : list) {
+                    diff[iv[0]]++;
+                    diff[iv[1]]--;
+                }
+                int[] prefix = new int[DAY_MINUTES + 1];
+                int active = 0;
+                for (int m = 0; m < DAY_MINUTES; m++) {
+                    active += diff[m];
+                    prefix[m + 1] = prefix[m] + (active > 0 ? 1 : 0);
+                }
+                res[kind] = prefix;
+            }
+            return res;
+        }
+    }
+}
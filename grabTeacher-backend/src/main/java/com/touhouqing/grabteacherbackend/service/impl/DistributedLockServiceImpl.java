@@ -1,28 +1,82 @@
 package com.touhouqing.grabteacherbackend.service.impl;
 
 import com.touhouqing.grabteacherbackend.service.DistributedLockService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 简单的基于 RedisTemplate 的分布式锁实现
  * - 加锁使用 SET NX PX
  * - 解锁使用 Lua 脚本，保证原子性（校验 token 一致再删除）
+ * - 多键锁：Lua 一次性检查并占用全部键（全有或全无，不存在部分持有，天然无死锁）
+ * - 等待：释放时发布通知，等待方按被阻塞的键挂起，超时上限取锁剩余 TTL，避免固定间隔轮询
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DistributedLockServiceImpl implements DistributedLockService {
 
+    private static final String RELEASE_CHANNEL = "grabTeacher:lock:released";
+
+    // 任一键被其他 token 持有则返回 {序号, 剩余毫秒}；否则全部占用并返回 {0, 0}
+    private static final DefaultRedisScript<List> ACQUIRE_ALL_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do " +
+            "  local v = redis.call('GET', KEYS[i]) " +
+            "  if v and v ~= ARGV[1] then return {i, redis.call('PTTL', KEYS[i])} end " +
+            "end " +
+            "for i = 1, #KEYS do redis.call('SET', KEYS[i], ARGV[1], 'PX', ARGV[2]) end " +
+            "return {0, 0}", List.class);
+
+    // 释放 token 匹配的键，并发布被释放的键列表
+    private static final DefaultRedisScript<Long> RELEASE_ALL_SCRIPT = new DefaultRedisScript<>(
+            "local released = {} " +
+            "for i = 1, #KEYS do " +
+            "  if redis.call('GET', KEYS[i]) == ARGV[1] then redis.call('DEL', KEYS[i]) released[#released + 1] = KEYS[i] end " +
+            "end " +
+            "if #released > 0 then redis.call('PUBLISH', ARGV[2], table.concat(released, ',')) end " +
+            "return #released", Long.class);
+
     private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // 本实例内等待某个锁键释放的请求
+    private final ConcurrentHashMap<String, Set<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribeReleaseChannel() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            for (String key : body.split(",")) {
+                Set<CompletableFuture<Void>> set = waiters.remove(key);
+                if (set != null) {
+                    set.forEach(f -> f.complete(null));
+                }
+            }
+        }, new ChannelTopic(RELEASE_CHANNEL));
+    }
 
     @Override
     public boolean tryLock(String key, String token, Duration ttl) {
@@ -37,26 +91,16 @@ public class DistributedLockServiceImpl implements DistributedLockService {
 
     @Override
     public boolean tryLock(String key, String token, Duration ttl, int retryTimes, Duration retryInterval) {
-        int attempts = 0;
-        while (attempts <= retryTimes) {
-            if (tryLock(key, token, ttl)) {
-                return true;
-            }
-            attempts++;
-            try {
-                Thread.sleep(Math.max(1L, retryInterval.toMillis()));
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                return false;
-            }
-        }
-        return false;
+        // 保留原有等待预算（次数 × 间隔），等待方式改为释放通知
+        Duration waitTimeout = retryInterval.multipliedBy(Math.max(0, retryTimes));
+        return tryLockAll(Collections.singletonList(key), token, ttl, waitTimeout);
     }
 
     @Override
     public boolean unlock(String key, String token) {
-        // Lua 脚本: 比较值后再删除
+        // Lua 脚本: 比较值后再删除，并发布释放通知
         String script = "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                        "redis.call('publish', ARGV[2], KEYS[1]) " +
                         "return redis.call('del', KEYS[1]) else return 0 end";
         try {
             Object res = redisTemplate.execute((RedisCallback<Object>) connection ->
@@ -65,7 +109,8 @@ public class DistributedLockServiceImpl implements DistributedLockService {
                     ReturnType.INTEGER,
                     1,
                     key.getBytes(StandardCharsets.UTF_8),
-                    token.getBytes(StandardCharsets.UTF_8)
+                    token.getBytes(StandardCharsets.UTF_8),
+                    RELEASE_CHANNEL.getBytes(StandardCharsets.UTF_8)
                 )
             );
             if (res instanceof Long) {
@@ -84,5 +129,70 @@ public class DistributedLockServiceImpl implements DistributedLockService {
             return false;
         }
     }
-}
 
+    @Override
+    public boolean tryLockAll(Collection<String> keys, String token, Duration ttl, Duration waitTimeout) {
+        if (keys == null || keys.isEmpty()) return true;
+        // 统一排序去重，保证不同请求以相同顺序描述同一组键
+        List<String> sorted = new ArrayList<>(new TreeSet<>(keys));
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        String ttlMillis = String.valueOf(Math.max(1L, ttl.toMillis()));
+        while (true) {
+            long[] blocked = acquireAll(sorted, token, ttlMillis);
+            if (blocked == null) return false;
+            if (blocked[0] == 0) return true;
+
+            String blockingKey = sorted.get((int) blocked[0] - 1);
+            CompletableFuture<Void> released = new CompletableFuture<>();
+            Set<CompletableFuture<Void>> set = waiters.computeIfAbsent(blockingKey, k -> ConcurrentHashMap.newKeySet());
+            set.add(released);
+            try {
+                // 登记后再尝试一次，避免登记前已释放导致错过通知
+                blocked = acquireAll(sorted, token, ttlMillis);
+                if (blocked == null) return false;
+                if (blocked[0] == 0) return true;
+                // 阻塞键已变化时直接按新的阻塞键重新登记
+                if (!sorted.get((int) blocked[0] - 1).equals(blockingKey)) continue;
+
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) return false;
+                // 持有者异常退出时不会发布通知，最多等到锁自然过期
+                long waitMillis = blocked[1] > 0 ? Math.min(remainingMillis, blocked[1]) : Math.min(remainingMillis, 10L);
+                released.get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignore) {
+                // 超时后重新尝试，由截止时间决定是否放弃
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException ignore) {
+            } finally {
+                set.remove(released);
+                waiters.computeIfPresent(blockingKey, (k, v) -> v.isEmpty() ? null : v);
+            }
+        }
+    }
+
+    @Override
+    public void unlockAll(Collection<String> keys, String token) {
+        if (keys == null || keys.isEmpty()) return;
+        try {
+            redisTemplate.execute(RELEASE_ALL_SCRIPT, new ArrayList<>(new TreeSet<>(keys)), token, RELEASE_CHANNEL);
+        } catch (Exception e) {
+            log.error("释放分布式锁失败 keys={}", keys, e);
+        }
+    }
+
+    /**
+     * 执行多键加锁脚本，返回 {0,0} 表示成功，{序号,剩余毫秒} 表示被阻塞，null 表示 Redis 异常
+     */
+    private long[] acquireAll(List<String> keys, String token, String ttlMillis) {
+        try {
+            List<?> res = redisTemplate.execute(ACQUIRE_ALL_SCRIPT, keys, token, ttlMillis);
+            if (res == null || res.size() < 2) return null;
+            return new long[]{((Number) res.get(0)).longValue(), ((Number) res.get(1)).longValue()};
+        } catch (Exception e) {
+            log.error("获取分布式锁失败 keys={}", keys, e);
+            return null;
+        }
+    }
+}
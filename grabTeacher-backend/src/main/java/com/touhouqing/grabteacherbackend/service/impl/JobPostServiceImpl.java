@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.touhouqing.grabteacherbackend.mapper.JobPostMapper;
 import com.touhouqing.grabteacherbackend.mapper.JobPostSubjectMapper;
 import com.touhouqing.grabteacherbackend.cache.JobPostCacheManager;
+import com.touhouqing.grabteacherbackend.cache.CachedJson;
 import com.touhouqing.grabteacherbackend.cache.JobPostDetailLocalCache;
 import com.touhouqing.grabteacherbackend.mapper.SubjectMapper;
 import com.touhouqing.grabteacherbackend.model.dto.JobPostDTO;
@@ -239,14 +240,12 @@ public class JobPostServiceImpl implements JobPostService {
 
 
     @Override
-    public String getDetailJson(Long id) {
-        String cached = detailLocalCache.get(id);
+    public CachedJson getDetailJson(Long id) {
+        CachedJson cached = detailLocalCache.get(id);
         if (cached != null) return cached;
         JobPostVO vo = getById(id);
         if (vo == null) return null;
-        String json = toJson(vo);
-        detailLocalCache.put(id, json);
-        return json;
+        return detailLocalCache.put(id, toJson(vo));
     }
 
     @Override
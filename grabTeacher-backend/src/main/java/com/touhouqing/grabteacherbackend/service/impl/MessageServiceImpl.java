@@ -8,14 +8,20 @@ import com.touhouqing.grabteacherbackend.model.dto.MessageCreateDTO;
 import com.touhouqing.grabteacherbackend.model.dto.MessageQueryDTO;
 import com.touhouqing.grabteacherbackend.model.dto.MessageUpdateDTO;
 import com.touhouqing.grabteacherbackend.model.entity.Message;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
 import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
+import com.touhouqing.grabteacherbackend.service.FeedCounterService;
 import com.touhouqing.grabteacherbackend.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -26,10 +32,25 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
     
+    private static final List<Message.TargetType> STUDENT_TARGETS = Arrays.asList(
+        Message.TargetType.STUDENT,
+        Message.TargetType.ALL
+    );
+    
+    // 游标分页单页上限，防止一次拉取过多
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
+    private static final List<Message.TargetType> TEACHER_TARGETS = Arrays.asList(
+        Message.TargetType.TEACHER,
+        Message.TargetType.ALL
+    );
+    
     private final MessageMapper messageMapper;
+    private final FeedCounterService feedCounterService;
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = "messageFeed", allEntries = true)
     public Long createMessage(MessageCreateDTO createDTO, Long adminId, String adminName) {
         Message message = new Message();
         BeanUtils.copyProperties(createDTO, message);
@@ -38,40 +59,52 @@ public class MessageServiceImpl implements MessageService {
         message.setIsActive(true);
         message.setCreatedAt(LocalDateTime.now());
         message.setUpdatedAt(LocalDateTime.now());
-        
+    
         int result = messageMapper.insert(message);
         if (result <= 0) {
             throw new BusinessException("创建消息失败");
         }
-        
+        feedCounterService.onMessageChanged(null, activeType(message));
+    
         return message.getId();
     }
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = "messageFeed", allEntries = true)
     public Boolean updateMessage(MessageUpdateDTO updateDTO) {
         Message existingMessage = messageMapper.selectById(updateDTO.getId());
         if (existingMessage == null) {
             throw new BusinessException("消息不存在");
         }
-        
+    
         Message message = new Message();
         BeanUtils.copyProperties(updateDTO, message);
         message.setUpdatedAt(LocalDateTime.now());
-        
+    
         int result = messageMapper.updateById(message);
+        if (result > 0) {
+            // 未传的字段不更新，按原值计算变更后的状态
+            Message.TargetType newType = message.getTargetType() != null ? message.getTargetType() : existingMessage.getTargetType();
+            Boolean newActive = message.getIsActive() != null ? message.getIsActive() : existingMessage.getIsActive();
+            feedCounterService.onMessageChanged(activeType(existingMessage), Boolean.TRUE.equals(newActive) ? newType : null);
+        }
         return result > 0;
     }
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = "messageFeed", allEntries = true)
     public Boolean deleteMessage(Long id) {
         Message existingMessage = messageMapper.selectById(id);
         if (existingMessage == null) {
             throw new BusinessException("消息不存在");
         }
-        
+    
         int result = messageMapper.deleteById(id);
+        if (result > 0) {
+            feedCounterService.onMessageChanged(activeType(existingMessage), null);
+        }
         return result > 0;
     }
     
@@ -91,57 +124,99 @@ public class MessageServiceImpl implements MessageService {
     }
     
     @Override
+    @Cacheable(cacheNames = "messageFeed", key = "'student_' + #pageSize", condition = "#pageNum == 1")
     public IPage<MessageVO> getStudentMessages(Integer pageNum, Integer pageSize) {
-        List<Message.TargetType> targetTypes = Arrays.asList(
-            Message.TargetType.STUDENT, 
-            Message.TargetType.ALL
-        );
-        
-        // 计算偏移量
-        int offset = (pageNum - 1) * pageSize;
-        
-        List<MessageVO> messages = messageMapper.selectActiveMessagesByTargetTypes(targetTypes, offset, pageSize);
-        Long total = messageMapper.countActiveMessagesByTargetTypes(targetTypes);
-        
-        Page<MessageVO> page = new Page<>(pageNum, pageSize, total);
-        page.setRecords(messages);
-        
-        return page;
+        return pageMessages(STUDENT_TARGETS, pageNum, pageSize);
     }
     
     @Override
+    @Cacheable(cacheNames = "messageFeed", key = "'teacher_' + #pageSize", condition = "#pageNum == 1")
     public IPage<MessageVO> getTeacherMessages(Integer pageNum, Integer pageSize) {
-        List<Message.TargetType> targetTypes = Arrays.asList(
-            Message.TargetType.TEACHER, 
-            Message.TargetType.ALL
-        );
-        
-        // 计算偏移量
-        int offset = (pageNum - 1) * pageSize;
-        
-        List<MessageVO> messages = messageMapper.selectActiveMessagesByTargetTypes(targetTypes, offset, pageSize);
-        Long total = messageMapper.countActiveMessagesByTargetTypes(targetTypes);
-        
-        Page<MessageVO> page = new Page<>(pageNum, pageSize, total);
-        page.setRecords(messages);
-        
-        return page;
+        return pageMessages(TEACHER_TARGETS, pageNum, pageSize);
+    }
+    
+    @Override
+    @Cacheable(cacheNames = "messageFeed", key = "'student_cursor_' + #pageSize", condition = "#cursor == null || #cursor.isEmpty()")
+    public CursorPageVO<MessageVO> getStudentMessagesAfter(String cursor, Integer pageSize) {
+        return messagesAfter(STUDENT_TARGETS, cursor, pageSize);
+    }
+    
+    @Override
+    @Cacheable(cacheNames = "messageFeed", key = "'teacher_cursor_' + #pageSize", condition = "#cursor == null || #cursor.isEmpty()")
+    public CursorPageVO<MessageVO> getTeacherMessagesAfter(String cursor, Integer pageSize) {
+        return messagesAfter(TEACHER_TARGETS, cursor, pageSize);
     }
     
     @Override
     @Transactional
+    @CacheEvict(cacheNames = "messageFeed", allEntries = true)
     public Boolean toggleMessageStatus(Long id) {
         Message existingMessage = messageMapper.selectById(id);
         if (existingMessage == null) {
             throw new BusinessException("消息不存在");
         }
-        
+    
         Message message = new Message();
         message.setId(id);
         message.setIsActive(!existingMessage.getIsActive());
         message.setUpdatedAt(LocalDateTime.now());
-        
+    
         int result = messageMapper.updateById(message);
+        if (result > 0) {
+            feedCounterService.onMessageChanged(activeType(existingMessage),
+                    Boolean.TRUE.equals(message.getIsActive()) ? existingMessage.getTargetType() : null);
+        }
         return result > 0;
     }
+    
+    /**
+     * 页码分页：总数取自计数器，不再每页执行 COUNT
+     */
+    private IPage<MessageVO> pageMessages(List<Message.TargetType> targetTypes, Integer pageNum, Integer pageSize) {
+        // 计算偏移量
+        int offset = (pageNum - 1) * pageSize;
+    
+        List<MessageVO> messages = messageMapper.selectActiveMessagesByTargetTypes(targetTypes, offset, pageSize);
+        long total = feedCounterService.countActiveMessages(targetTypes);
+    
+        Page<MessageVO> page = new Page<>(pageNum, pageSize, total);
+        page.setRecords(messages);
+    
+        return page;
+    }
+    
+    /**
+     * 游标分页：按 (created_at, id) 倒序，从游标之后取 pageSize 条，深翻页代价与页码无关
+     * 游标格式：createdAt_id（取本页最后一条），不足一页时不再返回游标
+     */
+    private CursorPageVO<MessageVO> messagesAfter(List<Message.TargetType> targetTypes, String cursor, Integer pageSize) {
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        if (StringUtils.hasText(cursor)) {
+            int sep = cursor.lastIndexOf('_');
+            if (sep <= 0) {
+                throw new BusinessException("无效的分页游标");
+            }
+            try {
+                cursorCreatedAt = LocalDateTime.parse(cursor.substring(0, sep));
+                cursorId = Long.valueOf(cursor.substring(sep + 1));
+            } catch (Exception e) {
+                throw new BusinessException("无效的分页游标");
+            }
+        }
+        int size = Math.min(MAX_CURSOR_PAGE_SIZE, Math.max(1, pageSize == null ? 10 : pageSize));
+        List<MessageVO> records = new ArrayList<>(messageMapper.selectActiveMessagesAfter(targetTypes, cursorCreatedAt, cursorId, size));
+        String nextCursor = null;
+        if (records.size() >= size) {
+            MessageVO last = records.get(records.size() - 1);
+            if (last.getCreatedAt() != null && last.getId() != null) {
+                nextCursor = last.getCreatedAt() + "_" + last.getId();
+            }
+        }
+        return new CursorPageVO<>(records, size, nextCursor);
+    }
+    
+    private static Message.TargetType activeType(Message message) {
+        return Boolean.TRUE.equals(message.getIsActive()) ? message.getTargetType() : null;
+    }
 }
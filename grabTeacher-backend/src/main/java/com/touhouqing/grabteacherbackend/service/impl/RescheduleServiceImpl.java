@@ -3,16 +3,17 @@ package com.touhouqing.grabteacherbackend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.event.TeacherScheduleChangedEvent;
 import com.touhouqing.grabteacherbackend.model.dto.RescheduleApprovalDTO;
 import com.touhouqing.grabteacherbackend.model.dto.RescheduleApplyDTO;
 import com.touhouqing.grabteacherbackend.model.entity.*;
 import com.touhouqing.grabteacherbackend.model.vo.RescheduleVO;
 import com.touhouqing.grabteacherbackend.mapper.*;
 import com.touhouqing.grabteacherbackend.service.RescheduleService;
-import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
-import com.touhouqing.grabteacherbackend.service.TeacherScheduleCacheService;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService;
 import com.touhouqing.grabteacherbackend.service.QuotaService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -64,13 +65,15 @@ public  class RescheduleServiceImpl implements RescheduleService {
     // 删除未使用的 teacherCacheWarmupService 以消除告警
 
     @Autowired
-    private CacheKeyEvictor cacheKeyEvictor;
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private TeacherOccupancyService teacherOccupancyService;
+    @Autowired
+    private com.touhouqing.grabteacherbackend.service.CalendarService calendarService;
     @Autowired
     private QuotaService quotaService;
 
 
-    @Autowired
-    private TeacherScheduleCacheService teacherScheduleCacheService;
 
     @Autowired
     private BalanceTransactionMapper balanceTransactionMapper;
@@ -418,20 +421,10 @@ public  class RescheduleServiceImpl implements RescheduleService {
                 } else if ("cancel".equals(rescheduleRequest.getRequestType())) {
                     if (schedule.getScheduledDate() != null) affectedDates.add(schedule.getScheduledDate());
                 }
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, affectedDates);
-                cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, affectedDates);
-
-                if (!affectedDates.isEmpty()) {
-                    for (LocalDate d : affectedDates) {
-                        List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, d, d);
-                        List<String> slots = new ArrayList<>();
-                        for (CourseSchedule s : dayAll) {
-                            slots.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
-                        }
-                        teacherScheduleCacheService.putBusySlots(teacherId, d,
-                            slots.isEmpty() ? Collections.emptyList() : slots);
-                    }
-                }
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, teacherId, affectedDates));
+                calendarService.refreshTeacherCalendarDays(teacherId, affectedDates);
+                teacherOccupancyService.invalidate(teacherId, affectedDates);
             } catch (Exception e) {
                 log.warn("精准清理/回填教师缓存失败，但不影响主流程", e);
             }
@@ -577,20 +570,10 @@ public  class RescheduleServiceImpl implements RescheduleService {
                 } else if ("cancel".equals(rescheduleRequest.getRequestType())) {
                     if (schedule.getScheduledDate() != null) affectedDates.add(schedule.getScheduledDate());
                 }
-                cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, affectedDates);
-                cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, affectedDates);
-
-                if (!affectedDates.isEmpty()) {
-                    for (LocalDate d : affectedDates) {
-                        List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, d, d);
-                        List<String> slots = new ArrayList<>();
-                        for (CourseSchedule s : dayAll) {
-                            slots.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
-                        }
-                        teacherScheduleCacheService.putBusySlots(teacherId, d,
-                            slots.isEmpty() ? Collections.emptyList() : slots);
-                    }
-                }
+                // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, teacherId, affectedDates));
+                calendarService.refreshTeacherCalendarDays(teacherId, affectedDates);
+                teacherOccupancyService.invalidate(teacherId, affectedDates);
             } catch (Exception e) {
                 log.warn("精准清理/回填教师缓存失败，但不影响主流程", e);
             }
@@ -0,0 +1,107 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量排课冲突索引：按日期范围一次性加载教师、学生占用与待处理试听，
+ * 在内存中复现 hasTeacherTimeConflictInDb + hasStudentTimeConflict 的判定，并计入本次已生成的课节
+ */
+final class ScheduleConflictIndex {
+
+    private final CourseScheduleMapper courseScheduleMapper;
+    private final BookingRequestMapper bookingRequestMapper;
+    private final Long teacherId;
+    private final Long studentId;
+    private LocalDate loadedFrom;
+    private LocalDate loadedTo;
+    private final Map<LocalDate, List<LocalTime[]>> teacherBusy = new HashMap<>();
+    private final Map<LocalDate, List<LocalTime[]>> teacherTrials = new HashMap<>();
+    private final Map<LocalDate, List<LocalTime[]>> studentBusy = new HashMap<>();
+
+    ScheduleConflictIndex(CourseScheduleMapper courseScheduleMapper, BookingRequestMapper bookingRequestMapper,
+                          Long teacherId, Long studentId) {
+        this.courseScheduleMapper = courseScheduleMapper;
+        this.bookingRequestMapper = bookingRequestMapper;
+        this.teacherId = teacherId;
+        this.studentId = studentId;
+    }
+
+    /**
+     * 确保 [from, to] 已加载，只补查尚未覆盖的部分
+     */
+    void ensureLoaded(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) return;
+        if (loadedFrom == null) {
+            load(from, to);
+            loadedFrom = from;
+            loadedTo = to;
+            return;
+        }
+        if (from.isBefore(loadedFrom)) {
+            load(from, loadedFrom.minusDays(1));
+            loadedFrom = from;
+        }
+        if (to.isAfter(loadedTo)) {
+            load(loadedTo.plusDays(1), to);
+            loadedTo = to;
+        }
+    }
+
+    private void load(LocalDate from, LocalDate to) {
+        for (CourseSchedule cs : courseScheduleMapper.findOccupancyByTeacherAndDateRange(teacherId, from, to)) {
+            add(teacherBusy, cs.getScheduledDate(), cs.getStartTime(), cs.getEndTime());
+            if (Boolean.TRUE.equals(cs.getTrial())) {
+                add(teacherTrials, cs.getScheduledDate(), cs.getStartTime(), cs.getEndTime());
+            }
+        }
+        for (BookingRequest br : bookingRequestMapper.findPendingTrialsByTeacherAndDateRange(teacherId, from, to)) {
+            add(teacherTrials, br.getRequestedDate(), br.getRequestedStartTime(), br.getRequestedEndTime());
+        }
+        if (studentId != null) {
+            for (CourseSchedule cs : courseScheduleMapper.findOccupancyByStudentAndDateRange(studentId, from, to)) {
+                add(studentBusy, cs.getScheduledDate(), cs.getStartTime(), cs.getEndTime());
+            }
+        }
+    }
+
+    boolean conflicts(LocalDate date, LocalTime start, LocalTime end) {
+        if (overlapsAny(teacherBusy.get(date), start, end)) return true;
+        // 2小时或1.5小时课程：已排程试听与待处理试听都将占用基础2小时段
+        long minutes = Duration.between(start, end).toMinutes();
+        if (minutes == 120 || minutes == 90) {
+            LocalTime[] base = TeacherOccupancyService.findBaseSlot(start, end);
+            if (base != null && overlapsAny(teacherTrials.get(date), base[0], base[1])) return true;
+        }
+        return overlapsAny(studentBusy.get(date), start, end);
+    }
+
+    void accept(LocalDate date, LocalTime start, LocalTime end) {
+        add(teacherBusy, date, start, end);
+        add(studentBusy, date, start, end);
+    }
+
+    private static void add(Map<LocalDate, List<LocalTime[]>> map, LocalDate date, LocalTime start, LocalTime end) {
+        if (date == null || start == null || end == null) return;
+        map.computeIfAbsent(date, k -> new ArrayList<>()).add(new LocalTime[]{start, end});
+    }
+
+    private static boolean overlapsAny(List<LocalTime[]> ranges, LocalTime start, LocalTime end) {
+        if (ranges == null) return false;
+        for (LocalTime[] r : ranges) {
+            if (r[0].isBefore(end) && r[1].isAfter(start)) return true;
+        }
+        return false;
+    }
+}
@@ -9,6 +9,7 @@ import com.touhouqing.grabteacherbackend.mapper.StudentSubjectMapper;
 import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
 import com.touhouqing.grabteacherbackend.mapper.UserMapper;
 import com.touhouqing.grabteacherbackend.mapper.RescheduleRequestMapper;
+import com.touhouqing.grabteacherbackend.service.BalanceLedgerService;
 import com.touhouqing.grabteacherbackend.service.StudentService;
 import com.touhouqing.grabteacherbackend.mapper.BalanceTransactionMapper;
 import java.util.Map;
@@ -40,6 +41,7 @@ public class StudentServiceImpl implements StudentService {
     private final RescheduleRequestMapper rescheduleRequestMapper;
     private final UserMapper userMapper;
     private final BalanceTransactionMapper balanceTransactionMapper;
+    private final BalanceLedgerService balanceLedgerService;
 
     private final AliyunOssUtil ossUtil;
 
@@ -159,7 +161,12 @@ public class StudentServiceImpl implements StudentService {
             student.setGender(request.getGender());
         }
 
+        // 余额只经账本原子变更，整行回写时跳过余额列，避免覆盖并发扣费/退费
+        BigDecimal balanceSnapshot = student.getBalance();
+        student.setBalance(null);
         studentMapper.updateById(student);
+        student.setBalance(balanceSnapshot);
+        balanceLedgerService.evictStudent(userId);
 
         // 更新学生感兴趣的科目关联
         if (request.getSubjectIds() != null) {
@@ -195,10 +202,8 @@ public class StudentServiceImpl implements StudentService {
 
         // 1. 总预约课次（课次=某节课）- 统计该学生的所有排课次数（来自 course_schedules）
         QueryWrapper<CourseSchedule> totalScheduleWrapper = new QueryWrapper<>();
-        totalScheduleWrapper.apply(
-                "exists (select 1 from course_enrollments ce where ce.id = course_schedules.enrollment_id and ce.student_id = {0} and ce.is_deleted = 0 and (ce.is_trial = 0 or ce.is_trial is null))",
-                student.getId()
-        );
+        totalScheduleWrapper.eq("student_id", student.getId());
+        totalScheduleWrapper.eq("is_trial", 0);
         totalScheduleWrapper.eq("is_deleted", 0);
         Long totalBookings = courseScheduleMapper.selectCount(totalScheduleWrapper);
 
@@ -225,10 +230,7 @@ public class StudentServiceImpl implements StudentService {
         
         // 统计取消的课程次数（通过course_schedules表查询cancelled状态）
         QueryWrapper<CourseSchedule> cancelledWrapper = new QueryWrapper<>();
-        cancelledWrapper.apply(
-                "exists (select 1 from course_enrollments ce where ce.id = course_schedules.enrollment_id and ce.student_id = {0} and ce.is_deleted = 0)",
-                student.getId()
-        );
+        cancelledWrapper.eq("student_id", student.getId());
         cancelledWrapper.eq("schedule_status", "cancelled");
         cancelledWrapper.ge("created_at", startOfMonth.atStartOfDay());
         cancelledWrapper.le("created_at", endOfMonth.atTime(23, 59, 59));
@@ -237,13 +239,10 @@ public class StudentServiceImpl implements StudentService {
         
         Long monthlyAdjustments = (rescheduleCount != null ? rescheduleCount : 0L) + (cancelledCount != null ? cancelledCount : 0L);
 
-        // 4. 完成课程数 - 查询course_schedules + join enrollments（使用 Mapper 进行统计）
+        // 4. 完成课程数 - 查询course_schedules（使用 Mapper 进行统计）
         QueryWrapper<CourseSchedule> completedQw =
                 new QueryWrapper<>();
-        completedQw.apply(
-                "exists (select 1 from course_enrollments ce where ce.id = course_schedules.enrollment_id and ce.student_id = {0} and ce.is_deleted = 0)",
-                student.getId()
-        );
+        completedQw.eq("student_id", student.getId());
         completedQw.eq("schedule_status", "completed");
         completedQw.eq("is_deleted", 0);
         Long completedCourses = courseScheduleMapper.selectCount(completedQw);
@@ -312,7 +311,8 @@ public class StudentServiceImpl implements StudentService {
         }
 
         // 管理员可以更新余额
-        if (request.getBalance() != null && !request.getBalance().equals(oldBalance)) {
+        boolean balanceChanged = request.getBalance() != null && !request.getBalance().equals(oldBalance);
+        if (balanceChanged) {
             student.setBalance(request.getBalance());
             
             // 记录余额变动
@@ -331,7 +331,15 @@ public class StudentServiceImpl implements StudentService {
             balanceTransactionMapper.insert(transaction);
         }
 
+        // 余额未调整时跳过余额列，避免整行回写覆盖并发扣费/退费
+        if (!balanceChanged) {
+            student.setBalance(null);
+        }
         studentMapper.updateById(student);
+        if (!balanceChanged) {
+            student.setBalance(oldBalance);
+        }
+        balanceLedgerService.evictStudent(userId);
 
         // 更新学生感兴趣的科目关联
         if (request.getSubjectIds() != null) {
@@ -363,48 +371,14 @@ public class StudentServiceImpl implements StudentService {
     @Transactional
     public boolean updateStudentBalance(Long userId, BigDecimal amount, String reason, Long bookingId, Long operatorId) {
         try {
-            Student student = getStudentByUserId(userId);
-            if (student == null) {
-                log.error("学生信息不存在，userId: {}", userId);
+            // 条件 UPDATE 原子变更余额（不足时不变更），流水随事务提交批量写入
+            BigDecimal newBalance = balanceLedgerService.applyChange(userId, amount, reason, bookingId, operatorId);
+            if (newBalance == null) {
                 return false;
             }
 
-            BigDecimal oldBalance = student.getBalance();
-            BigDecimal newBalance = oldBalance.add(amount);
-
-            // 检查余额不能为负数
-            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                log.error("余额不足，用户ID: {}, 当前余额: {}, 扣除金额: {}", userId, oldBalance, amount.abs());
-                return false;
-            }
-
-            student.setBalance(newBalance);
-            studentMapper.updateById(student);
-
-            // 记录余额变动
-            String transactionType;
-            if (amount.compareTo(BigDecimal.ZERO) > 0) {
-                transactionType = "REFUND";
-            } else {
-                transactionType = "DEDUCT";
-            }
-
-            BalanceTransaction transaction = BalanceTransaction.builder()
-                    .userId(userId)
-                    .name(student.getRealName())
-                    .amount(amount)
-                    .balanceBefore(oldBalance)
-                    .balanceAfter(newBalance)
-                    .transactionType(transactionType)
-                    .reason(reason)
-                    .bookingId(bookingId)
-                    .operatorId(operatorId)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            balanceTransactionMapper.insert(transaction);
-
             log.info("学生余额更新成功，用户ID: {}, 变动金额: {}, 余额: {} -> {}, 预约ID: {}, 操作员ID: {}", 
-                    userId, amount, oldBalance, newBalance, bookingId, operatorId);
+                    userId, amount, newBalance.subtract(amount), newBalance, bookingId, operatorId);
             return true;
 
         } catch (Exception e) {
@@ -420,13 +394,13 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public boolean checkBalance(Long userId, BigDecimal amount) {
         try {
-            Student student = getStudentByUserId(userId);
-            if (student == null) {
+            BigDecimal balance = balanceLedgerService.getBalance(userId);
+            if (balance == null) {
                 log.error("学生信息不存在，userId: {}", userId);
                 return false;
             }
 
-            return student.getBalance().compareTo(amount) >= 0;
+            return balance.compareTo(amount) >= 0;
         } catch (Exception e) {
             log.error("检查学生余额失败，用户ID: {}, 需要金额: {}", userId, amount, e);
             return false;
@@ -6,7 +6,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.touhouqing.grabteacherbackend.mapper.*;
 import com.touhouqing.grabteacherbackend.model.dto.SubjectDTO;
 import com.touhouqing.grabteacherbackend.model.entity.*;
+import com.touhouqing.grabteacherbackend.service.CourseCacheInvalidator;
 import com.touhouqing.grabteacherbackend.service.SubjectService;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -37,6 +39,8 @@ public class SubjectServiceImpl implements SubjectService {
 
     // 旧表已迁移，移除未使用的 ScheduleMapper
     private final JobPostSubjectMapper jobPostSubjectMapper;
+    private final TeacherOccupancyService teacherOccupancyService;
+    private final CourseCacheInvalidator courseCacheInvalidator;
 
     /**
      * 创建科目
@@ -98,6 +102,8 @@ public class SubjectServiceImpl implements SubjectService {
         subject.setActive(request.getActive() != null ? request.getActive() : true);
 
         subjectMapper.updateById(subject);
+        // 课程缓存中展示了科目名称，只删除引用该科目的条目
+        courseCacheInvalidator.evictSubject(id);
         log.info("更新科目成功: {}", subject.getName());
         try { eventPublisher.publishEvent(new SubjectChangedEvent(this, SubjectChangedEvent.ChangeType.UPDATE)); } catch (Exception ignore) {}
         return subject;
@@ -165,6 +171,11 @@ public class SubjectServiceImpl implements SubjectService {
             }
         }
 
+        // 课程安排与预约被批量软删除，占用位图整体失效
+        if (!courses.isEmpty()) {
+            teacherOccupancyService.invalidateAll();
+        }
+
         // 3. 删除学生科目关联
         studentSubjectMapper.deleteBySubjectId(id);
         log.info("删除科目 {} 的学生关联", subject.getName());
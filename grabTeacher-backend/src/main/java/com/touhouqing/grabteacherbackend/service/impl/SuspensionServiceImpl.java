@@ -3,6 +3,7 @@ package com.touhouqing.grabteacherbackend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.event.TeacherScheduleChangedEvent;
 import com.touhouqing.grabteacherbackend.mapper.*;
 import com.touhouqing.grabteacherbackend.model.dto.SuspensionApprovalDTO;
 import com.touhouqing.grabteacherbackend.model.dto.SuspensionApplyDTO;
@@ -11,6 +12,7 @@ import com.touhouqing.grabteacherbackend.model.vo.SuspensionVO;
 import com.touhouqing.grabteacherbackend.service.SuspensionService;
 import com.touhouqing.grabteacherbackend.service.QuotaService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -50,11 +52,15 @@ public class SuspensionServiceImpl implements SuspensionService {
     @Autowired
     private com.touhouqing.grabteacherbackend.service.StudentService studentService;
 
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
-    private com.touhouqing.grabteacherbackend.service.TeacherScheduleCacheService teacherScheduleCacheService;
+    private com.touhouqing.grabteacherbackend.service.TeacherOccupancyService teacherOccupancyService;
 
     @Autowired
-    private com.touhouqing.grabteacherbackend.service.CacheKeyEvictor cacheKeyEvictor;
+    private com.touhouqing.grabteacherbackend.service.CalendarService calendarService;
 
     @Override
     @Transactional
@@ -468,20 +474,10 @@ public class SuspensionServiceImpl implements SuspensionService {
             try {
                 Long teacherId = enrollment.getTeacherId();
                 if (teacherId != null) {
-                    cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, affectedDates);
-                    cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, affectedDates);
-                    if (affectedDates != null && !affectedDates.isEmpty()) {
-                        for (LocalDate d : affectedDates) {
-                            java.util.List<CourseSchedule> dayAll = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, d, d);
-                            java.util.List<String> slots = new java.util.ArrayList<>();
-                            for (CourseSchedule s : dayAll) {
-                                String slot = s.getStartTime().toString() + "-" + s.getEndTime().toString();
-                                slots.add(slot);
-                            }
-                            teacherScheduleCacheService.putBusySlots(teacherId, d,
-                                    slots.isEmpty() ? java.util.Collections.emptyList() : slots);
-                        }
-                    }
+                    // 提交后异步合并刷新 teacherSchedule/availability 与 busy 日缓存
+                    eventPublisher.publishEvent(new TeacherScheduleChangedEvent(this, teacherId, affectedDates));
+                    calendarService.refreshTeacherCalendarDays(teacherId, affectedDates);
+                    teacherOccupancyService.invalidate(teacherId, affectedDates);
                 }
             } catch (Exception e) {
                 log.warn("请假审批后清理/回填教师缓存失败，但不影响主流程", e);
@@ -7,6 +7,7 @@ import com.touhouqing.grabteacherbackend.mapper.TeacherDailyAvailabilityMapper;
 import com.touhouqing.grabteacherbackend.model.dto.DailyTimeSlotDTO;
 import com.touhouqing.grabteacherbackend.model.entity.TeacherDailyAvailability;
 import com.touhouqing.grabteacherbackend.service.CacheKeyEvictor;
+import com.touhouqing.grabteacherbackend.service.CalendarService;
 import com.touhouqing.grabteacherbackend.service.TeacherDailyAvailabilityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ public class TeacherDailyAvailabilityServiceImpl implements TeacherDailyAvailabi
 
     private final TeacherDailyAvailabilityMapper dailyMapper;
     private final CacheKeyEvictor cacheKeyEvictor;
+    private final CalendarService calendarService;
     private static final ObjectMapper OM = new ObjectMapper();
 
     private static final Set<String> BASE_SLOTS = new LinkedHashSet<>(Arrays.asList(
@@ -133,7 +135,7 @@ public class TeacherDailyAvailabilityServiceImpl implements TeacherDailyAvailabi
         try {
             Set<LocalDate> affected = items.stream().map(DailyTimeSlotDTO::getDate).collect(Collectors.toSet());
             cacheKeyEvictor.evictTeacherScheduleAndAvailability(teacherId, affected);
-            cacheKeyEvictor.evictTeacherMonthlyCalendar(teacherId, affected);
+            calendarService.refreshTeacherCalendarDays(teacherId, affected);
         } catch (Exception e) {
             log.warn("设置可上课时间后清理缓存失败，但不影响主流程 teacherId={}", teacherId, e);
         }
@@ -164,5 +166,29 @@ public class TeacherDailyAvailabilityServiceImpl implements TeacherDailyAvailabi
         }
         return map;
     }
-}
 
+    @Override
+    public Map<Long, Map<LocalDate, List<String>>> getDailyAvailabilityBatch(Collection<Long> teacherIds, LocalDate start, LocalDate end) {
+        if (teacherIds == null || teacherIds.isEmpty()) return Collections.emptyMap();
+        if (start == null || end == null || end.isBefore(start)) throw new RuntimeException("日期范围不合法");
+
+        QueryWrapper<TeacherDailyAvailability> qw = new QueryWrapper<>();
+        qw.in("teacher_id", teacherIds)
+          .eq("is_deleted", false)
+          .between("available_date", start, end)
+          .orderByAsc("available_date");
+        List<TeacherDailyAvailability> list = dailyMapper.selectList(qw);
+
+        Map<Long, Map<LocalDate, List<String>>> result = new HashMap<>();
+        for (TeacherDailyAvailability rec : list) {
+            List<String> slots;
+            try {
+                slots = OM.readValue(rec.getTimeSlotsJson(), new TypeReference<List<String>>(){});
+            } catch (Exception e) {
+                slots = Collections.emptyList();
+            }
+            result.computeIfAbsent(rec.getTeacherId(), k -> new LinkedHashMap<>()).put(rec.getAvailableDate(), slots);
+        }
+        return result;
+    }
+}
@@ -10,6 +10,7 @@ import com.touhouqing.grabteacherbackend.model.dto.TeacherMatchDTO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherMatchVO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherProfileVO;
 import com.touhouqing.grabteacherbackend.model.vo.TeacherScheduleVO;
+import com.touhouqing.grabteacherbackend.model.vo.TeacherSearchVO;
 import com.touhouqing.grabteacherbackend.model.vo.ClassRecordVO;
 
 import com.touhouqing.grabteacherbackend.model.dto.TimeSlotDTO;
@@ -32,6 +33,7 @@ import com.touhouqing.grabteacherbackend.service.TeacherScheduleCacheService;
 import com.touhouqing.grabteacherbackend.util.AliyunOssUtil;
 
 import com.touhouqing.grabteacherbackend.service.TeacherDailyAvailabilityService;
+import com.touhouqing.grabteacherbackend.util.FullTextQueryUtil;
 import com.touhouqing.grabteacherbackend.util.TimeSlotUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,6 +48,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -55,6 +58,9 @@ import java.util.stream.Collectors;
 @CacheConfig(cacheNames = "teachers")
 public class TeacherServiceImpl implements TeacherService {
 
+    // 智能匹配单次最多返回的教师数
+    private static final int MAX_MATCH_LIMIT = 50;
+
     private final TeacherMapper teacherMapper;
     private final TeacherSubjectMapper teacherSubjectMapper;
     private final SubjectService subjectService;
@@ -74,6 +80,7 @@ public class TeacherServiceImpl implements TeacherService {
     private final TeacherDailyAvailabilityService teacherDailyAvailabilityService;
 
     private final com.touhouqing.grabteacherbackend.service.CacheKeyEvictor cacheKeyEvictor;
+    private final com.touhouqing.grabteacherbackend.service.DashboardCounterService dashboardCounterService;
 
     /**
      * 根据用户ID获取教师信息
@@ -231,32 +238,10 @@ public class TeacherServiceImpl implements TeacherService {
      */
     @Override
     public List<Teacher> getTeacherList(int page, int size, String subject, String keyword) {
-        // 如果有科目筛选，需要通过关联表查询
-        if (StringUtils.hasText(subject)) {
-            return getTeacherListBySubject(page, size, subject, keyword);
-        }
-
-        // 没有科目筛选时的简单查询
-        Page<Teacher> pageParam = new Page<>(page, size);
-        QueryWrapper<Teacher> queryWrapper = new QueryWrapper<>();
-
-        queryWrapper.eq("is_deleted", false);
-        queryWrapper.eq("is_verified", true); // 数据列不变，仅实体字段改名
-
-        if (StringUtils.hasText(keyword)) {
-            queryWrapper.and(wrapper -> wrapper
-                    .like("real_name", keyword)
-                    .or()
-                    .like("specialties", keyword)
-                    .or()
-                    .like("introduction", keyword)
-            );
-        }
-
-        queryWrapper.orderByDesc("id");
-
-        Page<Teacher> result = teacherMapper.selectPage(pageParam, queryWrapper);
-        return result.getRecords();
+        // 科目走 EXISTS、关键字走 FULLTEXT（单字回退 LIKE），有关键字时按相关度排序
+        int offset = Math.max(0, (page - 1) * size);
+        return teacherMapper.searchTeachers(trimToNull(subject), trimToNull(keyword),
+                FullTextQueryUtil.toBooleanQuery(keyword), offset, size);
     }
 
     /**
@@ -264,27 +249,44 @@ public class TeacherServiceImpl implements TeacherService {
      */
     @Override
     public long countTeachers(String subject, String keyword) {
-        // 如果有科目筛选，需要通过关联表查询
-        if (StringUtils.hasText(subject)) {
-            return countTeachersBySubject(subject, keyword);
-        }
-
-        // 没有科目筛选时的简单统计
-        QueryWrapper<Teacher> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("is_deleted", false);
-        queryWrapper.eq("is_verified", true);
+        return teacherMapper.countSearchTeachers(trimToNull(subject), trimToNull(keyword),
+                FullTextQueryUtil.toBooleanQuery(keyword));
+    }
 
-        if (StringUtils.hasText(keyword)) {
-            queryWrapper.and(wrapper -> wrapper
-                    .like("real_name", keyword)
-                    .or()
-                    .like("specialties", keyword)
-                    .or()
-                    .like("introduction", keyword)
-            );
+    /**
+     * 教师检索：相关度排序的分页结果 + 分面统计（科目 / 级别 / 授课地点）
+     */
+    @Override
+    public TeacherSearchVO searchTeachers(int page, int size, String subject, String keyword) {
+        String s = trimToNull(subject);
+        String k = trimToNull(keyword);
+        String ft = FullTextQueryUtil.toBooleanQuery(k);
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put("subject", new LinkedHashMap<>());
+        facets.put("level", new LinkedHashMap<>());
+        facets.put("location", new LinkedHashMap<>());
+        long total = 0L;
+        for (TeacherSearchVO.FacetCount fc : teacherMapper.searchTeacherFacets(s, k, ft)) {
+            long cnt = fc.getCount() != null ? fc.getCount() : 0L;
+            if ("total".equals(fc.getFacet())) {
+                total = cnt;
+            } else if (cnt > 0 && facets.containsKey(fc.getFacet())) {
+                facets.get(fc.getFacet()).put(fc.getValue(), cnt);
+            }
         }
 
-        return teacherMapper.selectCount(queryWrapper);
+        List<Teacher> teachers = total > 0
+                ? teacherMapper.searchTeachers(s, k, ft, Math.max(0, (page - 1) * size), size)
+                : Collections.emptyList();
+        return TeacherSearchVO.builder()
+                .records(assembleTeacherListResponses(teachers))
+                .total(total)
+                .current(page)
+                .size(size)
+                .pages((total + size - 1) / size)
+                .facets(facets)
+                .build();
     }
 
     @Override
@@ -301,19 +303,27 @@ public class TeacherServiceImpl implements TeacherService {
         return countTeachers(subject, keyword);
     }
 
-    /**
-     * 根据科目统计教师数量
-     */
-    private long countTeachersBySubject(String subject, String keyword) {
-        return teacherMapper.countTeachersBySubject(subject, keyword);
+    private static String trimToNull(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
     }
 
     /**
-     * 根据科目获取教师列表
+     * 关键字条件：可全文检索时走 FULLTEXT（ngram）索引，否则回退 LIKE
      */
-    private List<Teacher> getTeacherListBySubject(int page, int size, String subject, String keyword) {
-        int offset = Math.max(0, (page - 1) * size);
-        return teacherMapper.findTeachersBySubjectPaged(subject, keyword, offset, size);
+    private static void applyKeyword(QueryWrapper<Teacher> queryWrapper, String keyword) {
+        if (!StringUtils.hasText(keyword)) return;
+        String ft = FullTextQueryUtil.toBooleanQuery(keyword);
+        if (ft != null) {
+            queryWrapper.apply("MATCH(real_name, specialties, introduction) AGAINST({0} IN BOOLEAN MODE)", ft);
+        } else {
+            queryWrapper.and(wrapper -> wrapper
+                    .like("real_name", keyword)
+                    .or()
+                    .like("specialties", keyword)
+                    .or()
+                    .like("introduction", keyword)
+            );
+        }
     }
 
     /**
@@ -381,9 +391,7 @@ public class TeacherServiceImpl implements TeacherService {
             qw.exists("SELECT 1 FROM teacher_subjects ts INNER JOIN subjects s ON ts.subject_id = s.id " +
                      "WHERE ts.teacher_id = teachers.id AND s.name = '" + subject + "' AND s.is_deleted = 0");
         }
-        if (StringUtils.hasText(keyword)) {
-            qw.and(w -> w.like("real_name", keyword).or().like("specialties", keyword).or().like("introduction", keyword));
-        }
+        applyKeyword(qw, keyword);
         Long cnt = teacherMapper.selectCount(qw);
         return cnt != null ? cnt : 0L;
     }
@@ -597,9 +605,13 @@ public class TeacherServiceImpl implements TeacherService {
                     final java.util.Set<String> preferredSlots = request.getPreferredTimeSlots() != null
                             ? new java.util.HashSet<>(request.getPreferredTimeSlots())
                             : java.util.Collections.emptySet();
+                    // 一次查询取回全部候选教师在范围内的可上课设置
+                    java.util.List<Long> candidateIds = teachers.stream().map(Teacher::getId).collect(java.util.stream.Collectors.toList());
+                    final java.util.Map<Long, java.util.Map<java.time.LocalDate, java.util.List<String>>> availByTeacher =
+                            teacherDailyAvailabilityService.getDailyAvailabilityBatch(candidateIds, start, end);
                     java.util.List<Teacher> filtered = teachers.stream().filter(t -> {
                         try {
-                            java.util.Map<java.time.LocalDate, java.util.List<String>> avail = teacherDailyAvailabilityService.getDailyAvailability(t.getId(), start, end);
+                            java.util.Map<java.time.LocalDate, java.util.List<String>> avail = availByTeacher.get(t.getId());
                             if (avail == null || avail.isEmpty()) return false;
                             if (preferredSlots.isEmpty()) {
                                 // 只要有任意一天有任意基础段可用即可
@@ -660,21 +672,27 @@ public class TeacherServiceImpl implements TeacherService {
             }
         }
 
-        // 转换为响应DTO并计算匹配分数；同分随机展示
-        java.util.Comparator<TeacherMatchVO> cmp =
-                java.util.Comparator.comparing(TeacherMatchVO::getRecommendationScore)
-                        .reversed()
-                        .thenComparingInt(x -> java.util.concurrent.ThreadLocalRandom.current().nextInt());
+        // 推荐度只依赖教师自身字段，先在内存中打分并用有界小顶堆保留前K名（同分随机），
+        // 再仅为入选教师批量装配科目与时间匹配度，避免逐个教师查询
+        // limit 来自匿名请求，限制在 [5, MAX_MATCH_LIMIT]，堆容量不超过候选数
+        int limit = request.getLimit() != null ? Math.min(Math.max(request.getLimit(), 5), MAX_MATCH_LIMIT) : 5;
+        final boolean hasLevel = org.springframework.util.StringUtils.hasText(request.getTeacherLevel());
+        final String reqLevel = hasLevel ? request.getTeacherLevel().trim() : null;
+        java.util.PriorityQueue<RankedTeacher> heap = new java.util.PriorityQueue<>(Math.min(limit, teachers.size()) + 1, RankedTeacher.ORDER);
+        for (Teacher teacher : teachers) {
+            if (!matchesGenderPreference(teacher, request)) continue; // 添加性别过滤
+            // 再次按级别做最终兜底过滤，防止任何回退路径带入非指定级别
+            if (hasLevel && (teacher.getLevel() == null || !reqLevel.equals(teacher.getLevel().trim()))) continue;
+            heap.offer(new RankedTeacher(teacher, calculateRecommendationScore(teacher),
+                    java.util.concurrent.ThreadLocalRandom.current().nextInt()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        java.util.List<RankedTeacher> ranked = new java.util.ArrayList<>(heap);
+        ranked.sort(RankedTeacher.ORDER.reversed());
 
-        List<TeacherMatchVO> responses = teachers.stream()
-                .filter(teacher -> matchesGenderPreference(teacher, request)) // 添加性别过滤
-                .map(teacher -> convertToMatchResponse(teacher, request))
-                // 再次按级别做最终兜底过滤，防止任何回退路径带入非指定级别
-                .filter(vo -> !org.springframework.util.StringUtils.hasText(request.getTeacherLevel())
-                        || (vo.getLevel() != null && request.getTeacherLevel().trim().equals(vo.getLevel().trim())))
-                .sorted(cmp)
-                .limit(request.getLimit() != null ? Math.max(request.getLimit(), 5) : 5)
-                .collect(java.util.stream.Collectors.toList());
+        List<TeacherMatchVO> responses = assembleMatchResponses(ranked, request);
 
         log.info("匹配到 {} 位教师", responses.size());
 
@@ -703,63 +721,94 @@ public class TeacherServiceImpl implements TeacherService {
 
 
     /**
-     * 将Teacher实体转换为TeacherMatchResponse并计算匹配分数
+     * 匹配排序项：推荐度降序，同分按随机键打散
      */
-    private TeacherMatchVO convertToMatchResponse(Teacher teacher, TeacherMatchDTO request) {
-        // 日历化后不再返回按星期的可上课时间；卡片仅展示基础信息
-        List<String> scheduleDescriptions = java.util.Collections.emptyList();
-
-        // 构建科目名称列表（避免N+1：已在上层查询优化过，这里仅按ID映射名称）
-        java.util.List<Long> subjectIdsForMatch = teacherSubjectMapper.getSubjectIdsByTeacherId(teacher.getId());
-        java.util.List<String> subjectNamesForMatch = new java.util.ArrayList<>();
-        for (Long subjectId : subjectIdsForMatch) {
-            try {
-                Subject subject = subjectService.getSubjectById(subjectId);
-                if (subject != null) {
-                    subjectNamesForMatch.add(subject.getName());
-                }
-            } catch (Exception e) {
-                log.warn("获取科目信息失败，科目ID: {}", subjectId, e);
+    private static final class RankedTeacher {
+        static final java.util.Comparator<RankedTeacher> ORDER =
+                java.util.Comparator.comparingInt((RankedTeacher r) -> r.score).thenComparingInt(r -> r.tieBreaker);
+
+        final Teacher teacher;
+        final int score;
+        final int tieBreaker;
+
+        RankedTeacher(Teacher teacher, int score, int tieBreaker) {
+            this.teacher = teacher;
+            this.score = score;
+            this.tieBreaker = tieBreaker;
+        }
+    }
+
+    /**
+     * 批量装配匹配结果：科目、可上课设置、已排课程各一次查询，时间匹配度在内存中计算
+     */
+    private List<TeacherMatchVO> assembleMatchResponses(List<RankedTeacher> ranked, TeacherMatchDTO request) {
+        if (ranked.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> teacherIds = ranked.stream().map(r -> r.teacher.getId()).collect(Collectors.toList());
+
+        // 1) 教师-科目关联与科目名称
+        List<TeacherSubject> tsList = teacherSubjectMapper.findByTeacherIds(teacherIds);
+        Map<Long, List<Long>> teacherToSubjectIds = new HashMap<>();
+        for (TeacherSubject ts : tsList) {
+            teacherToSubjectIds.computeIfAbsent(ts.getTeacherId(), k -> new ArrayList<>()).add(ts.getSubjectId());
+        }
+        Set<Long> subjectIds = tsList.stream().map(TeacherSubject::getSubjectId).collect(Collectors.toSet());
+        Map<Long, String> subjectNameMap = new HashMap<>();
+        if (!subjectIds.isEmpty()) {
+            QueryWrapper<Subject> sQ = new QueryWrapper<>();
+            sQ.in("id", subjectIds);
+            for (Subject sub : subjectMapper.selectList(sQ)) {
+                subjectNameMap.put(sub.getId(), sub.getName());
             }
         }
 
-        // 压缩响应体：仅返回前若干个科目用于卡片展示
-        int subjectsTotal = subjectNamesForMatch.size();
-        final int MAX_SUBJECTS = 4;
-        java.util.List<String> subjectsForCard = subjectsTotal > MAX_SUBJECTS
-                ? new java.util.ArrayList<>(subjectNamesForMatch.subList(0, MAX_SUBJECTS))
-                : subjectNamesForMatch;
+        // 2) 时间匹配度所需的可上课设置与已排课程
+        Map<Long, Integer> timeScores = calculateDailyTimeMatchScores(teacherIds, request);
 
-        TeacherMatchVO response = TeacherMatchVO.builder()
-                .id(teacher.getId())
-                .name(teacher.getRealName())
-                .subject(getFirstSubject(teacher.getId()))
-                .subjects(subjectsForCard)
-                .subjectsCount(subjectsTotal)
-                .level(teacher.getLevel())
-                .experience(teacher.getTeachingExperience() != null ? teacher.getTeachingExperience() : 0)
-                .description(teacher.getIntroduction())
-                .avatar(null) // 当前Teacher实体没有avatar字段
-                .tags(parseTagsToList(teacher.getSpecialties()))
-                .schedule(scheduleDescriptions)
-                .educationBackground(teacher.getEducationBackground())
-                .specialties(teacher.getSpecialties())
-                .isVerified(teacher.getVerified())
-                .gender(teacher.getGender())
-                .build();
+        List<TeacherMatchVO> responses = new ArrayList<>();
+        final int MAX_SUBJECTS = 4;
+        for (RankedTeacher r : ranked) {
+            Teacher teacher = r.teacher;
+            List<String> subjectNamesForMatch = teacherToSubjectIds.getOrDefault(teacher.getId(), Collections.emptyList()).stream()
+                    .map(subjectNameMap::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
 
-        // 计算推荐度和时间匹配度
-        log.info("正在计算教师 {} (ID: {}) 的推荐度", teacher.getRealName(), teacher.getId());
-        int recommendationScore = calculateRecommendationScore(teacher);
-        int timeMatchScore = calculateDailyTimeMatchScore(teacher.getId(), request);
-        log.info("教师 {} 的推荐度: 总分={}, 时间匹配度={}", teacher.getRealName(), recommendationScore, timeMatchScore);
+            // 压缩响应体：仅返回前若干个科目用于卡片展示
+            int subjectsTotal = subjectNamesForMatch.size();
+            List<String> subjectsForCard = subjectsTotal > MAX_SUBJECTS
+                    ? new ArrayList<>(subjectNamesForMatch.subList(0, MAX_SUBJECTS))
+                    : subjectNamesForMatch;
+
+            TeacherMatchVO response = TeacherMatchVO.builder()
+                    .id(teacher.getId())
+                    .name(teacher.getRealName())
+                    .subject(subjectNamesForMatch.isEmpty() ? "" : subjectNamesForMatch.get(0))
+                    .subjects(subjectsForCard)
+                    .subjectsCount(subjectsTotal)
+                    .level(teacher.getLevel())
+                    .experience(teacher.getTeachingExperience() != null ? teacher.getTeachingExperience() : 0)
+                    .description(teacher.getIntroduction())
+                    .avatar(null) // 当前Teacher实体没有avatar字段
+                    .tags(parseTagsToList(teacher.getSpecialties()))
+                    .schedule(Collections.emptyList()) // 日历化后不再返回按星期的可上课时间
+                    .educationBackground(teacher.getEducationBackground())
+                    .specialties(teacher.getSpecialties())
+                    .isVerified(teacher.getVerified())
+                    .gender(teacher.getGender())
+                    .build();
 
-        response.setRecommendationScore(recommendationScore);
-        // 兼容老前端：同步填充 legacy matchScore 字段
-        response.setLegacyMatchScore(recommendationScore);
-        response.setTimeMatchScore(timeMatchScore);
+            int timeMatchScore = timeScores.getOrDefault(teacher.getId(), 0);
+            log.debug("教师 {} (ID: {}) 推荐度={}, 时间匹配度={}", teacher.getRealName(), teacher.getId(), r.score, timeMatchScore);
 
-        return response;
+            response.setRecommendationScore(r.score);
+            // 兼容老前端：同步填充 legacy matchScore 字段
+            response.setLegacyMatchScore(r.score);
+            response.setTimeMatchScore(timeMatchScore);
+            responses.add(response);
+        }
+        return responses;
     }
 
     /**
@@ -948,24 +997,6 @@ public class TeacherServiceImpl implements TeacherService {
     }
 
 
-    /**
-     * 获取教师的第一个科目名称
-     */
-    private String getFirstSubject(Long teacherId) {
-        List<Long> subjectIds = teacherSubjectMapper.getSubjectIdsByTeacherId(teacherId);
-        if (subjectIds.isEmpty()) {
-            return "";
-        }
-        // 获取第一个科目的名称
-        try {
-            return subjectService.getSubjectById(subjectIds.get(0)).getName();
-        } catch (Exception e) {
-            return "";
-        }
-    }
-
-
-
     /**
      * 解析标签字符串为列表
      */
@@ -991,26 +1022,28 @@ public class TeacherServiceImpl implements TeacherService {
             throw new RuntimeException("教师不存在");
         }
 
-        // 获取指定时间范围内的课程安排（一次 DB）→ 使用新表
-        List<CourseSchedule> schedules = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, startDate, endDate);
-
-        // 按日期分组
-        Map<LocalDate, List<CourseSchedule>> schedulesByDate = schedules.stream()
-                .collect(Collectors.groupingBy(CourseSchedule::getScheduledDate));
-
-        // 基于本次 DB 结果构建 busy 映射，并批量回写 Redis（避免逐日多次往返）
+        // 先批量读取忙时缓存（近端缓存 → Redis 管道），仅对未加载的日期回源数据库并回写
+        List<LocalDate> dates = startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList());
         Map<LocalDate, List<String>> busyMap = new HashMap<>();
-        for (CourseSchedule s : schedules) {
-            LocalDate d = s.getScheduledDate();
-            String slot = s.getStartTime().toString() + "-" + s.getEndTime().toString();
-            busyMap.computeIfAbsent(d, k -> new ArrayList<>()).add(slot);
-        }
-        LocalDate fill = startDate;
-        while (!fill.isAfter(endDate)) {
-            busyMap.putIfAbsent(fill, new ArrayList<>());
-            fill = fill.plusDays(1);
+        try { busyMap.putAll(teacherScheduleCacheService.getBusySlotsBatch(teacherId, dates)); } catch (Exception ignore) {}
+        List<LocalDate> missing = dates.stream().filter(d -> !busyMap.containsKey(d)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            // 未加载日期按首尾范围查一次 DB（新表），构建 busy 映射后批量回写 Redis
+            List<CourseSchedule> schedules = courseScheduleMapper.findByTeacherIdAndDateRange(
+                    teacherId, missing.get(0), missing.get(missing.size() - 1));
+            Map<LocalDate, List<String>> loaded = new HashMap<>();
+            for (LocalDate d : missing) {
+                loaded.put(d, new ArrayList<>());
+            }
+            for (CourseSchedule s : schedules) {
+                List<String> slots = loaded.get(s.getScheduledDate());
+                if (slots != null) {
+                    slots.add(s.getStartTime().toString() + "-" + s.getEndTime().toString());
+                }
+            }
+            try { teacherScheduleCacheService.putBusySlotsBatch(teacherId, loaded); } catch (Exception ignore) {}
+            busyMap.putAll(loaded);
         }
-        try { teacherScheduleCacheService.putBusySlotsBatch(teacherId, busyMap); } catch (Exception ignore) {}
 
         // 生成每日课表
         List<TeacherScheduleVO.DaySchedule> daySchedules = new ArrayList<>();
@@ -1018,10 +1051,9 @@ public class TeacherServiceImpl implements TeacherService {
 
         while (!currentDate.isAfter(endDate)) {
             List<String> busySlots = busyMap.getOrDefault(currentDate, Collections.emptyList());
-            List<CourseSchedule> daySchedules_raw = schedulesByDate.getOrDefault(currentDate, new ArrayList<>());
 
             // 生成该日的时间段信息（使用内存 busy 判定占用）
-            List<TeacherScheduleVO.TimeSlotInfo> timeSlots = generateTimeSlotsWithBusy(teacherId, daySchedules_raw, currentDate, busySlots);
+            List<TeacherScheduleVO.TimeSlotInfo> timeSlots = generateTimeSlotsWithBusy(teacherId, currentDate, busySlots);
 
             int availableCount = (int) timeSlots.stream().filter(TeacherScheduleVO.TimeSlotInfo::getAvailable).count();
             int bookedCount = (int) timeSlots.stream().filter(TeacherScheduleVO.TimeSlotInfo::getBooked).count();
@@ -1052,7 +1084,7 @@ public class TeacherServiceImpl implements TeacherService {
     /**
      * 生成时间段信息 - 根据教师设置的可上课时间和实际课表安排
      */
-    private List<TeacherScheduleVO.TimeSlotInfo> generateTimeSlotsWithBusy(Long teacherId, List<CourseSchedule> daySchedules, LocalDate date, List<String> busySlots) {
+    private List<TeacherScheduleVO.TimeSlotInfo> generateTimeSlotsWithBusy(Long teacherId, LocalDate date, List<String> busySlots) {
         // 获取该日期对应的星期几（ISO标准：1=周一, 7=周日）
         int weekday = date.getDayOfWeek().getValue();
 
@@ -1065,22 +1097,13 @@ public class TeacherServiceImpl implements TeacherService {
 
         List<TeacherScheduleVO.TimeSlotInfo> timeSlots = new ArrayList<>();
 
-        // 将已有课程按时间段分组（新表）
-        Map<String, CourseSchedule> scheduleByTimeSlot = new HashMap<>();
-        for (CourseSchedule cs : daySchedules) {
-            String timeSlot = cs.getStartTime().toString() + "-" + cs.getEndTime().toString();
-            scheduleByTimeSlot.put(timeSlot, cs);
-        }
-
         // 只生成教师可上课时间段的信息
         for (String timeSlot : availableTimeSlots) {
             String[] times = timeSlot.split("-");
             LocalTime startTime = LocalTime.parse(times[0]);
             LocalTime endTime = LocalTime.parse(times[1]);
 
-            boolean isBooked = (busySlots != null && !busySlots.isEmpty())
-                    ? busySlots.contains(timeSlot)
-                    : scheduleByTimeSlot.containsKey(timeSlot);
+            boolean isBooked = busySlots != null && busySlots.contains(timeSlot);
 
             TeacherScheduleVO.TimeSlotInfo timeSlotInfo = TeacherScheduleVO.TimeSlotInfo.builder()
                     .timeSlot(timeSlot)
@@ -1272,10 +1295,11 @@ public class TeacherServiceImpl implements TeacherService {
     }
 
     /**
-     * 基于“日历每天”计算时间匹配度：在指定日期范围内，按学生偏好基础时段逐日校验教师是否可上课且无已排程冲突
-     * 评分=可用(无冲突)的(日期×时段)组合 / 总组合 × 100
+     * 基于“日历每天”批量计算时间匹配度：在指定日期范围内，按学生偏好基础时段逐日校验教师是否可上课且无已排程冲突
+     * 可上课设置与已排课程各一次查询取回全部教师数据，评分在内存中完成；失败时全部记0分
      */
-    private int calculateDailyTimeMatchScore(Long teacherId, TeacherMatchDTO request) {
+    private Map<Long, Integer> calculateDailyTimeMatchScores(List<Long> teacherIds, TeacherMatchDTO request) {
+        Map<Long, Integer> scores = new HashMap<>();
         try {
             String ds = request.getPreferredDateStart();
             String de = request.getPreferredDateEnd();
@@ -1299,58 +1323,74 @@ public class TeacherServiceImpl implements TeacherService {
                 wanted = java.util.Arrays.asList("08:00-10:00", "10:00-12:00", "13:00-15:00", "15:00-17:00", "17:00-19:00", "19:00-21:00");
             }
 
-            // 读取教师在日期范围内的“日历可上课基础段”设置
-            java.util.Map<java.time.LocalDate, java.util.List<String>> daily = teacherDailyAvailabilityService.getDailyAvailability(teacherId, start, end);
-            // 读取该教师在范围内的已排程课程（含试听/正式）
-            java.util.List<CourseSchedule> schedules = courseScheduleMapper.findByTeacherIdAndDateRange(teacherId, start, end);
-            java.util.Map<java.time.LocalDate, java.util.List<CourseSchedule>> schByDate = schedules.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(CourseSchedule::getScheduledDate));
-
-            // 按周聚合：一周内只要有任意一天存在“开放且无冲突”的任一偏好时间段，即记为该周命中
-            java.util.Set<Integer> weekKeys = new java.util.LinkedHashSet<>();
-            java.util.Set<Integer> matchedWeeks = new java.util.HashSet<>();
-
-            java.time.LocalDate cur = start;
-            while (!cur.isAfter(end)) {
-                // 计算 ISO 周：year-week 作为 key
-                java.time.temporal.WeekFields wf = java.time.temporal.WeekFields.ISO;
-                int week = cur.get(wf.weekOfWeekBasedYear());
-                int weekYear = cur.get(wf.weekBasedYear());
-                int weekKey = weekYear * 100 + week;
-                weekKeys.add(weekKey);
-
-                java.util.List<String> allow = daily.getOrDefault(cur, java.util.Collections.emptyList());
-                if (allow != null && !allow.isEmpty()) {
-                    java.util.List<CourseSchedule> daySch = schByDate.getOrDefault(cur, java.util.Collections.emptyList());
-                    // 只要当天有任一偏好基础段开放且无排程冲突，就标记该周命中
-                    outer:
-                    for (String slot : wanted) {
-                        if (!allow.contains(slot)) continue;
-                        java.time.LocalTime[] tt = parseBaseSlot(slot);
-                        if (tt == null) continue;
-                        java.time.LocalTime baseStart = tt[0];
-                        java.time.LocalTime baseEnd = tt[1];
-                        boolean conflict = false;
-                        for (CourseSchedule cs : daySch) {
-                            if (cs.getStartTime() != null && cs.getEndTime() != null &&
-                                    cs.getStartTime().isBefore(baseEnd) && baseStart.isBefore(cs.getEndTime())) {
-                                conflict = true; break;
-                            }
+            // 读取全部教师在日期范围内的“日历可上课基础段”设置
+            Map<Long, Map<java.time.LocalDate, List<String>>> dailyByTeacher =
+                    teacherDailyAvailabilityService.getDailyAvailabilityBatch(teacherIds, start, end);
+            // 读取全部教师在范围内的已排程课程（含试听/正式），按教师+日期分组
+            Map<Long, Map<java.time.LocalDate, List<CourseSchedule>>> schByTeacher =
+                    courseScheduleMapper.findTimeSlotsByTeacherIdsAndDateRange(teacherIds, start, end).stream()
+                            .collect(Collectors.groupingBy(CourseSchedule::getTeacherId,
+                                    Collectors.groupingBy(CourseSchedule::getScheduledDate)));
+
+            for (Long teacherId : teacherIds) {
+                scores.put(teacherId, calculateDailyTimeMatchScore(
+                        dailyByTeacher.getOrDefault(teacherId, Collections.emptyMap()),
+                        schByTeacher.getOrDefault(teacherId, Collections.emptyMap()),
+                        start, end, wanted));
+            }
+        } catch (Exception e) {
+            log.warn("calculateDailyTimeMatchScores 失败: {}", e.getMessage());
+        }
+        return scores;
+    }
+
+    /**
+     * 单个教师的时间匹配度（纯内存）：评分=命中周数 / 总周数 × 100
+     */
+    private int calculateDailyTimeMatchScore(Map<java.time.LocalDate, List<String>> daily,
+                                             Map<java.time.LocalDate, List<CourseSchedule>> schByDate,
+                                             java.time.LocalDate start, java.time.LocalDate end, List<String> wanted) {
+        // 按周聚合：一周内只要有任意一天存在“开放且无冲突”的任一偏好时间段，即记为该周命中
+        java.util.Set<Integer> weekKeys = new java.util.LinkedHashSet<>();
+        java.util.Set<Integer> matchedWeeks = new java.util.HashSet<>();
+
+        java.time.LocalDate cur = start;
+        while (!cur.isAfter(end)) {
+            // 计算 ISO 周：year-week 作为 key
+            java.time.temporal.WeekFields wf = java.time.temporal.WeekFields.ISO;
+            int week = cur.get(wf.weekOfWeekBasedYear());
+            int weekYear = cur.get(wf.weekBasedYear());
+            int weekKey = weekYear * 100 + week;
+            weekKeys.add(weekKey);
+
+            java.util.List<String> allow = daily.getOrDefault(cur, java.util.Collections.emptyList());
+            if (allow != null && !allow.isEmpty()) {
+                java.util.List<CourseSchedule> daySch = schByDate.getOrDefault(cur, java.util.Collections.emptyList());
+                // 只要当天有任一偏好基础段开放且无排程冲突，就标记该周命中
+                outer:
+                for (String slot : wanted) {
+                    if (!allow.contains(slot)) continue;
+                    java.time.LocalTime[] tt = parseBaseSlot(slot);
+                    if (tt == null) continue;
+                    java.time.LocalTime baseStart = tt[0];
+                    java.time.LocalTime baseEnd = tt[1];
+                    boolean conflict = false;
+                    for (CourseSchedule cs : daySch) {
+                        if (cs.getStartTime() != null && cs.getEndTime() != null &&
+                                cs.getStartTime().isBefore(baseEnd) && baseStart.isBefore(cs.getEndTime())) {
+                            conflict = true; break;
                         }
-                        if (!conflict) { matchedWeeks.add(weekKey); break outer; }
                     }
+                    if (!conflict) { matchedWeeks.add(weekKey); break outer; }
                 }
-                cur = cur.plusDays(1);
             }
-
-            int totalWeeks = weekKeys.size();
-            if (totalWeeks <= 0) return 0;
-            int score = (int) Math.round((matchedWeeks.size() * 100.0) / totalWeeks);
-            return Math.max(0, Math.min(100, score));
-        } catch (Exception e) {
-            log.warn("calculateDailyTimeMatchScore 失败: {}", e.getMessage());
-            return 0;
+            cur = cur.plusDays(1);
         }
+
+        int totalWeeks = weekKeys.size();
+        if (totalWeeks <= 0) return 0;
+        int score = (int) Math.round((matchedWeeks.size() * 100.0) / totalWeeks);
+        return Math.max(0, Math.min(100, score));
     }
 
     // 解析基础时间段 "HH:mm-HH:mm"
@@ -1408,17 +1448,47 @@ public class TeacherServiceImpl implements TeacherService {
      */
     @Override
     public Map<String, Object> getTeacherStatistics(Long userId) {
-        Map<String, Object> statistics = new HashMap<>();
-
         // 获取教师信息
         Teacher teacher = getTeacherByUserId(userId);
         if (teacher == null) {
             throw new RuntimeException("教师信息不存在");
         }
 
+        // 课程数、待处理预约、即将上课、课时与收入等取自计数哈希，缺失或跨月时整体重算
+        LocalDate now = LocalDate.now();
+        Map<String, Object> statistics = new HashMap<>(dashboardCounterService.getTeacherStatistics(
+                teacher.getId(), YearMonth.from(now).toString(), () -> computeTeacherStatistics(teacher, now)));
+
+        // 调课类统计随调课申请变化，保持实时查询
         // 1. 调课申请数 - 使用mapper中的专用方法统计
         int rescheduleRequestsCount = rescheduleRequestMapper.countPendingByTeacherId(teacher.getId());
 
+        // 5. 本月调课/请假次数 - 查询教师本月发起的调课申请
+        LocalDate startOfMonth = now.withDayOfMonth(1);
+        LocalDate endOfMonth = now.withDayOfMonth(now.lengthOfMonth());
+
+        QueryWrapper<RescheduleRequest> monthlyRescheduleWrapper = new QueryWrapper<>();
+        monthlyRescheduleWrapper.eq("applicant_id", teacher.getId());
+        monthlyRescheduleWrapper.eq("applicant_type", "teacher");
+        monthlyRescheduleWrapper.ge("created_at", startOfMonth.atStartOfDay());
+        monthlyRescheduleWrapper.le("created_at", endOfMonth.atTime(23, 59, 59));
+        monthlyRescheduleWrapper.eq("is_deleted", false);
+        Long monthlyRescheduleCount = rescheduleRequestMapper.selectCount(monthlyRescheduleWrapper);
+
+        statistics.put("rescheduleRequests", rescheduleRequestsCount);
+        statistics.put("monthlyRescheduleCount", monthlyRescheduleCount != null ? monthlyRescheduleCount.intValue() : 0);
+
+        log.info("获取教师统计数据成功: userId={}, statistics={}", userId, statistics);
+
+        return statistics;
+    }
+
+    /**
+     * 计算教师统计中可缓存的部分（课程数、待处理预约、即将上课、课时、收入）
+     */
+    private Map<String, Object> computeTeacherStatistics(Teacher teacher, LocalDate now) {
+        Map<String, Object> statistics = new HashMap<>();
+
         // 2. 总课程数 - 查询教师的所有课程
         QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
         courseWrapper.eq("teacher_id", teacher.getId());
@@ -1426,7 +1496,7 @@ public class TeacherServiceImpl implements TeacherService {
         Long totalCourses = courseMapper.selectCount(courseWrapper);
 
         // 3. 即将上课数 - 查询course_schedules中scheduled状态且日期>=今天的安排
-        Long upcomingClasses = (long) courseScheduleMapper.countUpcomingByTeacherId(teacher.getId(), LocalDate.now());
+        Long upcomingClasses = (long) courseScheduleMapper.countUpcomingByTeacherId(teacher.getId(), now);
 
         // 4. 预约申请数 - 查询状态为pending的预约申请
         QueryWrapper<BookingRequest> bookingWrapper = new QueryWrapper<>();
@@ -1435,19 +1505,9 @@ public class TeacherServiceImpl implements TeacherService {
         bookingWrapper.eq("is_deleted", false);
         Long bookingRequests = bookingRequestMapper.selectCount(bookingWrapper);
 
-        // 5. 本月调课/请假次数 - 查询教师本月发起的调课申请
-        LocalDate now = LocalDate.now();
         LocalDate startOfMonth = now.withDayOfMonth(1);
         LocalDate endOfMonth = now.withDayOfMonth(now.lengthOfMonth());
 
-        QueryWrapper<RescheduleRequest> monthlyRescheduleWrapper = new QueryWrapper<>();
-        monthlyRescheduleWrapper.eq("applicant_id", teacher.getId());
-        monthlyRescheduleWrapper.eq("applicant_type", "teacher");
-        monthlyRescheduleWrapper.ge("created_at", startOfMonth.atStartOfDay());
-        monthlyRescheduleWrapper.le("created_at", endOfMonth.atTime(23, 59, 59));
-        monthlyRescheduleWrapper.eq("is_deleted", false);
-        Long monthlyRescheduleCount = rescheduleRequestMapper.selectCount(monthlyRescheduleWrapper);
-
         // 6. 本月课时和上月课时（改为按一对一课程汇总）
         BigDecimal currentHours = courseMapper.sumCurrentHoursByTeacher(teacher.getId());
         BigDecimal lastHours = courseMapper.sumLastHoursByTeacher(teacher.getId());
@@ -1513,21 +1573,16 @@ public class TeacherServiceImpl implements TeacherService {
             statistics.put("currentEarnings", currentEarnings);
             statistics.put("lastEarnings", lastEarnings);
         } catch (Exception e) {
-            log.warn("统计教师收入失败，降级为0: userId={}, err={}", userId, e.toString());
+            log.warn("统计教师收入失败，降级为0: teacherId={}, err={}", teacher.getId(), e.toString());
             statistics.put("currentEarnings", java.math.BigDecimal.ZERO);
             statistics.put("lastEarnings", java.math.BigDecimal.ZERO);
         }
 
-        statistics.put("rescheduleRequests", rescheduleRequestsCount);
         statistics.put("totalCourses", totalCourses != null ? totalCourses.intValue() : 0);
         statistics.put("upcomingClasses", upcomingClasses != null ? upcomingClasses.intValue() : 0);
         statistics.put("bookingRequests", bookingRequests != null ? bookingRequests.intValue() : 0);
-        statistics.put("monthlyRescheduleCount", monthlyRescheduleCount != null ? monthlyRescheduleCount.intValue() : 0);
         statistics.put("currentHours", currentHours);
         statistics.put("lastHours", lastHours);
-
-        log.info("获取教师统计数据成功: userId={}, statistics={}", userId, statistics);
-
         return statistics;
     }
 
@@ -1703,15 +1758,7 @@ public class TeacherServiceImpl implements TeacherService {
         }
 
         // 添加关键词筛选条件
-        if (StringUtils.hasText(keyword)) {
-            queryWrapper.and(wrapper -> wrapper
-                    .like("real_name", keyword)
-                    .or()
-                    .like("specialties", keyword)
-                    .or()
-                    .like("introduction", keyword)
-            );
-        }
+        applyKeyword(queryWrapper, keyword);
 
         queryWrapper.orderByDesc("id");
         queryWrapper.last("LIMIT " + ((page - 1) * size) + ", " + size);
@@ -0,0 +1,108 @@
+package com.touhouqing.grabteacherbackend.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日历预约会话（booking_requests.selected_sessions_json）解析工具。
+ * - JSON 格式：[{"date":"yyyy-MM-dd","start":"HH:mm","end":"HH:mm"}]（兼容 startTime/endTime 字段名）
+ * - 解析结果为不可变列表，按 JSON 内容缓存：同一预约在冲突检查、月历、审批、取消等路径上只解码一次
+ */
+@Slf4j
+public final class CalendarSessionUtil {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // selected_sessions_json 创建后不再修改，按内容缓存无需失效；超过上限整体清空
+    private static final int MAX_ENTRIES = 4096;
+    private static final ConcurrentHashMap<String, List<CalendarSession>> CACHE = new ConcurrentHashMap<>();
+
+    private CalendarSessionUtil() {
+    }
+
+    /**
+     * 单个日历会话（不可变）
+     */
+    public static final class CalendarSession {
+        public final LocalDate date;
+        public final LocalTime start;
+        public final LocalTime end;
+
+        public CalendarSession(LocalDate date, LocalTime start, LocalTime end) {
+            this.date = date;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * 解析会话列表（只读）；JSON 为空返回空列表，格式错误抛出 RuntimeException
+     */
+    public static List<CalendarSession> parse(String json) {
+        if (json == null || json.isBlank()) return Collections.emptyList();
+        List<CalendarSession> cached = CACHE.get(json);
+        if (cached != null) return cached;
+
+        List<CalendarSession> list = decode(json);
+        if (CACHE.size() >= MAX_ENTRIES) {
+            CACHE.clear();
+        }
+        CACHE.put(json, list);
+        return list;
+    }
+
+    /**
+     * 解析会话列表，格式错误时记录告警并返回空列表
+     */
+    public static List<CalendarSession> parseQuietly(String json) {
+        try {
+            return parse(json);
+        } catch (RuntimeException e) {
+            log.warn("解析日历预约会话JSON失败: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 会话涉及的全部日期（保持出现顺序，可能重复）
+     */
+    public static List<LocalDate> dates(String json) {
+        List<CalendarSession> sessions = parseQuietly(json);
+        List<LocalDate> dates = new ArrayList<>(sessions.size());
+        for (CalendarSession s : sessions) {
+            dates.add(s.date);
+        }
+        return dates;
+    }
+
+    private static List<CalendarSession> decode(String json) {
+        try {
+            JsonNode arr = MAPPER.readTree(json);
+            if (arr == null || !arr.isArray()) return Collections.emptyList();
+            List<CalendarSession> list = new ArrayList<>(arr.size());
+            for (JsonNode m : arr) {
+                String startStr = text(m, "start", "startTime");
+                String endStr = text(m, "end", "endTime");
+                list.add(new CalendarSession(LocalDate.parse(text(m, "date", null)),
+                        LocalTime.parse(startStr), LocalTime.parse(endStr)));
+            }
+            return Collections.unmodifiableList(list);
+        } catch (Exception e) {
+            throw new RuntimeException("预约记录解析失败，请稍后重试");
+        }
+    }
+
+    private static String text(JsonNode node, String name, String fallback) {
+        JsonNode v = node.get(name);
+        if ((v == null || v.isNull()) && fallback != null) v = node.get(fallback);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+}
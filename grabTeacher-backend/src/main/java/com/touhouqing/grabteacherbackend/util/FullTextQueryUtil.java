@@ -0,0 +1,34 @@
+package com.touhouqing.grabteacherbackend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MySQL FULLTEXT（ngram 解析器）检索词构造工具。
+ * - 关键字按空白切分，每个词作为短语必须命中：+"词1" +"词2"（BOOLEAN MODE）；ngram 下短语即连续子串，语义与 LIKE '%词%' 一致
+ * - 去除布尔模式运算符，避免用户输入改变查询语义
+ * - 任一词短于 ngram_token_size（默认 2）时 ngram 无法命中，返回 null，由调用方回退 LIKE
+ */
+public final class FullTextQueryUtil {
+
+    // 与 MySQL ngram_token_size 保持一致
+    public static final int NGRAM_TOKEN_SIZE = 2;
+
+    private FullTextQueryUtil() {
+    }
+
+    /**
+     * 构造 BOOLEAN MODE 检索串；关键字为空或不适合全文检索时返回 null
+     */
+    public static String toBooleanQuery(String keyword) {
+        if (keyword == null) return null;
+        String cleaned = keyword.replaceAll("[+\\-<>()~*\"@]", " ").trim();
+        if (cleaned.isEmpty()) return null;
+        List<String> terms = new ArrayList<>();
+        for (String term : cleaned.split("\\s+")) {
+            if (term.codePointCount(0, term.length()) < NGRAM_TOKEN_SIZE) return null;
+            terms.add("+\"" + term + "\"");
+        }
+        return String.join(" ", terms);
+    }
+}
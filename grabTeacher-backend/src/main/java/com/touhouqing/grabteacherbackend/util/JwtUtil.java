@@ -2,6 +2,7 @@ package com.touhouqing.grabteacherbackend.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -11,6 +12,7 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
+@Slf4j
 @Component
 public class JwtUtil {
 
@@ -20,14 +22,24 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private int jwtExpirationInMs;
 
+    // 签名密钥与解析器线程安全，首次使用时构建一次并复用，避免每次请求重新派生密钥和构建解析器
+    private volatile SecretKey signingKey;
+    private volatile JwtParser jwtParser;
+
     // 可选：使用自动生成的密钥
     // @Autowired
     // private SecretKey jwtSecretKey;
 
     private SecretKey getSigningKey() {
+        SecretKey key = signingKey;
+        if (key != null) {
+            return key;
+        }
         // 方式1：使用配置文件中的密钥（已修复长度问题）
         String paddedSecret = padSecret(jwtSecret);
-        return Keys.hmacShaKeyFor(paddedSecret.getBytes(StandardCharsets.UTF_8));
+        key = Keys.hmacShaKeyFor(paddedSecret.getBytes(StandardCharsets.UTF_8));
+        signingKey = key;
+        return key;
         
         // 方式2：使用自动生成的密钥（取消注释上面的@Autowired）
         // return jwtSecretKey;
@@ -66,10 +78,19 @@ public class JwtUtil {
                 .compact();
     }
 
+    private JwtParser getParser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            parser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            jwtParser = parser;
+        }
+        return parser;
+    }
+
     public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        Claims claims = getParser()
                 .parseClaimsJws(token)
                 .getBody();
 
@@ -77,23 +98,28 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String authToken) {
+        return parseUserId(authToken) != null;
+    }
+
+    /**
+     * 单次解析：验签、校验过期并取出用户ID；令牌无效时返回 null
+     */
+    public Long parseUserId(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
+            return getUserIdFromJWT(authToken);
         } catch (SecurityException ex) {
-            System.err.println("JWT签名无效");
+            log.warn("JWT签名无效");
         } catch (MalformedJwtException ex) {
-            System.err.println("JWT格式错误");
+            log.warn("JWT格式错误");
         } catch (ExpiredJwtException ex) {
-            System.err.println("JWT已过期");
+            log.debug("JWT已过期");
         } catch (UnsupportedJwtException ex) {
-            System.err.println("不支持的JWT");
+            log.warn("不支持的JWT");
         } catch (IllegalArgumentException ex) {
-            System.err.println("JWT为空");
+            log.debug("JWT为空");
+        } catch (JwtException ex) {
+            log.warn("JWT签名无效");
         }
-        return false;
+        return null;
     }
 } 
\ No newline at end of file
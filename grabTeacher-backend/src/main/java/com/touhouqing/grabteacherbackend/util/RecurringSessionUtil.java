@@ -0,0 +1,66 @@
+package com.touhouqing.grabteacherbackend.util;
+
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 周期预约（booking_requests.recurring_weekdays / recurring_time_slots）按日期展开工具。
+ * - 星期取值与预约提交时一致：0 表示周日；非法星期值忽略
+ * - 无法解析的时段跳过并记录告警，同一预约的其他时段照常展开
+ */
+@Slf4j
+public final class RecurringSessionUtil {
+
+    private RecurringSessionUtil() {
+    }
+
+    /**
+     * 展开周期预约在 [from, to] 与预约起止日期交集内的全部课次（按日期、时段顺序）；
+     * from/to 为空表示不额外限制，字段不完整时返回空列表
+     */
+    public static List<CalendarSessionUtil.CalendarSession> expand(BookingRequest br, LocalDate from, LocalDate to) {
+        if (br == null || br.getStartDate() == null || br.getEndDate() == null
+                || br.getRecurringWeekdays() == null || br.getRecurringTimeSlots() == null) {
+            return Collections.emptyList();
+        }
+        Set<Integer> weekdays = new HashSet<>();
+        for (String w : br.getRecurringWeekdays().split(",")) {
+            try {
+                weekdays.add(Integer.parseInt(w.trim()));
+            } catch (NumberFormatException ignored) {
+                // 非法星期值忽略
+            }
+        }
+        List<LocalTime[]> slots = new ArrayList<>();
+        for (String slot : br.getRecurringTimeSlots().split(",")) {
+            String[] times = slot.trim().split("-");
+            try {
+                if (times.length != 2) throw new IllegalArgumentException("格式应为 HH:mm-HH:mm");
+                slots.add(new LocalTime[]{LocalTime.parse(times[0].trim()), LocalTime.parse(times[1].trim())});
+            } catch (RuntimeException e) {
+                log.warn("周期预约时段无法解析，已跳过 bookingId={}, slot={}, err={}", br.getId(), slot, e.getMessage());
+            }
+        }
+        if (weekdays.isEmpty() || slots.isEmpty()) return Collections.emptyList();
+
+        LocalDate start = from != null && from.isAfter(br.getStartDate()) ? from : br.getStartDate();
+        LocalDate end = to != null && to.isBefore(br.getEndDate()) ? to : br.getEndDate();
+        List<CalendarSessionUtil.CalendarSession> res = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            int dayOfWeek = d.getDayOfWeek().getValue();
+            if (!weekdays.contains(dayOfWeek == 7 ? 0 : dayOfWeek)) continue;
+            for (LocalTime[] t : slots) {
+                res.add(new CalendarSessionUtil.CalendarSession(d, t[0], t[1]));
+            }
+        }
+        return res;
+    }
+}
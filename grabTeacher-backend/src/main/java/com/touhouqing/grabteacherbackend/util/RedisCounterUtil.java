@@ -0,0 +1,65 @@
+package com.touhouqing.grabteacherbackend.util;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Redis 计数哈希（仪表盘、列表总数等）的公共写操作：
+ * - 增量仅在哈希已存在时生效，避免产生只含部分字段的哈希；哈希缺失时由读取方整体重建
+ * - 计数只反映已提交的数据，事务内的更新登记到提交后执行
+ */
+public final class RedisCounterUtil {
+
+    // 仅在哈希存在时累加：KEYS[1]=哈希，ARGV 为 字段,增量 成对出现
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "for i = 1, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return 1", Long.class);
+
+    private RedisCounterUtil() {
+    }
+
+    /**
+     * 哈希存在时按字段累加，增量为 0 的字段跳过
+     */
+    public static void incrementIfExists(StringRedisTemplate stringRedisTemplate, String key, Map<String, Integer> deltas) {
+        List<String> args = new ArrayList<>(deltas.size() * 2);
+        deltas.forEach((field, delta) -> {
+            if (delta == null || delta == 0) return;
+            args.add(field);
+            args.add(String.valueOf(delta));
+        });
+        if (args.isEmpty()) return;
+        stringRedisTemplate.execute(INCR_IF_EXISTS, List.of(key), args.toArray());
+    }
+
+    /**
+     * 有事务时提交后执行，否则立即执行；异常交给 onFailure，不影响调用方
+     */
+    public static void afterCommit(Runnable action, Consumer<Exception> onFailure) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                onFailure.accept(e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("预压缩 JSON 输出测试")
+public class CachedJsonTest {
+
+    private static final String JSON = "{\"success\":true,\"data\":[1,2,3]}";
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("ETag 为内容摘要的弱标签，内容相同则一致")
+    public void testEtagStable() {
+        CachedJson a = CachedJson.of(JSON);
+
+        assertTrue(a.etag().startsWith("W/\""));
+        assertEquals(a.etag(), CachedJson.of(JSON).etag());
+        assertNotEquals(a.etag(), CachedJson.of("{\"success\":true}").etag());
+        assertEquals(JSON, a.json());
+        assertEquals(JSON.getBytes(StandardCharsets.UTF_8).length, a.rawLength());
+    }
+
+    @Test
+    @DisplayName("If-None-Match 弱比较：强/弱标签、列表与 * 均命中")
+    public void testNotModified() {
+        CachedJson cached = CachedJson.of(JSON);
+        String strong = cached.etag().substring(2);
+
+        assertTrue(cached.notModified(request(HttpHeaders.IF_NONE_MATCH, cached.etag())));
+        assertTrue(cached.notModified(request(HttpHeaders.IF_NONE_MATCH, strong)));
+        assertTrue(cached.notModified(request(HttpHeaders.IF_NONE_MATCH, "\"other\", " + strong)));
+        assertTrue(cached.notModified(request(HttpHeaders.IF_NONE_MATCH, "*")));
+        assertFalse(cached.notModified(request(HttpHeaders.IF_NONE_MATCH, "\"other\"")));
+        assertFalse(cached.notModified(new MockHttpServletRequest()));
+    }
+
+    @Test
+    @DisplayName("接受 gzip 时输出压缩字节，q=0 或未声明时输出原文")
+    public void testAcceptEncoding() throws Exception {
+        CachedJson cached = CachedJson.of(JSON);
+
+        MockHttpServletResponse gzip = write(cached, request(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"));
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(JSON, gunzip(gzip.getContentAsByteArray()));
+
+        MockHttpServletResponse wildcard = write(cached, request(HttpHeaders.ACCEPT_ENCODING, "*"));
+        assertEquals("gzip", wildcard.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        for (String accept : new String[]{"gzip;q=0", "gzip; q=0.0", "br", null}) {
+            MockHttpServletResponse identity = write(cached, request(HttpHeaders.ACCEPT_ENCODING, accept));
+            assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING), String.valueOf(accept));
+            assertEquals(JSON, identity.getContentAsString(StandardCharsets.UTF_8));
+            assertEquals(JSON.getBytes(StandardCharsets.UTF_8).length, identity.getContentLength());
+        }
+    }
+
+    @Test
+    @DisplayName("回源截获时强制输出原文")
+    public void testIdentityOnlyAttribute() throws Exception {
+        MockHttpServletRequest request = request(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request.setAttribute(CachedJson.IDENTITY_ONLY_ATTRIBUTE, Boolean.TRUE);
+
+        MockHttpServletResponse response = write(CachedJson.of(JSON), request);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(JSON, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("304 不带响应体，但保留 ETag、Cache-Control 与 Vary")
+    public void testWriteNotModified() throws Exception {
+        CachedJson cached = CachedJson.of(JSON);
+        MockHttpServletRequest request = request(HttpHeaders.IF_NONE_MATCH, cached.etag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        cached.writeTo(request, response, "public, max-age=30");
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(cached.etag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=30", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("toResponse 按当前请求协商编码")
+    public void testToResponse() throws Exception {
+        CachedJson cached = CachedJson.of(JSON);
+
+        bind(request(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        ResponseEntity<byte[]> gzip = cached.toResponse();
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(JSON, gunzip(gzip.getBody()));
+        assertEquals(cached.etag(), gzip.getHeaders().getETag());
+
+        bind(request(HttpHeaders.IF_NONE_MATCH, cached.etag()));
+        ResponseEntity<byte[]> notModified = cached.toResponse();
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+
+        RequestContextHolder.resetRequestAttributes();
+        assertEquals(JSON, new String(cached.toResponse().getBody(), StandardCharsets.UTF_8));
+    }
+
+    private static MockHttpServletRequest request(String header, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/x");
+        if (value != null) request.addHeader(header, value);
+        return request;
+    }
+
+    private static MockHttpServletResponse write(CachedJson cached, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cached.writeTo(request, response, null);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(cached.etag(), response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        return response;
+    }
+
+    private static void bind(MockHttpServletRequest request) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.touhouqing.grabteacherbackend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.touhouqing.grabteacherbackend.config.PublicJsonCacheConfig;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("公开接口响应缓存过滤器测试")
+public class PublicResponseCacheFilterTest {
+
+    private final Map<String, CachedJson> store = new HashMap<>();
+    private final AtomicInteger chainCalls = new AtomicInteger();
+    private PublicResponseCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        PublicResponseCache cache = mock(PublicResponseCache.class);
+        when(cache.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        when(cache.put(anyString(), anyString())).thenAnswer(inv -> {
+            CachedJson value = CachedJson.of(inv.getArgument(1));
+            store.put(inv.getArgument(0), value);
+            return value;
+        });
+        PublicJsonCacheConfig config = new PublicJsonCacheConfig();
+        config.setResponseMaxAge(Duration.ofSeconds(30));
+        filter = new PublicResponseCacheFilter(cache, config, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("成功结果写入缓存，再次请求不进入控制器；参数顺序不影响命中")
+    public void testCachesSuccessResult() throws Exception {
+        String body = "{\"message\":\"ok\",\"data\":{\"success\":false},\"success\":true}";
+
+        MockHttpServletResponse first = run(get("/api/public/courses", "b=2&a=1"), body);
+        MockHttpServletResponse second = run(get("/api/public/courses", "a=1&b=2"), body);
+
+        assertEquals(1, chainCalls.get());
+        assertEquals(body, second.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=30", second.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    @DisplayName("响应带 Vary: Authorization 与 Accept-Encoding")
+    public void testVaryHeaders() throws Exception {
+        run(get("/api/public/courses", null), "{\"success\":true}");
+        MockHttpServletResponse hit = run(get("/api/public/courses", null), "{\"success\":true}");
+
+        assertTrue(hit.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.AUTHORIZATION));
+        assertTrue(hit.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("失败结果及非 CommonResult 结构不缓存")
+    public void testSkipsNonSuccessBodies() throws Exception {
+        String[] bodies = {
+                "{ \"success\" : false, \"message\":\"x\"}",
+                "{\"message\":\"x\",\"success\":false}",
+                "{\"error\":\"oops\"}",
+                "[1,2]",
+                "{\"success\":\"true\"}",
+                "not json"
+        };
+        for (String body : bodies) {
+            store.clear();
+            chainCalls.set(0);
+            run(get("/api/public/x", null), body);
+            MockHttpServletResponse again = run(get("/api/public/x", null), body);
+            assertEquals(2, chainCalls.get(), body);
+            assertEquals(body, again.getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("命中后 If-None-Match 一致返回 304")
+    public void testNotModifiedOnHit() throws Exception {
+        MockHttpServletResponse first = run(get("/api/public/courses", null), "{\"success\":true}");
+        MockHttpServletRequest conditional = get("/api/public/courses", null);
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse second = run(conditional, "{\"success\":true}");
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), second.getStatus());
+        assertEquals(1, chainCalls.get());
+    }
+
+    @Test
+    @DisplayName("带 Authorization、非 GET 与健康探针不经过缓存")
+    public void testBypass() throws Exception {
+        MockHttpServletRequest auth = get("/api/public/courses", null);
+        auth.addHeader(HttpHeaders.AUTHORIZATION, "Bearer t");
+        MockHttpServletRequest post = get("/api/public/courses", null);
+        post.setMethod("POST");
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{auth, post, get("/api/public/health", null)}) {
+            run(request, "{\"success\":true}");
+        }
+
+        assertEquals(3, chainCalls.get());
+        assertTrue(store.isEmpty());
+    }
+
+    private static MockHttpServletRequest get(String uri, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (query != null) {
+            request.setQueryString(query);
+            for (String pair : query.split("&")) {
+                String[] kv = pair.split("=");
+                request.addParameter(kv[0], kv[1]);
+            }
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            chainCalls.incrementAndGet();
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            res.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
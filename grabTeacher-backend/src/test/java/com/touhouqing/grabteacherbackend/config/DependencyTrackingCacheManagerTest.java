@@ -0,0 +1,100 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.touhouqing.grabteacherbackend.model.vo.CourseVO;
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("课程缓存依赖登记测试")
+public class DependencyTrackingCacheManagerTest {
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private DependencyTrackingCacheManager cacheManager;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        cacheManager = new DependencyTrackingCacheManager(new ConcurrentMapCacheManager(), template);
+    }
+
+    @Test
+    @DisplayName("按教师筛选的列表登记教师范围与内容依赖")
+    public void testTeacherScopedList() {
+        String key = "courseList:v2:page_1:size_10:subject_3:teacher_7";
+        cacheManager.getCache("courseList").put(key, page(course(11L, 7L, 3L)));
+
+        assertTrue(isMember("scope:teacher:7", "courseList|" + key));
+        assertTrue(isMember("course:11", "courseList|" + key));
+        assertTrue(isMember("teacher:7", "courseList|" + key));
+        assertTrue(isMember("subject:3", "courseList|" + key));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:scope:subject:3")));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:scope:all")));
+    }
+
+    @Test
+    @DisplayName("id 段必须完整匹配，不命中更长的数字或其他段名")
+    public void testAnchoredSegments() {
+        String key = "courseList:v2:page_1:size_10:subject_3:status_teacher_9x";
+        cacheManager.getCache("courseList").put(key, page());
+
+        assertTrue(isMember("scope:subject:3", "courseList|" + key));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:scope:teacher:9")));
+    }
+
+    @Test
+    @DisplayName("关键字中伪造的 teacher_ 段不改变范围，按全量登记")
+    public void testKeywordFallsBackToAllScope() {
+        String key = "courseList:v2:page_1:size_10:keyword_a:teacher_5";
+        cacheManager.getCache("courseList").put(key, page());
+
+        assertTrue(isMember("scope:all", "courseList|" + key));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:scope:teacher:5")));
+    }
+
+    @Test
+    @DisplayName("非课程缓存不登记依赖")
+    public void testUntrackedCachePassesThrough() {
+        Cache cache = cacheManager.getCache("teacherList");
+        cache.put("teacher_1", List.of(course(1L, 1L, 1L)));
+
+        assertTrue(template.keys("grabTeacher:cacheDeps:*").isEmpty());
+    }
+
+    private boolean isMember(String dep, String member) {
+        return Boolean.TRUE.equals(template.opsForSet().isMember("grabTeacher:cacheDeps:" + dep, member));
+    }
+
+    private static Page<CourseVO> page(CourseVO... records) {
+        Page<CourseVO> page = new Page<>(1, 10);
+        page.setRecords(List.of(records));
+        return page;
+    }
+
+    private static CourseVO course(Long id, Long teacherId, Long subjectId) {
+        return CourseVO.builder().id(id).teacherId(teacherId).subjectId(subjectId).build();
+    }
+}
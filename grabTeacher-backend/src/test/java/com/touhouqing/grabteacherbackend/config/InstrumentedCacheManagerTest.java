@@ -0,0 +1,120 @@
+package com.touhouqing.grabteacherbackend.config;
+
+import com.touhouqing.grabteacherbackend.cache.CacheLoadScope;
+import com.touhouqing.grabteacherbackend.cache.CacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("缓存指标装饰器测试")
+public class InstrumentedCacheManagerTest {
+
+    private SimpleMeterRegistry registry;
+    private CacheMetrics cacheMetrics;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cacheMetrics = new CacheMetrics(registry);
+        cache = new InstrumentedCacheManager(new ConcurrentMapCacheManager(), cacheMetrics).getCache("course");
+    }
+
+    @Test
+    @DisplayName("命中/未命中/写入/清除注册为带 cache 标签的计量器")
+    public void testCountersRegistered() {
+        cache.get("1");
+        cache.put("1", "v");
+        cache.get("1");
+        cache.evictIfPresent("1");
+        cache.evict("2");
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "course", "result", "hit").counter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "course", "result", "miss").counter().count());
+        assertEquals(1.0, registry.get("cache.puts").tag("cache", "course").counter().count());
+        assertEquals(2.0, registry.get("cache.evictions").tag("cache", "course").counter().count());
+        assertEquals(0.5, cacheMetrics.of("course").getHitRate());
+    }
+
+    @Test
+    @DisplayName("范围内未命中到写入记为一次加载")
+    public void testLoadTimedWithinScope() {
+        CacheLoadScope.enter();
+        try {
+            cache.get("1");
+            cache.put("1", "v");
+        } finally {
+            CacheLoadScope.exit();
+        }
+
+        assertEquals(1, registry.get("cache.load.duration").tag("cache", "course").timer().count());
+    }
+
+    @Test
+    @DisplayName("sync 加载直接计时")
+    public void testSyncLoadTimed() {
+        assertEquals("v", cache.get("1", () -> "v"));
+        assertEquals("v", cache.get("1", () -> "other"));
+
+        assertEquals(1, registry.get("cache.load.duration").tag("cache", "course").timer().count());
+        assertEquals(1, cacheMetrics.of("course").getHitCount());
+        assertEquals(1, cacheMetrics.of("course").getMissCount());
+    }
+
+    @Test
+    @DisplayName("方法抛异常退出范围后不遗留未完成加载")
+    public void testScopeClearedOnException() {
+        assertThrows(IllegalStateException.class, () -> {
+            CacheLoadScope.enter();
+            try {
+                cache.get("1");
+                throw new IllegalStateException("load failed");
+            } finally {
+                CacheLoadScope.exit();
+            }
+        });
+
+        // 范围外的写入不会与之前的未命中配对
+        cache.put("1", "v");
+        assertEquals(0, registry.get("cache.load.duration").tag("cache", "course").timer().count());
+        assertEquals(-1, CacheLoadScope.completed("course", "1"));
+    }
+
+    @Test
+    @DisplayName("嵌套调用只在最外层退出时清理")
+    public void testNestedScope() {
+        CacheLoadScope.enter();
+        try {
+            cache.get("outer");
+            CacheLoadScope.enter();
+            try {
+                cache.get("inner");
+                cache.put("inner", "v");
+            } finally {
+                CacheLoadScope.exit();
+            }
+            cache.put("outer", "v");
+        } finally {
+            CacheLoadScope.exit();
+        }
+
+        assertEquals(2, registry.get("cache.load.duration").tag("cache", "course").timer().count());
+    }
+
+    @Test
+    @DisplayName("重置后计量器从注册表移除并重新计数")
+    public void testReset() {
+        cache.get("1");
+        cacheMetrics.reset();
+
+        assertTrue(registry.find("cache.gets").counters().isEmpty());
+        cache.get("1");
+        assertEquals(1, cacheMetrics.of("course").getMissCount());
+        assertTrue(cacheMetrics.of("course").loadLatencySummary().containsKey("p95"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.touhouqing.grabteacherbackend.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("报名批量累加课次 SQL 测试")
+public class CourseEnrollmentMapperTest {
+
+    private static MybatisConfiguration configuration;
+
+    @BeforeAll
+    static void buildConfiguration() {
+        configuration = new MybatisConfiguration();
+        configuration.addMapper(CourseEnrollmentMapper.class);
+    }
+
+    @Test
+    @DisplayName("每个 CASE 按报名ID给出各自的增量，WHERE 只包含这些报名")
+    public void testAddCompletedSessionsSql() {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(11L, 2);
+        deltas.put(12L, 1);
+
+        BoundSql sql = boundSql(deltas);
+        String text = normalize(sql.getSql());
+
+        assertEquals("UPDATE course_enrollments SET "
+                + "enrollment_status = CASE WHEN total_sessions IS NOT NULL AND COALESCE(completed_sessions, 0) < total_sessions "
+                + "AND COALESCE(completed_sessions, 0) + (CASE id WHEN ? THEN ? WHEN ? THEN ? END) >= total_sessions "
+                + "THEN 'completed' ELSE enrollment_status END, "
+                + "completed_sessions = CASE WHEN total_sessions IS NULL "
+                + "THEN COALESCE(completed_sessions, 0) + (CASE id WHEN ? THEN ? WHEN ? THEN ? END) "
+                + "ELSE GREATEST(COALESCE(completed_sessions, 0), LEAST(COALESCE(completed_sessions, 0) + (CASE id WHEN ? THEN ? WHEN ? THEN ? END), total_sessions)) END "
+                + "WHERE id IN ( ? , ? )", text);
+        assertEquals(List.of(11L, 2, 12L, 1, 11L, 2, 12L, 1, 11L, 2, 12L, 1, 11L, 12L), values(sql));
+    }
+
+    @Test
+    @DisplayName("状态列先于课次列赋值（MySQL 按顺序求值，状态判定引用累加前的课次）")
+    public void testStatusAssignedBeforeSessions() {
+        String text = normalize(boundSql(Map.of(1L, 1)).getSql());
+
+        assertTrue(text.indexOf("enrollment_status = CASE") < text.indexOf("completed_sessions = CASE"));
+    }
+
+    private static BoundSql boundSql(Map<Long, Integer> deltas) {
+        MappedStatement ms = configuration.getMappedStatement(CourseEnrollmentMapper.class.getName() + ".addCompletedSessions");
+        return ms.getBoundSql(Map.of("deltas", deltas));
+    }
+
+    private static List<Object> values(BoundSql sql) {
+        return sql.getParameterMappings().stream()
+                .map(ParameterMapping::getProperty)
+                .map(sql::getAdditionalParameter)
+                .toList();
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,168 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.cache.TeacherBusySlotsNearCache;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.service.BookingAdmissionService.Admission;
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("预约准入占位脚本测试")
+public class BookingAdmissionServiceTest {
+
+    private static final Long TEACHER_ID = 9L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private CourseScheduleMapper courseScheduleMapper;
+    private TeacherScheduleCacheService cacheService;
+    private BookingAdmissionService service;
+    private final List<CourseSchedule> dbSchedules = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        courseScheduleMapper = mock(CourseScheduleMapper.class);
+        when(courseScheduleMapper.findByTeacherIdAndDateRange(eq(TEACHER_ID), any(), any())).thenAnswer(inv -> new ArrayList<>(dbSchedules));
+        cacheService = new TeacherScheduleCacheService(template, new TeacherBusySlotsNearCache(template, null));
+        service = new BookingAdmissionService(template, cacheService, courseScheduleMapper);
+    }
+
+    @Test
+    @DisplayName("未加载时先按数据库回填再判定")
+    public void testLoadsFromDbWhenNotLoaded() {
+        dbSchedules.add(schedule("10:00", "12:00"));
+
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("11:00"), t("11:30")));
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("13:30"), t("14:00")));
+        verify(courseScheduleMapper, times(1)).findByTeacherIdAndDateRange(TEACHER_ID, DATE, DATE);
+        assertEquals(List.of("10:00-12:00", "13:30-14:00"), cacheService.getBusySlots(TEACHER_ID, DATE));
+    }
+
+    @Test
+    @DisplayName("试听：重叠拒绝，首尾相接放行")
+    public void testTrialOverlap() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, List.of("10:00-10:30"));
+
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("10:00"), t("10:30")));
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("10:15"), t("10:45")));
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("10:30"), t("11:00")));
+    }
+
+    @Test
+    @DisplayName("试听：从基础段起点开始时，该基础段内不得已有占用")
+    public void testTrialBaseGuard() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, List.of("14:00-14:30"));
+
+        // 13:00 为基础段 13:00-15:00 的起点
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("13:00"), t("13:30")));
+        // 非起点只检查重叠
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("13:30"), t("14:00")));
+    }
+
+    @Test
+    @DisplayName("正式课：基础段内已有试听即拒绝")
+    public void testFormalRejectedByTrialInBaseSlot() {
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("09:30"), t("10:00")));
+
+        assertEquals(Admission.REJECTED, service.claimFormal(TEACHER_ID, DATE, t("08:00"), t("10:00")));
+        assertEquals(Admission.REJECTED, service.claimFormal(TEACHER_ID, DATE, t("08:15"), t("09:45")));
+        assertEquals(Admission.CLAIMED, service.claimFormal(TEACHER_ID, DATE, t("10:00"), t("12:00")));
+    }
+
+    @Test
+    @DisplayName("试听：与已占位的正式课重叠即拒绝")
+    public void testTrialRejectedByFormal() {
+        assertEquals(Admission.CLAIMED, service.claimFormal(TEACHER_ID, DATE, t("15:15"), t("16:45")));
+
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("15:00"), t("15:30")));
+        assertEquals(Admission.REJECTED, service.claimTrial(TEACHER_ID, DATE, t("16:30"), t("17:00")));
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("17:30"), t("18:00")));
+    }
+
+    @Test
+    @DisplayName("正式课：不落在基础段内的时段只检查重叠")
+    public void testFormalOutsideBaseSlots() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, List.of("08:00-08:30"));
+
+        assertEquals(Admission.CLAIMED, service.claimFormal(TEACHER_ID, DATE, t("21:00"), t("22:00")));
+        assertEquals(Admission.REJECTED, service.claimFormal(TEACHER_ID, DATE, t("21:30"), t("22:30")));
+    }
+
+    @Test
+    @DisplayName("事务回滚后释放占位及占位登记")
+    public void testRollbackReleasesClaim() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, Collections.emptyList());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("10:00"), t("10:30")));
+            assertEquals(1L, template.opsForZSet().zCard(cacheService.claimKey(TEACHER_ID, DATE)));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(cacheService.getBusySlots(TEACHER_ID, DATE).isEmpty());
+        assertEquals(0L, template.opsForZSet().zCard(cacheService.claimKey(TEACHER_ID, DATE)));
+        assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("10:00"), t("10:30")));
+    }
+
+    @Test
+    @DisplayName("事务提交后保留占位")
+    public void testCommitKeepsClaim() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, Collections.emptyList());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(Admission.CLAIMED, service.claimTrial(TEACHER_ID, DATE, t("10:00"), t("10:30")));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of("10:00-10:30"), cacheService.getBusySlots(TEACHER_ID, DATE));
+    }
+
+    private static CourseSchedule schedule(String start, String end) {
+        return CourseSchedule.builder().teacherId(TEACHER_ID).scheduledDate(DATE)
+                .startTime(t(start)).endTime(t(end)).build();
+    }
+
+    private static LocalTime t(String s) {
+        return LocalTime.parse(s);
+    }
+}
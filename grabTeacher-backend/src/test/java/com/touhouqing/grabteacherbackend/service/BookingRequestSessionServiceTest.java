@@ -0,0 +1,215 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestSessionMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequestSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("待处理预约课次展开测试")
+public class BookingRequestSessionServiceTest {
+
+    @Test
+    @DisplayName("单次预约展开为一条课次")
+    public void testExpandSingle() {
+        BookingRequest br = base("single")
+                .requestedDate(LocalDate.of(2025, 3, 10))
+                .requestedStartTime(LocalTime.of(10, 0))
+                .requestedEndTime(LocalTime.of(12, 0))
+                .build();
+
+        List<BookingRequestSession> sessions = BookingRequestSessionService.expand(br);
+
+        assertEquals(1, sessions.size());
+        BookingRequestSession s = sessions.get(0);
+        assertEquals(1L, s.getBookingRequestId());
+        assertEquals(2L, s.getTeacherId());
+        assertEquals(3L, s.getStudentId());
+        assertEquals(LocalDate.of(2025, 3, 10), s.getSessionDate());
+        assertEquals(LocalTime.of(10, 0), s.getStartTime());
+        assertEquals(LocalTime.of(12, 0), s.getEndTime());
+        assertFalse(s.getIsTrial());
+    }
+
+    @Test
+    @DisplayName("日历预约按所选会话展开，格式错误时为空")
+    public void testExpandCalendar() {
+        BookingRequest br = base("calendar")
+                .selectedSessionsJson("[{\"date\":\"2025-03-10\",\"start\":\"08:00\",\"end\":\"10:00\"},"
+                        + "{\"date\":\"2025-03-12\",\"startTime\":\"13:00\",\"endTime\":\"15:00\"}]")
+                .build();
+
+        List<BookingRequestSession> sessions = BookingRequestSessionService.expand(br);
+
+        assertEquals(2, sessions.size());
+        assertEquals(LocalDate.of(2025, 3, 12), sessions.get(1).getSessionDate());
+        assertEquals(LocalTime.of(13, 0), sessions.get(1).getStartTime());
+
+        br.setSelectedSessionsJson("not-json");
+        assertTrue(BookingRequestSessionService.expand(br).isEmpty());
+    }
+
+    @Test
+    @DisplayName("周期预约按星期展开，0 表示周日")
+    public void testExpandRecurring() {
+        // 2025-03-09 为周日，2025-03-10 为周一
+        BookingRequest br = base("recurring")
+                .startDate(LocalDate.of(2025, 3, 9))
+                .endDate(LocalDate.of(2025, 3, 16))
+                .recurringWeekdays("0,1")
+                .recurringTimeSlots("08:00-10:00,19:00-21:00")
+                .build();
+
+        List<BookingRequestSession> sessions = BookingRequestSessionService.expand(br);
+
+        assertEquals(6, sessions.size());
+        assertEquals(List.of(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 9),
+                        LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 10),
+                        LocalDate.of(2025, 3, 16), LocalDate.of(2025, 3, 16)),
+                sessions.stream().map(BookingRequestSession::getSessionDate).toList());
+        assertEquals(LocalTime.of(19, 0), sessions.get(1).getStartTime());
+    }
+
+    @Test
+    @DisplayName("周期预约跳过无法解析的时段与星期")
+    public void testExpandRecurringSkipsBadValues() {
+        BookingRequest br = base("recurring")
+                .startDate(LocalDate.of(2025, 3, 10))
+                .endDate(LocalDate.of(2025, 3, 10))
+                .recurringWeekdays("x,1")
+                .recurringTimeSlots("bad,25:00-26:00,10:00-12:00")
+                .build();
+
+        List<BookingRequestSession> sessions = BookingRequestSessionService.expand(br);
+
+        assertEquals(1, sessions.size());
+        assertEquals(LocalTime.of(10, 0), sessions.get(0).getStartTime());
+    }
+
+    @Test
+    @DisplayName("超过一年的周期预约完整展开，不截断")
+    public void testExpandLongRecurringNotTruncated() {
+        BookingRequest br = base("recurring")
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2026, 12, 31))
+                .recurringWeekdays("3")
+                .recurringTimeSlots("10:00-12:00")
+                .build();
+
+        List<BookingRequestSession> sessions = BookingRequestSessionService.expand(br);
+
+        assertEquals(LocalDate.of(2026, 12, 30), sessions.get(sessions.size() - 1).getSessionDate());
+        assertEquals(105, sessions.size());
+    }
+
+    @Test
+    @DisplayName("周期预约缺少字段时不展开")
+    public void testExpandRecurringMissingFields() {
+        BookingRequest br = base("recurring")
+                .startDate(LocalDate.of(2025, 3, 10))
+                .recurringWeekdays("1")
+                .recurringTimeSlots("10:00-12:00")
+                .build();
+
+        assertTrue(BookingRequestSessionService.expand(br).isEmpty());
+    }
+
+    @Test
+    @DisplayName("非待处理预约只删除课次不写入")
+    public void testMaterializeSkipsSettled() {
+        BookingRequestSessionMapper sessionMapper = mock(BookingRequestSessionMapper.class);
+        BookingRequestSessionService service = new BookingRequestSessionService(sessionMapper, mock(BookingRequestMapper.class), mock(StringRedisTemplate.class));
+        BookingRequest br = base("single")
+                .status("approved")
+                .requestedDate(LocalDate.of(2025, 3, 10))
+                .requestedStartTime(LocalTime.of(10, 0))
+                .requestedEndTime(LocalTime.of(12, 0))
+                .build();
+
+        service.materialize(br);
+
+        verify(sessionMapper).deleteByBookingRequestId(1L);
+        verify(sessionMapper, never()).insertBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("存量回填补齐缺失课次并写入完成标记")
+    public void testBackfillMaterializesMissing() {
+        BookingRequestSessionMapper sessionMapper = mock(BookingRequestSessionMapper.class);
+        BookingRequestMapper bookingRequestMapper = mock(BookingRequestMapper.class);
+        StringRedisTemplate redis = redis(false, true);
+        BookingRequest br = base("single")
+                .requestedDate(LocalDate.of(2025, 3, 10))
+                .requestedStartTime(LocalTime.of(10, 0))
+                .requestedEndTime(LocalTime.of(12, 0))
+                .build();
+        when(bookingRequestMapper.findPendingWithoutSessions()).thenReturn(List.of(br));
+
+        new BookingRequestSessionService(sessionMapper, bookingRequestMapper, redis).backfillIfNeeded();
+
+        verify(sessionMapper).deleteSettled();
+        verify(sessionMapper).insertBatch(argThat(list -> list.size() == 1));
+        verify(redis.opsForValue()).set(eq("booking_request_sessions:backfill:done"), eq("1"));
+        verify(redis).delete("booking_request_sessions:backfill:lock");
+    }
+
+    @Test
+    @DisplayName("已完成或其他节点持锁时不回填")
+    public void testBackfillSkipped() {
+        BookingRequestSessionMapper sessionMapper = mock(BookingRequestSessionMapper.class);
+        BookingRequestMapper bookingRequestMapper = mock(BookingRequestMapper.class);
+
+        new BookingRequestSessionService(sessionMapper, bookingRequestMapper, redis(true, true)).backfillIfNeeded();
+        new BookingRequestSessionService(sessionMapper, bookingRequestMapper, redis(false, false)).backfillIfNeeded();
+
+        verifyNoInteractions(sessionMapper, bookingRequestMapper);
+    }
+
+    @Test
+    @DisplayName("回填失败不抛出，不写完成标记并释放锁")
+    public void testBackfillFailureRetried() {
+        BookingRequestSessionMapper sessionMapper = mock(BookingRequestSessionMapper.class);
+        StringRedisTemplate redis = redis(false, true);
+        when(sessionMapper.deleteSettled()).thenThrow(new RuntimeException("db down"));
+
+        assertDoesNotThrow(() -> new BookingRequestSessionService(sessionMapper, mock(BookingRequestMapper.class), redis).backfillIfNeeded());
+
+        verify(redis.opsForValue(), never()).set(anyString(), anyString());
+        verify(redis).delete("booking_request_sessions:backfill:lock");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StringRedisTemplate redis(boolean done, boolean lockAcquired) {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(redis.hasKey("booking_request_sessions:backfill:done")).thenReturn(done);
+        when(ops.setIfAbsent(eq("booking_request_sessions:backfill:lock"), eq("1"), any(Duration.class))).thenReturn(lockAcquired);
+        return redis;
+    }
+
+    private static BookingRequest.BookingRequestBuilder base(String type) {
+        return BookingRequest.builder()
+                .id(1L)
+                .teacherId(2L)
+                .studentId(3L)
+                .bookingType(type)
+                .status("pending")
+                .isTrial(false);
+    }
+}
@@ -0,0 +1,142 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("教师缓存键索引失效测试")
+public class CacheKeyEvictorTest {
+
+    private static final Duration INDEX_TTL = Duration.ofHours(1);
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private CacheKeyEvictor evictor;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        evictor = new CacheKeyEvictor(template);
+    }
+
+    @Test
+    @DisplayName("只删除索引登记的 key，并认领（删除）索引集合")
+    public void testEvictIndexedKeys() {
+        cacheTeacherKey(1L, "grabTeacher:teacherSchedule::teacher_1:a");
+        cacheTeacherKey(1L, "grabTeacher:teacherAvailability::teacher_1:b");
+        cacheTeacherKey(2L, "grabTeacher:teacherSchedule::teacher_2:a");
+
+        evictor.evictTeacherScheduleAndAvailability(1L);
+
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:teacherSchedule::teacher_1:a")));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:teacherAvailability::teacher_1:b")));
+        assertFalse(Boolean.TRUE.equals(template.hasKey(CacheKeyEvictor.teacherKeyIndex(1L))));
+        assertTrue(Boolean.TRUE.equals(template.hasKey("grabTeacher:teacherSchedule::teacher_2:a")));
+    }
+
+    @Test
+    @DisplayName("失效后重新写入的 key 登记到新索引，下次失效仍被删除")
+    public void testKeyRewrittenAfterEvictionStaysIndexed() {
+        String key = "grabTeacher:teacherSchedule::teacher_1:a";
+        cacheTeacherKey(1L, key);
+        evictor.evictTeacherScheduleAndAvailability(1L);
+
+        cacheTeacherKey(1L, key);
+        assertEquals(Boolean.TRUE, template.opsForSet().isMember(CacheKeyEvictor.teacherKeyIndex(1L), key));
+
+        evictor.evictTeacherScheduleAndAvailability(1L);
+        assertFalse(Boolean.TRUE.equals(template.hasKey(key)));
+    }
+
+    @Test
+    @DisplayName("整月历失效同时删除版本号 key")
+    public void testEvictMonthlyCalendarWithVersion() {
+        String key = "grabTeacher:teacherMonthlyCalendar:t:1:2025:3";
+        template.opsForValue().set(key, "{}");
+        template.opsForValue().set(key + ":ver", "3");
+        CacheKeyEvictor.registerKey(template, CacheKeyEvictor.monthlyCalendarKeyIndex(1L), key, INDEX_TTL);
+
+        evictor.evictTeacherMonthlyCalendar(1L, null);
+
+        assertFalse(Boolean.TRUE.equals(template.hasKey(key)));
+        assertFalse(Boolean.TRUE.equals(template.hasKey(key + ":ver")));
+    }
+
+    @Test
+    @DisplayName("基准：失效的 Redis 命令数与耗时不随全库 key 数量增长，且不执行 SCAN/KEYS")
+    public void testEvictionCostIndependentOfKeyspace() {
+        Map<String, Long> small = measureEviction(1_000);
+        Map<String, Long> large = measureEviction(100_000);
+
+        assertFalse(large.containsKey("scan") || large.containsKey("keys"), "eviction must not scan the keyspace: " + large);
+        assertEquals(small, large);
+    }
+
+    /**
+     * 在 unrelated 个无关 key 的库中失效一个登记了 20 个 key 的教师，返回各命令的调用次数
+     */
+    private Map<String, Long> measureEviction(int unrelated) {
+        redis.flushAll();
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < unrelated; i++) {
+                connection.stringCommands().set(("grabTeacher:other:" + i).getBytes(StandardCharsets.UTF_8), "x".getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (int i = 0; i < 20; i++) {
+            cacheTeacherKey(1L, "grabTeacher:teacherSchedule::teacher_1:" + i);
+        }
+        // 预热：脚本首次执行可能走 EVALSHA 失败后 EVAL，不计入统计
+        evictor.evictTeacherScheduleAndAvailability(99L);
+        template.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().resetConfigStats();
+            return null;
+        });
+
+        long start = System.nanoTime();
+        evictor.evictTeacherScheduleAndAvailability(1L);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        Properties stats = template.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("commandstats"));
+        Map<String, Long> calls = new HashMap<>();
+        for (String name : stats.stringPropertyNames()) {
+            String cmd = name.substring(name.indexOf('_') + 1);
+            if (cmd.equals("info") || cmd.startsWith("config")) continue;
+            String value = stats.getProperty(name);
+            calls.put(cmd, Long.parseLong(value.substring(value.indexOf("calls=") + 6, value.indexOf(','))));
+        }
+        System.out.printf("keyspace=%d, evict=%dus, commands=%s%n", unrelated + 21, elapsedMicros, calls);
+        assertEquals(unrelated, template.execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize()));
+        return calls;
+    }
+
+    private void cacheTeacherKey(Long teacherId, String key) {
+        template.opsForValue().set(key, "{}");
+        CacheKeyEvictor.registerKey(template, CacheKeyEvictor.teacherKeyIndex(teacherId), key, INDEX_TTL);
+    }
+}
@@ -0,0 +1,135 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("课程缓存依赖失效测试")
+public class CourseCacheInvalidatorTest {
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private CacheManager cacheManager;
+    private CourseCacheInvalidator invalidator;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        cacheManager = new ConcurrentMapCacheManager();
+        invalidator = new CourseCacheInvalidator(cacheManager, template);
+    }
+
+    @Test
+    @DisplayName("只删除依赖该课程的条目，并清空对应依赖集合")
+    public void testEvictCourseDependents() {
+        put("course", "1", List.of(CourseCacheInvalidator.courseDep(1L)));
+        put("courseList", "page_1", List.of(CourseCacheInvalidator.courseDep(1L), CourseCacheInvalidator.courseDep(2L)));
+        put("courseList", "page_2", List.of(CourseCacheInvalidator.courseDep(2L)));
+
+        invalidator.evictCourse(1L);
+
+        assertNull(cache("course").get("1"));
+        assertNull(cache("courseList").get("page_1"));
+        assertNotNull(cache("courseList").get("page_2"));
+        assertFalse(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:course:1")));
+        assertTrue(Boolean.TRUE.equals(template.hasKey("grabTeacher:cacheDeps:course:2")));
+    }
+
+    @Test
+    @DisplayName("范围变化时删除同范围列表、精选 ID 与教师列表")
+    public void testEvictMembership() {
+        put("courseList", "teacher_7", List.of(CourseCacheInvalidator.teacherScope(7L)));
+        put("courseList", "teacher_8", List.of(CourseCacheInvalidator.teacherScope(8L)));
+        put("activeCoursesAll", "all", List.of(CourseCacheInvalidator.allScope()));
+        cache("featuredCourseIds").put("all", List.of(1L));
+        cache("teacherList").put("page_1", List.of());
+
+        invalidator.evictMembership(null, List.of(7L), List.of());
+
+        assertNull(cache("courseList").get("teacher_7"));
+        assertNotNull(cache("courseList").get("teacher_8"));
+        assertNull(cache("activeCoursesAll").get("all"));
+        assertNull(cache("featuredCourseIds").get("all"));
+        assertNull(cache("teacherList").get("page_1"));
+    }
+
+    @Test
+    @DisplayName("事务内延迟到提交后删除")
+    public void testDeferredUntilCommit() {
+        put("course", "1", List.of(CourseCacheInvalidator.courseDep(1L)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            invalidator.evictCourse(1L);
+            assertNotNull(cache("course").get("1"));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache("course").get("1"));
+    }
+
+    @Test
+    @DisplayName("删除条目期间重新登记的依赖不被清除")
+    public void testReRegistrationDuringEvictSurvives() {
+        // 删除条目后并发读立即回源并重新登记依赖
+        cacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name) {
+                    @Override
+                    public boolean evictIfPresent(Object key) {
+                        boolean present = super.evictIfPresent(key);
+                        put(key, "reloaded");
+                        CourseCacheInvalidator.register(template, name, key, List.of(CourseCacheInvalidator.courseDep(1L)));
+                        return present;
+                    }
+                };
+            }
+        };
+        invalidator = new CourseCacheInvalidator(cacheManager, template);
+        put("course", "1", List.of(CourseCacheInvalidator.courseDep(1L)));
+
+        invalidator.evictCourse(1L);
+
+        assertEquals("reloaded", cache("course").get("1").get());
+        assertTrue(Boolean.TRUE.equals(template.opsForSet().isMember("grabTeacher:cacheDeps:course:1", "course|1")));
+    }
+
+    private void put(String cacheName, String key, List<String> deps) {
+        cache(cacheName).put(key, "v");
+        CourseCacheInvalidator.register(template, cacheName, key, deps);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
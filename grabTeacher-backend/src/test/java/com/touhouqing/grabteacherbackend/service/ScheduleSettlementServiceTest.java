@@ -0,0 +1,114 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.mapper.HourDetailMapper;
+import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.model.entity.HourDetail;
+import com.touhouqing.grabteacherbackend.model.entity.Teacher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@DisplayName("过期课程安排分块结算测试")
+public class ScheduleSettlementServiceTest {
+
+    private CourseScheduleMapper scheduleMapper;
+    private CourseEnrollmentMapper courseEnrollmentMapper;
+    private CourseMapper courseMapper;
+    private TeacherMapper teacherMapper;
+    private HourDetailMapper hourDetailMapper;
+    private DashboardCounterService dashboardCounterService;
+    private ScheduleSettlementService service;
+
+    @BeforeEach
+    void setUp() {
+        scheduleMapper = mock(CourseScheduleMapper.class);
+        courseEnrollmentMapper = mock(CourseEnrollmentMapper.class);
+        courseMapper = mock(CourseMapper.class);
+        teacherMapper = mock(TeacherMapper.class);
+        hourDetailMapper = mock(HourDetailMapper.class);
+        dashboardCounterService = mock(DashboardCounterService.class);
+        service = new ScheduleSettlementService(scheduleMapper, courseEnrollmentMapper, courseMapper,
+                teacherMapper, hourDetailMapper, dashboardCounterService);
+    }
+
+    @Test
+    @DisplayName("只结算仍为 scheduled 的行，按报名聚合课次")
+    public void testSettlesLockedRowsOnly() {
+        when(scheduleMapper.lockScheduledIds(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(1L, 2L, 4L));
+
+        int settled = service.settleChunk(List.of(
+                schedule(1L, 10L, 7L), schedule(2L, 10L, 7L), schedule(3L, 11L, 8L), schedule(4L, null, 9L)));
+
+        assertEquals(3, settled);
+        verify(scheduleMapper).markCompletedByIds(List.of(1L, 2L, 4L));
+        verify(courseEnrollmentMapper).addCompletedSessions(Map.of(10L, 2));
+        verify(dashboardCounterService).evictTeacherStatistics(Set.of(7L, 9L));
+    }
+
+    @Test
+    @DisplayName("没有可结算的行时不写入")
+    public void testNothingLocked() {
+        when(scheduleMapper.lockScheduledIds(any())).thenReturn(List.of());
+
+        assertEquals(0, service.settleChunk(List.of(schedule(1L, 10L, 7L))));
+        verify(scheduleMapper, never()).markCompletedByIds(any());
+        verify(courseEnrollmentMapper, never()).addCompletedSessions(anyMap());
+        verify(hourDetailMapper, never()).insertBatch(anyList());
+        verifyNoInteractions(dashboardCounterService);
+    }
+
+    @Test
+    @DisplayName("按教师滚动生成课时明细，按课程汇总累加本月课时")
+    public void testAccruesTeacherAndCourseHours() {
+        when(scheduleMapper.lockScheduledIds(any())).thenReturn(List.of(1L, 2L, 3L));
+        when(teacherMapper.selectBatchIds(any())).thenReturn(List.of(
+                Teacher.builder().id(7L).userId(70L).realName("张老师").build(),
+                Teacher.builder().id(8L).userId(80L).realName("李老师").build()));
+        when(hourDetailMapper.findLastByUserIds(any())).thenReturn(List.of(
+                HourDetail.builder().userId(70L).hoursAfter(new BigDecimal("3.00")).build()));
+        CourseSchedule ninety = schedule(3L, 11L, 8L);
+        ninety.setCourseId(101L);
+        ninety.setEndTime(LocalTime.of(11, 30));
+        CourseSchedule first = schedule(1L, 10L, 7L);
+        first.setCourseId(100L);
+        CourseSchedule second = schedule(2L, 10L, 7L);
+        second.setCourseId(100L);
+
+        service.settleChunk(List.of(first, second, ninety));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<HourDetail>> details = ArgumentCaptor.forClass(List.class);
+        verify(hourDetailMapper).insertBatch(details.capture());
+        List<HourDetail> rows = details.getValue();
+        assertEquals(3, rows.size());
+        assertEquals(new BigDecimal("3.00"), rows.get(0).getHoursBefore());
+        assertEquals(new BigDecimal("5.00"), rows.get(0).getHoursAfter());
+        assertEquals(new BigDecimal("7.00"), rows.get(1).getHoursAfter());
+        assertEquals(80L, rows.get(2).getUserId());
+        assertEquals(new BigDecimal("1.50"), rows.get(2).getHoursAfter());
+        verify(courseMapper).addCourseCurrentHours(Map.of(100L, new BigDecimal("4.00"), 101L, new BigDecimal("1.50")));
+        verify(dashboardCounterService).evictTeacherStatistics(Set.of(7L, 8L));
+    }
+
+    private static CourseSchedule schedule(Long id, Long enrollmentId, Long teacherId) {
+        return CourseSchedule.builder().id(id).enrollmentId(enrollmentId).teacherId(teacherId)
+                .startTime(LocalTime.of(10, 0)).endTime(LocalTime.of(12, 0)).build();
+    }
+}
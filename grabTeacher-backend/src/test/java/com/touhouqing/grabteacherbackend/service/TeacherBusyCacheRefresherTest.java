@@ -0,0 +1,129 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.cache.TeacherBusySlotsNearCache;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("教师忙时缓存异步刷新测试")
+public class TeacherBusyCacheRefresherTest {
+
+    private static final Long TEACHER_ID = 7L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private CourseScheduleMapper courseScheduleMapper;
+    private TeacherScheduleCacheService cacheService;
+    private BookingAdmissionService admissionService;
+    private TeacherBusyCacheRefresher refresher;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        courseScheduleMapper = mock(CourseScheduleMapper.class);
+        cacheService = new TeacherScheduleCacheService(template, new TeacherBusySlotsNearCache(template, null));
+        admissionService = new BookingAdmissionService(template, cacheService, courseScheduleMapper);
+        // 同步执行刷新任务，便于断言
+        refresher = new TeacherBusyCacheRefresher(new CacheKeyEvictor(template), courseScheduleMapper, cacheService, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("刷新不清除未提交的准入占位")
+    public void testRefreshKeepsPendingClaim() {
+        dbReturns();
+        cacheService.putBusySlots(TEACHER_ID, DATE, Collections.emptyList());
+
+        assertEquals(BookingAdmissionService.Admission.CLAIMED,
+                admissionService.claimTrial(TEACHER_ID, DATE, LocalTime.of(10, 0), LocalTime.of(10, 30)));
+
+        // 占位所在事务尚未提交，数据库中还没有这节课
+        refresher.submit(TEACHER_ID, List.of(DATE));
+
+        assertEquals(List.of("10:00-10:30"), cacheService.getBusySlots(TEACHER_ID, DATE));
+        assertEquals(BookingAdmissionService.Admission.REJECTED,
+                admissionService.claimTrial(TEACHER_ID, DATE, LocalTime.of(10, 0), LocalTime.of(10, 30)));
+    }
+
+    @Test
+    @DisplayName("刷新移除数据库中已不存在的时段并写入新时段")
+    public void testRefreshReplacesStaleDbSlots() {
+        cacheService.putBusySlots(TEACHER_ID, DATE, List.of("08:00-09:00"));
+        dbReturns(schedule("14:00", "15:00"));
+
+        refresher.submit(TEACHER_ID, List.of(DATE));
+
+        assertEquals(List.of("14:00-15:00"), cacheService.getBusySlots(TEACHER_ID, DATE));
+        assertEquals(BookingAdmissionService.Admission.CLAIMED,
+                admissionService.claimTrial(TEACHER_ID, DATE, LocalTime.of(8, 0), LocalTime.of(8, 30)));
+    }
+
+    @Test
+    @DisplayName("刷新清理已到期的占位")
+    public void testRefreshDropsExpiredClaim() {
+        dbReturns();
+        cacheService.putBusySlots(TEACHER_ID, DATE, Collections.emptyList());
+        String busyKey = cacheService.busyKey(TEACHER_ID, DATE);
+        String claimKey = cacheService.claimKey(TEACHER_ID, DATE);
+        template.opsForSet().add(busyKey, "09:00-09:30");
+        template.opsForZSet().add(claimKey, "09:00-09:30", System.currentTimeMillis() - 1000);
+
+        refresher.submit(TEACHER_ID, List.of(DATE));
+
+        assertTrue(cacheService.getBusySlots(TEACHER_ID, DATE).isEmpty());
+        assertEquals(0L, template.opsForZSet().zCard(claimKey));
+    }
+
+    @Test
+    @DisplayName("空日期刷新后仍视为已加载")
+    public void testRefreshMarksEmptyDayLoaded() {
+        dbReturns();
+
+        refresher.submit(TEACHER_ID, List.of(DATE));
+
+        assertTrue(cacheService.isCached(TEACHER_ID, DATE));
+        assertTrue(cacheService.getBusySlots(TEACHER_ID, DATE).isEmpty());
+    }
+
+    private void dbReturns(CourseSchedule... schedules) {
+        when(courseScheduleMapper.findByTeacherIdAndDateRange(eq(TEACHER_ID), any(), any())).thenReturn(List.of(schedules));
+    }
+
+    private static CourseSchedule schedule(String start, String end) {
+        return CourseSchedule.builder()
+                .teacherId(TEACHER_ID)
+                .scheduledDate(DATE)
+                .startTime(LocalTime.parse(start))
+                .endTime(LocalTime.parse(end))
+                .build();
+    }
+}
@@ -0,0 +1,210 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService.DayOccupancy;
+import com.touhouqing.grabteacherbackend.service.TeacherOccupancyService.Layer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("教师占用位图测试")
+public class TeacherOccupancyServiceTest {
+
+    private static final Long TEACHER_ID = 5L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10); // 周一
+
+    private CourseScheduleMapper courseScheduleMapper;
+    private BookingRequestMapper bookingRequestMapper;
+    private TeacherOccupancyService service;
+
+    private final List<CourseSchedule> schedules = new ArrayList<>();
+    private final List<BookingRequest> pendings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        courseScheduleMapper = mock(CourseScheduleMapper.class);
+        bookingRequestMapper = mock(BookingRequestMapper.class);
+        when(courseScheduleMapper.findOccupancyByTeacherAndDate(eq(TEACHER_ID), any())).thenAnswer(inv -> new ArrayList<>(schedules));
+        when(bookingRequestMapper.findPendingByTeacherAndDateRange(eq(TEACHER_ID), any(), any())).thenAnswer(inv -> new ArrayList<>(pendings));
+        service = new TeacherOccupancyService(courseScheduleMapper, bookingRequestMapper);
+    }
+
+    @Test
+    @DisplayName("重叠判定：首尾相接不算重叠")
+    public void testAdjacentIntervalsDoNotOverlap() {
+        schedules.add(schedule("10:00", "12:00", false));
+
+        DayOccupancy day = service.getDay(TEACHER_ID, DATE);
+
+        assertTrue(day.overlaps(t("11:45"), t("12:15"), Layer.FORMAL));
+        assertTrue(day.overlaps(t("09:00"), t("13:00"), Layer.FORMAL));
+        assertFalse(day.overlaps(t("08:00"), t("10:00"), Layer.FORMAL));
+        assertFalse(day.overlaps(t("12:00"), t("12:30"), Layer.FORMAL));
+        // 其他层不受影响
+        assertFalse(day.overlaps(t("10:00"), t("12:00"), Layer.TRIAL, Layer.PENDING_FORMAL, Layer.PENDING_TRIAL));
+    }
+
+    @Test
+    @DisplayName("跨 16:00 的时段同时落在两个 long 上")
+    public void testIntervalAcrossWordBoundary() {
+        schedules.add(schedule("15:45", "16:15", true));
+
+        DayOccupancy day = service.getDay(TEACHER_ID, DATE);
+
+        assertTrue(day.overlaps(t("15:30"), t("16:00"), Layer.TRIAL));
+        assertTrue(day.overlaps(t("16:00"), t("16:30"), Layer.TRIAL));
+        assertFalse(day.overlaps(t("16:15"), t("17:00"), Layer.TRIAL));
+        assertFalse(day.overlaps(t("15:00"), t("15:45"), Layer.TRIAL));
+    }
+
+    @Test
+    @DisplayName("一天的首格与末格")
+    public void testFirstAndLastCells() {
+        schedules.add(schedule("00:00", "00:15", false));
+        schedules.add(schedule("23:45", "23:59", false));
+
+        DayOccupancy day = service.getDay(TEACHER_ID, DATE);
+
+        assertTrue(day.overlaps(t("00:00"), t("00:15"), Layer.FORMAL));
+        assertFalse(day.overlaps(t("00:15"), t("00:30"), Layer.FORMAL));
+        // 23:59 非 15 分钟对齐，当日位图不再精确
+        assertFalse(day.covers(t("08:00"), t("09:00")));
+    }
+
+    @Test
+    @DisplayName("非 15 分钟对齐的时段不由位图判定")
+    public void testCoversRequiresAlignment() {
+        DayOccupancy day = service.getDay(TEACHER_ID, DATE);
+
+        assertTrue(day.covers(t("08:15"), t("09:45")));
+        assertFalse(day.covers(t("08:10"), t("09:00")));
+        assertFalse(day.covers(t("09:00"), t("09:00")));
+    }
+
+    @Test
+    @DisplayName("加载待处理预约：单次 / 周期 / 日历分层")
+    public void testLoadPendingLayers() {
+        pendings.add(BookingRequest.builder().id(1L).bookingType("single").isTrial(true)
+                .requestedDate(DATE).requestedStartTime(t("08:00")).requestedEndTime(t("08:30")).build());
+        pendings.add(BookingRequest.builder().id(2L).bookingType("recurring").isTrial(false)
+                .startDate(DATE.minusDays(7)).endDate(DATE.plusDays(7))
+                .recurringWeekdays("1,3").recurringTimeSlots("bad,13:00-15:00").build());
+        pendings.add(BookingRequest.builder().id(3L).bookingType("calendar").isTrial(false)
+                .selectedSessionsJson("[{\"date\":\"" + DATE + "\",\"start\":\"19:00\",\"end\":\"21:00\"},"
+                        + "{\"date\":\"" + DATE.plusDays(1) + "\",\"start\":\"08:00\",\"end\":\"10:00\"}]").build());
+
+        DayOccupancy day = service.getDay(TEACHER_ID, DATE);
+
+        assertTrue(day.overlaps(t("08:00"), t("08:30"), Layer.PENDING_TRIAL));
+        assertFalse(day.overlaps(t("08:00"), t("08:30"), Layer.PENDING_FORMAL));
+        assertTrue(day.overlaps(t("14:00"), t("14:30"), Layer.PENDING_FORMAL));
+        assertTrue(day.overlaps(t("20:00"), t("20:30"), Layer.PENDING_FORMAL));
+        // 日历中其他日期的会话不计入当天
+        assertFalse(day.overlaps(t("09:00"), t("09:30"), Layer.PENDING_FORMAL));
+        assertTrue(day.covers(t("08:00"), t("10:00")));
+    }
+
+    @Test
+    @DisplayName("增量占位只更新已加载的日期")
+    public void testMarkPendingPatchesLoadedDay() {
+        service.getDay(TEACHER_ID, DATE);
+
+        service.markPending(TEACHER_ID, DATE, t("10:00"), t("12:00"), false);
+        service.markPending(TEACHER_ID, DATE.plusDays(1), t("10:00"), t("12:00"), false);
+
+        assertTrue(service.getDay(TEACHER_ID, DATE).overlaps(t("11:00"), t("11:30"), Layer.PENDING_FORMAL));
+        verify(courseScheduleMapper, times(1)).findOccupancyByTeacherAndDate(TEACHER_ID, DATE);
+        verify(courseScheduleMapper, never()).findOccupancyByTeacherAndDate(TEACHER_ID, DATE.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("失效后重新加载")
+    public void testInvalidateReloads() {
+        service.getDay(TEACHER_ID, DATE);
+        schedules.add(schedule("10:00", "12:00", false));
+
+        assertFalse(service.getDay(TEACHER_ID, DATE).overlaps(t("10:00"), t("12:00"), Layer.FORMAL));
+        service.invalidate(TEACHER_ID, List.of(DATE));
+        assertTrue(service.getDay(TEACHER_ID, DATE).overlaps(t("10:00"), t("12:00"), Layer.FORMAL));
+    }
+
+    @Test
+    @DisplayName("加载期间发生增量时不缓存加载结果")
+    public void testConcurrentPatchDuringLoadNotCached() {
+        when(courseScheduleMapper.findOccupancyByTeacherAndDate(eq(TEACHER_ID), any())).thenAnswer(inv -> {
+            // 模拟加载读库之后、写回之前另一请求提交了占位
+            service.markPending(TEACHER_ID, DATE, t("10:00"), t("12:00"), false);
+            return new ArrayList<>(schedules);
+        }).thenAnswer(inv -> new ArrayList<>(schedules));
+
+        service.getDay(TEACHER_ID, DATE);
+        service.getDay(TEACHER_ID, DATE);
+
+        verify(courseScheduleMapper, times(2)).findOccupancyByTeacherAndDate(TEACHER_ID, DATE);
+    }
+
+    @Test
+    @DisplayName("事务回滚后丢弃增量占位")
+    public void testRollbackDiscardsPatch() {
+        service.getDay(TEACHER_ID, DATE);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.markPending(TEACHER_ID, DATE, t("10:00"), t("12:00"), false);
+            assertTrue(service.getDay(TEACHER_ID, DATE).overlaps(t("10:00"), t("12:00"), Layer.PENDING_FORMAL));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(service.getDay(TEACHER_ID, DATE).overlaps(t("10:00"), t("12:00"), Layer.PENDING_FORMAL));
+    }
+
+    @Test
+    @DisplayName("基础段映射")
+    public void testBaseSlots() {
+        assertArrayEquals(new LocalTime[]{t("13:00"), t("15:00")}, TeacherOccupancyService.findBaseSlot(t("13:30"), t("14:00")));
+        assertNull(TeacherOccupancyService.findBaseSlot(t("11:30"), t("13:30")));
+        List<LocalTime[]> overlapping = TeacherOccupancyService.overlappingBaseSlots(t("09:15"), t("10:45"));
+        assertEquals(2, overlapping.size());
+        assertEquals(t("08:00"), overlapping.get(0)[0]);
+        assertEquals(t("10:00"), overlapping.get(1)[0]);
+        assertTrue(TeacherOccupancyService.overlappingBaseSlots(t("12:00"), t("13:00")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("基础段覆盖：跨相邻段算覆盖，含 12:00-13:00 等区间外部分不算")
+    public void testCoveredByBaseSlots() {
+        assertTrue(TeacherOccupancyService.coveredByBaseSlots(t("08:00"), t("10:00")));
+        assertTrue(TeacherOccupancyService.coveredByBaseSlots(t("09:15"), t("10:45")));
+        assertFalse(TeacherOccupancyService.coveredByBaseSlots(t("11:30"), t("13:30")));
+        assertFalse(TeacherOccupancyService.coveredByBaseSlots(t("12:00"), t("13:00")));
+        assertFalse(TeacherOccupancyService.coveredByBaseSlots(t("07:30"), t("08:30")));
+        assertFalse(TeacherOccupancyService.coveredByBaseSlots(t("20:30"), t("21:30")));
+    }
+
+    private static CourseSchedule schedule(String start, String end, boolean trial) {
+        return CourseSchedule.builder().teacherId(TEACHER_ID).scheduledDate(DATE)
+                .startTime(t(start)).endTime(t(end)).trial(trial).build();
+    }
+
+    private static LocalTime t(String s) {
+        return LocalTime.parse(s);
+    }
+}
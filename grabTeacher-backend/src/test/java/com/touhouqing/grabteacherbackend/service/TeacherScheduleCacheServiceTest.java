@@ -0,0 +1,89 @@
+package com.touhouqing.grabteacherbackend.service;
+
+import com.touhouqing.grabteacherbackend.cache.TeacherBusySlotsNearCache;
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("教师忙时缓存批量读取测试")
+public class TeacherScheduleCacheServiceTest {
+
+    private static final Long TEACHER_ID = 7L;
+    private static final LocalDate DAY1 = LocalDate.of(2025, 3, 10);
+    private static final LocalDate DAY2 = LocalDate.of(2025, 3, 11);
+    private static final LocalDate DAY3 = LocalDate.of(2025, 3, 12);
+
+    private static EmbeddedRedis redis;
+
+    private StringRedisTemplate template;
+    private TeacherScheduleCacheService cacheService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        cacheService = new TeacherScheduleCacheService(template, new TeacherBusySlotsNearCache(template, null));
+    }
+
+    @Test
+    @DisplayName("只返回已加载的日期，空日期为空列表")
+    public void testBatchReturnsOnlyLoadedDays() {
+        cacheService.putBusySlotsBatch(TEACHER_ID, Map.of(
+                DAY1, List.of("10:00-12:00", "08:00-10:00"),
+                DAY2, Collections.emptyList()));
+
+        Map<LocalDate, List<String>> result = cacheService.getBusySlotsBatch(TEACHER_ID, List.of(DAY1, DAY2, DAY3));
+
+        assertEquals(List.of("08:00-10:00", "10:00-12:00"), result.get(DAY1));
+        assertEquals(Collections.emptyList(), result.get(DAY2));
+        assertFalse(result.containsKey(DAY3));
+    }
+
+    @Test
+    @DisplayName("近端缓存命中时不访问 Redis")
+    public void testNearCacheHitSkipsRedis() {
+        cacheService.putBusySlots(TEACHER_ID, DAY1, List.of("10:00-12:00"));
+        assertEquals(List.of("10:00-12:00"), cacheService.getBusySlotsBatch(TEACHER_ID, List.of(DAY1)).get(DAY1));
+
+        // 绕过服务直接改 Redis，近端副本未失效前仍返回旧值
+        template.opsForSet().add(cacheService.busyKey(TEACHER_ID, DAY1), "13:00-15:00");
+        assertEquals(List.of("10:00-12:00"), cacheService.getBusySlotsBatch(TEACHER_ID, List.of(DAY1)).get(DAY1));
+
+        cacheService.invalidateNearCache(TEACHER_ID, List.of(DAY1));
+        assertEquals(List.of("10:00-12:00", "13:00-15:00"), cacheService.getBusySlotsBatch(TEACHER_ID, List.of(DAY1)).get(DAY1));
+    }
+
+    @Test
+    @DisplayName("写路径失效近端副本")
+    public void testWritesInvalidateNearCache() {
+        cacheService.putBusySlots(TEACHER_ID, DAY1, List.of("10:00-12:00"));
+        cacheService.getBusySlotsBatch(TEACHER_ID, List.of(DAY1));
+
+        cacheService.addBusySlot(TEACHER_ID, DAY1, "13:00-15:00");
+        assertEquals(List.of("10:00-12:00", "13:00-15:00"), cacheService.getBusySlots(TEACHER_ID, DAY1));
+
+        cacheService.removeBusySlot(TEACHER_ID, DAY1, "10:00-12:00");
+        assertEquals(List.of("13:00-15:00"), cacheService.getBusySlots(TEACHER_ID, DAY1));
+    }
+}
@@ -0,0 +1,47 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("预约锁键测试")
+public class BookingLockKeysTest {
+
+    private static final Long TEACHER_ID = 3L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+    private static final String PREFIX = "grabTeacher:lock:booking:teacher:3:2025-03-10:";
+
+    @Test
+    @DisplayName("完全落在基础段内只取基础段锁")
+    public void testInsideBaseSlots() {
+        assertEquals(List.of(PREFIX + "10:00-12:00"), keys("10:30", "11:30"));
+        assertEquals(List.of(PREFIX + "08:00-10:00", PREFIX + "10:00-12:00"), keys("09:15", "10:45"));
+    }
+
+    @Test
+    @DisplayName("不落在基础段内只取当日锁")
+    public void testOffSlot() {
+        assertEquals(List.of(PREFIX + "offslot"), keys("12:00", "13:00"));
+    }
+
+    @Test
+    @DisplayName("部分落在基础段外时同时取基础段锁与当日锁，与区间外会话互斥")
+    public void testPartiallyCovered() {
+        List<String> partial = keys("11:30", "13:30");
+        assertEquals(List.of(PREFIX + "10:00-12:00", PREFIX + "13:00-15:00", PREFIX + "offslot"), partial);
+        assertTrue(partial.stream().anyMatch(keys("12:00", "13:00")::contains));
+        assertTrue(keys("20:30", "21:30").contains(PREFIX + "offslot"));
+    }
+
+    private static List<String> keys(String start, String end) {
+        List<String> keys = new ArrayList<>();
+        BookingServiceImpl.addSlotLockKeys(keys, TEACHER_ID, DATE, LocalTime.parse(start), LocalTime.parse(end));
+        return keys;
+    }
+}
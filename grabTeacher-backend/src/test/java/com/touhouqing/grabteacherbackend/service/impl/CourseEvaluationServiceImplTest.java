@@ -0,0 +1,108 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.touhouqing.grabteacherbackend.mapper.CourseEnrollmentMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseEvaluationMapper;
+import com.touhouqing.grabteacherbackend.mapper.TeacherMapper;
+import com.touhouqing.grabteacherbackend.model.entity.CourseEvaluation;
+import com.touhouqing.grabteacherbackend.model.vo.CourseEvaluationVO;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
+import com.touhouqing.grabteacherbackend.service.FeedCounterService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("公开评价游标分页测试")
+public class CourseEvaluationServiceImplTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 10, 9, 30, 15, 500_000_000);
+
+    private CourseEvaluationMapper evaluationMapper;
+    private CourseEvaluationServiceImpl service;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), CourseEvaluation.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        evaluationMapper = mock(CourseEvaluationMapper.class);
+        service = new CourseEvaluationServiceImpl(mock(CourseEnrollmentMapper.class), mock(TeacherMapper.class), mock(FeedCounterService.class));
+        ReflectionTestUtils.setField(service, "baseMapper", evaluationMapper);
+    }
+
+    @Test
+    @DisplayName("nextCursor 回传后按本页最后一条的 (评分, 创建时间, ID) 续查")
+    @SuppressWarnings("unchecked")
+    public void testCursorRoundTrip() {
+        when(evaluationMapper.selectList(any())).thenReturn(
+                new ArrayList<>(List.of(evaluation(9L, "5.0", CREATED_AT.plusDays(1)), evaluation(8L, "4.5", CREATED_AT))),
+                new ArrayList<>(List.of(evaluation(3L, "4.5", CREATED_AT.minusDays(1)))));
+
+        CursorPageVO<CourseEvaluationVO> first = service.listPublicEvaluationsAfter(null, 2, 1L, null, null, null, null);
+        assertEquals(List.of(9L, 8L), first.getRecords().stream().map(CourseEvaluationVO::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        CursorPageVO<CourseEvaluationVO> second = service.listPublicEvaluationsAfter(first.getNextCursor(), 2, 1L, null, null, null, null);
+        assertEquals(List.of(3L), second.getRecords().stream().map(CourseEvaluationVO::getId).toList());
+        assertNull(second.getNextCursor());
+
+        ArgumentCaptor<Wrapper<CourseEvaluation>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(evaluationMapper, times(2)).selectList(captor.capture());
+        LambdaQueryWrapper<CourseEvaluation> firstQuery = (LambdaQueryWrapper<CourseEvaluation>) captor.getAllValues().get(0);
+        LambdaQueryWrapper<CourseEvaluation> secondQuery = (LambdaQueryWrapper<CourseEvaluation>) captor.getAllValues().get(1);
+
+        // 参数在生成 SQL 片段时才写入
+        assertTrue(firstQuery.getSqlSegment().endsWith("LIMIT 2"));
+        assertFalse(firstQuery.getParamNameValuePairs().containsValue(CREATED_AT));
+        assertTrue(secondQuery.getSqlSegment().endsWith("LIMIT 2"));
+        // 游标条件中的取值与上一页最后一条一致（时间精度不丢失）
+        List<Object> values = new ArrayList<>(secondQuery.getParamNameValuePairs().values());
+        assertEquals(2, values.stream().filter(v -> new BigDecimal("4.5").equals(v)).count());
+        assertEquals(2, values.stream().filter(CREATED_AT::equals).count());
+        assertTrue(values.contains(8L));
+    }
+
+    @Test
+    @DisplayName("页大小限制在 1~100")
+    public void testPageSizeCapped() {
+        when(evaluationMapper.selectList(any())).thenReturn(new ArrayList<>());
+
+        assertEquals(100, service.listPublicEvaluationsAfter("", 500, null, null, null, null, null).getSize());
+        assertEquals(1, service.listPublicEvaluationsAfter("", 0, null, null, null, null, null).getSize());
+    }
+
+    @Test
+    @DisplayName("无法解析的游标拒绝")
+    public void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.listPublicEvaluationsAfter("4.5_x", 10, null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.listPublicEvaluationsAfter("x_2025-03-10T09:30_1", 10, null, null, null, null, null));
+        verify(evaluationMapper, never()).selectList(any());
+    }
+
+    private static CourseEvaluation evaluation(Long id, String rating, LocalDateTime createdAt) {
+        CourseEvaluation e = new CourseEvaluation();
+        e.setId(id);
+        e.setTeacherId(1L);
+        e.setRating(new BigDecimal(rating));
+        e.setCreatedAt(createdAt);
+        return e;
+    }
+}
@@ -0,0 +1,175 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import com.touhouqing.grabteacherbackend.model.vo.DayAvailabilityVO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("日可选性内存判定测试")
+public class DayAvailabilityEvaluatorTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+    private static final String[] SEGMENTS = {null, "", "morning", "afternoon", "evening", "night"};
+
+    @Test
+    @DisplayName("随机数据下与原逐段判定结果一致（已排程课节 + 单次待处理试听）")
+    public void testMatchesLegacyPerSlotResults() {
+        Random random = new Random(20250310L);
+        for (int round = 0; round < 300; round++) {
+            List<String> teacherSlots = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int s = 7 * 60 + random.nextInt(28) * 30;
+                teacherSlots.add(label(s, Math.min(s + 30 * (1 + random.nextInt(12)), 23 * 60 + 30)));
+            }
+            List<CourseSchedule> schedules = new ArrayList<>();
+            for (int i = random.nextInt(5); i > 0; i--) {
+                int s = 7 * 60 + random.nextInt(56) * 15;
+                int len = random.nextBoolean() ? 30 : 15 * (1 + random.nextInt(10));
+                schedules.add(CourseSchedule.builder().scheduledDate(DATE).startTime(t(s)).endTime(t(s + len))
+                        .trial(random.nextBoolean()).build());
+            }
+            List<BookingRequest> pendings = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int s = 7 * 60 + random.nextInt(28) * 30;
+                pendings.add(BookingRequest.builder().id((long) i).bookingType("single").isTrial(true)
+                        .requestedDate(DATE).requestedStartTime(t(s)).requestedEndTime(t(s + 30)).build());
+            }
+
+            DayAvailabilityEvaluator evaluator = new DayAvailabilityEvaluator(DATE, DATE, schedules, pendings, Map.of(DATE, teacherSlots));
+            for (String segment : SEGMENTS) {
+                DayAvailabilityVO expected = legacy(teacherSlots, schedules, pendings, segment);
+                assertEquals(expected, evaluator.evaluate(DATE, segment),
+                        "round=" + round + ", segment=" + segment + ", teacher=" + teacherSlots);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("无法解析的教师时段跳过，其余时段照常判定")
+    public void testBadTeacherSlotsSkipped() {
+        DayAvailabilityEvaluator evaluator = new DayAvailabilityEvaluator(DATE, DATE, null, null,
+                Map.of(DATE, Arrays.asList("bad", null, "25:00-26:00", "x-y-z", "12:00-11:00", "08:00-10:00")));
+
+        DayAvailabilityVO vo = evaluator.evaluate(DATE, "morning");
+
+        assertTrue(vo.getBaseSlots().get(0).isFormalAvailable());
+        assertEquals(List.of("teacherUnavailable"), vo.getBaseSlots().get(1).getReasons());
+        assertTrue(vo.getTrialSlots().get(0).isTrialAvailable());
+        assertFalse(vo.getTrialSlots().get(4).isTrialAvailable());
+    }
+
+    @Test
+    @DisplayName("单次待处理正式课占用其所在基础段")
+    public void testSinglePendingFormalMarksBaseSlot() {
+        BookingRequest formal = BookingRequest.builder().id(1L).bookingType("single").isTrial(false)
+                .requestedDate(DATE).requestedStartTime(t(8 * 60)).requestedEndTime(t(10 * 60)).build();
+        DayAvailabilityEvaluator evaluator = new DayAvailabilityEvaluator(DATE, DATE, null, List.of(formal),
+                Map.of(DATE, List.of("08:00-12:00")));
+
+        DayAvailabilityVO vo = evaluator.evaluate(DATE, "morning");
+
+        assertEquals(List.of("pendingFormal"), vo.getBaseSlots().get(0).getReasons());
+        assertTrue(vo.getBaseSlots().get(1).isFormalAvailable());
+        assertEquals(List.of("pendingBooking"), vo.getTrialSlots().get(0).getReasons());
+    }
+
+    /**
+     * 原 AvailabilityServiceImpl 的逐段判定：字符串时段逐个解析比较，数据库计数改为对同样数据的内存等价判断
+     */
+    private static DayAvailabilityVO legacy(List<String> teacherDaySlots, List<CourseSchedule> schedules,
+                                            List<BookingRequest> pendings, String segment) {
+        List<String> baseSlots = Arrays.asList("08:00-10:00", "10:00-12:00", "13:00-15:00", "15:00-17:00", "17:00-19:00", "19:00-21:00");
+        List<String> scheduledSlots = schedules.stream().map(s -> s.getStartTime() + "-" + s.getEndTime()).distinct().toList();
+
+        List<DayAvailabilityVO.BaseSlot> base = new ArrayList<>();
+        for (String bs : baseSlots) {
+            String[] p = bs.split("-");
+            LocalTime bStart = LocalTime.parse(p[0]);
+            LocalTime bEnd = LocalTime.parse(p[1]);
+            List<String> reasons = new ArrayList<>();
+            if (teacherDaySlots.stream().noneMatch(x -> isContained(bs, x))) reasons.add("teacherUnavailable");
+            if (schedules.stream().anyMatch(cs -> Boolean.TRUE.equals(cs.getTrial())
+                    && inBase(cs.getStartTime(), cs.getEndTime(), bStart, bEnd))) reasons.add("scheduledTrial");
+            if (pendings.stream().anyMatch(br -> inBase(br.getRequestedStartTime(), br.getRequestedEndTime(), bStart, bEnd))) reasons.add("pendingTrial");
+            if (scheduledSlots.stream().anyMatch(s -> hasOverlap(bs, s))) reasons.add("busy");
+            base.add(DayAvailabilityVO.BaseSlot.builder().slot(bs).formalAvailable(reasons.isEmpty()).reasons(reasons).build());
+        }
+
+        List<String> segments;
+        if (segment == null || segment.isEmpty()) {
+            segments = Arrays.asList("08:00-12:00", "13:00-17:00", "17:00-21:00");
+        } else {
+            segments = switch (segment) {
+                case "morning" -> Collections.singletonList("08:00-12:00");
+                case "afternoon" -> Collections.singletonList("13:00-17:00");
+                case "evening" -> Collections.singletonList("17:00-21:00");
+                default -> Arrays.asList("08:00-12:00", "13:00-17:00", "17:00-21:00");
+            };
+        }
+        List<DayAvailabilityVO.TrialSlot> trial = new ArrayList<>();
+        for (String seg : segments) {
+            String[] p = seg.split("-");
+            for (LocalTime cur = LocalTime.parse(p[0]); !cur.plusMinutes(30).isAfter(LocalTime.parse(p[1])); cur = cur.plusMinutes(30)) {
+                LocalTime st = cur;
+                LocalTime ed = cur.plusMinutes(30);
+                String s = st + "-" + ed;
+                if (teacherDaySlots.stream().noneMatch(x -> isContained(s, x))) {
+                    trial.add(DayAvailabilityVO.TrialSlot.builder().slot(s).trialAvailable(false)
+                            .reasons(Collections.singletonList("teacherUnavailable")).build());
+                    continue;
+                }
+                List<String> reasons = new ArrayList<>();
+                if (scheduledSlots.stream().anyMatch(x -> hasOverlap(s, x))) reasons.add("busyScheduled");
+                boolean exactScheduled = schedules.stream().anyMatch(cs -> cs.getStartTime().equals(st) && cs.getEndTime().equals(ed));
+                boolean exactPending = pendings.stream().anyMatch(br -> br.getRequestedStartTime().equals(st) && br.getRequestedEndTime().equals(ed));
+                if (exactScheduled || exactPending) reasons.add("duplicateTrialSlot");
+                if (pendings.stream().anyMatch(br -> br.getRequestedStartTime().isBefore(ed) && br.getRequestedEndTime().isAfter(st))) reasons.add("pendingBooking");
+                trial.add(DayAvailabilityVO.TrialSlot.builder().slot(s).trialAvailable(reasons.isEmpty()).reasons(reasons).build());
+            }
+        }
+        return DayAvailabilityVO.builder().date(DATE.toString()).baseSlots(base).trialSlots(trial).build();
+    }
+
+    // countTrialConflictsInBaseSlot / countPendingTrialConflictsInBaseSlot 的判定条件
+    private static boolean inBase(LocalTime start, LocalTime end, LocalTime baseStart, LocalTime baseEnd) {
+        return (!start.isBefore(baseStart) && start.isBefore(baseEnd))
+                || (end.isAfter(baseStart) && !end.isAfter(baseEnd))
+                || (!start.isAfter(baseStart) && !end.isBefore(baseEnd));
+    }
+
+    private static boolean isContained(String child, String parent) {
+        String[] c = child.split("-");
+        String[] p = parent.split("-");
+        LocalTime cs = LocalTime.parse(c[0]);
+        LocalTime ce = LocalTime.parse(c[1]);
+        LocalTime ps = LocalTime.parse(p[0]);
+        LocalTime pe = LocalTime.parse(p[1]);
+        return (cs.equals(ps) || cs.isAfter(ps)) && (ce.equals(pe) || ce.isBefore(pe));
+    }
+
+    private static boolean hasOverlap(String a, String b) {
+        String[] x = a.split("-");
+        String[] y = b.split("-");
+        return LocalTime.parse(x[0]).isBefore(LocalTime.parse(y[1])) && LocalTime.parse(y[0]).isBefore(LocalTime.parse(x[1]));
+    }
+
+    private static LocalTime t(int minutes) {
+        return LocalTime.of(minutes / 60, minutes % 60);
+    }
+
+    private static String label(int start, int end) {
+        return t(start) + "-" + t(end);
+    }
+}
@@ -0,0 +1,113 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.support.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("多键分布式锁脚本测试")
+public class DistributedLockServiceImplTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private static EmbeddedRedis redis;
+    private static RedisMessageListenerContainer listenerContainer;
+
+    private StringRedisTemplate template;
+    private DistributedLockServiceImpl lockService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redis = EmbeddedRedis.start();
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redis.connectionFactory());
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        listenerContainer.destroy();
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        template = redis.template();
+        lockService = new DistributedLockServiceImpl(template, listenerContainer);
+        lockService.subscribeReleaseChannel();
+    }
+
+    @Test
+    @DisplayName("全有或全无：任一键被占用时不持有任何键")
+    public void testAcquireAllOrNothing() {
+        assertTrue(lockService.tryLockAll(List.of("k:b"), "other", TTL, Duration.ZERO));
+
+        assertFalse(lockService.tryLockAll(List.of("k:a", "k:b", "k:c"), "me", TTL, Duration.ZERO));
+        assertNull(template.opsForValue().get("k:a"));
+        assertNull(template.opsForValue().get("k:c"));
+        assertEquals("other", template.opsForValue().get("k:b"));
+    }
+
+    @Test
+    @DisplayName("同一 token 可重入，TTL 生效")
+    public void testReentrantWithTtl() {
+        assertTrue(lockService.tryLockAll(List.of("k:a", "k:b"), "me", TTL, Duration.ZERO));
+        assertTrue(lockService.tryLockAll(List.of("k:b", "k:a"), "me", TTL, Duration.ZERO));
+
+        Long pttl = template.getExpire("k:a", TimeUnit.MILLISECONDS);
+        assertNotNull(pttl);
+        assertTrue(pttl > 0 && pttl <= TTL.toMillis());
+    }
+
+    @Test
+    @DisplayName("释放只删除本 token 持有的键")
+    public void testUnlockOnlyOwnKeys() {
+        assertTrue(lockService.tryLockAll(List.of("k:a"), "me", TTL, Duration.ZERO));
+        assertTrue(lockService.tryLockAll(List.of("k:b"), "other", TTL, Duration.ZERO));
+
+        lockService.unlockAll(List.of("k:a", "k:b"), "me");
+
+        assertNull(template.opsForValue().get("k:a"));
+        assertEquals("other", template.opsForValue().get("k:b"));
+        assertFalse(lockService.unlock("k:b", "me"));
+        assertTrue(lockService.unlock("k:b", "other"));
+    }
+
+    @Test
+    @DisplayName("等待方收到释放通知后立即获取，无需等到 TTL")
+    public void testWaiterWakesOnRelease() throws Exception {
+        assertTrue(lockService.tryLockAll(List.of("k:a", "k:b"), "holder", TTL, Duration.ZERO));
+
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() ->
+                lockService.tryLockAll(List.of("k:b"), "waiter", TTL, Duration.ofSeconds(10)));
+        Thread.sleep(200);
+        assertFalse(waiter.isDone());
+        lockService.unlockAll(List.of("k:a", "k:b"), "holder");
+
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertEquals("waiter", template.opsForValue().get("k:b"));
+    }
+
+    @Test
+    @DisplayName("等待超时返回 false")
+    public void testWaitTimeout() {
+        assertTrue(lockService.tryLockAll(List.of("k:a"), "holder", TTL, Duration.ZERO));
+
+        assertFalse(lockService.tryLockAll(List.of("k:a"), "waiter", TTL, Duration.ofMillis(300)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.exception.BusinessException;
+import com.touhouqing.grabteacherbackend.mapper.MessageMapper;
+import com.touhouqing.grabteacherbackend.model.entity.Message;
+import com.touhouqing.grabteacherbackend.model.vo.CursorPageVO;
+import com.touhouqing.grabteacherbackend.model.vo.MessageVO;
+import com.touhouqing.grabteacherbackend.service.FeedCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("消息游标分页测试")
+public class MessageServiceImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 10, 9, 0, 0, 123_000_000);
+
+    private MessageMapper messageMapper;
+    private MessageServiceImpl service;
+
+    // 按 (created_at, id) 倒序排列的模拟数据，含同一时刻的多条
+    private final List<MessageVO> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        messageMapper = mock(MessageMapper.class);
+        service = new MessageServiceImpl(messageMapper, mock(FeedCounterService.class));
+        rows.add(message(7L, T0.plusMinutes(5)));
+        rows.add(message(6L, T0));
+        rows.add(message(5L, T0));
+        rows.add(message(4L, T0));
+        rows.add(message(2L, T0.minusDays(1)));
+        when(messageMapper.selectActiveMessagesAfter(anyList(), any(), any(), any())).thenAnswer(inv -> {
+            LocalDateTime createdAt = inv.getArgument(1);
+            Long id = inv.getArgument(2);
+            int limit = inv.getArgument(3);
+            return rows.stream()
+                    .filter(m -> createdAt == null || m.getCreatedAt().isBefore(createdAt)
+                            || (m.getCreatedAt().equals(createdAt) && m.getId() < id))
+                    .sorted(Comparator.comparing(MessageVO::getCreatedAt).thenComparing(MessageVO::getId).reversed())
+                    .limit(limit)
+                    .toList();
+        });
+    }
+
+    @Test
+    @DisplayName("逐页使用 nextCursor 可无重复、无遗漏地遍历全部消息")
+    public void testCursorRoundTrip() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageVO<MessageVO> page = service.getStudentMessagesAfter(cursor, 2);
+            assertEquals(2, page.getSize());
+            page.getRecords().forEach(m -> seen.add(m.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of(7L, 6L, 5L, 4L, 2L), seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @DisplayName("恰好整页结束时，最后一次请求返回空页且无游标")
+    public void testExactPageBoundary() {
+        rows.remove(rows.size() - 1);
+
+        CursorPageVO<MessageVO> second = service.getTeacherMessagesAfter(
+                service.getTeacherMessagesAfter("", 2).getNextCursor(), 2);
+        assertEquals(List.of(5L, 4L), second.getRecords().stream().map(MessageVO::getId).toList());
+
+        CursorPageVO<MessageVO> third = service.getTeacherMessagesAfter(second.getNextCursor(), 2);
+        assertTrue(third.getRecords().isEmpty());
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("页大小限制在 1~100")
+    public void testPageSizeCapped() {
+        assertEquals(100, service.getStudentMessagesAfter(null, 1000).getSize());
+        verify(messageMapper).selectActiveMessagesAfter(anyList(), eq(null), eq(null), eq(100));
+        assertEquals(1, service.getStudentMessagesAfter(null, 0).getSize());
+    }
+
+    @Test
+    @DisplayName("无法解析的游标拒绝")
+    public void testInvalidCursor() {
+        assertThrows(BusinessException.class, () -> service.getStudentMessagesAfter("abc", 10));
+        assertThrows(BusinessException.class, () -> service.getStudentMessagesAfter("2025-03-10T09:00_x", 10));
+        verify(messageMapper, never()).selectActiveMessagesAfter(anyList(), any(), any(), any());
+    }
+
+    private static MessageVO message(Long id, LocalDateTime createdAt) {
+        MessageVO vo = new MessageVO();
+        vo.setId(id);
+        vo.setCreatedAt(createdAt);
+        vo.setTargetType(Message.TargetType.ALL);
+        return vo;
+    }
+}
@@ -0,0 +1,150 @@
+package com.touhouqing.grabteacherbackend.service.impl;
+
+import com.touhouqing.grabteacherbackend.mapper.BookingRequestMapper;
+import com.touhouqing.grabteacherbackend.mapper.CourseScheduleMapper;
+import com.touhouqing.grabteacherbackend.model.entity.BookingRequest;
+import com.touhouqing.grabteacherbackend.model.entity.CourseSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("批量排课冲突索引测试")
+public class ScheduleConflictIndexTest {
+
+    private static final Long TEACHER_ID = 4L;
+    private static final Long STUDENT_ID = 8L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 10);
+
+    private CourseScheduleMapper courseScheduleMapper;
+    private BookingRequestMapper bookingRequestMapper;
+
+    private final List<CourseSchedule> teacherSchedules = new ArrayList<>();
+    private final List<CourseSchedule> studentSchedules = new ArrayList<>();
+    private final List<BookingRequest> pendingTrials = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        courseScheduleMapper = mock(CourseScheduleMapper.class);
+        bookingRequestMapper = mock(BookingRequestMapper.class);
+        when(courseScheduleMapper.findOccupancyByTeacherAndDateRange(anyLong(), any(), any()))
+                .thenAnswer(inv -> inRange(teacherSchedules, inv.getArgument(1), inv.getArgument(2)));
+        when(courseScheduleMapper.findOccupancyByStudentAndDateRange(anyLong(), any(), any()))
+                .thenAnswer(inv -> inRange(studentSchedules, inv.getArgument(1), inv.getArgument(2)));
+        when(bookingRequestMapper.findPendingTrialsByTeacherAndDateRange(anyLong(), any(), any()))
+                .thenAnswer(inv -> new ArrayList<>(pendingTrials));
+    }
+
+    @Test
+    @DisplayName("教师已有课节：重叠冲突，首尾相接不冲突")
+    public void testTeacherBusy() {
+        teacherSchedules.add(schedule(DATE, "10:00", "12:00", false));
+        ScheduleConflictIndex index = loaded(STUDENT_ID);
+
+        assertTrue(index.conflicts(DATE, t("11:00"), t("13:00")));
+        assertFalse(index.conflicts(DATE, t("08:00"), t("10:00")));
+        assertFalse(index.conflicts(DATE, t("12:00"), t("13:00")));
+        assertFalse(index.conflicts(DATE.plusDays(1), t("10:00"), t("12:00")));
+    }
+
+    @Test
+    @DisplayName("2小时/1.5小时课程：所在基础段内有已排程或待处理试听即冲突")
+    public void testTrialBlocksBaseSlot() {
+        teacherSchedules.add(schedule(DATE, "08:00", "08:30", true));
+        pendingTrials.add(BookingRequest.builder().requestedDate(DATE)
+                .requestedStartTime(t("14:30")).requestedEndTime(t("15:00")).build());
+        ScheduleConflictIndex index = loaded(STUDENT_ID);
+
+        assertTrue(index.conflicts(DATE, t("08:30"), t("10:00")));
+        assertTrue(index.conflicts(DATE, t("13:00"), t("15:00")));
+        // 1小时课程不做基础段判定，待处理试听也不计入直接重叠
+        assertFalse(index.conflicts(DATE, t("13:00"), t("14:00")));
+        assertFalse(index.conflicts(DATE, t("14:00"), t("15:00")));
+        // 非试听课节不占用整段
+        teacherSchedules.clear();
+        pendingTrials.clear();
+        teacherSchedules.add(schedule(DATE, "15:00", "15:30", false));
+        assertFalse(loaded(STUDENT_ID).conflicts(DATE, t("15:30"), t("17:00")));
+    }
+
+    @Test
+    @DisplayName("学生已有课节冲突；未指定学生时不查询学生占用")
+    public void testStudentBusy() {
+        studentSchedules.add(schedule(DATE, "19:00", "21:00", false));
+
+        assertTrue(loaded(STUDENT_ID).conflicts(DATE, t("20:00"), t("21:00")));
+        assertFalse(loaded(null).conflicts(DATE, t("20:00"), t("21:00")));
+        verify(courseScheduleMapper, times(1)).findOccupancyByStudentAndDateRange(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("本次已生成的课节同时计入教师与学生占用")
+    public void testAcceptedSessionsCount() {
+        ScheduleConflictIndex index = loaded(STUDENT_ID);
+        assertFalse(index.conflicts(DATE, t("17:00"), t("19:00")));
+
+        index.accept(DATE, t("17:00"), t("19:00"));
+
+        assertTrue(index.conflicts(DATE, t("18:00"), t("18:30")));
+        assertFalse(index.conflicts(DATE, t("19:00"), t("21:00")));
+    }
+
+    @Test
+    @DisplayName("扩展区间只补查未覆盖的日期")
+    public void testEnsureLoadedIncremental() {
+        ScheduleConflictIndex index = new ScheduleConflictIndex(courseScheduleMapper, bookingRequestMapper, TEACHER_ID, STUDENT_ID);
+        LocalDate from = DATE;
+        LocalDate to = DATE.plusDays(6);
+
+        index.ensureLoaded(from, to);
+        index.ensureLoaded(from.plusDays(1), to.minusDays(1));
+        index.ensureLoaded(from.minusDays(3), to.plusDays(7));
+        index.ensureLoaded(to, from);
+
+        verify(courseScheduleMapper).findOccupancyByTeacherAndDateRange(TEACHER_ID, from, to);
+        verify(courseScheduleMapper).findOccupancyByTeacherAndDateRange(TEACHER_ID, from.minusDays(3), from.minusDays(1));
+        verify(courseScheduleMapper).findOccupancyByTeacherAndDateRange(TEACHER_ID, to.plusDays(1), to.plusDays(7));
+        verify(courseScheduleMapper, times(3)).findOccupancyByTeacherAndDateRange(anyLong(), any(), any());
+        verify(bookingRequestMapper, times(3)).findPendingTrialsByTeacherAndDateRange(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("后补加载的日期同样参与判定")
+    public void testLaterLoadedRangeUsed() {
+        teacherSchedules.add(schedule(DATE.plusDays(10), "10:00", "12:00", false));
+        ScheduleConflictIndex index = loaded(STUDENT_ID);
+        assertFalse(index.conflicts(DATE.plusDays(10), t("10:00"), t("12:00")));
+
+        index.ensureLoaded(DATE, DATE.plusDays(14));
+
+        assertTrue(index.conflicts(DATE.plusDays(10), t("10:00"), t("12:00")));
+    }
+
+    private ScheduleConflictIndex loaded(Long studentId) {
+        ScheduleConflictIndex index = new ScheduleConflictIndex(courseScheduleMapper, bookingRequestMapper, TEACHER_ID, studentId);
+        index.ensureLoaded(DATE, DATE.plusDays(6));
+        return index;
+    }
+
+    private static List<CourseSchedule> inRange(List<CourseSchedule> source, LocalDate from, LocalDate to) {
+        return source.stream().filter(cs -> !cs.getScheduledDate().isBefore(from) && !cs.getScheduledDate().isAfter(to)).toList();
+    }
+
+    private static CourseSchedule schedule(LocalDate date, String start, String end, boolean trial) {
+        return CourseSchedule.builder().teacherId(TEACHER_ID).scheduledDate(date)
+                .startTime(t(start)).endTime(t(end)).trial(trial).build();
+    }
+
+    private static LocalTime t(String s) {
+        return LocalTime.parse(s);
+    }
+}